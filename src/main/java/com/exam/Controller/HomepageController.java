@@ -50,6 +50,8 @@ import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -62,19 +64,33 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriUtils;
 
+import com.exam.entity.AnswerDetails;
+import com.exam.entity.DistributedAssignment;
 import com.exam.entity.EnrolledStudent;
 import com.exam.entity.ExamSubmission;
+import com.exam.entity.ProcessedExam;
 import com.exam.entity.Subject;
 import com.exam.entity.User;
 import com.exam.repository.EnrolledStudentRepository;
 import com.exam.repository.ExamSubmissionRepository;
 import com.exam.repository.SubjectRepository;
 import com.exam.repository.UserRepository;
+import com.exam.service.AbilityEstimationService;
 import com.exam.service.AnswerKeyService;
+import com.exam.service.AssignmentStore;
+import com.exam.service.DistributionService;
+import com.exam.service.ExamCatalog;
+import com.exam.service.ExamCatalog.UploadedExam;
 import com.exam.service.FisherYatesService;
+import com.exam.service.ItemBank;
+import com.exam.service.ItemCalibrator;
+import com.exam.service.RegradeService;
+import com.exam.service.SubmissionAnswerStore;
+import com.exam.service.TopicClassifier;
 import com.lowagie.text.Chunk;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
@@ -90,6 +106,11 @@ import jakarta.servlet.http.HttpSession;
 @RequestMapping("/teacher")
 public class HomepageController {
 
+    private static final Logger log = LoggerFactory.getLogger(HomepageController.class);
+
+    // Exam and answer key parsing; per-line and per-question detail is logged at DEBUG
+    private static final Logger parseLog = LoggerFactory.getLogger("com.exam.parsing");
+
     @Autowired
     private AnswerKeyService answerKeyService;
     
@@ -108,18 +129,29 @@ public class HomepageController {
     @Autowired
     private SubjectRepository subjectRepository;
 
-    private static final Map<String, List<String>> distributedExams = new HashMap<>();
-    private static final Map<String, Map<String, Object>> distributedExamMetadata = new HashMap<>();
-    private static final Map<String, List<Map<String, Object>>> distributedExamHistory = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedExamQuestionsByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedQuestionDifficultiesByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, List<String>>> distributedQuestionTopicsByAssignment = new HashMap<>();
-    private static final Map<String, Map<String, Map<Integer, String>>> distributedAnswerKeysByAssignment = new HashMap<>();
-    private static final Map<String, List<String>> distributedQuestionDifficulties = new HashMap<>();
-    private static final Map<String, List<String>> distributedQuestionTopics = new HashMap<>();
-    
-    // Store uploaded exams with their metadata
-    private static final Map<String, UploadedExam> uploadedExams = new HashMap<>();
+    @Autowired
+    private AssignmentStore assignmentStore;
+
+    @Autowired
+    private DistributionService distributionService;
+
+    @Autowired
+    private TopicClassifier topicClassifier;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    @Autowired
+    private SubmissionAnswerStore submissionAnswerStore;
+
+    @Autowired
+    private RegradeService regradeService;
+
+    @Autowired
+    private AbilityEstimationService abilityEstimationService;
+
+    // Session key for the exam most recently processed by this teacher (used by the export endpoints)
+    private static final String LAST_PROCESSED_EXAM = "lastProcessedExamId";
 
     /**
      * Regex: detect LaTeX segments (\command{} or var^{} or var_{}) for auto-wrapping in $...$.
@@ -132,39 +164,6 @@ public class HomepageController {
         ")*"
     );
     
-    // Helper class to store exam metadata
-    public static class UploadedExam {
-        private final String examId;
-        private final String examName;
-        private final String subject;
-        private final String activityType;
-        private final List<String> questions;
-        private final List<String> difficulties; // Store difficulty for each question
-        private final Map<Integer, String> answerKey;
-        private final java.time.LocalDateTime uploadedAt;
-        
-        public UploadedExam(String examId, String examName, String subject, String activityType, 
-                          List<String> questions, List<String> difficulties, Map<Integer, String> answerKey) {
-            this.examId = examId;
-            this.examName = examName;
-            this.subject = subject;
-            this.activityType = activityType;
-            this.questions = questions;
-            this.difficulties = difficulties;
-            this.answerKey = answerKey;
-            this.uploadedAt = java.time.LocalDateTime.now();
-        }
-        
-        public String getExamId() { return examId; }
-        public String getExamName() { return examName; }
-        public String getSubject() { return subject; }
-        public String getActivityType() { return activityType; }
-        public List<String> getQuestions() { return questions; }
-        public List<String> getDifficulties() { return difficulties; }
-        public Map<Integer, String> getAnswerKey() { return answerKey; }
-        public java.time.LocalDateTime getUploadedAt() { return uploadedAt; }
-    }
-    
     // Helper class for shuffling questions while preserving answer associations
     private static class QuestionWithAnswer {
         String question;
@@ -191,9 +190,6 @@ public class HomepageController {
         }
     }
 
-    // Store for unlocked exams (studentEmail -> examName)
-    private static final Map<String, Set<String>> unlockedExams = new HashMap<>();
-
     /**
      * Initialize null boolean fields in existing ExamSubmission records
      */
@@ -213,169 +209,10 @@ public class HomepageController {
             
             if (needsUpdate) {
                 examSubmissionRepository.saveAll(Objects.requireNonNull(submissions));
-                System.out.println("✅ Initialized null boolean fields in " + submissions.size() + " ExamSubmission records");
+                log.info("✅ Initialized null boolean fields in {} ExamSubmission records", submissions.size());
             }
         } catch (Exception e) {
-            System.err.println("⚠️ Warning: Could not initialize null boolean fields: " + e.getMessage());
-        }
-    }
-
-    // Public getter for accessing distributed exams from other controllers
-    public static Map<String, List<String>> getDistributedExams() {
-        return distributedExams;
-    }
-
-    public static Map<String, Object> getDistributedExamMetadata(String studentEmail) {
-        return distributedExamMetadata.get(studentEmail);
-    }
-
-    public static List<Map<String, Object>> getDistributedExamHistory(String studentEmail) {
-        List<Map<String, Object>> history = distributedExamHistory.get(studentEmail);
-        if (history == null) {
-            return new ArrayList<>();
-        }
-        return history.stream().map(HashMap::new).collect(Collectors.toList());
-    }
-
-    public static Map<String, Object> getDistributedExamAssignmentMetadata(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return null;
-        }
-        return getDistributedExamHistory(studentEmail).stream()
-            .filter(item -> assignmentId.equals(item.get("assignmentId")))
-            .findFirst()
-            .orElse(null);
-    }
-
-    public static List<String> getDistributedExamQuestions(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedExams.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedExamQuestionsByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionDifficulties(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedQuestionDifficulties.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedQuestionDifficultiesByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionTopics(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return distributedQuestionTopics.get(studentEmail);
-        }
-        Map<String, List<String>> byAssignment = distributedQuestionTopicsByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static Map<Integer, String> getDistributedAnswerKey(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            return null;
-        }
-        Map<String, Map<Integer, String>> byAssignment = distributedAnswerKeysByAssignment.get(studentEmail);
-        if (byAssignment == null) {
-            return null;
-        }
-        return byAssignment.get(assignmentId);
-    }
-
-    public static List<String> getDistributedQuestionDifficulties(String studentEmail) {
-        return distributedQuestionDifficulties.get(studentEmail);
-    }
-
-    public static List<String> getDistributedQuestionTopics(String studentEmail) {
-        return distributedQuestionTopics.get(studentEmail);
-    }
-    
-    // Check if exam is unlocked for student
-    public static boolean isExamUnlocked(String studentEmail, String examName) {
-        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
-        return studentUnlocks != null && studentUnlocks.contains(examName);
-    }
-    
-    // Remove unlock after submission
-    public static void removeUnlock(String studentEmail, String examName) {
-        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
-        if (studentUnlocks != null) {
-            studentUnlocks.remove(examName);
-        }
-    }
-
-    // Remove student from distributed exams after they have submitted
-    public static void removeDistributedExam(String studentEmail) {
-        distributedExams.remove(studentEmail);
-        distributedExamMetadata.remove(studentEmail);
-        distributedExamHistory.remove(studentEmail);
-        distributedExamQuestionsByAssignment.remove(studentEmail);
-        distributedQuestionDifficultiesByAssignment.remove(studentEmail);
-        distributedQuestionTopicsByAssignment.remove(studentEmail);
-        distributedAnswerKeysByAssignment.remove(studentEmail);
-        distributedQuestionDifficulties.remove(studentEmail);
-        distributedQuestionTopics.remove(studentEmail);
-    }
-
-    public static void removeDistributedExam(String studentEmail, String assignmentId) {
-        if (assignmentId == null || assignmentId.isBlank()) {
-            removeDistributedExam(studentEmail);
-            return;
-        }
-
-        List<Map<String, Object>> history = distributedExamHistory.get(studentEmail);
-        if (history != null) {
-            history.removeIf(item -> assignmentId.equals(item.get("assignmentId")));
-            if (history.isEmpty()) {
-                distributedExamHistory.remove(studentEmail);
-                distributedExamMetadata.remove(studentEmail);
-            } else {
-                distributedExamMetadata.put(studentEmail, new HashMap<>(history.get(history.size() - 1)));
-            }
-        }
-
-        Map<String, List<String>> questionsByAssignment = distributedExamQuestionsByAssignment.get(studentEmail);
-        if (questionsByAssignment != null) {
-            questionsByAssignment.remove(assignmentId);
-            if (questionsByAssignment.isEmpty()) {
-                distributedExamQuestionsByAssignment.remove(studentEmail);
-                distributedExams.remove(studentEmail);
-            }
-        }
-
-        Map<String, List<String>> difficultiesByAssignment = distributedQuestionDifficultiesByAssignment.get(studentEmail);
-        if (difficultiesByAssignment != null) {
-            difficultiesByAssignment.remove(assignmentId);
-            if (difficultiesByAssignment.isEmpty()) {
-                distributedQuestionDifficultiesByAssignment.remove(studentEmail);
-                distributedQuestionDifficulties.remove(studentEmail);
-            }
-        }
-
-        Map<String, List<String>> topicsByAssignment = distributedQuestionTopicsByAssignment.get(studentEmail);
-        if (topicsByAssignment != null) {
-            topicsByAssignment.remove(assignmentId);
-            if (topicsByAssignment.isEmpty()) {
-                distributedQuestionTopicsByAssignment.remove(studentEmail);
-                distributedQuestionTopics.remove(studentEmail);
-            }
-        }
-
-        Map<String, Map<Integer, String>> answerKeysByAssignment = distributedAnswerKeysByAssignment.get(studentEmail);
-        if (answerKeysByAssignment != null) {
-            answerKeysByAssignment.remove(assignmentId);
-            if (answerKeysByAssignment.isEmpty()) {
-                distributedAnswerKeysByAssignment.remove(studentEmail);
-            }
+            log.warn("⚠️ Could not initialize null boolean fields: {}", e.getMessage());
         }
     }
 
@@ -408,7 +245,7 @@ public class HomepageController {
         Map<String, Map<String, Object>> distributedExamStatus = new HashMap<>();
         for (EnrolledStudent student : enrolledStudents) {
             String studentEmail = student.getStudentEmail();
-            if (distributedExams.containsKey(studentEmail)) {
+            if (assignmentStore.hasAssignments(studentEmail)) {
                 Map<String, Object> status = new HashMap<>();
                 status.put("studentName", student.getStudentName());
                 status.put("studentEmail", studentEmail);
@@ -418,7 +255,7 @@ public class HomepageController {
                 boolean hasSubmitted = submissions.stream()
                     .anyMatch(sub -> sub.getStudentEmail().equals(studentEmail));
                 status.put("hasSubmitted", hasSubmitted);
-                status.put("isUnlocked", unlockedExams.containsKey(studentEmail) && !unlockedExams.get(studentEmail).isEmpty());
+                status.put("isUnlocked", assignmentStore.hasUnlocks(studentEmail));
                 
                 distributedExamStatus.put(studentEmail, status);
             }
@@ -428,7 +265,7 @@ public class HomepageController {
         model.addAttribute("enrolledStudents", enrolledStudents);
         model.addAttribute("allStudents", allStudents);
         model.addAttribute("submissions", submissions);
-        model.addAttribute("uploadedExams", new ArrayList<>(uploadedExams.values()));
+        model.addAttribute("uploadedExams", examCatalog.getSummaries());
         model.addAttribute("distributedExamStatus", distributedExamStatus);
         
         // Get subjects for this teacher
@@ -604,7 +441,7 @@ public class HomepageController {
     public String showManageQuestions(@PathVariable String examId,
                                       @RequestParam(required = false) String returnTo,
                                       Model model) {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             return "redirect:/teacher/homepage";
@@ -654,7 +491,7 @@ public class HomepageController {
                              @RequestParam(value = "questionVideo", required = false) MultipartFile questionVideo,
                              Model model,
                              org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             redirectAttributes.addFlashAttribute("errorMessage", "Exam not found!");
@@ -699,24 +536,29 @@ public class HomepageController {
                 normalizedQuestionText += "\n[VID:" + videoUrl + "]";
             }
 
-            // Add the new question to the existing lists
-            exam.getQuestions().add(normalizedQuestionText);
-            exam.getDifficulties().add(difficulty);
+            // Copies of the lists with the new question; the cached exam stays as it is until the new version replaces it
+            List<String> questions = new ArrayList<>(exam.getQuestions());
+            List<String> difficulties = new ArrayList<>(exam.getDifficulties());
+            List<String> topics = new ArrayList<>(exam.getTopics());
+            Map<Integer, String> answerKey = new HashMap<>(exam.getAnswerKey());
+            questions.add(normalizedQuestionText);
+            difficulties.add(difficulty);
+            topics.add(topicClassifier.classify(normalizedQuestionText, exam.getSubject()));
             
             // Add answer to the answer key (using the next question number)
-            int questionNumber = exam.getQuestions().size() - 1; // 0-based index
-            exam.getAnswerKey().put(questionNumber, storedAnswer);
+            int questionNumber = questions.size() - 1; // 0-based index
+            answerKey.put(questionNumber, storedAnswer);
+            examCatalog.save(exam.nextVersion(questions, difficulties, topics, answerKey));
             
             redirectAttributes.addFlashAttribute("successMessage", 
-                "Question added successfully! Total questions: " + exam.getQuestions().size());
+                "Question added successfully! Total questions: " + questions.size());
             
-            System.out.println("✅ Added question to exam: " + exam.getExamName() + 
-                             " | Total: " + exam.getQuestions().size() + " questions");
+            log.info("✅ Added question to exam: {} | Total: {} questions", exam.getExamName(), questions.size());
             
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Error adding question: " + e.getMessage());
-            System.err.println("Error adding question: " + e.getMessage());
+            log.error("Error adding question: {}", e.getMessage());
         }
         
         return manageQuestionsRedirect(examId, returnTo);
@@ -730,7 +572,7 @@ public class HomepageController {
                                 @RequestParam int questionIndex,
                                 @RequestParam(required = false) String returnTo,
                                 org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             redirectAttributes.addFlashAttribute("errorMessage", "Exam not found!");
@@ -739,9 +581,17 @@ public class HomepageController {
         
         try {
             if (questionIndex >= 0 && questionIndex < exam.getQuestions().size()) {
-                // Remove question and difficulty at the specified index
-                exam.getQuestions().remove(questionIndex);
-                exam.getDifficulties().remove(questionIndex);
+                // Remove question and difficulty at the specified index, from copies of the lists
+                List<String> questions = new ArrayList<>(exam.getQuestions());
+                List<String> difficulties = new ArrayList<>(exam.getDifficulties());
+                List<String> topics = new ArrayList<>(exam.getTopics());
+                questions.remove(questionIndex);
+                if (questionIndex < difficulties.size()) {
+                    difficulties.remove(questionIndex);
+                }
+                if (questionIndex < topics.size()) {
+                    topics.remove(questionIndex);
+                }
                 
                 // Rebuild answer key with new indices
                 Map<Integer, String> newAnswerKey = new HashMap<>();
@@ -756,14 +606,14 @@ public class HomepageController {
                     }
                     // Skip the deleted question index
                 }
-                exam.getAnswerKey().clear();
-                exam.getAnswerKey().putAll(newAnswerKey);
+                examCatalog.save(exam.nextVersion(questions, difficulties, topics, newAnswerKey), questionIndex);
                 
+                // Re-score submissions that already answered this exam
+                redirectAttributes.addFlashAttribute("regradeJob", regradeService.startRegrade(examId));
                 redirectAttributes.addFlashAttribute("successMessage", 
-                    "Question deleted successfully! Total questions: " + exam.getQuestions().size());
+                    "Question deleted successfully! Total questions: " + questions.size());
                 
-                System.out.println("✅ Deleted question from exam: " + exam.getExamName() + 
-                                 " | Remaining: " + exam.getQuestions().size() + " questions");
+                log.info("✅ Deleted question from exam: {} | Remaining: {} questions", exam.getExamName(), questions.size());
             } else {
                 redirectAttributes.addFlashAttribute("errorMessage", "Invalid question index!");
             }
@@ -771,7 +621,7 @@ public class HomepageController {
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Error deleting question: " + e.getMessage());
-            System.err.println("Error deleting question: " + e.getMessage());
+            log.error("Error deleting question: {}", e.getMessage());
         }
         
         return manageQuestionsRedirect(examId, returnTo);
@@ -788,7 +638,7 @@ public class HomepageController {
                                @RequestParam(value = "questionImage", required = false) MultipartFile questionImage,
                                @RequestParam(value = "questionVideo", required = false) MultipartFile questionVideo,
                                org.springframework.web.servlet.mvc.support.RedirectAttributes redirectAttributes) {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
 
         if (exam == null) {
             redirectAttributes.addFlashAttribute("errorMessage", "Exam not found!");
@@ -833,12 +683,22 @@ public class HomepageController {
                 normalizedQuestionText += "\n[VID:" + videoUrl + "]";
             }
 
-            exam.getQuestions().set(questionIndex, normalizedQuestionText);
-            if (questionIndex < exam.getDifficulties().size()) {
-                exam.getDifficulties().set(questionIndex, difficulty);
+            List<String> questions = new ArrayList<>(exam.getQuestions());
+            List<String> difficulties = new ArrayList<>(exam.getDifficulties());
+            List<String> topics = new ArrayList<>(exam.getTopics());
+            Map<Integer, String> answerKey = new HashMap<>(exam.getAnswerKey());
+            questions.set(questionIndex, normalizedQuestionText);
+            if (questionIndex < difficulties.size()) {
+                difficulties.set(questionIndex, difficulty);
+            }
+            if (questionIndex < topics.size()) {
+                topics.set(questionIndex, topicClassifier.classify(normalizedQuestionText, exam.getSubject()));
             }
-            exam.getAnswerKey().put(questionIndex, storedAnswer);
+            answerKey.put(questionIndex, storedAnswer);
+            examCatalog.save(exam.nextVersion(questions, difficulties, topics, answerKey));
 
+            // Re-score submissions that already answered this exam
+            redirectAttributes.addFlashAttribute("regradeJob", regradeService.startRegrade(examId));
             redirectAttributes.addFlashAttribute("successMessage", "Question updated successfully!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error updating question: " + e.getMessage());
@@ -1003,7 +863,7 @@ public class HomepageController {
                     subject.getSubjectName()
                 );
                 enrolledStudentRepository.save(enrollment);
-                System.out.println("✅ Enrolled " + studentEmail + " in " + subject.getSubjectName());
+                log.info("✅ Enrolled {} in {}", studentEmail, subject.getSubjectName());
             }
         }
         
@@ -1027,7 +887,7 @@ public class HomepageController {
         if (!subjectRepository.existsBySubjectNameAndTeacherEmail(subjectName, teacherEmail)) {
             Subject subject = new Subject(subjectName, description, teacherEmail);
             subjectRepository.save(subject);
-            System.out.println("✅ Subject created: " + subjectName + " by " + teacherEmail);
+            log.info("✅ Subject created: {} by {}", subjectName, teacherEmail);
         }
         
         return "redirect:/teacher/homepage";
@@ -1041,7 +901,7 @@ public class HomepageController {
         Optional<Subject> subjectOpt = subjectRepository.findById(Objects.requireNonNull(subjectId));
         if (subjectOpt.isPresent() && subjectOpt.get().getTeacherEmail().equals(teacherEmail)) {
             subjectRepository.deleteById(Objects.requireNonNull(subjectId));
-            System.out.println("🗑️ Subject deleted: " + subjectOpt.get().getSubjectName());
+            log.info("🗑️ Subject deleted: {}", subjectOpt.get().getSubjectName());
         }
         
         return "redirect:/teacher/homepage";
@@ -1084,15 +944,15 @@ public class HomepageController {
         
         // Only show exams uploaded for this specific subject
         String subjectName = subject.getSubjectName();
-        List<UploadedExam> subjectExams = uploadedExams.values().stream()
+        List<ProcessedExam> subjectExams = examCatalog.getSummaries().stream()
             .filter(exam -> subjectName.equals(exam.getSubject()))
-            .sorted(Comparator.comparing(UploadedExam::getUploadedAt,
+            .sorted(Comparator.comparing(ProcessedExam::getUploadedAt,
                                         Comparator.nullsLast(Comparator.reverseOrder())))
             .collect(Collectors.toList());
 
         // Also expose all processed exams so late enrollees can still receive previously processed quizzes
-        List<UploadedExam> allProcessedExams = uploadedExams.values().stream()
-            .sorted(Comparator.comparing(UploadedExam::getUploadedAt,
+        List<ProcessedExam> allProcessedExams = examCatalog.getSummaries().stream()
+            .sorted(Comparator.comparing(ProcessedExam::getUploadedAt,
                                         Comparator.nullsLast(Comparator.reverseOrder())))
             .collect(Collectors.toList());
 
@@ -1142,48 +1002,22 @@ public class HomepageController {
         classroomStats.put("averagePercentage", String.format("%.1f", classroomAverage));
 
         // Which enrolled students already have a queued exam (for "Queued" badge in distribute modal)
-        Set<String> distributedStudentEmails = distributedExams.keySet().stream()
-            .filter(studentEmails::contains)
+        Set<String> distributedStudentEmails = studentEmails.stream()
+            .filter(assignmentStore::hasAssignments)
             .collect(Collectors.toSet());
 
         // Build distribution tracking rows so teacher can monitor assigned/submitted exam status per student
         List<Map<String, Object>> distributionTracker = new ArrayList<>();
         for (EnrolledStudent enrolled : enrolledStudents) {
             String studentEmail = enrolled.getStudentEmail();
-            List<String> assignedQuestions = distributedExams.get(studentEmail);
-            boolean hasAssignedExam = assignedQuestions != null && !assignedQuestions.isEmpty();
-
-            String examName = (String) session.getAttribute("examName_" + studentEmail);
-            String examSubject = (String) session.getAttribute("examSubject_" + studentEmail);
-            String activityType = (String) session.getAttribute("examActivityType_" + studentEmail);
-            Integer timeLimit = (Integer) session.getAttribute("examTimeLimit_" + studentEmail);
-            String deadlineRaw = (String) session.getAttribute("examDeadline_" + studentEmail);
-
-            Map<String, Object> metadata = distributedExamMetadata.get(studentEmail);
-            if (metadata != null) {
-                if (examName == null || examName.isBlank()) {
-                    Object value = metadata.get("examName");
-                    examName = value != null ? String.valueOf(value) : null;
-                }
-                if (examSubject == null || examSubject.isBlank()) {
-                    Object value = metadata.get("examSubject");
-                    examSubject = value != null ? String.valueOf(value) : null;
-                }
-                if (activityType == null || activityType.isBlank()) {
-                    Object value = metadata.get("examActivityType");
-                    activityType = value != null ? String.valueOf(value) : null;
-                }
-                if (timeLimit == null) {
-                    Object value = metadata.get("examTimeLimit");
-                    if (value instanceof Number numberValue) {
-                        timeLimit = numberValue.intValue();
-                    }
-                }
-                if (deadlineRaw == null || deadlineRaw.isBlank()) {
-                    Object value = metadata.get("examDeadline");
-                    deadlineRaw = value != null ? String.valueOf(value) : null;
-                }
-            }
+            DistributedAssignment latestAssignment = assignmentStore.getLatest(studentEmail);
+            boolean hasAssignedExam = latestAssignment != null && latestAssignment.getQuestionCount() > 0;
+
+            String examName = latestAssignment != null ? latestAssignment.getExamName() : null;
+            String examSubject = latestAssignment != null ? latestAssignment.getExamSubject() : null;
+            String activityType = latestAssignment != null ? latestAssignment.getExamActivityType() : null;
+            Integer timeLimit = latestAssignment != null ? latestAssignment.getExamTimeLimit() : null;
+            String deadlineRaw = latestAssignment != null ? latestAssignment.getExamDeadline() : null;
 
             List<ExamSubmission> studentSubs = submissionsByStudent.getOrDefault(studentEmail, new ArrayList<>());
             final String initialExamName = examName;
@@ -1239,20 +1073,17 @@ public class HomepageController {
             row.put("examName", examName != null ? examName : "Assigned Exam");
             row.put("subject", examSubject != null ? examSubject : subject.getSubjectName());
             row.put("activityType", activityType != null ? activityType : "Exam");
-            int assignedQuestionCount = 0;
-            if (assignedQuestions != null) {
-                assignedQuestionCount = assignedQuestions.size();
-            }
+            int assignedQuestionCount = latestAssignment != null ? latestAssignment.getQuestionCount() : 0;
             row.put("questionCount", assignedQuestionCount > 0 ? assignedQuestionCount : (latestMatchingSubmission != null ? latestMatchingSubmission.getTotalQuestions() : 0));
             row.put("timeLimit", timeLimit != null ? timeLimit : 0);
             row.put("deadline", deadlineDisplay);
             row.put("lastSubmittedAt", lastSubmittedAt);
             // A student is "queued" if they currently have an exam waiting (not yet taken)
-            boolean isQueued = distributedExams.containsKey(studentEmail) && !distributedExams.get(studentEmail).isEmpty();
+            boolean isQueued = hasAssignedExam;
             // A student is "submitted" only if they are NOT currently queued AND have a matching submission
             row.put("isQueued", isQueued);
             row.put("isSubmitted", !isQueued && latestMatchingSubmission != null);
-            row.put("isUnlocked", unlockedExams.containsKey(studentEmail) && !unlockedExams.get(studentEmail).isEmpty());
+            row.put("isUnlocked", assignmentStore.hasUnlocks(studentEmail));
             distributionTracker.add(row);
         }
 
@@ -1423,40 +1254,14 @@ public class HomepageController {
         List<Map<String, Object>> distributionTracker = new ArrayList<>();
         for (EnrolledStudent enrolled : enrolledStudents) {
             String studentEmail = enrolled.getStudentEmail();
-            List<String> assignedQuestions = distributedExams.get(studentEmail);
-            boolean hasAssignedExam = assignedQuestions != null && !assignedQuestions.isEmpty();
-
-            String examName = (String) session.getAttribute("examName_" + studentEmail);
-            String examSubject = (String) session.getAttribute("examSubject_" + studentEmail);
-            String activityType = (String) session.getAttribute("examActivityType_" + studentEmail);
-            Integer timeLimit = (Integer) session.getAttribute("examTimeLimit_" + studentEmail);
-            String deadlineRaw = (String) session.getAttribute("examDeadline_" + studentEmail);
-
-            Map<String, Object> metadata = distributedExamMetadata.get(studentEmail);
-            if (metadata != null) {
-                if (examName == null || examName.isBlank()) {
-                    Object value = metadata.get("examName");
-                    examName = value != null ? String.valueOf(value) : null;
-                }
-                if (examSubject == null || examSubject.isBlank()) {
-                    Object value = metadata.get("examSubject");
-                    examSubject = value != null ? String.valueOf(value) : null;
-                }
-                if (activityType == null || activityType.isBlank()) {
-                    Object value = metadata.get("examActivityType");
-                    activityType = value != null ? String.valueOf(value) : null;
-                }
-                if (timeLimit == null) {
-                    Object value = metadata.get("examTimeLimit");
-                    if (value instanceof Number numberValue) {
-                        timeLimit = numberValue.intValue();
-                    }
-                }
-                if (deadlineRaw == null || deadlineRaw.isBlank()) {
-                    Object value = metadata.get("examDeadline");
-                    deadlineRaw = value != null ? String.valueOf(value) : null;
-                }
-            }
+            DistributedAssignment latestAssignment = assignmentStore.getLatest(studentEmail);
+            boolean hasAssignedExam = latestAssignment != null && latestAssignment.getQuestionCount() > 0;
+
+            String examName = latestAssignment != null ? latestAssignment.getExamName() : null;
+            String examSubject = latestAssignment != null ? latestAssignment.getExamSubject() : null;
+            String activityType = latestAssignment != null ? latestAssignment.getExamActivityType() : null;
+            Integer timeLimit = latestAssignment != null ? latestAssignment.getExamTimeLimit() : null;
+            String deadlineRaw = latestAssignment != null ? latestAssignment.getExamDeadline() : null;
 
             List<ExamSubmission> studentSubs = submissionsByStudent.getOrDefault(studentEmail, new ArrayList<>());
             final String initialExamName = examName;
@@ -1512,16 +1317,13 @@ public class HomepageController {
             row.put("examName", examName != null ? examName : "Assigned Exam");
             row.put("subject", examSubject != null ? examSubject : subject.getSubjectName());
             row.put("activityType", activityType != null ? activityType : "Exam");
-            int assignedQuestionCount = 0;
-            if (assignedQuestions != null) {
-                assignedQuestionCount = assignedQuestions.size();
-            }
+            int assignedQuestionCount = latestAssignment != null ? latestAssignment.getQuestionCount() : 0;
             row.put("questionCount", assignedQuestionCount > 0 ? assignedQuestionCount : (latestMatchingSubmission != null ? latestMatchingSubmission.getTotalQuestions() : 0));
             row.put("timeLimit", timeLimit != null ? timeLimit : 0);
             row.put("deadline", deadlineDisplay);
             row.put("lastSubmittedAt", lastSubmittedAt);
             row.put("isSubmitted", latestMatchingSubmission != null);
-            row.put("isUnlocked", unlockedExams.containsKey(studentEmail) && !unlockedExams.get(studentEmail).isEmpty());
+            row.put("isUnlocked", assignmentStore.hasUnlocks(studentEmail));
             distributionTracker.add(row);
         }
 
@@ -1588,7 +1390,7 @@ public class HomepageController {
             return "redirect:/teacher/homepage";
         }
 
-        doDistributeForStudent(targetStudent, examId, timeLimit, deadline, easyPercent, mediumPercent, hardPercent, questionCount, session);
+        doDistributeForStudent(targetStudent, examId, timeLimit, deadline, easyPercent, mediumPercent, hardPercent, questionCount);
         if (subjectId != null) {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
@@ -1609,13 +1411,13 @@ public class HomepageController {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
 
-        List<EnrolledStudent> enrolledStudents = enrolledStudentRepository.findBySubjectId(subjectId);
-        for (EnrolledStudent student : enrolledStudents) {
-            doDistributeForStudent(student.getStudentEmail(), examId, timeLimit, deadline,
-                                   easyPercent, mediumPercent, hardPercent, questionCount, session);
-        }
-        System.out.println("Distributed to all " + enrolledStudents.size() + " students in subject " + subjectId);
-        return "redirect:/teacher/subject-classroom/" + subjectId;
+        List<String> studentEmails = enrolledStudentRepository.findBySubjectId(subjectId).stream()
+            .map(EnrolledStudent::getStudentEmail)
+            .collect(Collectors.toList());
+        String jobId = distributionService.startBulkDistribution(examId, studentEmails, timeLimit, deadline,
+                                                                 easyPercent, mediumPercent, hardPercent, questionCount);
+        log.info("Distributing to all {} students in subject {} (job {})", studentEmails.size(), subjectId, jobId);
+        return "redirect:/teacher/subject-classroom/" + subjectId + (jobId != null ? "?distributionJob=" + jobId : "");
     }
 
     @PostMapping("/distribute-selected")
@@ -1633,16 +1435,133 @@ public class HomepageController {
             return "redirect:/teacher/subject-classroom/" + subjectId;
         }
 
-        for (String email : selectedStudents) {
-            doDistributeForStudent(email, examId, timeLimit, deadline,
-                                   easyPercent, mediumPercent, hardPercent, questionCount, session);
-        }
-        System.out.println("Distributed to " + selectedStudents.size() + " selected students in subject " + subjectId);
-        return "redirect:/teacher/subject-classroom/" + subjectId;
+        String jobId = distributionService.startBulkDistribution(examId, selectedStudents, timeLimit, deadline,
+                                                                 easyPercent, mediumPercent, hardPercent, questionCount);
+        log.info("Distributing to {} selected students in subject {} (job {})", selectedStudents.size(), subjectId, jobId);
+        return "redirect:/teacher/subject-classroom/" + subjectId + (jobId != null ? "?distributionJob=" + jobId : "");
+    }
+
+    /**
+     * Progress of a bulk distribution job (polled by the classroom page)
+     */
+    @GetMapping("/distribution-jobs/{jobId}")
+    @ResponseBody
+    public Map<String, Object> getDistributionJobStatus(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        DistributionService.DistributionJob job = distributionService.getJob(jobId);
+        if (job == null) {
+            response.put("jobId", jobId);
+            response.put("status", "UNKNOWN");
+            return response;
+        }
+        response.put("jobId", job.getJobId());
+        response.put("status", job.getStatus());
+        response.put("total", job.getTotal());
+        response.put("completed", job.getCompleted());
+        response.put("failed", job.getFailed());
+        response.put("finished", job.isFinished());
+        return response;
+    }
+
+    /**
+     * Progress and score changes of a regrade job (polled by the manage questions page)
+     */
+    @GetMapping("/regrade-jobs/{jobId}")
+    @ResponseBody
+    public Map<String, Object> getRegradeJobStatus(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        RegradeService.RegradeJob job = regradeService.getJob(jobId);
+        if (job == null) {
+            response.put("jobId", jobId);
+            response.put("status", "UNKNOWN");
+            return response;
+        }
+        response.put("jobId", job.getJobId());
+        response.put("status", job.getStatus());
+        response.put("total", job.getTotal());
+        response.put("processed", job.getProcessed());
+        response.put("changed", job.getChanged());
+        response.put("skipped", job.getSkipped());
+        response.put("failed", job.getFailed());
+        response.put("finished", job.isFinished());
+
+        List<Map<String, Object>> diffs = new ArrayList<>();
+        for (RegradeService.ScoreDiff diff : job.getDiffs()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("submissionId", diff.getSubmissionId());
+            entry.put("studentEmail", diff.getStudentEmail());
+            entry.put("oldScore", diff.getOldScore());
+            entry.put("newScore", diff.getNewScore());
+            entry.put("oldPercentage", diff.getOldPercentage());
+            entry.put("newPercentage", diff.getNewPercentage());
+            diffs.add(entry);
+        }
+        response.put("diffs", diffs);
+        return response;
+    }
+
+    /**
+     * Estimate and save the IRT ability of every submission of an exam (class report, rescoring)
+     */
+    @PostMapping("/exams/{examId}/abilities")
+    @ResponseBody
+    public Map<String, Object> estimateClassAbilities(@PathVariable String examId) {
+        Map<String, Object> response = new HashMap<>();
+        if (examCatalog.getSummary(examId) == null) {
+            response.put("examId", examId);
+            response.put("status", "UNKNOWN");
+            return response;
+        }
+        AbilityEstimationService.ClassAbilities abilities = abilityEstimationService.estimateExam(examId);
+        response.put("examId", examId);
+        response.put("status", "COMPLETED");
+        response.put("estimated", abilities.getSubmissionIds().length);
+        response.put("skipped", abilities.getSkipped());
+        response.put("items", abilities.getItems());
+        response.put("meanTheta", abilities.getMeanTheta());
+        response.put("elapsedMillis", abilities.getElapsedMillis());
+        return response;
+    }
+
+    /**
+     * Calibrate an exam's item parameters from its stored submissions, with EM diagnostics
+     */
+    @PostMapping("/exams/{examId}/calibration")
+    @ResponseBody
+    public Map<String, Object> calibrateExamItems(@PathVariable String examId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("examId", examId);
+        if (examCatalog.getSummary(examId) == null) {
+            response.put("status", "UNKNOWN");
+            return response;
+        }
+        ItemCalibrator.Calibration calibration = abilityEstimationService.calibrateExam(examId);
+        response.put("status", calibration.isConverged() ? "CONVERGED" : "NOT_CONVERGED");
+        response.put("calibrationVersion", abilityEstimationService.getCalibrationVersion(examId));
+        response.put("students", calibration.getStudents());
+        response.put("items", calibration.getBank().size());
+        response.put("cycles", calibration.getCycles());
+        response.put("maxParameterChange", calibration.getMaxParameterChange());
+        response.put("logLikelihoods", calibration.getLogLikelihoods());
+        response.put("elapsedMillis", calibration.getElapsedMillis());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        ItemBank bank = calibration.getBank();
+        for (int i = 0; i < bank.size(); i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("question", i + 1);
+            item.put("responses", calibration.getResponseCounts()[i]);
+            item.put("discrimination", bank.getDiscrimination(i));
+            item.put("difficulty", bank.getDifficulty(i));
+            item.put("guessing", bank.getGuessing(i));
+            items.add(item);
+        }
+        response.put("itemParameters", items);
+        return response;
     }
 
     private boolean isExamAllowedForSubject(Long subjectId, String examId) {
-        UploadedExam selectedExam = uploadedExams.get(examId);
+        ProcessedExam selectedExam = examCatalog.getSummary(examId);
         if (selectedExam == null) {
             return false;
         }
@@ -1664,215 +1583,53 @@ public class HomepageController {
 
     private void doDistributeForStudent(String targetStudent, String examId, Integer timeLimit, String deadline,
                                         Integer easyPercent, Integer mediumPercent, Integer hardPercent,
-                                        Integer questionCount, HttpSession session) {
-        UploadedExam selectedExam = uploadedExams.get(examId);
+                                        Integer questionCount) {
+        UploadedExam selectedExam = examCatalog.get(examId);
 
         if (selectedExam != null) {
-            // Create a fresh copy of questions and difficulties for this student
-            List<String> allQuestions = new ArrayList<>(selectedExam.getQuestions());
-            List<String> allDifficulties = new ArrayList<>(selectedExam.getDifficulties());
-            Map<Integer, String> originalAnswerKey = selectedExam.getAnswerKey();
-
-            // Categorize questions by difficulty using stored difficulty levels
-            List<Integer> easyIndices = new ArrayList<>();
-            List<Integer> mediumIndices = new ArrayList<>();
-            List<Integer> hardIndices = new ArrayList<>();
-
-            for (int i = 0; i < allQuestions.size(); i++) {
-                String difficulty = allDifficulties.get(i);
-                if (difficulty.equalsIgnoreCase("Easy")) {
-                    easyIndices.add(i);
-                } else if (difficulty.equalsIgnoreCase("Hard")) {
-                    hardIndices.add(i);
-                } else {
-                    mediumIndices.add(i);
-                }
-            }
-
-            // Calculate number of questions for each difficulty
-            int totalQuestions = (questionCount != null && questionCount > 0 && questionCount <= allQuestions.size())
-                ? questionCount
-                : allQuestions.size();
-
-            System.out.println("Distributing " + totalQuestions + " questions out of " + allQuestions.size() + " available");
-
-            int easyCount = (int) Math.round(totalQuestions * easyPercent / 100.0);
-            int mediumCount = (int) Math.round(totalQuestions * mediumPercent / 100.0);
-            int hardCount = (int) Math.round(totalQuestions * hardPercent / 100.0);
-
-            int calculatedTotal = easyCount + mediumCount + hardCount;
-            if (calculatedTotal < totalQuestions) {
-                mediumCount += (totalQuestions - calculatedTotal);
-            } else if (calculatedTotal > totalQuestions) {
-                mediumCount -= (calculatedTotal - totalQuestions);
-            }
-
-            SecureRandom rand = new SecureRandom();
-            Collections.shuffle(easyIndices, rand);
-            Collections.shuffle(mediumIndices, rand);
-            Collections.shuffle(hardIndices, rand);
-
-            List<String> selectedQuestions = new ArrayList<>();
-            List<String> selectedDifficulties = new ArrayList<>();
-            List<Integer> selectedOriginalIndices = new ArrayList<>();
-
-            // Track how many were actually picked vs requested per tier
-            int easyPicked   = Math.min(easyCount,   easyIndices.size());
-            int mediumPicked = Math.min(mediumCount,  mediumIndices.size());
-            int hardPicked   = Math.min(hardCount,    hardIndices.size());
-
-            // Calculate total deficit (questions we couldn't fill from their own tier)
-            int deficit = totalQuestions - (easyPicked + mediumPicked + hardPicked);
-
-            // Build pools of leftover indices (already shuffled) not yet selected
-            List<Integer> easyLeftover   = easyIndices.subList(easyPicked,   easyIndices.size());
-            List<Integer> mediumLeftover = mediumIndices.subList(mediumPicked, mediumIndices.size());
-            List<Integer> hardLeftover   = hardIndices.subList(hardPicked,    hardIndices.size());
-
-            // Collect all leftover indices (combined surplus from every tier)
-            List<Integer> allLeftover = new ArrayList<>();
-            allLeftover.addAll(easyLeftover);
-            allLeftover.addAll(mediumLeftover);
-            allLeftover.addAll(hardLeftover);
-            Collections.shuffle(allLeftover, rand);
-
-            // Fill the deficit from the combined leftover pool
-            int fillFromLeftover = Math.min(deficit, allLeftover.size());
-
-            // Now add the primary selections
-            for (int i = 0; i < easyPicked; i++) {
-                int idx = easyIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-            for (int i = 0; i < mediumPicked; i++) {
-                int idx = mediumIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-            for (int i = 0; i < hardPicked; i++) {
-                int idx = hardIndices.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-            // Fill remaining slots from the leftover pool to always reach totalQuestions
-            for (int i = 0; i < fillFromLeftover; i++) {
-                int idx = allLeftover.get(i);
-                selectedQuestions.add(allQuestions.get(idx));
-                selectedDifficulties.add(allDifficulties.get(idx));
-                selectedOriginalIndices.add(idx + 1);
-            }
-
-            System.out.println("Selection breakdown — Easy: " + easyPicked + "/" + easyCount
-                + ", Medium: " + mediumPicked + "/" + mediumCount
-                + ", Hard: " + hardPicked + "/" + hardCount
-                + ", Deficit filled from surplus: " + fillFromLeftover
-                + " | Final total: " + selectedQuestions.size());
-
-            List<Integer> shuffleIndices = new ArrayList<>();
-            for (int i = 0; i < selectedQuestions.size(); i++) shuffleIndices.add(i);
-            Collections.shuffle(shuffleIndices, rand);
-
-            List<String> finalQuestions = new ArrayList<>();
-            List<String> finalDifficulties = new ArrayList<>();
-            Map<Integer, String> studentAnswerKey = new HashMap<>();
-
-            for (int newPos = 0; newPos < shuffleIndices.size(); newPos++) {
-                int oldPos = shuffleIndices.get(newPos);
-                finalQuestions.add(selectedQuestions.get(oldPos));
-                finalDifficulties.add(selectedDifficulties.get(oldPos));
-
-                int originalQuestionIndex = selectedOriginalIndices.get(oldPos);
-                String answer = originalAnswerKey.get(originalQuestionIndex);
-                if (answer != null) {
-                    studentAnswerKey.put(newPos + 1, answer);
-                    System.out.println("Q" + (newPos + 1) + " (originally Q" + originalQuestionIndex + ") -> Answer: " + answer);
+            // The assignment only records a seed; question selection, order, choice order and
+            // answer key are regenerated from it whenever the exam is opened or graded
+            DistributedAssignment assignment = distributionService.buildAssignment(selectedExam, targetStudent,
+                timeLimit, deadline, easyPercent, mediumPercent, hardPercent, questionCount);
+            log.debug("Distributing {} questions out of {} available", assignment.getQuestionCount(), selectedExam.getQuestions().size());
+
+            int[] questionOrder = distributionService.publish(assignment);
+
+            log.info("Distributed exam to: {}", targetStudent);
+            if (log.isDebugEnabled() && questionOrder != null) {
+                List<String> examDifficulties = selectedExam.getDifficulties() != null ? selectedExam.getDifficulties() : List.of();
+                long actualEasy = 0;
+                long actualMedium = 0;
+                long actualHard = 0;
+                for (int question : questionOrder) {
+                    String difficulty = question < examDifficulties.size() ? examDifficulties.get(question) : null;
+                    if ("Easy".equalsIgnoreCase(difficulty)) {
+                        actualEasy++;
+                    } else if ("Hard".equalsIgnoreCase(difficulty)) {
+                        actualHard++;
+                    } else {
+                        actualMedium++;
+                    }
                 }
+                log.debug("Distribution: {} Easy, {} Medium, {} Hard", actualEasy, actualMedium, actualHard);
+                log.debug("Time limit: {} minutes, Deadline: {}", timeLimit, deadline);
             }
-
-            List<String> uniqueExam = new ArrayList<>();
-            for (String questionBlock : finalQuestions) {
-                uniqueExam.add(reshuffleQuestionChoices(questionBlock, rand));
-            }
-
-            distributedExams.put(targetStudent, uniqueExam);
-            session.setAttribute("questionDifficulties_" + targetStudent, finalDifficulties);
-            distributedQuestionDifficulties.put(targetStudent, new ArrayList<>(finalDifficulties));
-
-            List<String> questionTopics = extractTopicsFromQuestions(finalQuestions, selectedExam.getSubject());
-            session.setAttribute("questionTopics_" + targetStudent, questionTopics);
-            distributedQuestionTopics.put(targetStudent, new ArrayList<>(questionTopics));
-            System.out.println("📚 Extracted " + questionTopics.size() + " question topics for Random Forest");
-
-            session.setAttribute("examSubject_" + targetStudent, selectedExam.getSubject());
-            session.setAttribute("examActivityType_" + targetStudent, selectedExam.getActivityType());
-            session.setAttribute("examName_" + targetStudent, selectedExam.getExamName());
-            session.setAttribute("examTimeLimit_" + targetStudent, timeLimit);
-            session.setAttribute("examDeadline_" + targetStudent, deadline);
-
-            Map<String, Object> metadata = new HashMap<>();
-            String assignmentId = "A_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
-            metadata.put("assignmentId", assignmentId);
-            metadata.put("examSubject", selectedExam.getSubject());
-            metadata.put("examActivityType", selectedExam.getActivityType());
-            metadata.put("examName", selectedExam.getExamName());
-            metadata.put("examTimeLimit", timeLimit);
-            metadata.put("examDeadline", deadline);
-            metadata.put("questionCount", uniqueExam.size());
-            distributedExamMetadata.put(targetStudent, metadata);
-
-            Map<String, Object> historyEntry = new HashMap<>(metadata);
-            historyEntry.put("distributedAt", java.time.LocalDateTime.now().toString());
-            List<Map<String, Object>> history = distributedExamHistory.computeIfAbsent(targetStudent, k -> new ArrayList<>());
-            history.add(historyEntry);
-
-            distributedExamQuestionsByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(uniqueExam));
-            distributedQuestionDifficultiesByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(finalDifficulties));
-            distributedQuestionTopicsByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new ArrayList<>(questionTopics));
-            distributedAnswerKeysByAssignment
-                .computeIfAbsent(targetStudent, k -> new HashMap<>())
-                .put(assignmentId, new HashMap<>(studentAnswerKey));
-
-            if (!studentAnswerKey.isEmpty()) {
-                answerKeyService.storeStudentAnswerKey(targetStudent, studentAnswerKey);
-                System.out.println("Stored answer key for " + targetStudent + " with " + studentAnswerKey.size() + " answers");
-            }
-
-            long actualEasy   = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Easy")).count();
-            long actualMedium = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Medium")).count();
-            long actualHard   = finalDifficulties.stream().filter(d -> d.equalsIgnoreCase("Hard")).count();
-
-            System.out.println("Distributed exam to: " + targetStudent);
-            System.out.println("Distribution: " + actualEasy + " Easy, " + actualMedium + " Medium, " + actualHard + " Hard");
-            System.out.println("Time limit: " + timeLimit + " minutes, Deadline: " + deadline);
         }
     }
     
     @PostMapping("/unlock-exam")
     public String unlockExam(@RequestParam String studentEmail,
                             HttpSession session) {
-        String examName = (String) session.getAttribute("examName_" + studentEmail);
-        if (examName == null || examName.isEmpty()) {
-            Map<String, Object> metadata = distributedExamMetadata.get(studentEmail);
-            if (metadata != null) {
-                Object metaExamName = metadata.get("examName");
-                examName = metaExamName != null ? String.valueOf(metaExamName) : null;
-            }
+        String examName = null;
+        DistributedAssignment latestAssignment = assignmentStore.getLatest(studentEmail);
+        if (latestAssignment != null) {
+            examName = latestAssignment.getExamName();
         }
         
         if (examName != null) {
             // Add to unlocked exams
-            unlockedExams.computeIfAbsent(studentEmail, k -> new HashSet<>()).add(examName);
-            System.out.println("🔓 EXAM UNLOCKED: " + examName + " for student " + studentEmail);
+            assignmentStore.unlock(studentEmail, examName);
+            log.info("🔓 EXAM UNLOCKED: {} for student {}", examName, studentEmail);
         }
         
         return "redirect:/teacher/homepage";
@@ -1882,37 +1639,12 @@ public class HomepageController {
      * Re-shuffle the answer choices within a question block to create unique exams
      */
     private String reshuffleQuestionChoices(String questionBlock, SecureRandom rand) {
-        String[] lines = questionBlock.split("\n");
-        if (lines.length <= 1) return questionBlock; // No choices to shuffle
-        
-        String questionText = lines[0];
-        List<String> choices = new ArrayList<>();
-        
-        // Extract choices (lines with A), B), C), D) format)
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.matches("^[A-Za-z]\\)\\s+.+")) {
-                // Remove the label and extract just the choice text
-                String choiceText = line.replaceFirst("^[A-Za-z]\\)\\s+", "");
-                choices.add(choiceText);
-            }
-        }
-        
+        int choiceCount = fisherYatesService.extractChoices(questionBlock).size();
         // If no choices found, return original
-        if (choices.isEmpty()) return questionBlock;
-        
-        // Shuffle the choices using Fisher-Yates
-        fisherYatesService.shuffle(choices, rand);
-        
-        // Rebuild the question with reshuffled choices
-        StringBuilder result = new StringBuilder(questionText);
-        char label = 'A';
-        for (String choice : choices) {
-            result.append("\n").append(label).append(") ").append(choice);
-            label++;
-        }
-        
-        return result.toString();
+        if (choiceCount == 0) return questionBlock;
+
+        return fisherYatesService.applyChoicePermutation(questionBlock,
+            fisherYatesService.randomPermutation(choiceCount, rand));
     }
 
     @GetMapping("/process-exams")
@@ -1957,11 +1689,11 @@ public class HomepageController {
             List<String> difficultyLevels = new ArrayList<>();
             
             if (isCsvFormat) {
-                CsvProcessResult csvResult = processCsvExam(examCreated, session, answerKey);
+                CsvProcessResult csvResult = processCsvExam(examCreated, answerKey);
                 randomizedLines = csvResult.questions;
                 difficultyLevels = csvResult.difficulties;
             } else if (isWordFormat) {
-                randomizedLines = processWordExam(examCreated, session, answerKey);
+                randomizedLines = processWordExam(examCreated, answerKey);
                 // For Word files, automatically infer difficulty per question
                 for (String block : randomizedLines) {
                     String typeHint = block.matches("(?s).*[A-Da-d]\\)\\s+.*") ? "MULTIPLE_CHOICE" : "TEXT_INPUT";
@@ -1969,7 +1701,7 @@ public class HomepageController {
                     difficultyLevels.add(inferred);
                 }
             } else {
-                randomizedLines = processFisherYates(examCreated, session, answerKey);
+                randomizedLines = processFisherYates(examCreated, answerKey);
                 // For PDF files (exam "paper"), automatically infer difficulty per question
                 for (String block : randomizedLines) {
                     String typeHint = block.matches("(?s).*[A-Da-d]\\)\\s+.*") ? "MULTIPLE_CHOICE" : "TEXT_INPUT";
@@ -1977,10 +1709,8 @@ public class HomepageController {
                     difficultyLevels.add(inferred);
                 }
             }
-            session.setAttribute("shuffledExam", randomizedLines);
-            
-            @SuppressWarnings("unchecked")
-            Map<Integer, String> finalAnswerKey = (Map<Integer, String>) session.getAttribute("correctAnswerKey");
+            // The processors replace the contents of answerKey with the key for the shuffled order
+            Map<Integer, String> finalAnswerKey = answerKey;
             
             // Store the uploaded exam for later selection
             String examId = "EXAM_" + System.currentTimeMillis();
@@ -1993,10 +1723,13 @@ public class HomepageController {
             String examSubject = (subject != null && !subject.isEmpty()) ? subject : "General";
             String examActivityType = (activityType != null && !activityType.isEmpty()) ? activityType : "Exam";
             
+            List<String> questionTopics = topicClassifier.extractTopics(randomizedLines, examSubject);
             UploadedExam uploadedExam = new UploadedExam(examId, examName, examSubject, examActivityType, 
-                                                         randomizedLines, difficultyLevels, finalAnswerKey);
-            uploadedExams.put(examId, uploadedExam);
+                                                         randomizedLines, difficultyLevels, questionTopics, finalAnswerKey);
+            examCatalog.put(uploadedExam);
             processedExamId = examId;
+            // Exports of the last processed exam look it up in the catalog by this id
+            session.setAttribute(LAST_PROCESSED_EXAM, examId);
             model.addAttribute("processedExamId", examId);
             model.addAttribute("processedExamName", examName);
             
@@ -2049,8 +1782,8 @@ public class HomepageController {
                          .collect(Collectors.toList());
         }
 
-        System.out.println("=== PARSING ANSWER KEY PDF ===");
-        System.out.println("Total lines: " + lines.size());
+        parseLog.debug("=== PARSING ANSWER KEY PDF ===");
+        parseLog.debug("Total lines: {}", lines.size());
 
         // Skip document metadata / headers
         Pattern skipPattern = Pattern.compile(
@@ -2073,7 +1806,7 @@ public class HomepageController {
         // ── First pass: decide which format the PDF uses ──────────────────────────
         boolean hasDedicatedAnswerLines = lines.stream()
             .anyMatch(l -> answerLinePattern.matcher(l.trim()).find());
-        System.out.println("Format detected – has dedicated Answer: lines: " + hasDedicatedAnswerLines);
+        parseLog.debug("Format detected – has dedicated Answer: lines: {}", hasDedicatedAnswerLines);
 
         if (hasDedicatedAnswerLines) {
             // ── Format A: Q#: [question text]  …  Answer: [actual answer] ──────────
@@ -2082,7 +1815,7 @@ public class HomepageController {
                 String trimmed = line.trim();
 
                 if (skipPattern.matcher(trimmed).find()) {
-                    System.out.println("Skipping header/metadata: " + trimmed);
+                    parseLog.debug("Skipping header/metadata: {}", trimmed);
                     continue;
                 }
                 if (trimmed.length() < 2 || trimmed.matches("^\\d+$")) continue;
@@ -2094,7 +1827,7 @@ public class HomepageController {
                         .replaceFirst("^[A-Da-d][.)\\s]\\s*", "").trim();
                     if (!answer.isEmpty()) {
                         answerKey.put(currentQNum, answer);
-                        System.out.println("Q" + currentQNum + " -> " + answer);
+                        parseLog.debug("Q{} -> {}", currentQNum, answer);
                     }
                     continue;
                 }
@@ -2115,7 +1848,7 @@ public class HomepageController {
                         .replaceFirst("^[A-Da-d][.)\\s]\\s*", "").trim();
                     if (!answer.isEmpty()) {
                         answerKey.put(qNum, answer);
-                        System.out.println("Q" + qNum + " -> " + answer);
+                        parseLog.debug("Q{} -> {}", qNum, answer);
                     }
                 }
             }
@@ -2129,7 +1862,7 @@ public class HomepageController {
                 String trimmed = line.trim();
 
                 if (skipPattern.matcher(trimmed).find()) {
-                    System.out.println("Skipping header/metadata: " + trimmed);
+                    parseLog.debug("Skipping header/metadata: {}", trimmed);
                     continue;
                 }
                 if (trimmed.length() < 2 || trimmed.matches("^\\d+$")) continue;
@@ -2162,7 +1895,7 @@ public class HomepageController {
                         String finalAnswer = currentAnswer.toString().trim();
                         if (!finalAnswer.isEmpty()) {
                             answerKey.put(lastQNum, finalAnswer);
-                            System.out.println("Completed Q" + lastQNum + " -> " + finalAnswer);
+                            parseLog.debug("Completed Q{} -> {}", lastQNum, finalAnswer);
                         }
                     }
                     lastQNum = qNum;
@@ -2171,7 +1904,7 @@ public class HomepageController {
                     // Multi-line answer continuation
                     currentAnswer.append(" ").append(trimmed);
                     answerKey.put(lastQNum, currentAnswer.toString().trim());
-                    System.out.println("Appending to Q" + lastQNum + " -> " + currentAnswer.toString().trim());
+                    parseLog.debug("Appending to Q{} -> {}", lastQNum, currentAnswer.toString().trim());
                 }
             }
 
@@ -2180,14 +1913,14 @@ public class HomepageController {
                 String finalAnswer = currentAnswer.toString().trim();
                 if (!finalAnswer.isEmpty()) {
                     answerKey.put(lastQNum, finalAnswer);
-                    System.out.println("Completed Q" + lastQNum + " -> " + finalAnswer);
+                    parseLog.debug("Completed Q{} -> {}", lastQNum, finalAnswer);
                 }
             }
         }
 
-        System.out.println("=== ANSWER KEY PARSED: " + answerKey.size() + " answers ===");
+        parseLog.info("=== ANSWER KEY PARSED: {} answers ===", answerKey.size());
         if (answerKey.isEmpty()) {
-            System.out.println("WARNING: No answers were extracted from the answer key PDF!");
+            parseLog.warn("⚠️ No answers were extracted from the answer key PDF!");
         }
         return answerKey;
     }
@@ -2201,17 +1934,16 @@ public class HomepageController {
      * 3. Simple format: Question (with embedded "Answer: ...")
      * 4. ID, Difficulty, Type, Question format
      */
-    private CsvProcessResult processCsvExam(MultipartFile file, HttpSession session, 
-                                        Map<Integer, String> externalAnswerKey) throws IOException {
+    private CsvProcessResult processCsvExam(MultipartFile file, Map<Integer, String> externalAnswerKey) throws IOException {
         List<String> questionBlocks = new ArrayList<>();
         List<String> difficultyList = new ArrayList<>();
         Map<Integer, String> answerKey = new HashMap<>();
         
-        System.out.println("=== PROCESSING CSV EXAM ===");
+        parseLog.debug("=== PROCESSING CSV EXAM ===");
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
             String headerLine = reader.readLine(); // Read first line
-            System.out.println("CSV First Line: " + headerLine);
+            parseLog.debug("CSV First Line: {}", headerLine);
             
             // Detect CSV format based on headers
             boolean hasHeader = headerLine.toLowerCase().contains("question") || 
@@ -2224,7 +1956,7 @@ public class HomepageController {
                                    (headerLine.toLowerCase().contains("difficulty") || 
                                     headerLine.toLowerCase().contains("id"));
             
-            System.out.println("Format detected: " + (isMixedFormat ? "Mixed (Multiple Choice + Open-Ended)" : "Standard"));
+            parseLog.debug("Format detected: {}", (isMixedFormat ? "Mixed (Multiple Choice + Open-Ended)" : "Standard"));
             
             // Process all rows using processCSVRow which handles both types
             // Process first line if it's not a header
@@ -2242,11 +1974,11 @@ public class HomepageController {
             }
         }
         
-        System.out.println("=== CSV EXAM PARSED: " + questionBlocks.size() + " questions ===");
+        parseLog.info("=== CSV EXAM PARSED: {} questions ===", questionBlocks.size());
         
         // Merge external answer key if provided and convert letter answers to text
         if (externalAnswerKey != null && !externalAnswerKey.isEmpty()) {
-            System.out.println("Merging external answer key with " + externalAnswerKey.size() + " answers");
+            parseLog.debug("Merging external answer key with {} answers", externalAnswerKey.size());
             
             // Convert letter answers (A, B, C, D) to actual choice text
             for (int i = 0; i < questionBlocks.size(); i++) {
@@ -2261,10 +1993,10 @@ public class HomepageController {
                         String actualAnswer = convertLetterToChoiceText(question, answerTrimmed);
                         if (actualAnswer != null) {
                             answerKey.put(i + 1, actualAnswer);
-                            System.out.println("Q" + (i + 1) + " converted answer '" + answerTrimmed + "' to: " + actualAnswer);
+                            parseLog.debug("Q{} converted answer '{}' to: {}", (i + 1), answerTrimmed, actualAnswer);
                         } else {
                             answerKey.put(i + 1, answer);
-                            System.out.println("WARNING: Q" + (i + 1) + " could not convert letter '" + answerTrimmed + "'");
+                            parseLog.warn("⚠️ Q{} could not convert letter '{}'", (i + 1), answerTrimmed);
                         }
                     } else {
                         // Answer is already text, use as-is
@@ -2312,10 +2044,12 @@ public class HomepageController {
             difficultyList.add(qa.difficulty);
             answerKey.put(i + 1, qa.answer);
             
-            System.out.println("Shuffled Q" + (i + 1) + " (originally Q" + qa.originalNumber + ") [" + qa.difficulty + "] -> " + qa.answer);
+            parseLog.debug("Shuffled Q{} (originally Q{}) [{}] -> {}", (i + 1), qa.originalNumber, qa.difficulty, qa.answer);
         }
         
-        session.setAttribute("correctAnswerKey", answerKey);
+        // Hand the shuffled key back to the caller
+        externalAnswerKey.clear();
+        externalAnswerKey.putAll(answerKey);
         return new CsvProcessResult(questionBlocks, difficultyList);
     }
     
@@ -2344,7 +2078,7 @@ public class HomepageController {
                 type.equalsIgnoreCase("Open") ||
                 type.equalsIgnoreCase("Text Input")) {
                 questionBlocks.add("[TEXT_INPUT]" + fullQuestion);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Open-Ended/Essay) -> " + fullQuestion.substring(0, Math.min(50, fullQuestion.length())));
+                parseLog.debug("Parsed CSV Q{} (Open-Ended/Essay) -> {}", questionNumber, fullQuestion.substring(0, Math.min(50, fullQuestion.length())));
                 return;
             }
             
@@ -2384,20 +2118,20 @@ public class HomepageController {
                     // Remove trailing newline
                     String formattedBlock = questionBlock.toString().trim();
                     questionBlocks.add(formattedBlock);
-                    System.out.println("Parsed CSV Q" + questionNumber + " (Multiple Choice with " + choices.size() + " choices)");
+                    parseLog.debug("Parsed CSV Q{} (Multiple Choice with {} choices)", questionNumber, choices.size());
                     return;
                 }
             }
             
             // If no embedded choices found but type is Multiple Choice, log warning
             if (type.equalsIgnoreCase("Multiple Choice")) {
-                System.out.println("WARNING: Q" + questionNumber + " marked as Multiple Choice but no embedded choices found!");
-                System.out.println("Question text: " + fullQuestion);
+                parseLog.warn("⚠️ Q{} marked as Multiple Choice but no embedded choices found!", questionNumber);
+                parseLog.debug("Question text: {}", fullQuestion);
             }
             
             // Fallback: treat as text input since no choices found
             questionBlocks.add("[TEXT_INPUT]" + fullQuestion);
-            System.out.println("Parsed CSV Q" + questionNumber + " (Fallback to Text Input)");
+            parseLog.debug("Parsed CSV Q{} (Fallback to Text Input)", questionNumber);
             return;
         }
         
@@ -2424,7 +2158,7 @@ public class HomepageController {
             difficultyList.add(inferredDifficulty);
             answerKey.put(questionNumber, correctAnswer);
             
-            System.out.println("Parsed CSV Q" + questionNumber + " (Format 1) -> " + correctAnswer);
+            parseLog.debug("Parsed CSV Q{} (Format 1) -> {}", questionNumber, correctAnswer);
             
         } else if (columns.length >= 5) {
             // Format 2: Question, ChoiceA, ChoiceB, ChoiceC, ChoiceD
@@ -2456,9 +2190,9 @@ public class HomepageController {
             difficultyList.add(inferredDifficulty);
             if (correctAnswer != null) {
                 answerKey.put(questionNumber, correctAnswer);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 2 with embedded answer) -> " + correctAnswer);
+                parseLog.debug("Parsed CSV Q{} (Format 2 with embedded answer) -> {}", questionNumber, correctAnswer);
             } else {
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 2 - no answer found)");
+                parseLog.debug("Parsed CSV Q{} (Format 2 - no answer found)", questionNumber);
             }
             
         } else if (columns.length == 1) {
@@ -2485,13 +2219,13 @@ public class HomepageController {
             difficultyList.add(inferredDifficulty);
             if (correctAnswer != null) {
                 answerKey.put(questionNumber, correctAnswer);
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 3 with embedded answer) -> " + correctAnswer);
+                parseLog.debug("Parsed CSV Q{} (Format 3 with embedded answer) -> {}", questionNumber, correctAnswer);
             } else {
-                System.out.println("Parsed CSV Q" + questionNumber + " (Format 3 - no answer found)");
+                parseLog.debug("Parsed CSV Q{} (Format 3 - no answer found)", questionNumber);
             }
             
         } else {
-            System.out.println("WARNING: Skipping malformed CSV line (" + columns.length + " columns): " + line);
+            parseLog.warn("⚠️ Skipping malformed CSV line ({} columns): {}", columns.length, line);
         }
     }
 
@@ -2593,12 +2327,12 @@ public class HomepageController {
             if (index >= 0 && index < choices.size()) {
                 return choices.get(index);
             } else {
-                System.out.println("ERROR: Letter '" + letter + "' index " + index + " out of range for " + choices.size() + " choices");
+                parseLog.error("Letter '{}' index {} out of range for {} choices", letter, index, choices.size());
                 return null;
             }
             
         } catch (Exception e) {
-            System.out.println("ERROR converting letter '" + letter + "' to choice text: " + e.getMessage());
+            parseLog.error("Error converting letter '{}' to choice text: {}", letter, e.getMessage());
             return null;
         }
     }
@@ -2628,7 +2362,7 @@ public class HomepageController {
     private Map<Integer, String> parseAnswerKeyCsv(MultipartFile file) throws IOException {
         Map<Integer, String> answerKey = new HashMap<>();
         
-        System.out.println("=== PARSING CSV ANSWER KEY ===");
+        parseLog.debug("=== PARSING CSV ANSWER KEY ===");
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
             String firstLine = reader.readLine();
@@ -2659,17 +2393,17 @@ public class HomepageController {
                     // Format: QuestionNumber, Answer
                     int qNum = Integer.parseInt(columns[0].trim());
                     answerKey.put(qNum, columns[1].trim());
-                    System.out.println("Parsed CSV Answer Key Q" + qNum + " -> " + columns[1].trim());
+                    parseLog.debug("Parsed CSV Answer Key Q{} -> {}", qNum, columns[1].trim());
                 } else if (columns.length == 1) {
                     // Format: Just answers per line
                     answerKey.put(questionNumber, columns[0].trim());
-                    System.out.println("Parsed CSV Answer Key Q" + questionNumber + " -> " + columns[0].trim());
+                    parseLog.debug("Parsed CSV Answer Key Q{} -> {}", questionNumber, columns[0].trim());
                     questionNumber++;
                 }
             }
         }
         
-        System.out.println("=== CSV ANSWER KEY PARSED: " + answerKey.size() + " answers ===");
+        parseLog.info("=== CSV ANSWER KEY PARSED: {} answers ===", answerKey.size());
         return answerKey;
     }
     
@@ -2698,8 +2432,7 @@ public class HomepageController {
         return fields.toArray(String[]::new);
     }
 
-    private List<String> processFisherYates(MultipartFile file, HttpSession session, 
-                                           Map<Integer, String> externalAnswerKey) throws IOException {
+    private List<String> processFisherYates(MultipartFile file, Map<Integer, String> externalAnswerKey) throws IOException {
         // Create a unique uploads folder for images in this exam
         String examId = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
         Path uploadsDir = Paths.get("uploads", "exam-images", examId);
@@ -2726,11 +2459,11 @@ public class HomepageController {
                                     Path imgPath = uploadsDir.resolve(imgFile);
                                     ImageIO.write(img.getImage(), "PNG", imgPath.toFile());
                                     pageImageUrls.add("/uploads/exam-images/" + examId + "/" + imgFile);
-                                    System.out.println("Extracted image: " + imgFile + " (" + img.getWidth() + "x" + img.getHeight() + ")");
+                                    parseLog.debug("Extracted image: {} ({}x{})", imgFile, img.getWidth(), img.getHeight());
                                 }
                             }
                         } catch (IOException e) {
-                            System.out.println("Warning: Could not extract image " + xName.getName() + ": " + e.getMessage());
+                            parseLog.warn("⚠️ Could not extract image {}: {}", xName.getName(), e.getMessage());
                         }
                     }
                 }
@@ -2753,15 +2486,17 @@ public class HomepageController {
             }
         }
 
-        System.out.println("=== PROCESSING EXAM PDF ===");
-        System.out.println("Total lines (incl. markers): " + rawLines.size());
+        parseLog.debug("=== PROCESSING EXAM PDF ===");
+        parseLog.debug("Total lines (incl. markers): {}", rawLines.size());
 
         // Debug: Print first 60 lines to understand the structure
-        System.out.println("=== FIRST 60 LINES OF PDF ===");
-        for (int i = 0; i < Math.min(60, rawLines.size()); i++) {
-            System.out.println("Line " + i + ": " + rawLines.get(i));
+        if (parseLog.isDebugEnabled()) {
+            parseLog.debug("=== FIRST 60 LINES OF PDF ===");
+            for (int i = 0; i < Math.min(60, rawLines.size()); i++) {
+                parseLog.debug("Line {}: {}", i, rawLines.get(i));
+            }
+            parseLog.debug("=== END OF SAMPLE ===");
         }
-        System.out.println("=== END OF SAMPLE ===");
 
         // Improved skipPattern: Skip metadata, headers, page numbers, etc.
         Pattern skipPattern = Pattern.compile(
@@ -2792,7 +2527,7 @@ public class HomepageController {
 
             // Skip headers, page numbers, and metadata using improved pattern
             if (skipPattern.matcher(trimmed).find() || trimmed.isEmpty()) {
-                System.out.println("Skipping: " + trimmed);
+                parseLog.debug("Skipping: {}", trimmed);
                 continue;
             }
 
@@ -2802,14 +2537,14 @@ public class HomepageController {
             if (isNewQuestion) {
                 // Save previous question block if exists
                 if (currentBlock.length() > 0) {
-                    System.out.println("Processing block for Q" + (qID + 1) + ": " + currentBlock.toString().substring(0, Math.min(50, currentBlock.length())) + "...");
+                    parseLog.debug("Processing block for Q{}: {}...", (qID + 1), currentBlock.toString().substring(0, Math.min(50, currentBlock.length())));
                     String processed = extractAnswerAndShuffle(currentBlock.toString(), rand, answerKey, qID);
                     if (!processed.isEmpty()) {
                         questionBlocks.add(processed);
-                        System.out.println("Successfully processed Q" + (qID + 1));
+                        parseLog.debug("Successfully processed Q{}", (qID + 1));
                         qID++;
                     } else {
-                        System.out.println("WARNING: Empty result for Q" + (qID + 1));
+                        parseLog.warn("⚠️ Empty result for Q{}", (qID + 1));
                     }
                 }
                 // Strip numeric/Q-prefix: "1. " or "Q1 (Easy): "
@@ -2835,38 +2570,36 @@ public class HomepageController {
         
         // Don't forget the last question
         if (currentBlock.length() > 0) {
-            System.out.println("Processing final block for Q" + (qID + 1) + ": " + currentBlock.toString().substring(0, Math.min(50, currentBlock.length())) + "...");
+            parseLog.debug("Processing final block for Q{}: {}...", (qID + 1), currentBlock.toString().substring(0, Math.min(50, currentBlock.length())));
             String processed = extractAnswerAndShuffle(currentBlock.toString(), rand, answerKey, qID);
             if (!processed.isEmpty()) {
                 questionBlocks.add(processed);
-                System.out.println("Successfully processed Q" + (qID + 1));
+                parseLog.debug("Successfully processed Q{}", (qID + 1));
                 qID++;
             } else {
-                System.out.println("WARNING: Empty result for final Q" + (qID + 1));
+                parseLog.warn("⚠️ Empty result for final Q{}", (qID + 1));
             }
         }
 
-        System.out.println("=== EXAM PARSED: " + questionBlocks.size() + " questions ===");
+        parseLog.info("=== EXAM PARSED: {} questions ===", questionBlocks.size());
 
         // Merge external answer key if provided (external answers override embedded ones)
         if (externalAnswerKey != null && !externalAnswerKey.isEmpty()) {
-            System.out.println("Using external answer key with " + externalAnswerKey.size() + " answers");
+            parseLog.debug("Using external answer key with {} answers", externalAnswerKey.size());
             answerKey.putAll(externalAnswerKey);
         }
         
         // Print final answer key for debugging
-        System.out.println("=== FINAL ANSWER KEY ===");
+        parseLog.debug("=== FINAL ANSWER KEY ===");
         for (int i = 1; i <= Math.max(questionBlocks.size(), answerKey.size()); i++) {
             String answer = answerKey.get(i);
             if (answer != null) {
-                System.out.println("Q" + i + " -> " + answer);
+                parseLog.debug("Q{} -> {}", i, answer);
             } else {
-                System.out.println("Q" + i + " -> NO ANSWER FOUND!");
+                parseLog.debug("Q{} -> NO ANSWER FOUND!", i);
             }
         }
 
-        session.setAttribute("correctAnswerKey", answerKey);
-        
         // Shuffle the question order to prevent cheating
         // Create a mapping to preserve answer key association
         List<QuestionWithAnswer> questionsWithAnswers = new ArrayList<>();
@@ -2875,7 +2608,7 @@ public class HomepageController {
             String answer = answerKey.get(i + 1); // Answer key is 1-indexed
             
             if (answer == null) {
-                System.out.println("WARNING: No answer found for question " + (i + 1));
+                parseLog.warn("⚠️ No answer found for question {}", (i + 1));
                 answer = "Not Set"; // Provide a default to make it visible
             }
             
@@ -2892,11 +2625,12 @@ public class HomepageController {
             QuestionWithAnswer qa = questionsWithAnswers.get(i);
             questionBlocks.add(qa.question);
             answerKey.put(i + 1, qa.answer);
-            System.out.println("Shuffled Q" + (i + 1) + " (originally Q" + qa.originalNumber + ") -> " + qa.answer);
+            parseLog.debug("Shuffled Q{} (originally Q{}) -> {}", (i + 1), qa.originalNumber, qa.answer);
         }
         
-        // Update session with the shuffled answer key
-        session.setAttribute("correctAnswerKey", answerKey);
+        // Hand the shuffled key back to the caller
+        externalAnswerKey.clear();
+        externalAnswerKey.putAll(answerKey);
         
         return questionBlocks;
     }
@@ -2913,8 +2647,7 @@ public class HomepageController {
      * - Standard text with Unicode math symbols → normalizeEquationText
      * - Same question/answer detection as processFisherYates
      */
-    private List<String> processWordExam(MultipartFile file, HttpSession session,
-                                         Map<Integer, String> externalAnswerKey) throws IOException {
+    private List<String> processWordExam(MultipartFile file, Map<Integer, String> externalAnswerKey) throws IOException {
         // Create a unique uploads folder for images in this exam
         String examImgId = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
         Path uploadsDir = Paths.get("uploads", "exam-images", examImgId);
@@ -2935,7 +2668,7 @@ public class HomepageController {
                 Files.write(imgPath, picData.getData());
                 pictureIdToUrl.put(picData.getPackagePart().getPartName().getName(),
                                    "/uploads/exam-images/" + examImgId + "/" + imgFile);
-                System.out.println("Extracted Word image: " + imgFile);
+                parseLog.debug("Extracted Word image: {}", imgFile);
                 imageCounter++;
             }
 
@@ -2998,15 +2731,17 @@ public class HomepageController {
             }
         }
 
-        System.out.println("=== PROCESSING WORD EXAM ===");
-        System.out.println("Total lines (incl. markers): " + rawLines.size());
+        parseLog.debug("=== PROCESSING WORD EXAM ===");
+        parseLog.debug("Total lines (incl. markers): {}", rawLines.size());
 
         // Debug: Print first 60 lines
-        System.out.println("=== FIRST 60 LINES OF WORD DOC ===");
-        for (int i = 0; i < Math.min(60, rawLines.size()); i++) {
-            System.out.println("Line " + i + ": " + rawLines.get(i));
+        if (parseLog.isDebugEnabled()) {
+            parseLog.debug("=== FIRST 60 LINES OF WORD DOC ===");
+            for (int i = 0; i < Math.min(60, rawLines.size()); i++) {
+                parseLog.debug("Line {}: {}", i, rawLines.get(i));
+            }
+            parseLog.debug("=== END OF SAMPLE ===");
         }
-        System.out.println("=== END OF SAMPLE ===");
 
         // ── Reuse the same question parsing logic as PDF ────────────────
         Pattern skipPattern = Pattern.compile(
@@ -3069,7 +2804,7 @@ public class HomepageController {
             }
         }
 
-        System.out.println("=== WORD EXAM PARSED: " + questionBlocks.size() + " questions ===");
+        parseLog.info("=== WORD EXAM PARSED: {} questions ===", questionBlocks.size());
 
         // Merge external answer key
         if (externalAnswerKey != null && !externalAnswerKey.isEmpty()) {
@@ -3077,14 +2812,12 @@ public class HomepageController {
         }
 
         // Print final answer key
-        System.out.println("=== FINAL ANSWER KEY (WORD) ===");
+        parseLog.debug("=== FINAL ANSWER KEY (WORD) ===");
         for (int i = 1; i <= Math.max(questionBlocks.size(), answerKey.size()); i++) {
             String answer = answerKey.get(i);
-            System.out.println("Q" + i + " -> " + (answer != null ? answer : "NO ANSWER FOUND!"));
+            parseLog.debug("Q{} -> {}", i, (answer != null ? answer : "NO ANSWER FOUND!"));
         }
 
-        session.setAttribute("correctAnswerKey", answerKey);
-
         // Shuffle questions with their answers
         List<QuestionWithAnswer> questionsWithAnswers = new ArrayList<>();
         for (int i = 0; i < questionBlocks.size(); i++) {
@@ -3104,7 +2837,9 @@ public class HomepageController {
             answerKey.put(i + 1, qa.answer);
         }
 
-        session.setAttribute("correctAnswerKey", answerKey);
+        // Hand the shuffled key back to the caller
+        externalAnswerKey.clear();
+        externalAnswerKey.putAll(answerKey);
         return questionBlocks;
     }
 
@@ -3161,7 +2896,7 @@ public class HomepageController {
             }
             cursor.dispose();
         } catch (Exception e) {
-            System.out.println("Warning: Error processing Word paragraph equations: " + e.getMessage());
+            parseLog.warn("⚠️ Error processing Word paragraph equations: {}", e.getMessage());
             // Fallback: return paragraph text without equation processing
             return paragraph.getText();
         }
@@ -3232,7 +2967,7 @@ public class HomepageController {
         try {
             return parseOmmlNode(ommlXml);
         } catch (Exception e) {
-            System.out.println("Warning: Could not convert OMML to LaTeX: " + e.getMessage());
+            parseLog.warn("⚠️ Could not convert OMML to LaTeX: {}", e.getMessage());
             return "";
         }
     }
@@ -3570,8 +3305,8 @@ public class HomepageController {
             }
         }
 
-        System.out.println("=== PARSING ANSWER KEY WORD ===");
-        System.out.println("Total lines: " + lines.size());
+        parseLog.debug("=== PARSING ANSWER KEY WORD ===");
+        parseLog.debug("Total lines: {}", lines.size());
 
         // Use the same parsing patterns as the PDF answer key parser
         Pattern skipPattern = Pattern.compile(
@@ -3661,7 +3396,7 @@ public class HomepageController {
             }
         }
 
-        System.out.println("=== ANSWER KEY PARSED (WORD): " + answerKey.size() + " answers ===");
+        parseLog.info("=== ANSWER KEY PARSED (WORD): {} answers ===", answerKey.size());
         return answerKey;
     }
 
@@ -3715,7 +3450,7 @@ public class HomepageController {
                 questionText = pureQuestion;
                 choices.addAll(embeddedChoices);
                 foundEmbeddedChoices = true;
-                System.out.println("Detected embedded choices in Q" + (id + 1) + ": " + embeddedChoices.size() + " choices found");
+                parseLog.debug("Detected embedded choices in Q{}: {} choices found", (id + 1), embeddedChoices.size());
             }
         }
 
@@ -3770,7 +3505,7 @@ public class HomepageController {
             if (correctAnswer != null) {
                 key.put(id + 1, correctAnswer);
             }
-            System.out.println("Q" + (id + 1) + " treated as TEXT_INPUT (isOpenEnded=" + isOpenEnded + ", isEssay=" + isEssay + ", choices.size=" + choices.size() + ")");
+            parseLog.debug("Q{} treated as TEXT_INPUT (isOpenEnded={}, isEssay={}, choices.size={})", (id + 1), isOpenEnded, isEssay, choices.size());
             return "[TEXT_INPUT]" + questionText;
         }        
         // Convert answer letter to actual choice text BEFORE shuffling
@@ -3780,7 +3515,7 @@ public class HomepageController {
                 int answerIndex = Character.toUpperCase(correctAnswer.charAt(0)) - 'A';
                 if (answerIndex >= 0 && answerIndex < choices.size()) {
                     correctAnswer = choices.get(answerIndex);
-                    System.out.println("Q" + (id + 1) + " converted answer letter to text: " + correctAnswer);
+                    parseLog.debug("Q{} converted answer letter to text: {}", (id + 1), correctAnswer);
                 }
             }
             // Store the actual choice text as the answer
@@ -3911,8 +3646,8 @@ public class HomepageController {
 
     @GetMapping("/export/pdf")
     public ResponseEntity<byte[]> exportPDF(HttpSession session) throws DocumentException, IOException {
-        @SuppressWarnings("unchecked")
-        List<String> exam = (List<String>) session.getAttribute("shuffledExam");
+        UploadedExam lastExam = examCatalog.get((String) session.getAttribute(LAST_PROCESSED_EXAM));
+        List<String> exam = lastExam != null ? lastExam.getQuestions() : null;
         
         if (exam == null || exam.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -3965,8 +3700,8 @@ public class HomepageController {
 
     @GetMapping("/export/word")
     public ResponseEntity<byte[]> exportWord(HttpSession session) throws IOException {
-        @SuppressWarnings("unchecked")
-        List<String> exam = (List<String>) session.getAttribute("shuffledExam");
+        UploadedExam lastExam = examCatalog.get((String) session.getAttribute(LAST_PROCESSED_EXAM));
+        List<String> exam = lastExam != null ? lastExam.getQuestions() : null;
         
         if (exam == null || exam.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -4041,7 +3776,7 @@ public class HomepageController {
      */
     @GetMapping("/export-exam-with-answers/pdf")
     public ResponseEntity<byte[]> exportExamWithAnswersPdf(@RequestParam String examId) throws DocumentException, IOException {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             return ResponseEntity.notFound().build();
@@ -4130,7 +3865,7 @@ public class HomepageController {
      */
     @GetMapping("/export-exam-with-answers/csv")
     public ResponseEntity<byte[]> exportExamWithAnswersCsv(@RequestParam String examId) throws IOException {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             return ResponseEntity.notFound().build();
@@ -4174,7 +3909,7 @@ public class HomepageController {
      */
     @GetMapping("/export-exam-with-answers/docx")
     public ResponseEntity<byte[]> exportExamWithAnswersDocx(@RequestParam String examId) throws IOException {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         
         if (exam == null) {
             return ResponseEntity.notFound().build();
@@ -4322,21 +4057,20 @@ public class HomepageController {
         csv.append("\n");
         
         // Add detailed answers if available
-        if (submission.getAnswerDetailsJson() != null && !submission.getAnswerDetailsJson().isEmpty()) {
+        AnswerDetails answerDetails = submissionAnswerStore.load(submission.getId());
+        if (!answerDetails.isEmpty()) {
             csv.append("\n\nDetailed Answers:\n");
             csv.append("Question Number,Student Answer,Correct Answer,Result\n");
             
-            String[] details = submission.getAnswerDetailsJson().split(";");
-            for (String detail : details) {
-                if (!detail.trim().isEmpty()) {
-                    String[] parts = detail.split("\\|");
-                    if (parts.length == 4) {
-                        csv.append(parts[0]).append(","); // Question number
-                        csv.append(escapeCSV(parts[1])).append(","); // Student answer
-                        csv.append(escapeCSV(parts[2])).append(","); // Correct answer
-                        csv.append(parts[3].equals("true") ? "Correct" : "Incorrect").append("\n");
-                    }
-                }
+            int[] questionNumbers = answerDetails.getQuestionNumbers();
+            String[] studentAnswers = answerDetails.getStudentAnswers();
+            String[] correctAnswers = answerDetails.getCorrectAnswers();
+            boolean[] correct = answerDetails.getCorrect();
+            for (int i = 0; i < questionNumbers.length; i++) {
+                csv.append(questionNumbers[i]).append(",");
+                csv.append(escapeCSV(studentAnswers[i])).append(",");
+                csv.append(escapeCSV(correctAnswers[i])).append(",");
+                csv.append(correct[i] ? "Correct" : "Incorrect").append("\n");
             }
         }
         
@@ -4364,8 +4098,8 @@ public class HomepageController {
     }
     @GetMapping("/export/answer-key")
     public ResponseEntity<byte[]> exportAnswerKey(HttpSession session) throws DocumentException, IOException {
-        @SuppressWarnings("unchecked")
-        Map<Integer, String> answerKey = (Map<Integer, String>) session.getAttribute("correctAnswerKey");
+        UploadedExam lastExam = examCatalog.get((String) session.getAttribute(LAST_PROCESSED_EXAM));
+        Map<Integer, String> answerKey = lastExam != null ? lastExam.getAnswerKey() : null;
         
         if (answerKey == null || answerKey.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -4434,29 +4168,15 @@ public class HomepageController {
         
         ExamSubmission submission = submissionOpt.get();
         
-        // Parse answer details to show individual answers
-        List<Map<String, Object>> answerDetails = new ArrayList<>();
-        if (submission.getAnswerDetailsJson() != null && !submission.getAnswerDetailsJson().isEmpty()) {
-            String[] details = submission.getAnswerDetailsJson().split(";");
-            for (String detail : details) {
-                if (!detail.trim().isEmpty()) {
-                    String[] parts = detail.split("\\|");
-                    if (parts.length >= 4) {
-                        Map<String, Object> detailMap = new HashMap<>();
-                        detailMap.put("questionNumber", Integer.valueOf(parts[0]));
-                        detailMap.put("studentAnswer", parts[1]);
-                        detailMap.put("correctAnswer", parts[2]);
-                        detailMap.put("isCorrect", Boolean.valueOf(parts[3]));
-                        
-                        // Check if it's a text input question (might need manual grading)
-                        boolean isTextInput = parts[1].length() > 50 || !parts[1].matches("[A-D]\\).+");
-                        detailMap.put("isTextInput", isTextInput);
-                        detailMap.put("needsManualGrade", isTextInput && !Boolean.parseBoolean(parts[3]));
-                        
-                        answerDetails.add(detailMap);
-                    }
-                }
-            }
+        // Load answer details to show individual answers
+        List<Map<String, Object>> answerDetails = submissionAnswerStore.load(submission.getId()).toList();
+        for (Map<String, Object> detailMap : answerDetails) {
+            String studentAnswer = (String) detailMap.get("studentAnswer");
+            
+            // Check if it's a text input question (might need manual grading)
+            boolean isTextInput = studentAnswer.length() > 50 || !studentAnswer.matches("[A-D]\\).+");
+            detailMap.put("isTextInput", isTextInput);
+            detailMap.put("needsManualGrade", isTextInput && !(Boolean) detailMap.get("isCorrect"));
         }
         
         // Count questions needing manual grading
@@ -4496,11 +4216,11 @@ public class HomepageController {
             
             examSubmissionRepository.save(submission);
             
-            System.out.println("✅ Teacher finalized grade for submission #" + submissionId);
-            System.out.println("   Auto Score: " + submission.getScore());
-            System.out.println("   Manual Score: " + manualScore);
-            System.out.println("   Final Score: " + totalScore + "/" + submission.getTotalQuestions());
-            System.out.println("   Final Percentage: " + String.format("%.2f%%", newPercentage));
+            log.info("✅ Teacher finalized grade for submission #{}", submissionId);
+            log.debug("   Auto Score: {}", submission.getScore());
+            log.debug("   Manual Score: {}", manualScore);
+            log.debug("   Final Score: {}/{}", totalScore, submission.getTotalQuestions());
+            log.debug("   Final Percentage: {}", String.format("%.2f%%", newPercentage));
         }
         
         return "redirect:/teacher/subjects";
@@ -4537,25 +4257,21 @@ public class HomepageController {
 
     @GetMapping("/processed-papers")
     public String viewProcessedPapers(@RequestParam(required = false) String search, Model model) {
-        List<UploadedExam> processedExams = new ArrayList<>(uploadedExams.values());
-        processedExams.sort(Comparator.comparing(UploadedExam::getUploadedAt,
+        List<ProcessedExam> processedExams = examCatalog.getSummaries();
+        processedExams.sort(Comparator.comparing(ProcessedExam::getUploadedAt,
                                                  Comparator.nullsLast(Comparator.reverseOrder())));
 
         if (search != null && !search.trim().isEmpty()) {
             String query = search.trim().toLowerCase();
+            // Question and answer text is searched in the database so bodies are never loaded here
+            Set<String> bodyMatches = new HashSet<>(examCatalog.findExamIdsContaining(query));
             processedExams = processedExams.stream()
                 .filter(exam -> {
                     boolean inHeader = (exam.getExamName() != null && exam.getExamName().toLowerCase().contains(query))
                         || (exam.getSubject() != null && exam.getSubject().toLowerCase().contains(query))
                         || (exam.getActivityType() != null && exam.getActivityType().toLowerCase().contains(query));
 
-                    boolean inQuestions = exam.getQuestions() != null && exam.getQuestions().stream()
-                        .anyMatch(q -> q != null && q.toLowerCase().contains(query));
-
-                    boolean inAnswers = exam.getAnswerKey() != null && exam.getAnswerKey().values().stream()
-                        .anyMatch(a -> a != null && a.toLowerCase().contains(query));
-
-                    return inHeader || inQuestions || inAnswers;
+                    return inHeader || bodyMatches.contains(exam.getExamId());
                 })
                 .collect(Collectors.toList());
         }
@@ -4570,7 +4286,7 @@ public class HomepageController {
     public String viewProcessedPaperDetail(@PathVariable String examId,
                                            @RequestParam(required = false) String questionSearch,
                                            Model model) {
-        UploadedExam exam = uploadedExams.get(examId);
+        UploadedExam exam = examCatalog.get(examId);
         if (exam == null) {
             return "redirect:/teacher/processed-papers";
         }
@@ -4635,30 +4351,13 @@ public class HomepageController {
         
         ExamSubmission submission = submissionOpt.get();
         
-        // Parse answer details
-        List<Map<String, Object>> answerDetails = new ArrayList<>();
-        if (submission.getAnswerDetailsJson() != null && !submission.getAnswerDetailsJson().isEmpty()) {
-            String[] details = submission.getAnswerDetailsJson().split(";");
-            for (String detail : details) {
-                if (!detail.trim().isEmpty()) {
-                    String[] parts = detail.split("\\|");
-                    if (parts.length >= 4) {
-                        Map<String, Object> detailMap = new HashMap<>();
-                        detailMap.put("questionNumber", Integer.valueOf(parts[0]));
-                        detailMap.put("studentAnswer", parts[1]);
-                        detailMap.put("correctAnswer", parts[2]);
-                        detailMap.put("isCorrect", Boolean.valueOf(parts[3]));
-                        answerDetails.add(detailMap);
-                    }
-                }
-            }
-        }
+        // Load answer details
+        AnswerDetails details = submissionAnswerStore.load(submission.getId());
+        List<Map<String, Object>> answerDetails = details.toList();
         
         // Calculate question statistics
-        int totalQuestions = answerDetails.size();
-        int correctAnswers = (int) answerDetails.stream()
-                .filter(d -> (Boolean) d.get("isCorrect"))
-                .count();
+        int totalQuestions = details.size();
+        int correctAnswers = details.getCorrectCount();
         int incorrectAnswers = totalQuestions - correctAnswers;
         
         model.addAttribute("submission", submission);
@@ -4700,49 +4399,6 @@ public class HomepageController {
         return "redirect:/teacher/subjects";
     }
     
-    /**
-     * Extract topics from questions for Random Forest analysis
-     * This analyzes question text to determine subject areas
-     */
-    private List<String> extractTopicsFromQuestions(List<String> questions, String defaultSubject) {
-        List<String> topics = new ArrayList<>();
-        
-        // Keywords for different topics
-        Map<String, List<String>> topicKeywords = new HashMap<>();
-        topicKeywords.put("Security", Arrays.asList("phishing", "malware", "firewall", "encryption", "authentication", "vulnerability", "attack", "threat", "password", "zero-day"));
-        topicKeywords.put("Networking", Arrays.asList("router", "switch", "ip", "tcp", "udp", "osi", "protocol", "network", "dns", "dhcp", "subnet", "gateway"));
-        topicKeywords.put("Programming", Arrays.asList("python", "java", "code", "function", "variable", "loop", "algorithm", "syntax", "debug", "compile"));
-        topicKeywords.put("Operating Systems", Arrays.asList("windows", "linux", "mac", "os", "kernel", "process", "thread", "memory", "file system"));
-        topicKeywords.put("Database", Arrays.asList("sql", "database", "query", "table", "index", "primary key", "foreign key", "join", "select"));
-        topicKeywords.put("Hardware", Arrays.asList("cpu", "ram", "hard drive", "ssd", "motherboard", "gpu", "memory", "storage", "processor"));
-        topicKeywords.put("Cloud", Arrays.asList("cloud", "aws", "azure", "saas", "paas", "iaas", "virtual", "container", "docker"));
-        topicKeywords.put("Web Development", Arrays.asList("html", "css", "javascript", "http", "url", "browser", "website", "web", "frontend", "backend"));
-        
-        for (String question : questions) {
-            String questionLower = question.toLowerCase();
-            String detectedTopic = defaultSubject != null ? defaultSubject : "General";
-            int maxMatches = 0;
-            
-            // Find topic with most keyword matches
-            for (Map.Entry<String, List<String>> entry : topicKeywords.entrySet()) {
-                int matches = 0;
-                for (String keyword : entry.getValue()) {
-                    if (questionLower.contains(keyword)) {
-                        matches++;
-                    }
-                }
-                if (matches > maxMatches) {
-                    maxMatches = matches;
-                    detectedTopic = entry.getKey();
-                }
-            }
-            
-            topics.add(detectedTopic);
-        }
-        
-        return topics;
-    }
-    
     /**
      * Teacher view of student's Random Forest Performance Analytics
      */
@@ -4805,10 +4461,10 @@ public class HomepageController {
         }
         model.addAttribute("performanceMessage", performanceMessage);
         
-        System.out.println("📊 Teacher viewing analytics for submission: " + submissionId);
-        System.out.println("   Student: " + submission.getStudentEmail());
-        System.out.println("   Overall Score: " + String.format("%.2f", overallScore));
-        System.out.println("   Category: " + submission.getPerformanceCategory());
+        log.debug("📊 Teacher viewing analytics for submission: {}", submissionId);
+        log.debug("   Student: {}", submission.getStudentEmail());
+        log.debug("   Overall Score: {}", String.format("%.2f", overallScore));
+        log.debug("   Category: {}", submission.getPerformanceCategory());
         
         return "student-performance-analytics";
     }
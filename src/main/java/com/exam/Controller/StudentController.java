@@ -1,6 +1,8 @@
 package com.exam.Controller;
 
+import com.exam.entity.DistributedAssignment;
 import com.exam.entity.ExamSubmission;
+import com.exam.entity.PendingSubmission;
 import com.exam.entity.User;
 import com.exam.entity.EnrolledStudent;
 import com.exam.entity.Subject;
@@ -8,18 +10,25 @@ import com.exam.repository.ExamSubmissionRepository;
 import com.exam.repository.UserRepository;
 import com.exam.repository.EnrolledStudentRepository;
 import com.exam.repository.SubjectRepository;
-import com.exam.service.AnswerKeyService;
-import com.exam.service.IRT3PLService;
-import com.exam.service.RandomForestAnalyticsService;
+import com.exam.service.AdaptiveTestService;
+import com.exam.service.AnswerDraftStore;
+import com.exam.service.AssignmentMaterializer;
+import com.exam.service.AssignmentMaterializer.MaterializedExam;
+import com.exam.service.AssignmentStore;
+import com.exam.service.ExamAttemptStore;
+import com.exam.service.ExamAttemptStore.ExamAttemptContext;
 import com.exam.service.RandomForestService;
+import com.exam.service.SubmissionAnswerStore;
+import com.exam.service.SubmissionPipeline;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,18 +36,11 @@ import java.util.stream.Collectors;
 @RequestMapping("/student")
 public class StudentController {
 
+    private static final Logger log = LoggerFactory.getLogger(StudentController.class);
+
     @Autowired
     private RandomForestService randomForestService;
     
-    @Autowired
-    private RandomForestAnalyticsService randomForestAnalyticsService;
-    
-    @Autowired
-    private IRT3PLService irt3PLService;
-    
-    @Autowired
-    private AnswerKeyService answerKeyService;
-    
     @Autowired
     private ExamSubmissionRepository examSubmissionRepository;
     
@@ -51,12 +53,30 @@ public class StudentController {
     @Autowired
     private SubjectRepository subjectRepository;
 
-    // This would normally be injected from a service, but for now we'll reference the static map
-    // In production, this should be stored in database
-    private static Map<String, List<String>> getDistributedExams() {
-        // This is a workaround - in production use a service/repository
-        return com.exam.Controller.HomepageController.getDistributedExams();
-    }
+    @Autowired
+    private AssignmentStore assignmentStore;
+
+    @Autowired
+    private AssignmentMaterializer assignmentMaterializer;
+
+    @Autowired
+    private ExamAttemptStore examAttemptStore;
+
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+
+    @Autowired
+    private SubmissionAnswerStore submissionAnswerStore;
+
+    @Autowired
+    private AnswerDraftStore answerDraftStore;
+
+    @Autowired
+    private AdaptiveTestService adaptiveTestService;
+
+    // The session only carries attempt ids; everything else lives in the ExamAttemptStore
+    private static final String CURRENT_ATTEMPT = "currentAttemptId";
+    private static final String PENDING_SUBMISSION = "pendingSubmissionId";
 
     @GetMapping("/dashboard")
     public String studentDashboard(HttpSession session, Model model, java.security.Principal principal) {
@@ -65,113 +85,127 @@ public class StudentController {
         
         // Get subjects student is enrolled in
         List<EnrolledStudent> enrollments = enrolledStudentRepository.findByStudentEmail(studentEmail);
-        
+
+        // One lookup for all enrolled subjects instead of one per enrollment
+        Set<Long> subjectIds = new LinkedHashSet<>();
+        for (EnrolledStudent enrollment : enrollments) {
+            if (enrollment.getSubjectId() != null) {
+                subjectIds.add(enrollment.getSubjectId());
+            }
+        }
+        Map<Long, Subject> subjectsById = new HashMap<>();
+        for (Subject subject : subjectRepository.findAllById(subjectIds)) {
+            subjectsById.put(subject.getId(), subject);
+        }
+
+        // One submissions query feeds the submitted set, the per-subject recent lists and the history section
+        List<ExamSubmission> allSubmissions = new ArrayList<>(examSubmissionRepository.findByStudentEmail(studentEmail));
+        allSubmissions.sort(Comparator.comparing(ExamSubmission::getSubmittedAt,
+                                               Comparator.nullsLast(Comparator.reverseOrder())));
+        Set<String> submittedExams = new HashSet<>();
+        Map<String, List<ExamSubmission>> recentBySubject = new HashMap<>();
+        for (ExamSubmission submission : allSubmissions) {
+            submittedExams.add(submittedKey(submission.getSubject(), submission.getExamName()));
+            if (submission.getSubject() != null) {
+                List<ExamSubmission> recent = recentBySubject.computeIfAbsent(submission.getSubject(), k -> new ArrayList<>());
+                if (recent.size() < 3) {
+                    recent.add(submission);
+                }
+            }
+        }
+
+        // Pending assignments come from the in-memory subject index
+        Map<String, List<DistributedAssignment>> pendingBySubject = assignmentStore.getPendingBySubject(studentEmail);
+
         // Create a map of subject data with activities
         List<Map<String, Object>> subjectCards = new ArrayList<>();
         
         for (EnrolledStudent enrollment : enrollments) {
             Long subjectId = enrollment.getSubjectId();
             String subjectName = enrollment.getSubjectName();
-            
-            if (subjectId != null) {
-                // Get subject details
-                Optional<Subject> subjectOpt = subjectRepository.findById(subjectId);
-                
-                if (subjectOpt.isPresent()) {
-                    Subject subject = subjectOpt.get();
-                    Map<String, Object> subjectCard = new HashMap<>();
-                    subjectCard.put("id", subject.getId());
-                    subjectCard.put("name", subject.getSubjectName());
-                    subjectCard.put("description", subject.getDescription());
-                    subjectCard.put("teacherEmail", subject.getTeacherEmail());
-                    
-                    // Get activities (exams) for this subject
-                    List<Map<String, Object>> activities = new ArrayList<>();
-                    
-                    // Check all distributed assignments for this subject
-                    List<Map<String, Object>> assignmentHistory = HomepageController.getDistributedExamHistory(studentEmail);
-                    if (!assignmentHistory.isEmpty()) {
-                        for (Map<String, Object> assignment : assignmentHistory) {
-                            String examSubject = String.valueOf(assignment.getOrDefault("examSubject", ""));
-                            if (subjectName == null || !subjectName.equals(examSubject)) {
-                                continue;
-                            }
-
-                            String examName = String.valueOf(assignment.getOrDefault("examName", ""));
-                            String assignmentId = String.valueOf(assignment.getOrDefault("assignmentId", ""));
-                            boolean alreadySubmitted = examName != null && !examName.isBlank() &&
-                                !examSubmissionRepository.findByStudentEmailAndExamNameAndSubject(studentEmail, examName, examSubject).isEmpty();
-
-                            if (alreadySubmitted) {
-                                if (assignmentId != null && !assignmentId.isBlank()) {
-                                    HomepageController.removeDistributedExam(studentEmail, assignmentId);
-                                }
-                                continue;
-                            }
-
-                            String examActivityType = String.valueOf(assignment.getOrDefault("examActivityType", "Exam"));
-                            Object timeObj = assignment.get("examTimeLimit");
-                            int examTimeLimit = timeObj instanceof Number ? ((Number) timeObj).intValue() : 60;
-                            String examDeadline = String.valueOf(assignment.getOrDefault("examDeadline", ""));
-                            List<String> examQuestions = HomepageController.getDistributedExamQuestions(studentEmail, assignmentId);
-
-                            Map<String, Object> activity = new HashMap<>();
-                            activity.put("name", (examName != null && !examName.isBlank()) ? examName : "Untitled Exam");
-                            activity.put("type", examActivityType != null ? examActivityType : "Exam");
-                            activity.put("timeLimit", examTimeLimit);
-                            activity.put("questionCount", examQuestions != null ? examQuestions.size() : 0);
-                            activity.put("deadline", formatDeadline(examDeadline));
-                            activity.put("status", "pending");
-                            activity.put("icon", getActivityIcon(examActivityType));
-                            activity.put("color", getActivityColor(examActivityType));
-                            activity.put("startUrl", "/student/take-exam?assignmentId=" + assignmentId);
-                            activities.add(activity);
-                        }
-                    }
-                    
-                    // Get recent submissions for this subject
-                    List<ExamSubmission> subjectSubmissions = examSubmissionRepository.findByStudentEmail(studentEmail)
-                        .stream()
-                        .filter(sub -> subjectName != null && subjectName.equals(sub.getSubject()))
-                        .sorted(Comparator.comparing(ExamSubmission::getSubmittedAt, 
-                                                   Comparator.nullsLast(Comparator.reverseOrder())))
-                        .limit(3)
-                        .collect(Collectors.toList());
-                    
-                    for (ExamSubmission submission : subjectSubmissions) {
-                        Map<String, Object> activity = new HashMap<>();
-                        activity.put("name", submission.getExamName());
-                        activity.put("type", submission.getActivityType() != null ? submission.getActivityType() : "Exam");
-                        activity.put("status", "completed");
-                        activity.put("score", submission.getScore() + "/" + submission.getTotalQuestions());
-                        activity.put("percentage", submission.getPercentage());
-                        activity.put("submittedAt", submission.getSubmittedAt());
-                        activity.put("submissionId", submission.getId());
-                        activity.put("icon", getActivityIcon(submission.getActivityType()));
-                        activity.put("color", getActivityColor(submission.getActivityType()));
-                        activities.add(activity);
+            Subject subject = subjectId != null ? subjectsById.get(subjectId) : null;
+            if (subject == null) {
+                continue;
+            }
+
+            Map<String, Object> subjectCard = new HashMap<>();
+            subjectCard.put("id", subject.getId());
+            subjectCard.put("name", subject.getSubjectName());
+            subjectCard.put("description", subject.getDescription());
+            subjectCard.put("teacherEmail", subject.getTeacherEmail());
+
+            // Get activities (exams) for this subject
+            List<Map<String, Object>> activities = new ArrayList<>();
+
+            List<DistributedAssignment> pending = subjectName != null
+                ? pendingBySubject.getOrDefault(subjectName, Collections.emptyList())
+                : Collections.emptyList();
+            for (DistributedAssignment assignment : pending) {
+                String examName = assignment.getExamName() != null ? assignment.getExamName() : "";
+                String assignmentId = assignment.getAssignmentId();
+                boolean alreadySubmitted = !examName.isBlank() && submittedExams.contains(submittedKey(subjectName, examName));
+
+                if (alreadySubmitted) {
+                    if (assignmentId != null && !assignmentId.isBlank()) {
+                        assignmentStore.remove(studentEmail, assignmentId);
                     }
-                    
-                    subjectCard.put("activities", activities);
-                    subjectCard.put("activityCount", activities.size());
-                    subjectCards.add(subjectCard);
+                    continue;
                 }
-            }
+
+                String examActivityType = assignment.getExamActivityType() != null ? assignment.getExamActivityType() : "Exam";
+                int examTimeLimit = assignment.getExamTimeLimit() != null ? assignment.getExamTimeLimit() : 60;
+                String examDeadline = assignment.getExamDeadline() != null ? assignment.getExamDeadline() : "";
+
+                Map<String, Object> activity = new HashMap<>();
+                activity.put("name", !examName.isBlank() ? examName : "Untitled Exam");
+                activity.put("type", examActivityType);
+                activity.put("timeLimit", examTimeLimit);
+                activity.put("questionCount", assignment.getQuestionCount());
+                activity.put("deadline", formatDeadline(examDeadline));
+                activity.put("status", "pending");
+                activity.put("icon", getActivityIcon(examActivityType));
+                activity.put("color", getActivityColor(examActivityType));
+                activity.put("startUrl", "/student/take-exam?assignmentId=" + assignmentId);
+                activities.add(activity);
+            }
+
+            // Recent submissions for this subject
+            List<ExamSubmission> subjectSubmissions = subjectName != null
+                ? recentBySubject.getOrDefault(subjectName, Collections.emptyList())
+                : Collections.emptyList();
+            for (ExamSubmission submission : subjectSubmissions) {
+                Map<String, Object> activity = new HashMap<>();
+                activity.put("name", submission.getExamName());
+                activity.put("type", submission.getActivityType() != null ? submission.getActivityType() : "Exam");
+                activity.put("status", "completed");
+                activity.put("score", submission.getScore() + "/" + submission.getTotalQuestions());
+                activity.put("percentage", submission.getPercentage());
+                activity.put("submittedAt", submission.getSubmittedAt());
+                activity.put("submissionId", submission.getId());
+                activity.put("icon", getActivityIcon(submission.getActivityType()));
+                activity.put("color", getActivityColor(submission.getActivityType()));
+                activities.add(activity);
+            }
+
+            subjectCard.put("activities", activities);
+            subjectCard.put("activityCount", activities.size());
+            subjectCards.add(subjectCard);
         }
         
         model.addAttribute("subjectCards", subjectCards);
         model.addAttribute("hasSubjects", !subjectCards.isEmpty());
         
-        // Get all submissions for history section
-        List<ExamSubmission> allSubmissions = examSubmissionRepository.findByStudentEmail(studentEmail);
-        allSubmissions.sort(Comparator.comparing(ExamSubmission::getSubmittedAt, 
-                                               Comparator.nullsLast(Comparator.reverseOrder())));
+        // All submissions for history section
         model.addAttribute("allSubmissions", allSubmissions);
         model.addAttribute("hasSubmissions", !allSubmissions.isEmpty());
         
         return "student-dashboard";
     }
 
+    private static String submittedKey(String subject, String examName) {
+        return (subject != null ? subject : "") + "\u0000" + (examName != null ? examName : "");
+    }
+
     @GetMapping("/all-attempts")
     public String allAttempts(Model model, java.security.Principal principal) {
         String studentEmail = principal.getName();
@@ -210,31 +244,28 @@ public class StudentController {
 
         // Check for a pending (distributed but not yet submitted) exam for this subject
         Map<String, Object> pendingExam = null;
-        boolean hasDistributed = getDistributedExams().containsKey(studentEmail);
-        if (hasDistributed) {
-            Map<String, Object> meta = HomepageController.getDistributedExamMetadata(studentEmail);
-            String examSubject = meta != null ? String.valueOf(meta.getOrDefault("examSubject", "")) : "";
+        DistributedAssignment meta = assignmentStore.getLatest(studentEmail);
+        if (meta != null) {
+            String examSubject = meta.getExamSubject() != null ? meta.getExamSubject() : "";
             if (subjectName != null && subjectName.equals(examSubject)) {
-                String examName = meta != null ? String.valueOf(meta.getOrDefault("examName", "")) : "";
+                String examName = meta.getExamName() != null ? meta.getExamName() : "";
                 boolean alreadySubmitted = !examName.isEmpty() &&
                     !examSubmissionRepository.findByStudentEmailAndExamNameAndSubject(
                             studentEmail, examName, examSubject).isEmpty();
                 if (!alreadySubmitted) {
-                    String activityType = meta != null ? String.valueOf(meta.getOrDefault("examActivityType", "Exam")) : "Exam";
-                    Object timeLimitObj = meta != null ? meta.get("examTimeLimit") : null;
-                    int timeLimit = timeLimitObj instanceof Integer ? (Integer) timeLimitObj : 60;
-                    String deadline = meta != null ? String.valueOf(meta.getOrDefault("examDeadline", "")) : "";
-                    List<String> questions = getDistributedExams().get(studentEmail);
+                    String activityType = meta.getExamActivityType() != null ? meta.getExamActivityType() : "Exam";
+                    int timeLimit = meta.getExamTimeLimit() != null ? meta.getExamTimeLimit() : 60;
+                    String deadline = meta.getExamDeadline() != null ? meta.getExamDeadline() : "";
 
                     Map<String, Object> pe = new HashMap<>();
                     pe.put("name", examName.isEmpty() ? "Untitled Exam" : examName);
                     pe.put("type", activityType);
                     pe.put("timeLimit", timeLimit);
-                    pe.put("questionCount", questions != null ? questions.size() : 0);
+                    pe.put("questionCount", meta.getQuestionCount());
                     pe.put("deadline", formatDeadline(deadline));
                     pendingExam = pe;
                 } else {
-                    HomepageController.removeDistributedExam(studentEmail);
+                    assignmentStore.remove(studentEmail, meta.getAssignmentId());
                 }
             }
         }
@@ -357,24 +388,8 @@ public class StudentController {
         
         ExamSubmission submission = submissionOpt.get();
         
-        // Parse answer details
-        List<Map<String, Object>> answerDetails = new ArrayList<>();
-        if (submission.getAnswerDetailsJson() != null && !submission.getAnswerDetailsJson().isEmpty()) {
-            String[] details = submission.getAnswerDetailsJson().split(";");
-            for (String detail : details) {
-                if (!detail.trim().isEmpty()) {
-                    String[] parts = detail.split("\\|");
-                    if (parts.length == 4) {
-                        Map<String, Object> detailMap = new HashMap<>();
-                        detailMap.put("questionNumber", Integer.parseInt(parts[0]));
-                        detailMap.put("studentAnswer", parts[1]);
-                        detailMap.put("correctAnswer", parts[2]);
-                        detailMap.put("isCorrect", Boolean.parseBoolean(parts[3]));
-                        answerDetails.add(detailMap);
-                    }
-                }
-            }
-        }
+        // Load answer details
+        List<Map<String, Object>> answerDetails = submissionAnswerStore.load(submission.getId()).toList();
         
         // Create analytics object
         RandomForestService.StudentAnalytics analytics = new RandomForestService.StudentAnalytics(
@@ -410,24 +425,8 @@ public class StudentController {
         
         ExamSubmission submission = submissionOpt.get();
         
-        // Parse answer details to display questions and answers
-        List<Map<String, Object>> answerDetails = new ArrayList<>();
-        if (submission.getAnswerDetailsJson() != null && !submission.getAnswerDetailsJson().isEmpty()) {
-            String[] details = submission.getAnswerDetailsJson().split(";");
-            for (String detail : details) {
-                if (!detail.trim().isEmpty()) {
-                    String[] parts = detail.split("\\|");
-                    if (parts.length == 4) {
-                        Map<String, Object> detailMap = new HashMap<>();
-                        detailMap.put("questionNumber", Integer.parseInt(parts[0]));
-                        detailMap.put("studentAnswer", parts[1]);
-                        detailMap.put("correctAnswer", parts[2]);
-                        detailMap.put("isCorrect", Boolean.parseBoolean(parts[3]));
-                        answerDetails.add(detailMap);
-                    }
-                }
-            }
-        }
+        // Load answer details to display questions and answers
+        List<Map<String, Object>> answerDetails = submissionAnswerStore.load(submission.getId()).toList();
         
         model.addAttribute("submission", submission);
         model.addAttribute("answerDetails", answerDetails);
@@ -441,60 +440,43 @@ public class StudentController {
                            Model model,
                            java.security.Principal principal) {
         String studentId = principal.getName();
-        Map<String, Object> selectedAssignment = null;
-        List<Map<String, Object>> assignmentHistory = HomepageController.getDistributedExamHistory(studentId);
-
-        if (!assignmentHistory.isEmpty()) {
-            if (assignmentId != null && !assignmentId.isBlank()) {
-                for (Map<String, Object> assignment : assignmentHistory) {
-                    if (assignmentId.equals(assignment.get("assignmentId"))) {
-                        selectedAssignment = assignment;
-                        break;
-                    }
-                }
-            }
-            if (selectedAssignment == null) {
-                selectedAssignment = assignmentHistory.get(assignmentHistory.size() - 1);
-                Object chosenId = selectedAssignment.get("assignmentId");
-                assignmentId = chosenId != null ? String.valueOf(chosenId) : assignmentId;
-            }
+        DistributedAssignment selectedAssignment = assignmentStore.get(studentId, assignmentId);
+        if (selectedAssignment == null) {
+            selectedAssignment = assignmentStore.getLatest(studentId);
         }
 
-        if ((assignmentId == null || assignmentId.isBlank()) && selectedAssignment == null) {
+        if (selectedAssignment == null) {
             model.addAttribute("error", "No exam available for you yet.");
             return "redirect:/student/dashboard";
         }
+        assignmentId = selectedAssignment.getAssignmentId();
 
-        List<String> exam = HomepageController.getDistributedExamQuestions(studentId, assignmentId);
-        if (exam == null || exam.isEmpty()) {
-            exam = getDistributedExams().get(studentId);
+        int distributedVersion = selectedAssignment.getExamVersion();
+        MaterializedExam materialized = assignmentMaterializer.materializeForStart(selectedAssignment);
+        if (materialized != null && selectedAssignment.getExamVersion() != distributedVersion) {
+            // Saved answers are numbered by the old version's questions
+            assignmentStore.save(selectedAssignment);
+            answerDraftStore.discard(studentId, assignmentId);
         }
+        List<String> exam = materialized != null ? materialized.getQuestions() : null;
         
         if (exam == null || exam.isEmpty()) {
             model.addAttribute("error", "No exam available for you yet.");
             return "redirect:/student/dashboard";
         }
 
-        session.setAttribute("currentAssignmentId_" + studentId, assignmentId);
-        
         // MULTIPLE ATTEMPTS ALLOWED - Students can retake exams, all submissions stored in database
-        String examName = (String) session.getAttribute("examName_" + studentId);
-        Map<String, Object> distributedMeta = selectedAssignment != null
-            ? selectedAssignment
-            : HomepageController.getDistributedExamMetadata(studentId);
-        if ((examName == null || examName.isEmpty()) && distributedMeta != null) {
-            Object metaExamName = distributedMeta.get("examName");
-            examName = metaExamName != null ? String.valueOf(metaExamName) : null;
-        }
+        DistributedAssignment distributedMeta = selectedAssignment;
+        String examName = distributedMeta.getExamName();
         boolean isUnlocked = false;
         
         if (examName != null) {
             // Check if exam is unlocked by teacher (bypasses deadline only)
-            isUnlocked = HomepageController.isExamUnlocked(studentId, examName);
+            isUnlocked = assignmentStore.isUnlocked(studentId, examName);
             
             if (isUnlocked) {
-                System.out.println("🔓 UNLOCKED ACCESS: Student " + studentId + " accessing unlocked exam: " + examName);
-                System.out.println("   Bypassing deadline check");
+                log.debug("🔓 UNLOCKED ACCESS: Student {} accessing unlocked exam: {}", studentId, examName);
+                log.debug("   Bypassing deadline check");
             }
             
             // Log previous submissions (informational only, not blocking)
@@ -502,123 +484,53 @@ public class StudentController {
                 .findByStudentEmailAndExamName(studentId, examName);
             
             if (!previousSubmissions.isEmpty()) {
-                System.out.println("📝 Student " + studentId + " has " + previousSubmissions.size() + 
-                                 " previous submission(s) for this exam");
-                System.out.println("   Allowing retake - all submissions will be stored");
+                log.debug("📝 Student {} has {} previous submission(s) for this exam", studentId, previousSubmissions.size());
+                log.debug("   Allowing retake - all submissions will be stored");
             }
         }
         
         // Check if deadline has passed (SKIP if exam is unlocked)
         if (!isUnlocked) {
-            String deadline = (String) session.getAttribute("examDeadline_" + studentId);
-            if ((deadline == null || deadline.isEmpty()) && distributedMeta != null) {
-                Object metaDeadline = distributedMeta.get("examDeadline");
-                deadline = metaDeadline != null ? String.valueOf(metaDeadline) : null;
-            }
+            String deadline = distributedMeta.getExamDeadline();
             if (deadline != null && !deadline.isEmpty()) {
                 try {
                     java.time.LocalDateTime deadlineDateTime = java.time.LocalDateTime.parse(deadline);
                     java.time.LocalDateTime now = java.time.LocalDateTime.now();
                     
                     if (now.isAfter(deadlineDateTime)) {
-                        System.out.println("🚫 DEADLINE EXCEEDED: Student " + studentId + " tried to access exam after deadline");
-                        System.out.println("   Deadline: " + deadlineDateTime + ", Current: " + now);
+                        log.info("🚫 DEADLINE EXCEEDED: Student {} tried to access exam after deadline", studentId);
+                        log.debug("   Deadline: {}, Current: {}", deadlineDateTime, now);
                         model.addAttribute("error", "The exam deadline has passed. You can no longer access this exam.");
                         model.addAttribute("deadline", deadlineDateTime.format(java.time.format.DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a")));
                         return "student-dashboard";
                     }
                 } catch (Exception e) {
-                    System.out.println("⚠️ Error parsing deadline: " + e.getMessage());
+                    log.warn("⚠️ Error parsing deadline: {}", e.getMessage());
                 }
             }
         }
         
-        // Get student information
-        Optional<User> studentOpt = userRepository.findByEmail(studentId);
-        if (studentOpt.isPresent()) {
-            User student = studentOpt.get();
-            Map<String, String> userInfo = new HashMap<>();
-            userInfo.put("fullName", student.getFullName());
-            userInfo.put("email", student.getEmail());
-            model.addAttribute("userInfo", userInfo);
-        } else {
-            Map<String, String> userInfo = new HashMap<>();
-            userInfo.put("fullName", "Student");
-            userInfo.put("email", studentId);
-            model.addAttribute("userInfo", userInfo);
-        }
-        
-        // Get exam information (subject and activity type) from session
-        Map<String, String> examInfo = new HashMap<>();
-        String subject = (String) session.getAttribute("examSubject_" + studentId);
-        String activityType = (String) session.getAttribute("examActivityType_" + studentId);
-        Integer timeLimit = (Integer) session.getAttribute("examTimeLimit_" + studentId);
-        String examDeadline = (String) session.getAttribute("examDeadline_" + studentId);
-        if (distributedMeta != null) {
-            if (subject == null || subject.isEmpty()) {
-                Object metaSubject = distributedMeta.get("examSubject");
-                subject = metaSubject != null ? String.valueOf(metaSubject) : null;
-            }
-            if (activityType == null || activityType.isEmpty()) {
-                Object metaType = distributedMeta.get("examActivityType");
-                activityType = metaType != null ? String.valueOf(metaType) : null;
-            }
-            if (timeLimit == null) {
-                Object metaTime = distributedMeta.get("examTimeLimit");
-                if (metaTime instanceof Integer) {
-                    timeLimit = (Integer) metaTime;
-                }
-            }
-            if (examDeadline == null || examDeadline.isEmpty()) {
-                Object metaDeadline = distributedMeta.get("examDeadline");
-                examDeadline = metaDeadline != null ? String.valueOf(metaDeadline) : null;
-            }
-        }
-        
-        // ALWAYS set start time to NOW when student accesses exam page (force reset)
+        // ALWAYS start a fresh attempt (and timer) when student accesses exam page
         // Use epoch milliseconds for reliable JavaScript Date handling
-        long startTimeMillis = System.currentTimeMillis();
-        session.setAttribute("examStartTime_" + studentId, startTimeMillis);
-        System.out.println("▶ Exam timer STARTED for " + studentId + " at: " + startTimeMillis + " (" + 
-                          java.time.Instant.ofEpochMilli(startTimeMillis).toString() + ")");
-        
-        examInfo.put("subject", subject != null ? subject : "General");
-        examInfo.put("activityType", activityType != null ? activityType : "Exam");
-        examInfo.put("timeLimit", timeLimit != null ? timeLimit.toString() : "60");
-        examInfo.put("deadline", examDeadline != null ? examDeadline : "");
-        examInfo.put("startTimeMillis", String.valueOf(startTimeMillis));
-        model.addAttribute("examInfo", examInfo);
-        
-        // Keep selected assignment metadata in session for submit flow
-        if (distributedMeta != null) {
-            session.setAttribute("examName_" + studentId, String.valueOf(distributedMeta.getOrDefault("examName", examName)));
-            session.setAttribute("examSubject_" + studentId, String.valueOf(distributedMeta.getOrDefault("examSubject", subject)));
-            session.setAttribute("examActivityType_" + studentId, String.valueOf(distributedMeta.getOrDefault("examActivityType", activityType)));
-            Object metaLimit = distributedMeta.get("examTimeLimit");
-            if (metaLimit instanceof Number numberValue) {
-                session.setAttribute("examTimeLimit_" + studentId, numberValue.intValue());
-            }
-            session.setAttribute("examDeadline_" + studentId, String.valueOf(distributedMeta.getOrDefault("examDeadline", examDeadline)));
-        }
+        examAttemptStore.remove((String) session.getAttribute(CURRENT_ATTEMPT));
+        ExamAttemptContext attempt = examAttemptStore.start(studentId, distributedMeta, materialized);
+        session.setAttribute(CURRENT_ATTEMPT, attempt.getAttemptId());
+        assignmentStore.markOpened(studentId, assignmentId);
+        long startTimeMillis = attempt.getStartedAtMillis();
+        log.debug("▶ Exam timer STARTED for {} at: {} ({}) | attemptId={}", studentId, startTimeMillis, java.time.Instant.ofEpochMilli(startTimeMillis).toString(), attempt.getAttemptId());
 
-        Map<Integer, String> assignmentKey = HomepageController.getDistributedAnswerKey(studentId, assignmentId);
-        if (assignmentKey != null && !assignmentKey.isEmpty()) {
-            session.setAttribute("currentAssignmentAnswerKey_" + studentId, assignmentKey);
+        // Adaptive tests are served one item at a time
+        if (AdaptiveTestService.isAdaptive(attempt.getActivityType())) {
+            adaptiveTestService.start(attempt, materialized);
+            return "redirect:/student/adaptive";
         }
 
-        // Get question difficulties from assignment/session
-        @SuppressWarnings("unchecked")
-        List<String> difficulties = (List<String>) session.getAttribute("questionDifficulties_" + studentId);
-        if (difficulties == null || (assignmentId != null && !assignmentId.isBlank())) {
-            difficulties = HomepageController.getDistributedQuestionDifficulties(studentId, assignmentId);
-        }
-        if (difficulties == null) {
-            difficulties = HomepageController.getDistributedQuestionDifficulties(studentId);
-            if (difficulties != null) {
-                session.setAttribute("questionDifficulties_" + studentId, difficulties);
-            }
-        }
-        if (difficulties == null) {
+        addUserInfo(model, studentId);
+        model.addAttribute("examInfo", examInfo(attempt));
+
+        // Get question difficulties from assignment
+        List<String> difficulties = attempt.getDifficulties();
+        if (difficulties == null || difficulties.isEmpty()) {
             // Generate default difficulties if not found
             difficulties = new ArrayList<>();
             for (int i = 0; i < exam.size(); i++) {
@@ -626,29 +538,163 @@ public class StudentController {
             }
         }
         model.addAttribute("difficulties", difficulties);
-        
-        List<String> topics = HomepageController.getDistributedQuestionTopics(studentId, assignmentId);
-        if (topics != null) {
-            session.setAttribute("questionTopics_" + studentId, topics);
+
+        // Answers autosaved earlier (possibly on another device), as q1, q2, ... like the form fields
+        Map<String, String> savedAnswers = new HashMap<>();
+        for (Map.Entry<Integer, String> saved : answerDraftStore.load(studentId, assignmentId).entrySet()) {
+            savedAnswers.put("q" + saved.getKey(), saved.getValue());
         }
+        model.addAttribute("savedAnswers", savedAnswers);
 
         model.addAttribute("exam", exam);
         return "student-exam-paginated";
     }
 
+    /**
+     * Current item of the student's adaptive test, shown on the exam page as a one-question exam.
+     * Once the test has ended this only shows a page to submit it; submitting is left to the POST.
+     */
+    @GetMapping("/adaptive")
+    public String showAdaptiveItem(HttpSession session, Model model, java.security.Principal principal) {
+        String studentId = principal.getName();
+        ExamAttemptContext attempt = examAttemptStore.get((String) session.getAttribute(CURRENT_ATTEMPT), studentId);
+        AdaptiveTestService.Session adaptive = attempt != null ? attempt.getAdaptiveSession() : null;
+        if (adaptive == null || attempt.isSubmitted()) {
+            return "redirect:/student/dashboard";
+        }
+        if (adaptive.isFinished()) {
+            model.addAttribute("itemCount", adaptive.getCount());
+            model.addAttribute("submitToken", attempt.getSubmitToken());
+            return "student-adaptive-finished";
+        }
+
+        addUserInfo(model, studentId);
+        Map<String, String> examInfo = examInfo(attempt);
+        examInfo.put("adaptive", "true");
+        examInfo.put("sequence", String.valueOf(adaptive.getCount()));
+        examInfo.put("maxItems", String.valueOf(adaptive.getMaxItems()));
+        model.addAttribute("examInfo", examInfo);
+        model.addAttribute("exam", List.of(adaptive.getCurrentQuestion()));
+        model.addAttribute("difficulties", List.of(adaptive.getCurrentDifficulty()));
+        model.addAttribute("savedAnswers", new HashMap<String, String>());
+        return "student-exam-paginated";
+    }
+
+    /**
+     * Answer to the current adaptive item (q1), then the next item or, once the test has ended,
+     * the submission. finish=true ends the test early (time up or deadline).
+     */
+    @PostMapping("/adaptive/answer")
+    public String answerAdaptiveItem(@RequestParam Map<String, String> fields, HttpSession session,
+                                     java.security.Principal principal) {
+        String studentId = principal.getName();
+        String previousPendingId = submissionPipeline.findRecentSubmission(studentId, fields.get("submitToken"));
+        if (previousPendingId != null) {
+            session.removeAttribute(CURRENT_ATTEMPT);
+            session.setAttribute(PENDING_SUBMISSION, previousPendingId);
+            return "redirect:/student/submission-success";
+        }
+
+        ExamAttemptContext attempt = examAttemptStore.get((String) session.getAttribute(CURRENT_ATTEMPT), studentId);
+        AdaptiveTestService.Session adaptive = attempt != null ? attempt.getAdaptiveSession() : null;
+        if (adaptive == null || attempt.isSubmitted()) {
+            return "redirect:/student/dashboard";
+        }
+
+        int sequence;
+        try {
+            sequence = Integer.parseInt(fields.getOrDefault("sequence", "-1"));
+        } catch (NumberFormatException e) {
+            sequence = -1;
+        }
+        adaptiveTestService.answer(adaptive, sequence, fields.get("q1"));
+        if ("true".equals(fields.get("finish"))) {
+            adaptiveTestService.stop(adaptive);
+        }
+        if (!adaptive.isFinished()) {
+            return "redirect:/student/adaptive";
+        }
+        return submitAdaptiveTest(studentId, attempt, session);
+    }
+
+    /**
+     * Submit the items an adaptive test gave, graded like a normal exam of just those questions
+     */
+    private String submitAdaptiveTest(String studentId, ExamAttemptContext attempt, HttpSession session) {
+        Map<Integer, String> answers = new HashMap<>();
+        ExamAttemptContext administered = adaptiveTestService.administeredAttempt(attempt, answers);
+        String pendingId = submissionPipeline.submit(studentId, administered, administered.getAssignmentId(), answers,
+                                                     administered.getSubmitToken());
+        log.info("📥 Adaptive test {} submitted by {} ({} items)", pendingId, studentId,
+                 administered.getSourceQuestions().length);
+
+        session.removeAttribute(CURRENT_ATTEMPT);
+        session.setAttribute(PENDING_SUBMISSION, pendingId);
+        return "redirect:/student/submission-success";
+    }
+
+    private void addUserInfo(Model model, String studentId) {
+        Map<String, String> userInfo = new HashMap<>();
+        Optional<User> studentOpt = userRepository.findByEmail(studentId);
+        if (studentOpt.isPresent()) {
+            User student = studentOpt.get();
+            userInfo.put("fullName", student.getFullName());
+            userInfo.put("email", student.getEmail());
+        } else {
+            userInfo.put("fullName", "Student");
+            userInfo.put("email", studentId);
+        }
+        model.addAttribute("userInfo", userInfo);
+    }
+
+    // Exam information (subject, activity type, timer, submit token) for the exam page
+    private static Map<String, String> examInfo(ExamAttemptContext attempt) {
+        Map<String, String> examInfo = new HashMap<>();
+        String subject = attempt.getSubject();
+        String activityType = attempt.getActivityType();
+        Integer timeLimit = attempt.getTimeLimit();
+        String examDeadline = attempt.getDeadline();
+        examInfo.put("subject", subject != null ? subject : "General");
+        examInfo.put("activityType", activityType != null ? activityType : "Exam");
+        examInfo.put("timeLimit", timeLimit != null ? timeLimit.toString() : "60");
+        examInfo.put("deadline", examDeadline != null ? examDeadline : "");
+        examInfo.put("startTimeMillis", String.valueOf(attempt.getStartedAtMillis()));
+        examInfo.put("submitToken", attempt.getSubmitToken());
+        examInfo.put("assignmentId", attempt.getAssignmentId());
+        return examInfo;
+    }
+
     @PostMapping("/submit")
     public String submitExam(@RequestParam Map<String, String> answers, 
                             HttpSession session, Model model,
                             java.security.Principal principal) {
         String studentId = principal != null ? principal.getName() : "guest";
-        String currentAssignmentId = (String) session.getAttribute("currentAssignmentId_" + studentId);
-        Map<String, Object> currentAssignmentMeta = HomepageController.getDistributedExamAssignmentMetadata(studentId, currentAssignmentId);
+
+        // Repeated submit of the same exam page (double click, browser retry): show the first one
+        String submitToken = answers.get("submitToken");
+        String previousPendingId = submissionPipeline.findRecentSubmission(studentId, submitToken);
+        if (previousPendingId != null) {
+            log.debug("Duplicate submit from {} answered with {}", studentId, previousPendingId);
+            session.removeAttribute(CURRENT_ATTEMPT);
+            session.setAttribute(PENDING_SUBMISSION, previousPendingId);
+            return "redirect:/student/submission-success";
+        }
+
+        String currentAttemptId = (String) session.getAttribute(CURRENT_ATTEMPT);
+        ExamAttemptContext attempt = examAttemptStore.get(currentAttemptId, studentId);
+        // Attempt lost (restart, another instance, expired): the page posts its assignment, which
+        // is only found among the student's own, and grading regenerates that assignment's key
+        String currentAssignmentId = attempt != null ? attempt.getAssignmentId() : answers.get("assignmentId");
+        DistributedAssignment currentAssignmentMeta = assignmentStore.get(studentId, currentAssignmentId);
+        if (attempt == null && currentAssignmentMeta == null) {
+            log.warn("⚠️ Submit from {} rejected: no exam in progress and assignment {} not found", studentId, currentAssignmentId);
+            return "redirect:/student/dashboard";
+        }
         
         // Check if deadline has passed (allow submission with warning if just exceeded)
-        String deadline = (String) session.getAttribute("examDeadline_" + studentId);
+        String deadline = attempt != null ? attempt.getDeadline() : null;
         if ((deadline == null || deadline.isEmpty()) && currentAssignmentMeta != null) {
-            Object assignmentDeadline = currentAssignmentMeta.get("examDeadline");
-            deadline = assignmentDeadline != null ? String.valueOf(assignmentDeadline) : null;
+            deadline = currentAssignmentMeta.getExamDeadline();
         }
         boolean deadlineExceeded = false;
         if (deadline != null && !deadline.isEmpty()) {
@@ -658,453 +704,141 @@ public class StudentController {
                 
                 if (now.isAfter(deadlineDateTime)) {
                     deadlineExceeded = true;
-                    System.out.println("⚠️ LATE SUBMISSION: Student " + studentId + " submitted after deadline");
-                    System.out.println("   Deadline: " + deadlineDateTime + ", Submitted: " + now);
+                    log.warn("⚠️ LATE SUBMISSION: Student {} submitted after deadline", studentId);
+                    log.debug("   Deadline: {}, Submitted: {}", deadlineDateTime, now);
                 }
             } catch (Exception e) {
-                System.out.println("⚠️ Error parsing deadline during submission: " + e.getMessage());
+                log.warn("⚠️ Error parsing deadline during submission: {}", e.getMessage());
             }
         }
         model.addAttribute("lateSubmission", deadlineExceeded);
         
         // Prevent immediate auto-submit: Check if exam just started (< 10 seconds ago)
-        Object startTimeObj = session.getAttribute("examStartTime_" + studentId);
-        if (startTimeObj != null) {
-            long startTimeMillis = (Long) startTimeObj;
+        if (attempt != null) {
+            long startTimeMillis = attempt.getStartedAtMillis();
             long elapsedMillis = System.currentTimeMillis() - startTimeMillis;
             if (elapsedMillis < 10000) { // Less than 10 seconds
-                System.out.println("⚠️ BLOCKED: Exam submitted too quickly (" + elapsedMillis + "ms). Rejecting.");
+                log.warn("⚠️ BLOCKED: Exam submitted too quickly ({}ms). Rejecting.", elapsedMillis);
                 model.addAttribute("error", "Exam cannot be submitted within 10 seconds of starting. Please wait.");
                 return "redirect:/student/take-exam";
             }
         }
         
-        // Get answer key for this assignment
-        @SuppressWarnings("unchecked")
-        Map<Integer, String> key = (Map<Integer, String>) session.getAttribute("currentAssignmentAnswerKey_" + studentId);
-        if ((key == null || key.isEmpty()) && currentAssignmentId != null && !currentAssignmentId.isBlank()) {
-            key = HomepageController.getDistributedAnswerKey(studentId, currentAssignmentId);
-        }
-        if (key == null || key.isEmpty()) {
-            key = answerKeyService.getStudentAnswerKey(studentId);
-        }
-        
-        // Fallback to session if not found in service (backward compatibility)
-        if (key == null) {
-            @SuppressWarnings("unchecked")
-            Map<Integer, String> sessionKey = (Map<Integer, String>) session.getAttribute("correctAnswerKey");
-            key = sessionKey;
-        }
-        
-        // DEBUG: Console logging
-        System.out.println("\n========== EXAM GRADING DEBUG ==========");
-        System.out.println("Student: " + studentId);
-        System.out.println("Answer Key Available: " + (key != null ? "YES" : "NO"));
-        if (key != null) {
-            System.out.println("Total Questions in Answer Key: " + key.size());
-            System.out.println("Answer Key Contents:");
-            for (int i = 1; i <= key.size(); i++) {
-                System.out.println("  Q" + i + " -> " + (key.get(i) != null ? "'" + key.get(i) + "'" : "NULL"));
-            }
-        }
-        System.out.println("Student Submitted Answers: " + answers.size());
-        System.out.println("----------------------------------------");
-        
-        // Convert answers to list and calculate score
-        List<String> answerList = new ArrayList<>();
-        List<Map<String, Object>> answerDetails = new ArrayList<>();
-        int score = 0;
-        double percentage = 0;
-        RandomForestService.StudentAnalytics analytics = null;
-        
-        if (key != null) {
-            for (int i = 1; i <= key.size(); i++) {
-                String studentAns = answers.get("q" + i);
-                String correctAns = key.get(i);
-                answerList.add(studentAns != null ? studentAns : "");
-                
-                // Flexible answer matching
-                boolean isCorrect = isAnswerCorrect(studentAns, correctAns);
-                
-                if (isCorrect) {
-                    score++;
-                }
-                
-                // DEBUG: Console output
-                System.out.println("Question " + i + ":");
-                System.out.println("  Student Answer: '" + (studentAns != null ? studentAns.trim() : "NO ANSWER") + "'");
-                System.out.println("  Correct Answer: '" + (correctAns != null ? correctAns.trim() : "NOT SET") + "'");
-                System.out.println("  Result: " + (isCorrect ? "✓ CORRECT" : "✗ WRONG"));
-                System.out.println();
-                
-                // Store details for displaying on results page (when released)
-                Map<String, Object> detail = new HashMap<>();
-                detail.put("questionNumber", i);
-                detail.put("studentAnswer", studentAns != null ? studentAns.trim() : "No Answer");
-                detail.put("correctAnswer", correctAns != null ? correctAns.trim() : "Not Set");
-                detail.put("isCorrect", isCorrect);
-                answerDetails.add(detail);
-            }
-            
-            // Prevent division by zero
-            if (key.size() > 0) {
-                percentage = (score * 100.0 / key.size());
-            } else {
-                percentage = 0.0;
-                System.out.println("WARNING: Answer key is empty (0 questions)!");
-            }
-            
-            System.out.println("----------------------------------------");
-            System.out.println("FINAL SCORE: " + score + " / " + key.size());
-            System.out.println("PERCENTAGE: " + (key.size() > 0 ? "%.2f".formatted(percentage) + "%" : "N/A (no questions)"));
-            System.out.println("========================================\n");
-            
-            // Calculate Random Forest Analytics
-            analytics = randomForestService.calculateStudentAnalytics(studentId, answerList, key, null);
-            
-            // ===============================================
-            // TRUE RANDOM FOREST ALGORITHM INTEGRATION
-            // ===============================================
-            System.out.println("\n🌲 ========== RANDOM FOREST ANALYSIS ==========");
-            
-            // Get question topics and difficulties from session
-            @SuppressWarnings("unchecked")
-            List<String> questionTopics = (List<String>) session.getAttribute("questionTopics_" + studentId);
-            @SuppressWarnings("unchecked")
-            List<String> questionDifficulties = (List<String>) session.getAttribute("questionDifficulties_" + studentId);
-            if (questionTopics == null) {
-                questionTopics = HomepageController.getDistributedQuestionTopics(studentId);
-                if (questionTopics != null) {
-                    session.setAttribute("questionTopics_" + studentId, questionTopics);
-                }
-            }
-            if (questionDifficulties == null) {
-                questionDifficulties = HomepageController.getDistributedQuestionDifficulties(studentId);
-                if (questionDifficulties != null) {
-                    session.setAttribute("questionDifficulties_" + studentId, questionDifficulties);
-                }
-            }
-            
-            // Default values if not found in session
-            if (questionTopics == null) {
-                questionTopics = new ArrayList<>();
-                for (int i = 0; i < key.size(); i++) {
-                    questionTopics.add("General");  // Default topic
-                }
-            }
-            
-            if (questionDifficulties == null) {
-                questionDifficulties = new ArrayList<>();
-                for (int i = 0; i < key.size(); i++) {
-                    // Infer difficulty from question position (first 30% easy, next 50% medium, last 20% hard)
-                    int totalQuestions = key.size();
-                    if (i < totalQuestions * 0.3) {
-                        questionDifficulties.add("Easy");
-                    } else if (i < totalQuestions * 0.8) {
-                        questionDifficulties.add("Medium");
-                    } else {
-                        questionDifficulties.add("Hard");
-                    }
-                }
-            }
-            
-            // Create a temporary submission object for feature extraction
-            ExamSubmission tempSubmission = new ExamSubmission();
-            tempSubmission.setScore(score);
-            tempSubmission.setTotalQuestions(key.size());
-            tempSubmission.setPercentage(percentage);
-            
-            // Set basic analytics from old RandomForestService (for backwards compatibility)
-            if (analytics != null) {
-                tempSubmission.setAccuracy(validateDouble(analytics.getAccuracy()));
-                tempSubmission.setTimeEfficiency(validateDouble(analytics.getTimeEfficiency()));
-                tempSubmission.setConfidence(validateDouble(analytics.getConfidence()));
-            } else {
-                // Calculate basic metrics if analytics is null
-                tempSubmission.setAccuracy(percentage);
-                tempSubmission.setTimeEfficiency(50.0);  // Default
-                tempSubmission.setConfidence(100.0);     // All questions attempted
-            }
-            
-            // Build answer details JSON for feature extraction
-            StringBuilder answerDetailsJson = new StringBuilder();
-            for (int i = 0; i < answerDetails.size(); i++) {
-                Map<String, Object> detail = answerDetails.get(i);
-                answerDetailsJson.append(detail.get("questionNumber")).append("|")
-                                .append(detail.get("studentAnswer")).append("|")
-                                .append(detail.get("correctAnswer")).append("|")
-                                .append(detail.get("isCorrect"));
-                if (i < answerDetails.size() - 1) {
-                    answerDetailsJson.append(";");
-                }
-            }
-            
-            // Extract features using TRUE Random Forest formulas
-            RandomForestAnalyticsService.StudentFeatures features = 
-                randomForestAnalyticsService.extractFeatures(
-                    tempSubmission,
-                    questionTopics,
-                    questionDifficulties,
-                    answerDetailsJson.toString()
-                );
-            
-            // Generate comprehensive Random Forest report
-            Map<String, Object> rfReport = null;
-            try {
-                rfReport = randomForestAnalyticsService.generateStudentReport(features);
-                System.out.println("📊 FEATURE EXTRACTION:");
-                System.out.println("   Topic Mastery (Primary): " + String.format("%.2f%%", rfReport.get("topicMasteryPrimary")));
-                System.out.println("   Topic Mastery (Secondary): " + String.format("%.2f%%", rfReport.get("topicMasterySecondary")));
-                System.out.println("   Topic Mastery (General): " + String.format("%.2f%%", rfReport.get("topicMasteryGeneral")));
-                System.out.println("   Difficulty Resilience: " + String.format("%.2f%%", rfReport.get("difficultyResilience")));
-                System.out.println("   Accuracy: " + String.format("%.2f%%", rfReport.get("accuracy")));
-                System.out.println("   Time Efficiency: " + String.format("%.2f%%", rfReport.get("timeEfficiency")));
-                System.out.println("   Confidence: " + String.format("%.2f%%", rfReport.get("confidence")));
-                System.out.println("\n🎯 RANDOM FOREST PREDICTION:");
-                System.out.println("   Overall Score: " + String.format("%.2f%%", rfReport.get("overallScore")));
-                System.out.println("   Category: " + rfReport.get("predictedCategory"));
-                System.out.println("   Strengths: " + rfReport.get("strengths"));
-                System.out.println("   Weaknesses: " + rfReport.get("weaknesses"));
-                System.out.println("   Recommendations: " + rfReport.get("recommendations"));
-                System.out.println("==============================================\n");
-            } catch (Exception e) {
-                System.out.println("⚠️ Random Forest report generation failed, falling back to legacy analytics: " + e.getMessage());
-            }
-            
-            // Store Random Forest report in session for display
-            session.setAttribute("randomForestReport", rfReport);
-            
-            // ===============================================
-            // END RANDOM FOREST INTEGRATION
-            // ===============================================
-            
-            // Calculate IRT 3PL Ability Estimate
-            List<Boolean> responses = new ArrayList<>();
-            for (String ans : answerList) {
-                String correct = key.get(responses.size() + 1);
-                responses.add(ans != null && correct != null && ans.trim().equalsIgnoreCase(correct.trim()));
-            }
-            
-            List<IRT3PLService.ItemParameters> itemParams = irt3PLService.generateDefaultItemParameters(key.size());
-            IRT3PLService.AbilityEstimate abilityEstimate = irt3PLService.estimateAbility(responses, itemParams);
-            
-            System.out.println("=== IRT 3PL Analysis ===");
-            System.out.println("Estimated Ability (θ): " + String.format("%.3f", abilityEstimate.getTheta()));
-            System.out.println("Standard Error: " + String.format("%.3f", abilityEstimate.getStandardError()));
-            System.out.println("Scaled Score (500±100): " + irt3PLService.thetaToScaledScore(abilityEstimate.getTheta(), 500, 100));
-            System.out.println("========================");
-            
-            // Store IRT metrics in session for display
-            session.setAttribute("irtTheta", abilityEstimate.getTheta());
-            session.setAttribute("irtScaledScore", irt3PLService.thetaToScaledScore(abilityEstimate.getTheta(), 500, 100));
-            session.setAttribute("irtStandardError", abilityEstimate.getStandardError());
-            
-            // Save submission to database (auto-released)
-            ExamSubmission submission = new ExamSubmission();
-            submission.setStudentEmail(studentId);
-            
-            // Retrieve exam metadata from session
-            String examName = (String) session.getAttribute("examName_" + studentId);
-            String subject = (String) session.getAttribute("examSubject_" + studentId);
-            String activityType = (String) session.getAttribute("examActivityType_" + studentId);
-            Map<String, Object> submitMeta = currentAssignmentMeta != null
-                ? currentAssignmentMeta
-                : HomepageController.getDistributedExamMetadata(studentId);
-            if (submitMeta != null) {
-                if (examName == null || examName.isEmpty()) {
-                    Object metaExamName = submitMeta.get("examName");
-                    examName = metaExamName != null ? String.valueOf(metaExamName) : null;
-                }
-                if (subject == null || subject.isEmpty()) {
-                    Object metaSubject = submitMeta.get("examSubject");
-                    subject = metaSubject != null ? String.valueOf(metaSubject) : null;
-                }
-                if (activityType == null || activityType.isEmpty()) {
-                    Object metaType = submitMeta.get("examActivityType");
-                    activityType = metaType != null ? String.valueOf(metaType) : null;
-                }
-            }
-            
-            submission.setExamName(examName != null ? examName : "General Exam");
-            submission.setSubject(subject != null ? subject : "General");
-            submission.setActivityType(activityType != null ? activityType : "Exam");
-            submission.setScore(score);
-            submission.setTotalQuestions(key.size());
-            submission.setPercentage(percentage);
-            submission.setResultsReleased(true); // AUTO-RELEASE: Both teacher and student can see
-            submission.setSubmittedAt(LocalDateTime.now());
-            submission.setReleasedAt(LocalDateTime.now()); // Released immediately
-            
-            // Store TRUE RANDOM FOREST analytics (validate to prevent NaN values)
-            if (rfReport != null) {
-                submission.setTopicMastery(validateDouble((Double) rfReport.get("topicMasteryGeneral")));
-                submission.setDifficultyResilience(validateDouble((Double) rfReport.get("difficultyResilience")));
-                submission.setAccuracy(validateDouble((Double) rfReport.get("accuracy")));
-                submission.setTimeEfficiency(validateDouble((Double) rfReport.get("timeEfficiency")));
-                submission.setConfidence(validateDouble((Double) rfReport.get("confidence")));
-                submission.setPerformanceCategory((String) rfReport.get("predictedCategory"));
-            } else if (analytics != null) {
-                // Fallback to old analytics if Random Forest report failed
-                submission.setTopicMastery(validateDouble(analytics.getTopicMastery()));
-                submission.setDifficultyResilience(validateDouble(analytics.getDifficultyResilience()));
-                submission.setAccuracy(validateDouble(analytics.getAccuracy()));
-                submission.setTimeEfficiency(validateDouble(analytics.getTimeEfficiency()));
-                submission.setConfidence(validateDouble(analytics.getConfidence()));
-                submission.setPerformanceCategory(analytics.getPerformanceCategory());
-            }
-            
-            // Store answer details as simple string (can be JSON later)
-            StringBuilder detailsStr = new StringBuilder();
-            for (Map<String, Object> detail : answerDetails) {
-                detailsStr.append(detail.get("questionNumber")).append("|")
-                         .append(detail.get("studentAnswer")).append("|")
-                         .append(detail.get("correctAnswer")).append("|")
-                         .append(detail.get("isCorrect")).append(";");
-            }
-            submission.setAnswerDetailsJson(detailsStr.toString());
-            
-            ExamSubmission savedSubmission = examSubmissionRepository.save(submission);
-            System.out.println("Submission saved to database. Results automatically available.");
-            
-            // Remove unlock status after successful submission (lock exam again)
-            String submittedExamName = (String) session.getAttribute("examName_" + studentId);
-            if (submittedExamName != null) {
-                HomepageController.removeUnlock(studentId, submittedExamName);
-                System.out.println("🔒 EXAM RE-LOCKED after submission: " + submittedExamName + " for " + studentId);
-            }
+        // Autosaved answers fill in anything the final POST did not carry
+        Map<Integer, String> submittedAnswers = answerDraftStore.seal(studentId, currentAssignmentId,
+                                                                      questionAnswers(answers));
 
-            // Remove only the submitted assignment from distributed exams
-            HomepageController.removeDistributedExam(studentId, currentAssignmentId);
-            System.out.println("🗑️ ASSIGNMENT REMOVED from distributed list for student: " + studentId + " | assignmentId=" + currentAssignmentId);
+        // Store the raw answers and acknowledge; grading and analytics run in the background
+        String pendingId = submissionPipeline.submit(studentId, attempt, currentAssignmentId, submittedAnswers, submitToken);
+        log.info("📥 Submission {} received from {} ({} answers)", pendingId, studentId, submittedAnswers.size());
 
-            session.removeAttribute("currentAssignmentId_" + studentId);
-            session.removeAttribute("currentAssignmentAnswerKey_" + studentId);
-            
-            // Store results in session for display after redirect
-            session.setAttribute("lastSubmissionId", savedSubmission.getId());
-            session.setAttribute("lastScore", score);
-            session.setAttribute("lastTotal", key.size());
-            session.setAttribute("lastPercentage", percentage);
-            session.setAttribute("lastAnswerDetails", answerDetails);
-            session.setAttribute("lastAnalytics", analytics);
-            
-            // Redirect to avoid form resubmission (Post-Redirect-Get pattern)
-            return "redirect:/student/submission-success";
-            
-        } else {
-            System.out.println("ERROR: No answer key found for student " + studentId);
-            System.out.println("========================================\n");
-            model.addAttribute("error", "No answer key available for grading.");
-            return "redirect:/student/dashboard";
-        }
+        session.removeAttribute(CURRENT_ATTEMPT);
+        session.setAttribute(PENDING_SUBMISSION, pendingId);
+        
+        // Redirect to avoid form resubmission (Post-Redirect-Get pattern)
+        return "redirect:/student/submission-success";
     }
     
     /**
-     * Display submission success page (after redirect from POST submit)
+     * Autosave of the current attempt: the exam page posts the answers that changed since its
+     * last save (q1, q2, ...; an empty value clears the answer)
      */
-    @GetMapping("/submission-success")
-    public String submissionSuccess(HttpSession session, Model model) {
-        // Retrieve results from session
-        Long submissionId = (Long) session.getAttribute("lastSubmissionId");
-        Integer score = (Integer) session.getAttribute("lastScore");
-        Integer total = (Integer) session.getAttribute("lastTotal");
-        Double percentage = (Double) session.getAttribute("lastPercentage");
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> answerDetails = (List<Map<String, Object>>) session.getAttribute("lastAnswerDetails");
-        RandomForestService.StudentAnalytics analytics = 
-            (RandomForestService.StudentAnalytics) session.getAttribute("lastAnalytics");
-        
-        // If no session data, redirect to dashboard
-        if (score == null) {
-            return "redirect:/student/dashboard";
-        }
-        
-        // Retrieve the submission object for grading status
-        ExamSubmission submission = null;
-        if (submissionId != null) {
-            submission = examSubmissionRepository.findById(submissionId).orElse(null);
-        }
-        
-        model.addAttribute("score", score);
-        model.addAttribute("total", total);
-        model.addAttribute("percentage", percentage);
-        model.addAttribute("answerDetails", answerDetails);
-        model.addAttribute("analytics", analytics);
-        model.addAttribute("submission", submission);  // Pass submission for grading status
-        
-        // Clear session data after displaying
-        session.removeAttribute("lastSubmissionId");
-        session.removeAttribute("lastScore");
-        session.removeAttribute("lastTotal");
-        session.removeAttribute("lastPercentage");
-        session.removeAttribute("lastAnswerDetails");
-        session.removeAttribute("lastAnalytics");
-        
-        return "student-results";
+    @PostMapping("/attempts/autosave")
+    @ResponseBody
+    public Map<String, Object> autosaveAnswers(@RequestBody Map<String, String> changes,
+                                               HttpSession session, java.security.Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+        String studentId = principal != null ? principal.getName() : "guest";
+        ExamAttemptContext attempt = examAttemptStore.get((String) session.getAttribute(CURRENT_ATTEMPT), studentId);
+        if (attempt == null || attempt.isSubmitted() || attempt.getAssignmentId() == null) {
+            response.put("saved", false);
+            response.put("error", "No exam in progress.");
+            return response;
+        }
+        int answered = answerDraftStore.record(studentId, attempt.getAssignmentId(), questionAnswers(changes));
+        response.put("saved", answered >= 0);
+        response.put("answered", Math.max(0, answered));
+        return response;
     }
-    
+
     /**
-     * Validate double values to prevent NaN or Infinity from being saved to database
+     * Question answers (q1, q2, ...) of a form, keyed by question number; other fields are ignored
      */
-    private double validateDouble(double value) {
-        if (Double.isNaN(value) || Double.isInfinite(value)) {
-            return 0.0; // Return default value instead of NaN/Infinity
+    private static Map<Integer, String> questionAnswers(Map<String, String> fields) {
+        Map<Integer, String> result = new HashMap<>();
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            String name = entry.getKey();
+            if (name.length() > 1 && name.length() <= 7 && name.charAt(0) == 'q' && name.substring(1).chars().allMatch(Character::isDigit)) {
+                result.put(Integer.parseInt(name.substring(1)), entry.getValue());
+            }
         }
-        return value;
+        return result;
+    }
+
+    /**
+     * Grading status of the student's latest submission (polled by the confirmation page)
+     */
+    @GetMapping("/submissions/{pendingId}/status")
+    @ResponseBody
+    public Map<String, Object> getSubmissionStatus(@PathVariable String pendingId, java.security.Principal principal) {
+        Map<String, Object> response = new HashMap<>();
+        PendingSubmission pending = submissionPipeline.getStatus(pendingId, principal != null ? principal.getName() : "guest");
+        response.put("pendingId", pendingId);
+        response.put("status", pending != null ? pending.getStatus() : "UNKNOWN");
+        response.put("finished", pending == null || pending.isFinished());
+        return response;
     }
     
     /**
-     * Flexible answer matching that supports:
-     * 1. Exact match (case-insensitive)
-     * 2. Multiple-choice letter answers (A, B, C, D)
-     * 3. Text answers with partial matching for open-ended questions
+     * Display submission success page (after redirect from POST submit)
      */
-    private boolean isAnswerCorrect(String studentAnswer, String correctAnswer) {
-        if (studentAnswer == null || correctAnswer == null) {
-            return false;
-        }
+    @GetMapping("/submission-success")
+    public String submissionSuccess(HttpSession session, Model model, java.security.Principal principal) {
+        String studentId = principal != null ? principal.getName() : "guest";
+        String pendingId = (String) session.getAttribute(PENDING_SUBMISSION);
+        PendingSubmission pending = submissionPipeline.getStatus(pendingId, studentId);
         
-        String student = studentAnswer.trim();
-        String correct = correctAnswer.trim();
+        // If nothing was submitted, redirect to dashboard
+        if (pending == null) {
+            return "redirect:/student/dashboard";
+        }
         
-        // Empty answer is wrong
-        if (student.isEmpty()) {
-            return false;
+        // Still grading (or grading failed): show the confirmation page, which polls for status
+        if (!PendingSubmission.COMPLETED.equals(pending.getStatus())) {
+            model.addAttribute("pendingId", pending.getPendingId());
+            model.addAttribute("failed", PendingSubmission.FAILED.equals(pending.getStatus()));
+            model.addAttribute("error", pending.getLastError());
+            if (PendingSubmission.FAILED.equals(pending.getStatus())) {
+                session.removeAttribute(PENDING_SUBMISSION);
+            }
+            return "student-submission-confirmation";
         }
         
-        // Exact match (case-insensitive)
-        if (student.equalsIgnoreCase(correct)) {
-            return true;
+        // Results are kept with the attempt; if it is gone (e.g. after a restart) show the stored result
+        ExamAttemptContext attempt = examAttemptStore.get(pending.getAttemptId(), studentId);
+        if (attempt == null || !attempt.isSubmitted()) {
+            session.removeAttribute(PENDING_SUBMISSION);
+            return "redirect:/student/results/" + pending.getSubmissionId();
         }
         
-        // For single-letter answers (A, B, C, D) - exact match only
-        if (correct.length() == 1 && correct.matches("[A-Da-d]")) {
-            return student.equalsIgnoreCase(correct);
+        // Retrieve the submission object for grading status
+        ExamSubmission submission = null;
+        if (attempt.getSubmissionId() != null) {
+            submission = examSubmissionRepository.findById(attempt.getSubmissionId()).orElse(null);
         }
         
-        // For text answers, check if student answer contains key terms from correct answer
-        // Normalize: remove punctuation, lowercase, split into words
-        String[] correctWords = correct.toLowerCase()
-            .replaceAll("[^a-z0-9\\s]", "")
-            .split("\\s+");
-        String studentLower = student.toLowerCase()
-            .replaceAll("[^a-z0-9\\s]", "");
+        model.addAttribute("score", attempt.getScore());
+        model.addAttribute("total", attempt.getTotal());
+        model.addAttribute("percentage", attempt.getPercentage());
+        model.addAttribute("answerDetails", attempt.getAnswerDetails());
+        model.addAttribute("analytics", attempt.getAnalytics());
+        model.addAttribute("submission", submission);  // Pass submission for grading status
         
-        // If correct answer has multiple key words, check if student answer contains most of them
-        if (correctWords.length >= 3) {
-            int matchCount = 0;
-            for (String word : correctWords) {
-                if (word.length() > 2 && studentLower.contains(word)) {
-                    matchCount++;
-                }
-            }
-            // Accept if student got at least 70% of key words
-            return matchCount >= (correctWords.length * 0.7);
-        }
+        // Clear attempt data after displaying
+        session.removeAttribute(PENDING_SUBMISSION);
+        examAttemptStore.remove(attempt.getAttemptId());
         
-        // For shorter answers, require exact or very close match
-        return false;
+        return "student-results";
     }
     
     /**
@@ -1219,11 +953,11 @@ public class StudentController {
         }
         model.addAttribute("performanceMessage", performanceMessage);
         
-        System.out.println("📊 Displaying performance analytics for submission: " + submissionId);
-        System.out.println("   Overall Score: " + String.format("%.2f", overallScore));
-        System.out.println("   Category: " + submission.getPerformanceCategory());
-        System.out.println("   Strengths: " + strengths);
-        System.out.println("   Weaknesses: " + weaknesses);
+        log.debug("📊 Displaying performance analytics for submission: {}", submissionId);
+        log.debug("   Overall Score: {}", String.format("%.2f", overallScore));
+        log.debug("   Category: {}", submission.getPerformanceCategory());
+        log.debug("   Strengths: {}", strengths);
+        log.debug("   Weaknesses: {}", weaknesses);
         
         return "student-performance-analytics";
     }
@@ -0,0 +1,12 @@
+package com.exam.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (assignment write-behind flushing).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,130 @@
+package com.exam.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionAttributeListener;
+import jakarta.servlet.http.HttpSessionBindingEvent;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the serialized size of HTTP sessions so we can see whether they stay small
+ * enough to be stored externally.
+ *
+ * The size is recomputed whenever an attribute changes and exposed as the
+ * exam.sessions.average-bytes and exam.sessions.max-bytes gauges. A session that grows
+ * past the budget is logged once with its attribute names.
+ */
+@Component
+public class SessionSizeMetrics implements HttpSessionListener, HttpSessionAttributeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionSizeMetrics.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sessions.size-budget-bytes:1024}")
+    private long sizeBudgetBytes;
+
+    // Map: sessionId -> serialized size of all attributes in bytes
+    private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+
+    // Sessions already reported as over budget
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("exam.sessions.average-bytes", sizes,
+                      s -> s.values().stream().mapToLong(Long::longValue).average().orElse(0))
+            .description("Average serialized size of live HTTP sessions")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("exam.sessions.max-bytes", sizes,
+                      s -> s.values().stream().mapToLong(Long::longValue).max().orElse(0))
+            .description("Largest serialized size of a live HTTP session")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        String sessionId = event.getSession().getId();
+        sizes.remove(sessionId);
+        reported.remove(sessionId);
+    }
+
+    @Override
+    public void attributeAdded(HttpSessionBindingEvent event) {
+        measure(event.getSession());
+    }
+
+    @Override
+    public void attributeRemoved(HttpSessionBindingEvent event) {
+        measure(event.getSession());
+    }
+
+    @Override
+    public void attributeReplaced(HttpSessionBindingEvent event) {
+        measure(event.getSession());
+    }
+
+    private void measure(HttpSession session) {
+        long total = 0;
+        try {
+            for (String name : Collections.list(session.getAttributeNames())) {
+                total += name.length() + sizeOf(session.getAttribute(name));
+            }
+        } catch (IllegalStateException e) {
+            return; // session invalidated while we were reading it
+        }
+        sizes.put(session.getId(), total);
+
+        if (total > sizeBudgetBytes && reported.add(session.getId())) {
+            log.warn("⚠️ Session {} is {} bytes (budget {}), attributes: {}", session.getId(), total, sizeBudgetBytes, Collections.list(session.getAttributeNames()));
+        }
+    }
+
+    private static long sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // Not serializable: it could not be replicated anyway, count what we saw
+        }
+        return counter.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.exam.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-question results of one submission, held as parallel arrays.
+ *
+ * Stored as a compact length-prefixed binary blob (see encode/decode), so answers may contain
+ * any character, including the '|' and ';' that broke the old text format.
+ *
+ * Layout: format version byte, varint count, then per question: varint question number,
+ * varint source question + 1 (0 = unknown), flags byte (bit 0 = correct), varint length +
+ * UTF-8 student answer, varint length + UTF-8 correct answer. Version 1 blobs have no
+ * source question.
+ *
+ * The source question is the 0-based index of the question in the processed exam, which
+ * is what a regrade needs once the student's shuffled assignment is gone.
+ */
+public class AnswerDetails {
+
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FORMAT_VERSION_NO_SOURCE = 1;
+    private static final int FLAG_CORRECT = 1;
+
+    // Stored in place of a missing student answer / correct answer
+    public static final String NO_ANSWER = "No Answer";
+    public static final String NOT_SET = "Not Set";
+
+    private static final AnswerDetails EMPTY = new AnswerDetails(new int[0], new int[0], new String[0], new String[0], new boolean[0]);
+
+    private final int[] questionNumbers;
+    private final int[] sourceQuestions; // -1 when unknown
+    private final String[] studentAnswers;
+    private final String[] correctAnswers;
+    private final boolean[] correct;
+
+    private AnswerDetails(int[] questionNumbers, int[] sourceQuestions, String[] studentAnswers, String[] correctAnswers,
+                          boolean[] correct) {
+        this.questionNumbers = questionNumbers;
+        this.sourceQuestions = sourceQuestions;
+        this.studentAnswers = studentAnswers;
+        this.correctAnswers = correctAnswers;
+        this.correct = correct;
+    }
+
+    public static AnswerDetails empty() {
+        return EMPTY;
+    }
+
+    public int size() { return questionNumbers.length; }
+    public boolean isEmpty() { return questionNumbers.length == 0; }
+
+    // The arrays are shared, not copied: callers must not modify them
+    public int[] getQuestionNumbers() { return questionNumbers; }
+    public int[] getSourceQuestions() { return sourceQuestions; }
+    public String[] getStudentAnswers() { return studentAnswers; }
+    public String[] getCorrectAnswers() { return correctAnswers; }
+    public boolean[] getCorrect() { return correct; }
+
+    public int getCorrectCount() {
+        int count = 0;
+        for (boolean c : correct) {
+            if (c) count++;
+        }
+        return count;
+    }
+
+    /**
+     * One map per question (questionNumber, studentAnswer, correctAnswer, isCorrect) for the views
+     */
+    public List<Map<String, Object>> toList() {
+        List<Map<String, Object>> list = new ArrayList<>(questionNumbers.length);
+        for (int i = 0; i < questionNumbers.length; i++) {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("questionNumber", questionNumbers[i]);
+            detail.put("studentAnswer", studentAnswers[i]);
+            detail.put("correctAnswer", correctAnswers[i]);
+            detail.put("isCorrect", correct[i]);
+            list.add(detail);
+        }
+        return list;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + questionNumbers.length * 16);
+        out.write(FORMAT_VERSION);
+        writeVarInt(out, questionNumbers.length);
+        for (int i = 0; i < questionNumbers.length; i++) {
+            writeVarInt(out, questionNumbers[i]);
+            writeVarInt(out, sourceQuestions[i] + 1);
+            out.write(correct[i] ? FLAG_CORRECT : 0);
+            writeString(out, studentAnswers[i]);
+            writeString(out, correctAnswers[i]);
+        }
+        return out.toByteArray();
+    }
+
+    public static AnswerDetails decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return EMPTY;
+        }
+        if (data[0] != FORMAT_VERSION && data[0] != FORMAT_VERSION_NO_SOURCE) {
+            throw new IllegalArgumentException("Unknown answer details format " + data[0]);
+        }
+        boolean hasSource = data[0] == FORMAT_VERSION;
+        int[] pos = {1};
+        int count = readVarInt(data, pos);
+        Builder builder = new Builder(count);
+        for (int i = 0; i < count; i++) {
+            int questionNumber = readVarInt(data, pos);
+            int sourceQuestion = hasSource ? readVarInt(data, pos) - 1 : -1;
+            boolean isCorrect = (data[pos[0]++] & FLAG_CORRECT) != 0;
+            String student = readString(data, pos);
+            String correctAnswer = readString(data, pos);
+            builder.add(questionNumber, sourceQuestion, student, correctAnswer, isCorrect);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parse the old "q|student|correct|isCorrect;" text, skipping entries it cannot read
+     */
+    public static AnswerDetails parseLegacy(String text) {
+        if (text == null || text.isEmpty()) {
+            return EMPTY;
+        }
+        String[] entries = text.split(";");
+        Builder builder = new Builder(entries.length);
+        for (String entry : entries) {
+            if (entry.trim().isEmpty()) continue;
+            String[] parts = entry.split("\\|");
+            if (parts.length < 4) continue;
+            try {
+                builder.add(Integer.parseInt(parts[0].trim()), -1, parts[1], parts[2], Boolean.parseBoolean(parts[3]));
+            } catch (NumberFormatException e) {
+                // Skip malformed entry
+            }
+        }
+        return builder.build();
+    }
+
+    public static class Builder {
+        private int size;
+        private int[] questionNumbers;
+        private int[] sourceQuestions;
+        private String[] studentAnswers;
+        private String[] correctAnswers;
+        private boolean[] correct;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(4, expectedSize);
+            questionNumbers = new int[capacity];
+            sourceQuestions = new int[capacity];
+            studentAnswers = new String[capacity];
+            correctAnswers = new String[capacity];
+            correct = new boolean[capacity];
+        }
+
+        /**
+         * Add one question; sourceQuestion is its 0-based index in the processed exam, or -1 if unknown
+         */
+        public Builder add(int questionNumber, int sourceQuestion, String studentAnswer, String correctAnswer,
+                           boolean isCorrect) {
+            if (size == questionNumbers.length) {
+                int capacity = size * 2;
+                questionNumbers = Arrays.copyOf(questionNumbers, capacity);
+                sourceQuestions = Arrays.copyOf(sourceQuestions, capacity);
+                studentAnswers = Arrays.copyOf(studentAnswers, capacity);
+                correctAnswers = Arrays.copyOf(correctAnswers, capacity);
+                correct = Arrays.copyOf(correct, capacity);
+            }
+            questionNumbers[size] = questionNumber;
+            sourceQuestions[size] = sourceQuestion;
+            studentAnswers[size] = studentAnswer != null ? studentAnswer : "";
+            correctAnswers[size] = correctAnswer != null ? correctAnswer : "";
+            correct[size] = isCorrect;
+            size++;
+            return this;
+        }
+
+        public AnswerDetails build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new AnswerDetails(Arrays.copyOf(questionNumbers, size), Arrays.copyOf(sourceQuestions, size),
+                                     Arrays.copyOf(studentAnswers, size),
+                                     Arrays.copyOf(correctAnswers, size), Arrays.copyOf(correct, size));
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(byte[] data, int[] pos) {
+        int length = readVarInt(data, pos);
+        String value = new String(data, pos[0], length, StandardCharsets.UTF_8);
+        pos[0] += length;
+        return value;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.exam.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores AnswerDetails in its compact binary form
+ */
+@Converter
+public class AnswerDetailsConverter implements AttributeConverter<AnswerDetails, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(AnswerDetails attribute) {
+        return attribute == null ? null : attribute.encode();
+    }
+
+    @Override
+    public AnswerDetails convertToEntityAttribute(byte[] dbData) {
+        return AnswerDetails.decode(dbData);
+    }
+}
@@ -0,0 +1,53 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Answers a student has given so far on an assignment that is not yet submitted, autosaved
+ * from the exam page. Keyed by assignment, so the draft survives a new attempt on another
+ * device; removed once the exam is submitted.
+ */
+@Entity
+@Table(name = "answer_drafts", indexes = {
+    @Index(name = "idx_answer_drafts_updated_at", columnList = "updated_at")
+})
+public class AnswerDraft {
+
+    @Id
+    @Column(name = "assignment_id", length = 32)
+    private String assignmentId;
+
+    @Column(name = "student_email", nullable = false)
+    private String studentEmail;
+
+    // Question number -> the student's answer
+    @Convert(converter = AnswerKeyConverter.class)
+    @Column(name = "answers", columnDefinition = "LONGTEXT")
+    private Map<Integer, String> answers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public AnswerDraft() {}
+
+    public AnswerDraft(String assignmentId, String studentEmail, Map<Integer, String> answers) {
+        this.assignmentId = assignmentId;
+        this.studentEmail = studentEmail;
+        this.answers = answers;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(String assignmentId) { this.assignmentId = assignmentId; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public Map<Integer, String> getAnswers() { return answers; }
+    public void setAnswers(Map<Integer, String> answers) { this.answers = answers; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,36 @@
+package com.exam.entity;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an answer key (question number -> correct answer) as a JSON object
+ */
+@Converter
+public class AnswerKeyConverter implements AttributeConverter<Map<Integer, String>, String> {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Type KEY_TYPE = new TypeToken<Map<Integer, String>>() {}.getType();
+
+    @Override
+    public String convertToDatabaseColumn(Map<Integer, String> attribute) {
+        return attribute == null ? null : GSON.toJson(attribute);
+    }
+
+    @Override
+    public Map<Integer, String> convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isBlank()) {
+            return new HashMap<>();
+        }
+        Map<Integer, String> values = GSON.fromJson(dbData, KEY_TYPE);
+        return values != null ? values : new HashMap<>();
+    }
+}
@@ -0,0 +1,123 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An exam distributed to a single student that has not been submitted yet.
+ * Held in memory by AssignmentStore and written behind to the database.
+ * Only a generator seed and the distribution settings are stored; the content is
+ * regenerated from the shared exam by AssignmentMaterializer.
+ */
+@Entity
+@Table(name = "distributed_assignments", indexes = {
+    @Index(name = "idx_distributed_assignments_student", columnList = "student_email")
+})
+public class DistributedAssignment {
+
+    @Id
+    @Column(name = "assignment_id", length = 32)
+    private String assignmentId;
+
+    @Column(name = "student_email", nullable = false)
+    private String studentEmail;
+
+    @Column(name = "exam_id")
+    private String examId;
+
+    @Column(name = "exam_name")
+    private String examName;
+
+    @Column(name = "exam_subject")
+    private String examSubject;
+
+    @Column(name = "exam_activity_type")
+    private String examActivityType;
+
+    @Column(name = "exam_time_limit")
+    private Integer examTimeLimit;
+
+    @Column(name = "exam_deadline")
+    private String examDeadline; // ISO local date-time as submitted by the distribute form
+
+    @Column(name = "question_count")
+    private int questionCount;
+
+    @Column(name = "distributed_at", nullable = false)
+    private LocalDateTime distributedAt;
+
+    // First time the student opened the exam page; null while the assignment was never opened
+    @Column(name = "opened_at")
+    private LocalDateTime openedAt;
+
+    // Seed of the deterministic generator; with the exam version and the difficulty mix it
+    // regenerates the exact question order, choice order and answer key
+    @Column(name = "seed", nullable = false)
+    private long seed;
+
+    @Column(name = "exam_version")
+    private int examVersion;
+
+    @Column(name = "easy_percent")
+    private int easyPercent;
+
+    @Column(name = "medium_percent")
+    private int mediumPercent;
+
+    @Column(name = "hard_percent")
+    private int hardPercent;
+
+    // Constructors
+    public DistributedAssignment() {
+        this.distributedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(String assignmentId) { this.assignmentId = assignmentId; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+
+    public String getExamName() { return examName; }
+    public void setExamName(String examName) { this.examName = examName; }
+
+    public String getExamSubject() { return examSubject; }
+    public void setExamSubject(String examSubject) { this.examSubject = examSubject; }
+
+    public String getExamActivityType() { return examActivityType; }
+    public void setExamActivityType(String examActivityType) { this.examActivityType = examActivityType; }
+
+    public Integer getExamTimeLimit() { return examTimeLimit; }
+    public void setExamTimeLimit(Integer examTimeLimit) { this.examTimeLimit = examTimeLimit; }
+
+    public String getExamDeadline() { return examDeadline; }
+    public void setExamDeadline(String examDeadline) { this.examDeadline = examDeadline; }
+
+    public int getQuestionCount() { return questionCount; }
+    public void setQuestionCount(int questionCount) { this.questionCount = questionCount; }
+
+    public LocalDateTime getDistributedAt() { return distributedAt; }
+    public void setDistributedAt(LocalDateTime distributedAt) { this.distributedAt = distributedAt; }
+
+    public LocalDateTime getOpenedAt() { return openedAt; }
+    public void setOpenedAt(LocalDateTime openedAt) { this.openedAt = openedAt; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public int getExamVersion() { return examVersion; }
+    public void setExamVersion(int examVersion) { this.examVersion = examVersion; }
+
+    public int getEasyPercent() { return easyPercent; }
+    public void setEasyPercent(int easyPercent) { this.easyPercent = easyPercent; }
+
+    public int getMediumPercent() { return mediumPercent; }
+    public void setMediumPercent(int mediumPercent) { this.mediumPercent = mediumPercent; }
+
+    public int getHardPercent() { return hardPercent; }
+    public void setHardPercent(int hardPercent) { this.hardPercent = hardPercent; }
+}
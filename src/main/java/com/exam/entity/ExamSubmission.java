@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "exam_submissions")
+@Table(name = "exam_submissions", indexes = {
+    @Index(name = "idx_exam_submissions_exam_id", columnList = "exam_id")
+})
 public class ExamSubmission {
     
     @Id
@@ -17,6 +19,12 @@ public class ExamSubmission {
     @Column(name = "exam_name", nullable = false)
     private String examName;
     
+    @Column(name = "exam_id", length = 64)
+    private String examId; // Processed exam the questions came from (null for older submissions)
+
+    @Column(name = "exam_version")
+    private Integer examVersion; // Exam version the answers were graded against (null for older submissions)
+    
     @Column(name = "subject", nullable = false)
     private String subject; // Subject name (e.g., Mathematics, Science)
     
@@ -41,8 +49,7 @@ public class ExamSubmission {
     @Column(name = "released_at")
     private LocalDateTime releasedAt;
     
-    @Column(name = "answer_details_json", columnDefinition = "TEXT")
-    private String answerDetailsJson; // Store answer details as JSON
+    // Per-question answers live in submission_answers (see SubmissionAnswers)
     
     // Analytics fields
     @Column(name = "topic_mastery")
@@ -63,6 +70,16 @@ public class ExamSubmission {
     @Column(name = "performance_category")
     private String performanceCategory;
     
+    // IRT 3PL ability estimate (null for submissions stored before it was persisted)
+    @Column(name = "irt_theta")
+    private Double irtTheta;
+    
+    @Column(name = "irt_standard_error")
+    private Double irtStandardError;
+    
+    @Column(name = "irt_scaled_score")
+    private Integer irtScaledScore;
+    
     // Manual grading fields for open-ended questions
     @Column(name = "manual_score")
     private Integer manualScore; // Points from teacher's manual grading
@@ -91,6 +108,12 @@ public class ExamSubmission {
     public String getExamName() { return examName; }
     public void setExamName(String examName) { this.examName = examName; }
     
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+    
+    public Integer getExamVersion() { return examVersion; }
+    public void setExamVersion(Integer examVersion) { this.examVersion = examVersion; }
+    
     public String getSubject() { return subject; }
     public void setSubject(String subject) { this.subject = subject; }
     
@@ -117,9 +140,6 @@ public class ExamSubmission {
     public LocalDateTime getReleasedAt() { return releasedAt; }
     public void setReleasedAt(LocalDateTime releasedAt) { this.releasedAt = releasedAt; }
     
-    public String getAnswerDetailsJson() { return answerDetailsJson; }
-    public void setAnswerDetailsJson(String answerDetailsJson) { this.answerDetailsJson = answerDetailsJson; }
-    
     public double getTopicMastery() { return topicMastery; }
     public void setTopicMastery(double topicMastery) { 
         this.topicMastery = validateDouble(topicMastery);
@@ -148,6 +168,15 @@ public class ExamSubmission {
     public String getPerformanceCategory() { return performanceCategory; }
     public void setPerformanceCategory(String performanceCategory) { this.performanceCategory = performanceCategory; }
     
+    public Double getIrtTheta() { return irtTheta; }
+    public void setIrtTheta(Double irtTheta) { this.irtTheta = irtTheta; }
+    
+    public Double getIrtStandardError() { return irtStandardError; }
+    public void setIrtStandardError(Double irtStandardError) { this.irtStandardError = irtStandardError; }
+    
+    public Integer getIrtScaledScore() { return irtScaledScore; }
+    public void setIrtScaledScore(Integer irtScaledScore) { this.irtScaledScore = irtScaledScore; }
+    
     public Integer getManualScore() { return manualScore; }
     public void setManualScore(Integer manualScore) { this.manualScore = manualScore; }
     
@@ -0,0 +1,28 @@
+package com.exam.entity;
+
+import com.google.gson.Gson;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an int[] column as a JSON array
+ */
+@Converter
+public class IntArrayConverter implements AttributeConverter<int[], String> {
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public String convertToDatabaseColumn(int[] attribute) {
+        return attribute == null ? null : GSON.toJson(attribute);
+    }
+
+    @Override
+    public int[] convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isBlank()) {
+            return null;
+        }
+        return GSON.fromJson(dbData, int[].class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Calibrated 3PL parameters of one question of a processed exam.
+ *
+ * Keyed by exam, original (0-based) question index and calibration version: each calibration
+ * of an exam writes a new version of all its questions, and the highest version is in use.
+ * examVersion is the version of the exam the responses were graded against; the parameters
+ * are only used while the exam is still at that version.
+ */
+@Entity
+@Table(name = "item_parameters", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_item_parameters_question", columnNames = {"exam_id", "calibration_version", "question_index"})
+})
+public class ItemParameter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_id", nullable = false, length = 64)
+    private String examId;
+
+    @Column(name = "question_index", nullable = false)
+    private int questionIndex;
+
+    @Column(name = "calibration_version", nullable = false)
+    private int calibrationVersion;
+
+    @Column(name = "exam_version", nullable = false)
+    private int examVersion;
+
+    @Column(nullable = false)
+    private double discrimination;
+
+    @Column(nullable = false)
+    private double difficulty;
+
+    @Column(nullable = false)
+    private double guessing;
+
+    @Column(name = "response_count", nullable = false)
+    private int responseCount; // Students who answered the question in the calibration data
+
+    @Column(name = "calibrated_at", nullable = false)
+    private LocalDateTime calibratedAt;
+
+    public ItemParameter() {}
+
+    public ItemParameter(String examId, int questionIndex, int calibrationVersion, int examVersion,
+                         double discrimination, double difficulty, double guessing, int responseCount) {
+        this.examId = examId;
+        this.questionIndex = questionIndex;
+        this.calibrationVersion = calibrationVersion;
+        this.examVersion = examVersion;
+        this.discrimination = discrimination;
+        this.difficulty = difficulty;
+        this.guessing = guessing;
+        this.responseCount = responseCount;
+        this.calibratedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+
+    public int getQuestionIndex() { return questionIndex; }
+    public void setQuestionIndex(int questionIndex) { this.questionIndex = questionIndex; }
+
+    public int getCalibrationVersion() { return calibrationVersion; }
+    public void setCalibrationVersion(int calibrationVersion) { this.calibrationVersion = calibrationVersion; }
+
+    public int getExamVersion() { return examVersion; }
+    public void setExamVersion(int examVersion) { this.examVersion = examVersion; }
+
+    public double getDiscrimination() { return discrimination; }
+    public void setDiscrimination(double discrimination) { this.discrimination = discrimination; }
+
+    public double getDifficulty() { return difficulty; }
+    public void setDifficulty(double difficulty) { this.difficulty = difficulty; }
+
+    public double getGuessing() { return guessing; }
+    public void setGuessing(double guessing) { this.guessing = guessing; }
+
+    public int getResponseCount() { return responseCount; }
+    public void setResponseCount(int responseCount) { this.responseCount = responseCount; }
+
+    public LocalDateTime getCalibratedAt() { return calibratedAt; }
+    public void setCalibratedAt(LocalDateTime calibratedAt) { this.calibratedAt = calibratedAt; }
+}
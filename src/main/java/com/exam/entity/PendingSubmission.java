@@ -0,0 +1,119 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A student's raw exam answers, stored as soon as they are submitted and before any grading.
+ * SubmissionPipeline grades and analyses it in the background and links the resulting
+ * ExamSubmission; rows that are not finished are picked up again after a restart.
+ */
+@Entity
+@Table(name = "pending_submissions", indexes = {
+    @Index(name = "idx_pending_submissions_status", columnList = "status")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_pending_submissions_token", columnNames = {"student_email", "submit_token"})
+})
+public class PendingSubmission {
+
+    public static final String RECEIVED = "RECEIVED";
+    public static final String GRADING = "GRADING";
+    public static final String ANALYZING = "ANALYZING";
+    public static final String SAVING = "SAVING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @Column(name = "pending_id", length = 32)
+    private String pendingId;
+
+    @Column(name = "student_email", nullable = false)
+    private String studentEmail;
+
+    @Column(name = "assignment_id", length = 32)
+    private String assignmentId;
+
+    @Column(name = "attempt_id", length = 40)
+    private String attemptId;
+
+    // Issued with the exam page; a second submit with the same token is the same submission
+    @Column(name = "submit_token", length = 40)
+    private String submitToken;
+
+    // Question number -> the student's answer, as posted
+    @Convert(converter = AnswerKeyConverter.class)
+    @Column(name = "answers", columnDefinition = "LONGTEXT")
+    private Map<Integer, String> answers;
+
+    // Presented positions (0-based) of the questions answered, in order, when only some of the
+    // assignment was given (adaptive tests); null when answers are numbered like the assignment
+    @Convert(converter = IntArrayConverter.class)
+    @Column(name = "presented_positions", columnDefinition = "TEXT")
+    private int[] presentedPositions;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status = RECEIVED;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public PendingSubmission() {
+        this.receivedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return COMPLETED.equals(status) || FAILED.equals(status);
+    }
+
+    public String getPendingId() { return pendingId; }
+    public void setPendingId(String pendingId) { this.pendingId = pendingId; }
+
+    public String getStudentEmail() { return studentEmail; }
+    public void setStudentEmail(String studentEmail) { this.studentEmail = studentEmail; }
+
+    public String getAssignmentId() { return assignmentId; }
+    public void setAssignmentId(String assignmentId) { this.assignmentId = assignmentId; }
+
+    public String getAttemptId() { return attemptId; }
+    public void setAttemptId(String attemptId) { this.attemptId = attemptId; }
+
+    public String getSubmitToken() { return submitToken; }
+    public void setSubmitToken(String submitToken) { this.submitToken = submitToken; }
+
+    public Map<Integer, String> getAnswers() { return answers; }
+    public void setAnswers(Map<Integer, String> answers) { this.answers = answers; }
+
+    public int[] getPresentedPositions() { return presentedPositions; }
+    public void setPresentedPositions(int[] presentedPositions) { this.presentedPositions = presentedPositions; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,60 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Catalog metadata of a processed exam. Kept small so listing pages never need
+ * the question bodies, which live in ProcessedExamBody.
+ */
+@Entity
+@Table(name = "processed_exams")
+public class ProcessedExam {
+
+    @Id
+    @Column(name = "exam_id", length = 64)
+    private String examId;
+
+    @Column(name = "exam_name")
+    private String examName;
+
+    @Column(name = "subject")
+    private String subject;
+
+    @Column(name = "activity_type")
+    private String activityType;
+
+    @Column(name = "question_count")
+    private int questionCount;
+
+    @Column(name = "version")
+    private int version;
+
+    @Column(name = "uploaded_at")
+    private LocalDateTime uploadedAt;
+
+    // Constructors
+    public ProcessedExam() {}
+
+    // Getters and Setters
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+
+    public String getExamName() { return examName; }
+    public void setExamName(String examName) { this.examName = examName; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getActivityType() { return activityType; }
+    public void setActivityType(String activityType) { this.activityType = activityType; }
+
+    public int getQuestionCount() { return questionCount; }
+    public void setQuestionCount(int questionCount) { this.questionCount = questionCount; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+}
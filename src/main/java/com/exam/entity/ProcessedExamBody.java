@@ -0,0 +1,54 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Question bodies of a processed exam, loaded only when the exam itself is opened
+ */
+@Entity
+@Table(name = "processed_exam_bodies")
+public class ProcessedExamBody {
+
+    @Id
+    @Column(name = "exam_id", length = 64)
+    private String examId;
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "questions", columnDefinition = "LONGTEXT")
+    private List<String> questions = new ArrayList<>();
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "difficulties", columnDefinition = "TEXT")
+    private List<String> difficulties = new ArrayList<>();
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "topics", columnDefinition = "TEXT")
+    private List<String> topics = new ArrayList<>();
+
+    @Convert(converter = AnswerKeyConverter.class)
+    @Column(name = "answer_key", columnDefinition = "LONGTEXT")
+    private Map<Integer, String> answerKey = new HashMap<>();
+
+    // Constructors
+    public ProcessedExamBody() {}
+
+    // Getters and Setters
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+
+    public List<String> getQuestions() { return questions; }
+    public void setQuestions(List<String> questions) { this.questions = questions; }
+
+    public List<String> getDifficulties() { return difficulties; }
+    public void setDifficulties(List<String> difficulties) { this.difficulties = difficulties; }
+
+    public List<String> getTopics() { return topics; }
+    public void setTopics(List<String> topics) { this.topics = topics; }
+
+    public Map<Integer, String> getAnswerKey() { return answerKey; }
+    public void setAnswerKey(Map<Integer, String> answerKey) { this.answerKey = answerKey; }
+}
@@ -0,0 +1,94 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Question bodies of an earlier version of a processed exam, archived when the exam is edited
+ * so assignments distributed from that version can still be regenerated exactly
+ */
+@Entity
+@Table(name = "processed_exam_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_processed_exam_versions_version", columnNames = {"exam_id", "version"})
+})
+public class ProcessedExamVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_id", nullable = false, length = 64)
+    private String examId;
+
+    @Column(nullable = false)
+    private int version;
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "questions", columnDefinition = "LONGTEXT")
+    private List<String> questions = new ArrayList<>();
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "difficulties", columnDefinition = "TEXT")
+    private List<String> difficulties = new ArrayList<>();
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "topics", columnDefinition = "TEXT")
+    private List<String> topics = new ArrayList<>();
+
+    @Convert(converter = AnswerKeyConverter.class)
+    @Column(name = "answer_key", columnDefinition = "LONGTEXT")
+    private Map<Integer, String> answerKey = new HashMap<>();
+
+    // Question the edit that replaced this version deleted (0-based), -1 if none; null if not recorded
+    @Column(name = "removed_question")
+    private Integer removedQuestion;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public ProcessedExamVersion() {}
+
+    public ProcessedExamVersion(String examId, int version, ProcessedExamBody body, int removedQuestion) {
+        this.examId = examId;
+        this.version = version;
+        this.removedQuestion = removedQuestion;
+        this.questions = new ArrayList<>(body.getQuestions());
+        this.difficulties = new ArrayList<>(body.getDifficulties());
+        this.topics = new ArrayList<>(body.getTopics());
+        this.answerKey = new HashMap<>(body.getAnswerKey());
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getExamId() { return examId; }
+    public void setExamId(String examId) { this.examId = examId; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public List<String> getQuestions() { return questions; }
+    public void setQuestions(List<String> questions) { this.questions = questions; }
+
+    public List<String> getDifficulties() { return difficulties; }
+    public void setDifficulties(List<String> difficulties) { this.difficulties = difficulties; }
+
+    public List<String> getTopics() { return topics; }
+    public void setTopics(List<String> topics) { this.topics = topics; }
+
+    public Map<Integer, String> getAnswerKey() { return answerKey; }
+    public void setAnswerKey(Map<Integer, String> answerKey) { this.answerKey = answerKey; }
+
+    public Integer getRemovedQuestion() { return removedQuestion; }
+    public void setRemovedQuestion(Integer removedQuestion) { this.removedQuestion = removedQuestion; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
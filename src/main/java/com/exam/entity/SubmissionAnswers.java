@@ -0,0 +1,35 @@
+package com.exam.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-question answers of an exam submission, kept out of exam_submissions so listing
+ * pages never load them; only the detail views read this table
+ */
+@Entity
+@Table(name = "submission_answers")
+public class SubmissionAnswers {
+
+    @Id
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Convert(converter = AnswerDetailsConverter.class)
+    @Column(name = "details", columnDefinition = "MEDIUMBLOB")
+    private AnswerDetails details = AnswerDetails.empty();
+
+    // Constructors
+    public SubmissionAnswers() {}
+
+    public SubmissionAnswers(Long submissionId, AnswerDetails details) {
+        this.submissionId = submissionId;
+        this.details = details;
+    }
+
+    // Getters and Setters
+    public Long getSubmissionId() { return submissionId; }
+    public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+
+    public AnswerDetails getDetails() { return details; }
+    public void setDetails(AnswerDetails details) { this.details = details; }
+}
@@ -0,0 +1,20 @@
+package com.exam.repository;
+
+import com.exam.entity.AnswerDraft;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AnswerDraftRepository extends JpaRepository<AnswerDraft, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AnswerDraft d WHERE d.updatedAt < :cutoff")
+    int deleteUpdatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,12 @@
+package com.exam.repository;
+
+import com.exam.entity.DistributedAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DistributedAssignmentRepository extends JpaRepository<DistributedAssignment, String> {
+    List<DistributedAssignment> findByStudentEmail(String studentEmail);
+}
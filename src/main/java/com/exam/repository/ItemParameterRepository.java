@@ -0,0 +1,18 @@
+package com.exam.repository;
+
+import com.exam.entity.ItemParameter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ItemParameterRepository extends JpaRepository<ItemParameter, Long> {
+
+    @Query("SELECT COALESCE(MAX(p.calibrationVersion), 0) FROM ItemParameter p WHERE p.examId = :examId")
+    int findLatestCalibrationVersion(@Param("examId") String examId);
+
+    List<ItemParameter> findByExamIdAndCalibrationVersionOrderByQuestionIndex(String examId, int calibrationVersion);
+}
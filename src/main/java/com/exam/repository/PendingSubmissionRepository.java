@@ -0,0 +1,16 @@
+package com.exam.repository;
+
+import com.exam.entity.PendingSubmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PendingSubmissionRepository extends JpaRepository<PendingSubmission, String> {
+    List<PendingSubmission> findByStatusIn(Collection<String> statuses);
+
+    Optional<PendingSubmission> findByStudentEmailAndSubmitToken(String studentEmail, String submitToken);
+}
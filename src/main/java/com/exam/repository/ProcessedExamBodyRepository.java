@@ -0,0 +1,19 @@
+package com.exam.repository;
+
+import com.exam.entity.ProcessedExamBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProcessedExamBodyRepository extends JpaRepository<ProcessedExamBody, String> {
+
+    // Full-text style search over question and answer bodies without loading them
+    @Query(value = "SELECT exam_id FROM processed_exam_bodies " +
+                   "WHERE LOWER(questions) LIKE CONCAT('%', :term, '%') " +
+                   "OR LOWER(answer_key) LIKE CONCAT('%', :term, '%')", nativeQuery = true)
+    List<String> findExamIdsContaining(@Param("term") String term);
+}
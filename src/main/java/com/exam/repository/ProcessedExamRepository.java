@@ -0,0 +1,9 @@
+package com.exam.repository;
+
+import com.exam.entity.ProcessedExam;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProcessedExamRepository extends JpaRepository<ProcessedExam, String> {
+}
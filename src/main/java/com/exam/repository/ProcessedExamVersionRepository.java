@@ -0,0 +1,22 @@
+package com.exam.repository;
+
+import com.exam.entity.ProcessedExamVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProcessedExamVersionRepository extends JpaRepository<ProcessedExamVersion, Long> {
+
+    Optional<ProcessedExamVersion> findByExamIdAndVersion(String examId, int version);
+
+    boolean existsByExamIdAndVersion(String examId, int version);
+
+    // How each archived version became the next one, without loading question bodies: [version, removedQuestion]
+    @Query("SELECT v.version, v.removedQuestion FROM ProcessedExamVersion v WHERE v.examId = :examId")
+    List<Object[]> findRemovedQuestions(@Param("examId") String examId);
+}
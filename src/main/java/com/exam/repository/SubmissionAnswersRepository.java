@@ -0,0 +1,27 @@
+package com.exam.repository;
+
+import com.exam.entity.SubmissionAnswers;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SubmissionAnswersRepository extends JpaRepository<SubmissionAnswers, Long> {
+
+    // Rows still holding the old "q|student|correct|isCorrect;" text: [id, answer_details_json]
+    @Query(value = "SELECT id, answer_details_json FROM exam_submissions " +
+                   "WHERE answer_details_json IS NOT NULL AND answer_details_json <> '' " +
+                   "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findLegacyAnswerDetails(@Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE exam_submissions SET answer_details_json = NULL WHERE id IN (:ids)", nativeQuery = true)
+    int clearLegacyAnswerDetails(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,310 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+import com.exam.entity.ProcessedExam;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * IRT ability of whole exams at once, for class reports and rescoring.
+ *
+ * Responses are indexed by the question's position in the processed exam (its source question),
+ * so every student of an exam is scored against the same items whatever order they saw them in.
+ * Stored submissions are mapped from the exam version they were graded against to the current
+ * one (see QuestionRemap), so answers given before a question was deleted count for the right items.
+ * Item parameters come from ItemBankStore: the exam's latest calibration (MMLE/EM over its
+ * stored submissions, see ItemCalibrator), or stable defaults if it has none.
+ */
+@Service
+public class AbilityEstimationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AbilityEstimationService.class);
+
+    private static final String SELECT_RESPONSES =
+        "SELECT s.id, s.exam_version, a.details FROM exam_submissions s JOIN submission_answers a ON a.submission_id = s.id " +
+        "WHERE s.exam_id = ? ORDER BY s.id";
+
+    private static final String UPDATE_ABILITY =
+        "UPDATE exam_submissions SET irt_theta = ?, irt_standard_error = ?, irt_scaled_score = ? WHERE id = ?";
+
+    // Scale of the reported score: mean 500, standard deviation 100
+    public static final int SCALED_MEAN = 500;
+    public static final int SCALED_SD = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IRT3PLService irt3PLService;
+
+    @Autowired
+    private ItemBankStore itemBankStore;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    @Value("${app.irt.batch-update-size:1000}")
+    private int batchUpdateSize;
+
+    @Value("${app.irt.calibration.quadrature-points:21}")
+    private int quadraturePoints;
+
+    @Value("${app.irt.calibration.max-cycles:200}")
+    private int maxCycles;
+
+    @Value("${app.irt.calibration.tolerance:0.001}")
+    private double tolerance;
+
+    // An exam's stored responses by source question of examVersion; row i belongs to submissionIds[i]
+    private static class ResponseMatrix {
+        private int examVersion;
+        private final List<Long> submissionIds = new ArrayList<>();
+        private final List<byte[]> rows = new ArrayList<>();
+        private int items;
+        private int skipped;
+
+        long[] ids() {
+            long[] ids = new long[submissionIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = submissionIds.get(i);
+            }
+            return ids;
+        }
+
+        byte[][] matrix() {
+            return rows.toArray(new byte[0][]);
+        }
+    }
+
+    /**
+     * Result of a class-wide estimate: row i of the estimate belongs to submissionIds[i]
+     */
+    public static class ClassAbilities {
+        private final String examId;
+        private final long[] submissionIds;
+        private final IRT3PLService.BatchEstimate estimate;
+        private final int items;
+        private final int skipped;
+        private final long elapsedMillis;
+
+        ClassAbilities(String examId, long[] submissionIds, IRT3PLService.BatchEstimate estimate,
+                       int items, int skipped, long elapsedMillis) {
+            this.examId = examId;
+            this.submissionIds = submissionIds;
+            this.estimate = estimate;
+            this.items = items;
+            this.skipped = skipped;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getExamId() { return examId; }
+        public long[] getSubmissionIds() { return submissionIds; }
+        public IRT3PLService.BatchEstimate getEstimate() { return estimate; }
+        public int getItems() { return items; }
+        public int getSkipped() { return skipped; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getMeanTheta() {
+            double[] thetas = estimate.getThetas();
+            if (thetas.length == 0) {
+                return 0.0;
+            }
+            double sum = 0.0;
+            for (double theta : thetas) {
+                sum += theta;
+            }
+            return sum / thetas.length;
+        }
+    }
+
+    /**
+     * Item parameters of at least the first items questions of the exam
+     */
+    public ItemBank itemBank(String examId, int items) {
+        return itemBankStore.get(examId, items);
+    }
+
+    public int getCalibrationVersion(String examId) {
+        return itemBankStore.getCalibrationVersion(examId);
+    }
+
+    /**
+     * One submission's responses by source question (1 = correct, 0 = wrong, -1 = not presented),
+     * or null if any answer does not record its source question
+     */
+    public static byte[] responsesBySource(AnswerDetails details) {
+        int[] sourceQuestions = details.getSourceQuestions();
+        boolean[] correct = details.getCorrect();
+        int items = 0;
+        for (int source : sourceQuestions) {
+            if (source < 0) {
+                return null;
+            }
+            items = Math.max(items, source + 1);
+        }
+        byte[] responses = new byte[items];
+        Arrays.fill(responses, (byte) -1);
+        for (int i = 0; i < sourceQuestions.length; i++) {
+            responses[sourceQuestions[i]] = (byte) (correct[i] ? 1 : 0);
+        }
+        return responses;
+    }
+
+    /**
+     * Responses of a submission graded against examVersion, by source question of toVersion,
+     * or null if its version or any source question is unknown or cannot be mapped
+     */
+    static byte[] responsesBySource(AnswerDetails details, Integer examVersion, int toVersion, QuestionRemap remap) {
+        if (examVersion == null) {
+            return null;
+        }
+        int[] sourceQuestions = details.getSourceQuestions();
+        boolean[] correct = details.getCorrect();
+        int[] mapped = new int[sourceQuestions.length];
+        int items = 0;
+        for (int i = 0; i < sourceQuestions.length; i++) {
+            mapped[i] = remap.map(sourceQuestions[i], examVersion, toVersion);
+            if (mapped[i] == QuestionRemap.UNKNOWN) {
+                return null;
+            }
+            items = Math.max(items, mapped[i] + 1);
+        }
+        byte[] responses = new byte[items];
+        Arrays.fill(responses, (byte) -1);
+        for (int i = 0; i < mapped.length; i++) {
+            if (mapped[i] != QuestionRemap.REMOVED) {
+                responses[mapped[i]] = (byte) (correct[i] ? 1 : 0);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Estimate the ability of one graded submission
+     */
+    public IRT3PLService.AbilityEstimate estimate(String examId, AnswerDetails details) {
+        byte[] responses = responsesBySource(details);
+        if (responses == null) {
+            // Answers without a source question: score them by presented position
+            boolean[] correct = details.getCorrect();
+            responses = new byte[correct.length];
+            for (int i = 0; i < correct.length; i++) {
+                responses[i] = (byte) (correct[i] ? 1 : 0);
+            }
+        }
+        return irt3PLService.estimateAbility(responses, itemBank(examId, responses.length));
+    }
+
+    public int scaledScore(double theta) {
+        return irt3PLService.thetaToScaledScore(theta, SCALED_MEAN, SCALED_SD);
+    }
+
+    /**
+     * Estimate every stored submission of the exam in parallel and save theta, standard error
+     * and scaled score on each
+     */
+    public ClassAbilities estimateExam(String examId) {
+        long started = System.currentTimeMillis();
+        ResponseMatrix responses = loadResponses(examId);
+        IRT3PLService.BatchEstimate estimate =
+            irt3PLService.estimateAbilities(responses.matrix(), itemBank(examId, responses.items));
+        long[] submissionIds = responses.ids();
+        long estimated = System.currentTimeMillis();
+
+        save(submissionIds, estimate);
+        ClassAbilities result = new ClassAbilities(examId, submissionIds, estimate, responses.items, responses.skipped,
+                                                   System.currentTimeMillis() - started);
+        log.info("📐 Estimated abilities for exam {}: {} submissions, {} items, {} skipped in {} ms ({} ms estimating)",
+            examId, submissionIds.length, responses.items, responses.skipped, result.getElapsedMillis(), estimated - started);
+        return result;
+    }
+
+    /**
+     * Calibrate the exam's items from its stored submissions and save them as the exam's next
+     * calibration version. Later estimates of the exam use the new parameters; stored abilities
+     * change only when the exam is estimated again.
+     */
+    public ItemCalibrator.Calibration calibrateExam(String examId) {
+        ResponseMatrix responses = loadResponses(examId);
+        ItemCalibrator.Calibration calibration = new ItemCalibrator(quadraturePoints, maxCycles, tolerance)
+            .calibrate(responses.matrix(), responses.items);
+        if (responses.rows.isEmpty()) {
+            return calibration;
+        }
+        int version = itemBankStore.save(examId, responses.examVersion, calibration.getBank(), calibration.getResponseCounts());
+        if (calibration.isConverged()) {
+            log.info("📐 Calibrated {} items of exam {} (version {}) from {} submissions: {} EM cycles, log-likelihood {}, {} ms",
+                responses.items, examId, version, calibration.getStudents(), calibration.getCycles(),
+                calibration.getFinalLogLikelihood(), calibration.getElapsedMillis());
+        } else {
+            log.warn("⚠️ Calibration of exam {} stopped after {} EM cycles without converging (largest change {})",
+                examId, calibration.getCycles(), calibration.getMaxParameterChange());
+        }
+        return calibration;
+    }
+
+    /**
+     * The exam's stored responses by source question of its current version, streamed from the
+     * database. Submissions that do not record their exam version or source questions, or cannot
+     * be mapped to the current version, are counted as skipped.
+     */
+    private ResponseMatrix loadResponses(String examId) {
+        ResponseMatrix responses = new ResponseMatrix();
+        ProcessedExam summary = examCatalog.getSummary(examId);
+        responses.examVersion = summary != null ? summary.getVersion() : 0;
+        QuestionRemap remap = examCatalog.getRemap(examId);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_RESPONSES,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+            statement.setString(1, examId);
+            return statement;
+        }, (ResultSet rs) -> {
+            int examVersion = rs.getInt(2);
+            Integer gradedVersion = rs.wasNull() ? null : examVersion;
+            byte[] row;
+            try {
+                row = responsesBySource(AnswerDetails.decode(rs.getBytes(3)), gradedVersion, responses.examVersion, remap);
+            } catch (RuntimeException e) {
+                row = null;
+            }
+            if (row == null) {
+                responses.skipped++;
+                return;
+            }
+            responses.submissionIds.add(rs.getLong(1));
+            responses.rows.add(row);
+            responses.items = Math.max(responses.items, row.length);
+        });
+        return responses;
+    }
+
+    private void save(long[] submissionIds, IRT3PLService.BatchEstimate estimate) {
+        double[] thetas = estimate.getThetas();
+        double[] standardErrors = estimate.getStandardErrors();
+        int size = Math.max(1, batchUpdateSize);
+        for (int from = 0; from < submissionIds.length; from += size) {
+            int to = Math.min(submissionIds.length, from + size);
+            List<Object[]> updates = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                updates.add(new Object[] { thetas[i], standardErrors[i], scaledScore(thetas[i]), submissionIds[i] });
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_ABILITY, updates));
+        }
+    }
+}
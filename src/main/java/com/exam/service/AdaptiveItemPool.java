@@ -0,0 +1,140 @@
+package com.exam.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Item selection tables for computerized adaptive testing over one exam's item bank.
+ *
+ * Built once per exam version and calibration: for each point of a theta grid (-4 to 4 in
+ * steps of 0.1) the items are ranked by Fisher information at that point. Selecting an item
+ * then walks the ranking of the grid point nearest the current theta and stops at the first
+ * few eligible items, instead of computing the information of every item on each call.
+ *
+ * Selection combines maximum information with randomesque exposure control (one of the k most
+ * informative eligible items, at random) and Kingsbury-Zara content balancing: the topic and
+ * difficulty label furthest below their share of the pool are preferred, falling back to the
+ * topic alone and then to any item when the preferred ones run out.
+ */
+public final class AdaptiveItemPool {
+
+    private static final double GRID_MIN = -4.0;
+    private static final double GRID_STEP = 0.1;
+    private static final int GRID_POINTS = 81;
+
+    private final ItemBank bank;
+    private final int[] topicOf;        // item -> topic category
+    private final int[] difficultyOf;   // item -> difficulty category
+    private final int topicCount;
+    private final int difficultyCount;
+    private final int[][] ranking;      // grid point -> items by information, highest first
+
+    public AdaptiveItemPool(ItemBank bank, List<String> topics, List<String> difficulties) {
+        int items = bank.size();
+        this.bank = bank;
+        this.topicOf = new int[items];
+        this.difficultyOf = new int[items];
+        this.topicCount = categorize(topics, topicOf, "General");
+        this.difficultyCount = categorize(difficulties, difficultyOf, "Medium");
+
+        // Sort keys: information as float bits (ordered like the values, as they are positive)
+        // in the high word and the item in the low word, so one primitive sort ranks a grid point
+        this.ranking = new int[GRID_POINTS][items];
+        long[] keys = new long[items];
+        for (int g = 0; g < GRID_POINTS; g++) {
+            double theta = GRID_MIN + g * GRID_STEP;
+            for (int i = 0; i < items; i++) {
+                float information = (float) bank.information(i, theta);
+                keys[i] = ((long) Float.floatToIntBits(Math.max(information, 0f)) << 32) | i;
+            }
+            Arrays.sort(keys);
+            int[] order = ranking[g];
+            for (int rank = 0; rank < items; rank++) {
+                order[rank] = (int) keys[items - 1 - rank];
+            }
+        }
+    }
+
+    public ItemBank getBank() { return bank; }
+    public int size() { return bank.size(); }
+    public int getTopicCount() { return topicCount; }
+    public int getDifficultyCount() { return difficultyCount; }
+    public int getTopic(int item) { return topicOf[item]; }
+    public int getDifficulty(int item) { return difficultyOf[item]; }
+
+    /**
+     * Pick the next item. available and used are bitsets over the items; topicTargets and
+     * difficultyTargets are the shares each category should have, topicCounts and
+     * difficultyCounts how many items of each were given so far. Returns -1 if no item is left.
+     */
+    public int select(double theta, long[] available, long[] used, double[] topicTargets, int[] topicCounts,
+                      double[] difficultyTargets, int[] difficultyCounts, int administered, int randomesque,
+                      Random random) {
+        int wantedTopic = mostUnderrepresented(topicTargets, topicCounts, administered);
+        int wantedDifficulty = mostUnderrepresented(difficultyTargets, difficultyCounts, administered);
+        int k = Math.max(1, randomesque);
+
+        // Candidates by tier: 0 = wanted topic and difficulty, 1 = wanted topic, 2 = any
+        int[][] candidates = new int[3][k];
+        int[] found = new int[3];
+        int g = (int) Math.round((Math.max(GRID_MIN, Math.min(-GRID_MIN, theta)) - GRID_MIN) / GRID_STEP);
+        for (int item : ranking[g]) {
+            if (!isSet(available, item) || isSet(used, item)) {
+                continue;
+            }
+            int tier = topicOf[item] != wantedTopic ? 2 : difficultyOf[item] != wantedDifficulty ? 1 : 0;
+            if (found[tier] < k) {
+                candidates[tier][found[tier]++] = item;
+                if (tier == 0 && found[0] == k) {
+                    break;
+                }
+            }
+        }
+        for (int tier = 0; tier < 3; tier++) {
+            if (found[tier] > 0) {
+                return candidates[tier][random.nextInt(found[tier])];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Category whose count is furthest below its target share once one more item is given
+     */
+    private static int mostUnderrepresented(double[] targets, int[] counts, int administered) {
+        int best = -1;
+        double bestDeficit = Double.NEGATIVE_INFINITY;
+        for (int category = 0; category < targets.length; category++) {
+            if (targets[category] <= 0) {
+                continue;
+            }
+            double deficit = targets[category] * (administered + 1) - counts[category];
+            if (deficit > bestDeficit) {
+                bestDeficit = deficit;
+                best = category;
+            }
+        }
+        return best;
+    }
+
+    // Number the distinct labels (case-insensitive) and return how many there are
+    private static int categorize(List<String> labels, int[] categoryOf, String fallback) {
+        Map<String, Integer> categories = new HashMap<>();
+        for (int i = 0; i < categoryOf.length; i++) {
+            String label = labels != null && i < labels.size() && labels.get(i) != null ? labels.get(i) : fallback;
+            categoryOf[i] = categories.computeIfAbsent(label.trim().toLowerCase(), key -> categories.size());
+        }
+        return categories.size();
+    }
+
+    static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
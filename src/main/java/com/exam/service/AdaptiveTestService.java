@@ -0,0 +1,282 @@
+package com.exam.service;
+
+import com.exam.service.AssignmentMaterializer.MaterializedExam;
+import com.exam.service.ExamAttemptStore.ExamAttemptContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computerized adaptive testing: assignments of the "Adaptive Test" activity type are taken
+ * one item at a time.
+ *
+ * The items are the questions of the student's assignment that have an answer key. After each
+ * response theta is re-estimated (3PL MLE over the items given so far) and the next item is
+ * picked from the exam's AdaptiveItemPool. The test ends when the standard error reaches the
+ * target (after a minimum number of items), at the maximum number of items, or when no item is
+ * left. The items given are then submitted like a normal exam, through the submission pipeline.
+ */
+@Service
+public class AdaptiveTestService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveTestService.class);
+
+    public static final String ACTIVITY_TYPE = "Adaptive Test";
+
+    @Autowired
+    private ItemBankStore itemBankStore;
+
+    @Autowired
+    private IRT3PLService irt3PLService;
+
+    @Autowired
+    private ExamAttemptStore examAttemptStore;
+
+    @Value("${app.cat.target-standard-error:0.30}")
+    private double targetStandardError;
+
+    @Value("${app.cat.min-items:5}")
+    private int minItems;
+
+    @Value("${app.cat.max-items:30}")
+    private int maxItems;
+
+    @Value("${app.cat.randomesque:5}")
+    private int randomesque;
+
+    // Map: examId -> selection tables for the exam's current version and item bank
+    private final Map<String, PoolEntry> pools = new ConcurrentHashMap<>();
+
+    private static class PoolEntry {
+        private final int templateVersion;
+        private final ItemBank bank;
+        private final AdaptiveItemPool pool;
+
+        PoolEntry(int templateVersion, ItemBank bank, AdaptiveItemPool pool) {
+            this.templateVersion = templateVersion;
+            this.bank = bank;
+            this.pool = pool;
+        }
+    }
+
+    /**
+     * One student's adaptive test. Items are indexed by original question (the pool's index);
+     * the assignment's presented positions are only used to show and grade them.
+     */
+    public static class Session {
+        private final MaterializedExam exam;
+        private final AdaptiveItemPool pool;
+        private final int[] positionOf;          // item -> presented position, -1 if not in the assignment
+        private final long[] available;
+        private final long[] used;
+        private final double[] topicTargets;
+        private final double[] difficultyTargets;
+        private final int[] topicCounts;
+        private final int[] difficultyCounts;
+        private final int[] administered;        // items in the order given
+        private final byte[] responses;          // 1 = correct, 0 = wrong, by order given
+        private final String[] answers;          // the student's answers, by order given
+        private final int maxItems;
+        private final Random random = new Random();
+        private int count;
+        private int currentItem = -1;
+        private double theta;
+        private double standardError = 999.0;
+        private boolean finished;
+
+        Session(MaterializedExam exam, AdaptiveItemPool pool, int maxItems) {
+            this.exam = exam;
+            this.pool = pool;
+            int items = pool.size();
+            this.positionOf = new int[items];
+            Arrays.fill(positionOf, -1);
+            this.available = new long[(items + 63) >>> 6];
+            this.used = new long[available.length];
+            this.topicTargets = new double[pool.getTopicCount()];
+            this.difficultyTargets = new double[pool.getDifficultyCount()];
+            this.topicCounts = new int[topicTargets.length];
+            this.difficultyCounts = new int[difficultyTargets.length];
+
+            // Only questions of this assignment with an answer key can be given; content targets
+            // are their shares of topics and difficulties
+            int[] sources = exam.getSourceQuestions();
+            Map<Integer, CompiledAnswer> compiled = exam.getCompiledAnswers();
+            int eligible = 0;
+            for (int position = 0; position < sources.length; position++) {
+                int item = sources[position];
+                if (item < 0 || item >= items || compiled == null || compiled.get(position + 1) == null) {
+                    continue;
+                }
+                positionOf[item] = position;
+                AdaptiveItemPool.set(available, item);
+                topicTargets[pool.getTopic(item)]++;
+                difficultyTargets[pool.getDifficulty(item)]++;
+                eligible++;
+            }
+            for (int i = 0; i < topicTargets.length; i++) {
+                topicTargets[i] = eligible > 0 ? topicTargets[i] / eligible : 0;
+            }
+            for (int i = 0; i < difficultyTargets.length; i++) {
+                difficultyTargets[i] = eligible > 0 ? difficultyTargets[i] / eligible : 0;
+            }
+            this.maxItems = Math.min(maxItems, eligible);
+            this.administered = new int[this.maxItems];
+            this.responses = new byte[this.maxItems];
+            this.answers = new String[this.maxItems];
+        }
+
+        public synchronized int getCount() { return count; }
+        public int getMaxItems() { return maxItems; }
+        public synchronized double getTheta() { return theta; }
+        public synchronized double getStandardError() { return standardError; }
+        public synchronized boolean isFinished() { return finished; }
+
+        // Presented position (0-based) of the current item, or -1 when the test is over
+        public synchronized int getCurrentPosition() {
+            return finished || currentItem < 0 ? -1 : positionOf[currentItem];
+        }
+
+        public synchronized String getCurrentQuestion() {
+            int position = getCurrentPosition();
+            return position >= 0 ? exam.getQuestions().get(position) : null;
+        }
+
+        public synchronized String getCurrentDifficulty() {
+            int position = getCurrentPosition();
+            List<String> difficulties = exam.getDifficulties();
+            return position >= 0 && position < difficulties.size() ? difficulties.get(position) : "Medium";
+        }
+    }
+
+    public static boolean isAdaptive(String activityType) {
+        return activityType != null && ACTIVITY_TYPE.equalsIgnoreCase(activityType.trim());
+    }
+
+    /**
+     * Start the adaptive test of an attempt and pick its first item
+     */
+    public Session start(ExamAttemptContext attempt, MaterializedExam exam) {
+        Session session = new Session(exam, pool(exam.getTemplate()), Math.max(1, maxItems));
+        synchronized (session) {
+            selectNext(session);
+        }
+        attempt.setAdaptiveSession(session);
+        return session;
+    }
+
+    /**
+     * Record the answer to the current item, re-estimate theta and pick the next item (or end
+     * the test). sequence is the number of items answered when the item was shown; an answer
+     * with another sequence is a repeated post and is ignored. Returns whether it was recorded.
+     */
+    public boolean answer(Session session, int sequence, String answer) {
+        synchronized (session) {
+            if (session.finished || session.currentItem < 0 || sequence != session.count) {
+                return false;
+            }
+            int item = session.currentItem;
+            int position = session.positionOf[item];
+            CompiledAnswer matcher = session.exam.getCompiledAnswers().get(position + 1);
+            boolean correct = answer != null && !answer.isBlank() && matcher != null && matcher.matches(answer);
+
+            session.administered[session.count] = item;
+            session.responses[session.count] = (byte) (correct ? 1 : 0);
+            session.answers[session.count] = answer;
+            session.count++;
+            AdaptiveItemPool.set(session.used, item);
+            session.topicCounts[session.pool.getTopic(item)]++;
+            session.difficultyCounts[session.pool.getDifficulty(item)]++;
+
+            IRT3PLService.AbilityEstimate estimate = irt3PLService.estimateAbility(
+                Arrays.copyOf(session.responses, session.count), session.pool.getBank().subset(session.administered, session.count));
+            session.theta = estimate.getTheta();
+            session.standardError = estimate.getStandardError();
+
+            if (session.count >= session.maxItems
+                || (session.count >= minItems && session.standardError <= targetStandardError)) {
+                session.finished = true;
+            } else {
+                selectNext(session);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * End the test (time up or deadline): the items answered so far are what gets submitted
+     */
+    public void stop(Session session) {
+        synchronized (session) {
+            session.finished = true;
+        }
+    }
+
+    /**
+     * Narrow the attempt to the items given, in the order given, so the submission pipeline
+     * grades just those. Returns the attempt to submit and fills answers (question number ->
+     * the student's answer).
+     */
+    public ExamAttemptContext administeredAttempt(ExamAttemptContext attempt, Map<Integer, String> answers) {
+        Session session = attempt.getAdaptiveSession();
+        synchronized (session) {
+            int[] positions = new int[session.count];
+            for (int i = 0; i < session.count; i++) {
+                positions[i] = session.positionOf[session.administered[i]];
+                if (session.answers[i] != null) {
+                    answers.put(i + 1, session.answers[i]);
+                }
+            }
+            log.debug("Adaptive test {} ended after {} items: θ={}, SE={}", attempt.getAttemptId(), session.count,
+                session.theta, session.standardError);
+            return examAttemptStore.narrow(attempt, session.exam.select(positions, session.count), positions);
+        }
+    }
+
+    private void selectNext(Session session) {
+        long started = System.nanoTime();
+        int item = session.pool.select(session.theta, session.available, session.used, session.topicTargets,
+            session.topicCounts, session.difficultyTargets, session.difficultyCounts, session.count, randomesque,
+            session.random);
+        if (log.isTraceEnabled()) {
+            log.trace("Selected item {} at θ={} in {} µs", item, session.theta, (System.nanoTime() - started) / 1000);
+        }
+        session.currentItem = item;
+        if (item < 0) {
+            session.finished = true;
+        }
+    }
+
+    /**
+     * Selection tables of the exam, rebuilt when the exam or its item parameters change
+     */
+    private AdaptiveItemPool pool(DistributionTemplate template) {
+        String examId = template.getExamId();
+        ItemBank bank = itemBankStore.get(examId, template.size());
+        PoolEntry entry = pools.get(examId);
+        if (entry != null && entry.templateVersion == template.getVersion() && entry.bank == bank) {
+            return entry.pool;
+        }
+        List<String> topics = new ArrayList<>(bank.size());
+        List<String> difficulties = new ArrayList<>(bank.size());
+        for (int i = 0; i < bank.size(); i++) {
+            topics.add(i < template.size() ? template.getTopic(i) : null);
+            difficulties.add(i < template.size() ? template.getDifficulty(i) : null);
+        }
+        long started = System.currentTimeMillis();
+        AdaptiveItemPool pool = new AdaptiveItemPool(bank, topics, difficulties);
+        pools.put(examId, new PoolEntry(template.getVersion(), bank, pool));
+        log.info("🎯 Built adaptive selection tables for exam {} ({} items) in {} ms", examId, bank.size(),
+            System.currentTimeMillis() - started);
+        return pool;
+    }
+}
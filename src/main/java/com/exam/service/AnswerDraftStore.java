@@ -0,0 +1,232 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDraft;
+import com.exam.repository.AnswerDraftRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side autosave of answers while an exam is in progress.
+ *
+ * The exam page sends only the answers that changed. They are merged into an in-memory draft
+ * per assignment, and drafts that changed are written to answer_drafts in batches on a fixed
+ * delay, so a class answering at the same time causes one batched write per interval rather than
+ * one per click. On submit the draft is sealed: merged under the posted answers and removed.
+ */
+@Service
+public class AnswerDraftStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AnswerDraftStore.class);
+
+    @Autowired
+    private AnswerDraftRepository answerDraftRepository;
+
+    @Value("${app.autosave.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${app.autosave.idle-minutes:120}")
+    private long idleMinutes;
+
+    @Value("${app.autosave.retention-days:30}")
+    private long retentionDays;
+
+    // Map: assignmentId -> draft of an exam in progress
+    private final Map<String, Draft> drafts = new ConcurrentHashMap<>();
+
+    // Write-behind queues: assignmentIds whose draft changed, and drafts to delete
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private static class Draft {
+        private final String studentEmail;
+        private final Map<Integer, String> answers = new ConcurrentHashMap<>();
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        Draft(String studentEmail) {
+            this.studentEmail = studentEmail;
+        }
+    }
+
+    /**
+     * Answers saved so far for the student's assignment (question number -> answer), or an empty map
+     */
+    public Map<Integer, String> load(String studentEmail, String assignmentId) {
+        Draft draft = draft(studentEmail, assignmentId);
+        return draft != null ? new HashMap<>(draft.answers) : new HashMap<>();
+    }
+
+    /**
+     * Merge changed answers into the draft; a blank answer clears the question.
+     * Returns the number of answered questions, or -1 if the assignment is someone else's.
+     */
+    public int record(String studentEmail, String assignmentId, Map<Integer, String> changes) {
+        Draft draft = draft(studentEmail, assignmentId);
+        if (draft == null) {
+            draft = drafts.computeIfAbsent(assignmentId, id -> new Draft(studentEmail));
+            if (!draft.studentEmail.equals(studentEmail)) {
+                return -1;
+            }
+        }
+        for (Map.Entry<Integer, String> change : changes.entrySet()) {
+            String answer = change.getValue();
+            if (answer == null || answer.isBlank()) {
+                draft.answers.remove(change.getKey());
+            } else {
+                draft.answers.put(change.getKey(), answer);
+            }
+        }
+        draft.lastAccessMillis = System.currentTimeMillis();
+        pendingDeletes.remove(assignmentId);
+        dirty.add(assignmentId);
+        return draft.answers.size();
+    }
+
+    /**
+     * Final answers of a submitted assignment: the saved draft with the posted answers on top.
+     * The draft is dropped, so autosaves arriving after the submit start a new one.
+     */
+    public Map<Integer, String> seal(String studentEmail, String assignmentId, Map<Integer, String> posted) {
+        Map<Integer, String> answers = new HashMap<>();
+        if (assignmentId == null) {
+            answers.putAll(posted);
+            return answers;
+        }
+        Draft draft = draft(studentEmail, assignmentId);
+        if (draft != null) {
+            answers.putAll(draft.answers);
+            drafts.remove(assignmentId);
+            dirty.remove(assignmentId);
+            pendingDeletes.add(assignmentId);
+        }
+        answers.putAll(posted);
+        return answers;
+    }
+
+    /**
+     * Drop the draft of the student's assignment, e.g. when its questions changed before it was opened
+     */
+    public void discard(String studentEmail, String assignmentId) {
+        if (draft(studentEmail, assignmentId) != null) {
+            drafts.remove(assignmentId);
+            dirty.remove(assignmentId);
+            pendingDeletes.add(assignmentId);
+        }
+    }
+
+    /**
+     * In-memory draft, loading it from the database if needed; null if there is none or it
+     * belongs to another student
+     */
+    private Draft draft(String studentEmail, String assignmentId) {
+        if (assignmentId == null) {
+            return null;
+        }
+        Draft draft = drafts.get(assignmentId);
+        if (draft == null && !pendingDeletes.contains(assignmentId)) {
+            try {
+                AnswerDraft stored = answerDraftRepository.findById(assignmentId).orElse(null);
+                if (stored != null) {
+                    Draft loaded = new Draft(stored.getStudentEmail());
+                    if (stored.getAnswers() != null) {
+                        loaded.answers.putAll(stored.getAnswers());
+                    }
+                    Draft existing = drafts.putIfAbsent(assignmentId, loaded);
+                    draft = existing != null ? existing : loaded;
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Could not load answer draft {}: {}", assignmentId, e.getMessage());
+            }
+        }
+        if (draft == null || !draft.studentEmail.equals(studentEmail)) {
+            return null;
+        }
+        draft.lastAccessMillis = System.currentTimeMillis();
+        return draft;
+    }
+
+    /**
+     * Write changed drafts to the database in batches. Runs on a fixed delay and once at shutdown.
+     */
+    @Scheduled(fixedDelayString = "${app.autosave.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (dirty.isEmpty() && pendingDeletes.isEmpty()) {
+            return;
+        }
+
+        List<AnswerDraft> toSave = new ArrayList<>();
+        for (String assignmentId : new ArrayList<>(dirty)) {
+            if (!dirty.remove(assignmentId)) {
+                continue;
+            }
+            Draft draft = drafts.get(assignmentId);
+            if (draft != null) {
+                toSave.add(new AnswerDraft(assignmentId, draft.studentEmail, new HashMap<>(draft.answers)));
+            }
+        }
+        List<String> toDelete = new ArrayList<>();
+        for (String assignmentId : new ArrayList<>(pendingDeletes)) {
+            if (pendingDeletes.remove(assignmentId)) {
+                toDelete.add(assignmentId);
+            }
+        }
+
+        int batchSize = Math.max(1, flushBatchSize);
+        int saved = 0;
+        try {
+            for (; saved < toSave.size(); saved += batchSize) {
+                answerDraftRepository.saveAll(toSave.subList(saved, Math.min(toSave.size(), saved + batchSize)));
+            }
+            if (!toDelete.isEmpty()) {
+                answerDraftRepository.deleteAllById(toDelete);
+            }
+        } catch (Exception e) {
+            // Re-queue what was not written; the in-memory draft still holds the latest answers
+            for (int i = saved; i < toSave.size(); i++) {
+                String assignmentId = toSave.get(i).getAssignmentId();
+                if (drafts.containsKey(assignmentId)) {
+                    dirty.add(assignmentId);
+                }
+            }
+            for (String assignmentId : toDelete) {
+                if (!drafts.containsKey(assignmentId)) {
+                    pendingDeletes.add(assignmentId);
+                }
+            }
+            log.warn("⚠️ Could not persist answer drafts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop idle drafts from memory (they stay in the database) and delete stored drafts of
+     * exams that were never submitted
+     */
+    @Scheduled(fixedDelayString = "${app.autosave.sweep-interval-ms:600000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        drafts.entrySet().removeIf(entry -> entry.getValue().lastAccessMillis < cutoff && !dirty.contains(entry.getKey()));
+        try {
+            int deleted = answerDraftRepository.deleteUpdatedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (deleted > 0) {
+                log.info("🧹 Deleted {} abandoned answer drafts", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not delete old answer drafts: {}", e.getMessage());
+        }
+    }
+}
@@ -8,52 +8,224 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Service to manage answer keys for exams
  * Stores the correct answers for each distributed exam
+ *
+ * Every student of an exam gets the same answers in a different order, so the answers are held
+ * once per exam version (ExamKey: an immutable String[] by original question index) and each
+ * student only keeps a StudentKey: a reference to the exam key plus the original question of each
+ * presented position. Lookups and grading work on int positions; Map views are built on demand.
  */
 @Service
 public class AnswerKeyService {
-    
-    // Map: studentId -> Map<questionNumber, correctAnswer>
-    private Map<String, Map<Integer, String>> studentAnswerKeys = new ConcurrentHashMap<>();
-    
-    // Map: examId -> Map<questionNumber, correctAnswer>
-    private Map<String, Map<Integer, String>> examAnswerKeys = new ConcurrentHashMap<>();
-    
+
+    // Map: studentId -> the student's positions into a shared exam key
+    private final Map<String, StudentKey> studentAnswerKeys = new ConcurrentHashMap<>();
+
+    // Map: examId -> answers of the exam's current version
+    private final Map<String, ExamKey> examAnswerKeys = new ConcurrentHashMap<>();
+
+    /**
+     * The answers of one exam version, by original 0-based question index; shared by every student
+     */
+    public static class ExamKey {
+        private final String examId;
+        private final int version;
+        private final String[] answers;
+        private final CompiledAnswer[] compiled; // the template's matchers; null if the question types are unknown
+        private final String[] normalized;       // trimmed and lower-cased once, for gradeExam
+
+        ExamKey(String examId, int version, String[] answers, CompiledAnswer[] compiled) {
+            this.examId = examId;
+            this.version = version;
+            this.answers = answers;
+            this.compiled = compiled;
+            this.normalized = new String[answers.length];
+            for (int i = 0; i < answers.length; i++) {
+                normalized[i] = answers[i] != null ? answers[i].trim().toLowerCase() : null;
+            }
+        }
+
+        public String getExamId() { return examId; }
+        public int getVersion() { return version; }
+        public int size() { return answers.length; }
+        public String getAnswer(int question) { return answers[question]; }
+    }
+
+    /**
+     * A student's answer key: presented position (0-based) -> original question of the exam key
+     */
+    public static class StudentKey {
+        private final ExamKey examKey;
+        private final int[] sourceQuestions;
+
+        StudentKey(ExamKey examKey, int[] sourceQuestions) {
+            this.examKey = examKey;
+            this.sourceQuestions = sourceQuestions;
+        }
+
+        public int size() { return sourceQuestions.length; }
+
+        /**
+         * Correct answer of question number (1-based, as presented), or null
+         */
+        public String getAnswer(int questionNumber) {
+            if (questionNumber < 1 || questionNumber > sourceQuestions.length) {
+                return null;
+            }
+            return examKey.answers[sourceQuestions[questionNumber - 1]];
+        }
+
+        // Shared, not copied: callers must not modify it
+        public int[] getSourceQuestions() { return sourceQuestions; }
+        public ExamKey getExamKey() { return examKey; }
+
+        /**
+         * Question number -> matcher compiled with the question's type, leaving out questions
+         * without an answer; null if the exam key has no matchers
+         */
+        public Map<Integer, CompiledAnswer> toCompiledMap() {
+            if (examKey.compiled == null) {
+                return null;
+            }
+            Map<Integer, CompiledAnswer> map = new HashMap<>();
+            for (int position = 0; position < sourceQuestions.length; position++) {
+                CompiledAnswer answer = examKey.compiled[sourceQuestions[position]];
+                if (answer != null) {
+                    map.put(position + 1, answer);
+                }
+            }
+            return map;
+        }
+
+        /**
+         * Question number -> correct answer, leaving out questions without one
+         */
+        public Map<Integer, String> toMap() {
+            Map<Integer, String> map = new HashMap<>();
+            for (int position = 0; position < sourceQuestions.length; position++) {
+                String answer = examKey.answers[sourceQuestions[position]];
+                if (answer != null) {
+                    map.put(position + 1, answer);
+                }
+            }
+            return map;
+        }
+    }
+
+    /**
+     * The shared key of a compiled exam version, creating it on first use
+     */
+    public ExamKey internExamKey(DistributionTemplate template) {
+        return examAnswerKeys.compute(template.getExamId(), (examId, existing) -> {
+            if (existing != null && existing.version == template.getVersion() && existing.size() == template.size()) {
+                return existing;
+            }
+            String[] answers = new String[template.size()];
+            CompiledAnswer[] compiled = new CompiledAnswer[template.size()];
+            for (int i = 0; i < answers.length; i++) {
+                answers[i] = template.getAnswer(i);
+                compiled[i] = template.getCompiledAnswer(i);
+            }
+            return new ExamKey(examId, template.getVersion(), answers, compiled);
+        });
+    }
+
     /**
      * Store answer key for a specific student's exam
      * @param studentId The student ID
-     * @param answerKey Map of question number to correct answer
+     * @param template Compiled exam the student's assignment was generated from
+     * @param sourceQuestions Original question index of each presented position
      */
-    public void storeStudentAnswerKey(String studentId, Map<Integer, String> answerKey) {
-        studentAnswerKeys.put(studentId, new HashMap<>(answerKey));
+    public void storeStudentAnswerKey(String studentId, DistributionTemplate template, int[] sourceQuestions) {
+        studentAnswerKeys.put(studentId, new StudentKey(internExamKey(template), sourceQuestions));
     }
-    
+
+    /**
+     * Get answer key for a specific student
+     * @param studentId The student ID
+     * @return The student's key, or null if not found
+     */
+    public StudentKey getStudentKey(String studentId) {
+        return studentAnswerKeys.get(studentId);
+    }
+
     /**
      * Get answer key for a specific student
      * @param studentId The student ID
      * @return Map of question number to correct answer, or null if not found
      */
     public Map<Integer, String> getStudentAnswerKey(String studentId) {
-        return studentAnswerKeys.get(studentId);
+        StudentKey key = studentAnswerKeys.get(studentId);
+        return key != null ? key.toMap() : null;
     }
-    
+
     /**
      * Store answer key for an exam ID (for general exam tracking)
      * @param examId The exam identifier
      * @param answerKey Map of question number to correct answer
      */
     public void storeExamAnswerKey(String examId, Map<Integer, String> answerKey) {
-        examAnswerKeys.put(examId, new HashMap<>(answerKey));
+        int size = 0;
+        for (Integer questionNumber : answerKey.keySet()) {
+            size = Math.max(size, questionNumber);
+        }
+        String[] answers = new String[size];
+        for (Map.Entry<Integer, String> entry : answerKey.entrySet()) {
+            if (entry.getKey() >= 1) {
+                answers[entry.getKey() - 1] = entry.getValue();
+            }
+        }
+        examAnswerKeys.put(examId, new ExamKey(examId, -1, answers, null));
     }
-    
+
     /**
      * Get answer key for a specific exam
      * @param examId The exam identifier
      * @return Map of question number to correct answer, or null if not found
      */
     public Map<Integer, String> getExamAnswerKey(String examId) {
-        return examAnswerKeys.get(examId);
+        ExamKey key = examAnswerKeys.get(examId);
+        if (key == null) {
+            return null;
+        }
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < key.answers.length; i++) {
+            if (key.answers[i] != null) {
+                map.put(i + 1, key.answers[i]);
+            }
+        }
+        return map;
     }
-    
+
+    /**
+     * Grade a student's answers
+     * @param studentId The student ID
+     * @param studentAnswers The student's answer to each presented question, by 0-based position
+     * @return Score as percentage (0-100)
+     */
+    public double gradeExam(String studentId, String[] studentAnswers) {
+        StudentKey key = studentAnswerKeys.get(studentId);
+        if (key == null) {
+            return 0.0;
+        }
+
+        int totalQuestions = 0;
+        int correctCount = 0;
+        int[] sourceQuestions = key.sourceQuestions;
+        String[] normalized = key.examKey.normalized;
+        for (int position = 0; position < sourceQuestions.length; position++) {
+            String correctAnswer = normalized[sourceQuestions[position]];
+            if (correctAnswer == null) {
+                continue;
+            }
+            totalQuestions++;
+            if (position < studentAnswers.length && matchesNormalized(studentAnswers[position], correctAnswer)) {
+                correctCount++;
+            }
+        }
+
+        return totalQuestions > 0 ? (correctCount * 100.0) / totalQuestions : 0.0;
+    }
+
     /**
      * Grade a student's answers
      * @param studentId The student ID
@@ -61,30 +233,20 @@ public class AnswerKeyService {
      * @return Score as percentage (0-100)
      */
     public double gradeExam(String studentId, Map<Integer, String> studentAnswers) {
-        Map<Integer, String> correctAnswers = studentAnswerKeys.get(studentId);
-        
-        if (correctAnswers == null || correctAnswers.isEmpty()) {
+        StudentKey key = studentAnswerKeys.get(studentId);
+        if (key == null) {
             return 0.0;
         }
-        
-        int totalQuestions = correctAnswers.size();
-        int correctCount = 0;
-        
-        for (Map.Entry<Integer, String> entry : correctAnswers.entrySet()) {
-            Integer questionNum = entry.getKey();
-            String correctAnswer = entry.getValue().trim().toLowerCase();
-            
-            if (studentAnswers.containsKey(questionNum)) {
-                String studentAnswer = studentAnswers.get(questionNum).trim().toLowerCase();
-                if (correctAnswer.equals(studentAnswer)) {
-                    correctCount++;
-                }
+        String[] answers = new String[key.size()];
+        for (Map.Entry<Integer, String> entry : studentAnswers.entrySet()) {
+            int questionNumber = entry.getKey();
+            if (questionNumber >= 1 && questionNumber <= answers.length) {
+                answers[questionNumber - 1] = entry.getValue();
             }
         }
-        
-        return (correctCount * 100.0) / totalQuestions;
+        return gradeExam(studentId, answers);
     }
-    
+
     /**
      * Check if answer key exists for a student
      * @param studentId The student ID
@@ -93,7 +255,7 @@ public class AnswerKeyService {
     public boolean hasAnswerKeyForStudent(String studentId) {
         return studentAnswerKeys.containsKey(studentId);
     }
-    
+
     /**
      * Clear all stored answer keys (useful for testing)
      */
@@ -101,7 +263,7 @@ public class AnswerKeyService {
         studentAnswerKeys.clear();
         examAnswerKeys.clear();
     }
-    
+
     /**
      * Remove answer key for a specific student
      * @param studentId The student ID
@@ -109,4 +271,24 @@ public class AnswerKeyService {
     public void removeStudentAnswerKey(String studentId) {
         studentAnswerKeys.remove(studentId);
     }
+
+    /**
+     * Trimmed, case-insensitive comparison against an already normalized correct answer,
+     * without allocating a lower-cased copy of the student's answer
+     */
+    private static boolean matchesNormalized(String studentAnswer, String normalizedCorrect) {
+        if (studentAnswer == null) {
+            return false;
+        }
+        int start = 0;
+        int end = studentAnswer.length();
+        while (start < end && studentAnswer.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && studentAnswer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start == normalizedCorrect.length()
+            && studentAnswer.regionMatches(true, start, normalizedCorrect, 0, normalizedCorrect.length());
+    }
 }
@@ -0,0 +1,265 @@
+package com.exam.service;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.entity.ProcessedExam;
+import com.exam.service.ExamCatalog.UploadedExam;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Regenerates a student's exam from a DistributedAssignment seed.
+ *
+ * Question selection, question order and choice order all come from FisherYatesService's
+ * seeded generator, so the same (seed, exam version, difficulty mix) always yields the
+ * same exam and answer key. Everything else comes from the exam's DistributionTemplate,
+ * compiled once per exam version; nothing per-student is stored besides the seed.
+ *
+ * An assignment is always rebuilt against the exam version it records, using the archived
+ * body if the exam was edited since. If that version cannot be loaded it is not rebuilt at
+ * all, and callers fall back to the stored answer key. Only an assignment the student has
+ * never opened moves to the current version (see materializeForStart).
+ */
+@Service
+public class AssignmentMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentMaterializer.class);
+
+    // Stream ids for the seeded generator; choice order of presented question i uses CHOICE_STREAM + i
+    private static final long SELECTION_STREAM = 0L;
+    private static final long CHOICE_STREAM = 1L;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    @Autowired
+    private FisherYatesService fisherYatesService;
+
+    @Autowired
+    private TopicClassifier topicClassifier;
+
+    @Value("${app.exams.template-cache-size:32}")
+    private int templateCacheSize;
+
+    // Access-ordered LRU: examId@version -> compiled template of that exam version
+    private final Map<String, DistributionTemplate> templates = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DistributionTemplate> eldest) {
+            return size() > templateCacheSize;
+        }
+    };
+
+    /**
+     * A student's exam as presented to them. Answer keys are 1-based by presented position.
+     */
+    public static class MaterializedExam {
+        private final DistributionTemplate template;
+        private final int[] sourceQuestions; // presented position (0-based) -> original question index
+        private final List<String> questions;
+        private final List<String> difficulties;
+        private final List<String> topics;
+        private final Map<Integer, String> answerKey;
+        private final Map<Integer, CompiledAnswer> compiledAnswers;
+
+        MaterializedExam(DistributionTemplate template, int[] sourceQuestions, List<String> questions,
+                         List<String> difficulties, List<String> topics,
+                         Map<Integer, String> answerKey, Map<Integer, CompiledAnswer> compiledAnswers) {
+            this.template = template;
+            this.sourceQuestions = sourceQuestions;
+            this.questions = questions;
+            this.difficulties = difficulties;
+            this.topics = topics;
+            this.answerKey = answerKey;
+            this.compiledAnswers = compiledAnswers;
+        }
+
+        public DistributionTemplate getTemplate() { return template; }
+        public int[] getSourceQuestions() { return sourceQuestions; }
+        public List<String> getQuestions() { return questions; }
+        public List<String> getDifficulties() { return difficulties; }
+        public List<String> getTopics() { return topics; }
+        public Map<Integer, String> getAnswerKey() { return answerKey; }
+        public Map<Integer, CompiledAnswer> getCompiledAnswers() { return compiledAnswers; }
+
+        /**
+         * The questions at the given presented positions (0-based), in that order and numbered
+         * from 1, e.g. the items an adaptive test actually gave
+         */
+        public MaterializedExam select(int[] positions, int count) {
+            int[] selectedSources = new int[count];
+            List<String> selectedQuestions = new ArrayList<>(count);
+            List<String> selectedDifficulties = new ArrayList<>(count);
+            List<String> selectedTopics = new ArrayList<>(count);
+            Map<Integer, String> selectedKey = new HashMap<>();
+            Map<Integer, CompiledAnswer> selectedCompiled = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                int position = positions[i];
+                selectedSources[i] = sourceQuestions[position];
+                selectedQuestions.add(questions.get(position));
+                selectedDifficulties.add(position < difficulties.size() ? difficulties.get(position) : "Medium");
+                selectedTopics.add(position < topics.size() ? topics.get(position) : "General");
+                if (answerKey.containsKey(position + 1)) {
+                    selectedKey.put(i + 1, answerKey.get(position + 1));
+                }
+                if (compiledAnswers != null && compiledAnswers.containsKey(position + 1)) {
+                    selectedCompiled.put(i + 1, compiledAnswers.get(position + 1));
+                }
+            }
+            return new MaterializedExam(template, selectedSources, selectedQuestions, selectedDifficulties,
+                                        selectedTopics, selectedKey, selectedCompiled);
+        }
+    }
+
+    /**
+     * Regenerate the assignment, or return null if its exam is no longer in the catalog
+     */
+    public MaterializedExam materialize(DistributedAssignment assignment) {
+        if (assignment == null) {
+            return null;
+        }
+        // Version check uses catalog metadata only; the exam body is loaded just to (re)compile a template
+        ProcessedExam summary = examCatalog.getSummary(assignment.getExamId());
+        if (summary == null) {
+            return null;
+        }
+
+        // Rebuild exactly the version the student was given, never the current one in its place
+        DistributionTemplate template = getTemplate(summary.getExamId(), assignment.getExamVersion());
+        if (template == null) {
+            log.warn("⚠️ Exam {} v{} of assignment {} is no longer available (exam is at v{}); not regenerating", summary.getExamId(), assignment.getExamVersion(), assignment.getAssignmentId(), summary.getVersion());
+            return null;
+        }
+        int[] questionOrder = generateQuestionOrder(template, assignment.getSeed(), assignment.getQuestionCount(),
+            assignment.getEasyPercent(), assignment.getMediumPercent(), assignment.getHardPercent());
+
+        List<String> questions = new ArrayList<>(questionOrder.length);
+        List<String> difficulties = new ArrayList<>(questionOrder.length);
+        List<String> topics = new ArrayList<>(questionOrder.length);
+        Map<Integer, String> answerKey = new HashMap<>();
+        Map<Integer, CompiledAnswer> compiledAnswers = new HashMap<>();
+
+        for (int position = 0; position < questionOrder.length; position++) {
+            int originalIndex = questionOrder[position];
+            Random choiceRandom = fisherYatesService.seededRandom(assignment.getSeed(), CHOICE_STREAM + position);
+            byte[] choiceOrder = fisherYatesService.randomPermutation(template.getChoiceCount(originalIndex), choiceRandom);
+            questions.add(template.render(originalIndex, choiceOrder));
+            difficulties.add(template.getDifficulty(originalIndex));
+            topics.add(template.getTopic(originalIndex));
+
+            String answer = template.getAnswer(originalIndex);
+            if (answer != null) {
+                answerKey.put(position + 1, answer);
+                compiledAnswers.put(position + 1, template.getCompiledAnswer(originalIndex));
+            }
+        }
+
+        return new MaterializedExam(template, questionOrder, questions, difficulties, topics, answerKey, compiledAnswers);
+    }
+
+    /**
+     * Regenerate an assignment the student is starting now. If it was never opened, nothing of
+     * it has been shown yet, so if the exam was edited since distribution the assignment moves
+     * to the current version (the caller saves it and drops any saved answers). An opened
+     * assignment keeps its version, so a reload shows the same questions. Returns null if the
+     * exam is no longer in the catalog.
+     */
+    public MaterializedExam materializeForStart(DistributedAssignment assignment) {
+        ProcessedExam summary = assignment != null ? examCatalog.getSummary(assignment.getExamId()) : null;
+        if (summary != null && assignment.getOpenedAt() == null && assignment.getExamVersion() != summary.getVersion()) {
+            log.info("🔄 Assignment {} moves from v{} to v{} of exam {} before it is started", assignment.getAssignmentId(), assignment.getExamVersion(), summary.getVersion(), summary.getExamId());
+            assignment.setExamVersion(summary.getVersion());
+        }
+        return materialize(assignment);
+    }
+
+    /**
+     * Compiled template for the given exam version, from the current or an archived body.
+     * Returns null if that version of the exam can no longer be loaded.
+     */
+    public DistributionTemplate getTemplate(String examId, int version) {
+        String cacheKey = examId + "@" + version;
+        synchronized (templates) {
+            DistributionTemplate template = templates.get(cacheKey);
+            if (template != null) {
+                return template;
+            }
+        }
+        UploadedExam exam = examCatalog.get(examId, version);
+        if (exam == null || exam.getVersion() != version) {
+            return null;
+        }
+        DistributionTemplate compiled = DistributionTemplate.compile(exam, fisherYatesService, topicClassifier);
+        synchronized (templates) {
+            templates.put(cacheKey, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Pick questionCount questions honouring the Easy/Medium/Hard percentages, then shuffle them.
+     * Tiers that run short are topped up from the combined surplus of the other tiers.
+     * Returns original 0-based question indices in presented order.
+     */
+    public int[] generateQuestionOrder(DistributionTemplate template, long seed, int questionCount,
+                                       int easyPercent, int mediumPercent, int hardPercent) {
+        int available = template.size();
+        int totalQuestions = (questionCount > 0 && questionCount <= available) ? questionCount : available;
+
+        int easyCount = (int) Math.round(totalQuestions * easyPercent / 100.0);
+        int mediumCount = (int) Math.round(totalQuestions * mediumPercent / 100.0);
+        int hardCount = (int) Math.round(totalQuestions * hardPercent / 100.0);
+
+        int calculatedTotal = easyCount + mediumCount + hardCount;
+        if (calculatedTotal < totalQuestions) {
+            mediumCount += (totalQuestions - calculatedTotal);
+        } else if (calculatedTotal > totalQuestions) {
+            mediumCount -= (calculatedTotal - totalQuestions);
+        }
+
+        Random rand = fisherYatesService.seededRandom(seed, SELECTION_STREAM);
+        int[] easy = template.getEasyIndices().clone();
+        int[] medium = template.getMediumIndices().clone();
+        int[] hard = template.getHardIndices().clone();
+        fisherYatesService.shuffle(easy, rand);
+        fisherYatesService.shuffle(medium, rand);
+        fisherYatesService.shuffle(hard, rand);
+
+        int easyPicked   = Math.max(0, Math.min(easyCount,   easy.length));
+        int mediumPicked = Math.max(0, Math.min(mediumCount, medium.length));
+        int hardPicked   = Math.max(0, Math.min(hardCount,   hard.length));
+
+        // Questions we couldn't fill from their own tier come from the combined leftover pool
+        int deficit = totalQuestions - (easyPicked + mediumPicked + hardPicked);
+        int[] leftover = new int[(easy.length - easyPicked) + (medium.length - mediumPicked) + (hard.length - hardPicked)];
+        int offset = 0;
+        System.arraycopy(easy, easyPicked, leftover, offset, easy.length - easyPicked);
+        offset += easy.length - easyPicked;
+        System.arraycopy(medium, mediumPicked, leftover, offset, medium.length - mediumPicked);
+        offset += medium.length - mediumPicked;
+        System.arraycopy(hard, hardPicked, leftover, offset, hard.length - hardPicked);
+        fisherYatesService.shuffle(leftover, rand);
+        int fillFromLeftover = Math.max(0, Math.min(deficit, leftover.length));
+
+        int[] selected = new int[easyPicked + mediumPicked + hardPicked + fillFromLeftover];
+        offset = 0;
+        System.arraycopy(easy, 0, selected, offset, easyPicked);
+        offset += easyPicked;
+        System.arraycopy(medium, 0, selected, offset, mediumPicked);
+        offset += mediumPicked;
+        System.arraycopy(hard, 0, selected, offset, hardPicked);
+        offset += hardPicked;
+        System.arraycopy(leftover, 0, selected, offset, fillFromLeftover);
+        fisherYatesService.shuffle(selected, rand);
+        return selected;
+    }
+}
@@ -0,0 +1,447 @@
+package com.exam.service;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.repository.DistributedAssignmentRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent store for distributed (not yet submitted) exam assignments.
+ *
+ * Assignments are keyed by (studentEmail, assignmentId) and held in concurrent maps so
+ * teacher distribution and student submissions can run in parallel without locking.
+ * Changes are written behind to the distributed_assignments table on a fixed delay and
+ * reloaded at startup, so live assignments survive a restart.
+ *
+ * Assignments that are past their deadline plus a grace period, or that were never opened
+ * (or, without a deadline, never submitted) within the abandon TTL, are evicted by a
+ * scheduled sweep. Expiry times sit in a priority queue so each sweep only visits the
+ * entries that are actually due.
+ */
+@Service
+public class AssignmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentStore.class);
+
+    private static final Comparator<DistributedAssignment> BY_DISTRIBUTED_AT =
+        Comparator.comparing(DistributedAssignment::getDistributedAt,
+                             Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Autowired
+    private DistributedAssignmentRepository distributedAssignmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.assignments.deadline-grace-hours:24}")
+    private long deadlineGraceHours;
+
+    @Value("${app.assignments.abandon-ttl-days:30}")
+    private long abandonTtlDays;
+
+    // Map: studentEmail -> (assignmentId -> assignment)
+    private final Map<String, Map<String, DistributedAssignment>> assignments = new ConcurrentHashMap<>();
+
+    // Map: studentEmail -> (exam subject -> assignmentIds); updated under the same per-student lock as assignments
+    private final Map<String, Map<String, Set<String>>> idsBySubject = new ConcurrentHashMap<>();
+
+    // Map: studentEmail -> exam names unlocked past their deadline
+    private final Map<String, Set<String>> unlockedExams = new ConcurrentHashMap<>();
+
+    // Write-behind queues: assignmentId -> assignment to save, and assignmentIds to delete
+    private final Map<String, DistributedAssignment> pendingSaves = new ConcurrentHashMap<>();
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    // Time-ordered eviction index; entries are not removed eagerly, stale ones are skipped by the sweep
+    private final PriorityBlockingQueue<Expiry> expiryQueue = new PriorityBlockingQueue<>();
+
+    // Map: assignmentId -> expiry currently scheduled; a queue entry with another time is stale
+    private final Map<String, LocalDateTime> scheduledExpiries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private static final class Expiry implements Comparable<Expiry> {
+        private final LocalDateTime expiresAt;
+        private final String studentEmail;
+        private final String assignmentId;
+
+        Expiry(LocalDateTime expiresAt, String studentEmail, String assignmentId) {
+            this.expiresAt = expiresAt;
+            this.studentEmail = studentEmail;
+            this.assignmentId = assignmentId;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return expiresAt.compareTo(other.expiresAt);
+        }
+    }
+
+    /**
+     * Warm the in-memory store from the database at startup
+     */
+    @PostConstruct
+    public void loadPersistedAssignments() {
+        try {
+            List<DistributedAssignment> persisted = distributedAssignmentRepository.findAll();
+            for (DistributedAssignment assignment : persisted) {
+                if (assignments.computeIfAbsent(assignment.getStudentEmail(), k -> new ConcurrentHashMap<>())
+                        .put(assignment.getAssignmentId(), assignment) == null) {
+                    liveCount.incrementAndGet();
+                }
+                indexSubject(assignment);
+                scheduleExpiry(assignment);
+            }
+            log.info("✅ Reloaded {} distributed assignments", persisted.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not reload distributed assignments: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Live and evicted assignment gauges (exposed through the actuator metrics endpoint)
+     */
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("exam.assignments.live", liveCount, AtomicInteger::get)
+            .description("Distributed assignments not yet submitted or evicted")
+            .register(meterRegistry);
+        Gauge.builder("exam.assignments.evicted", evictedCount, AtomicLong::get)
+            .description("Assignments evicted by the expiry sweep since startup")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Add or replace an assignment and queue it for persistence
+     */
+    public void save(DistributedAssignment assignment) {
+        assignments.compute(assignment.getStudentEmail(), (email, byId) -> {
+            Map<String, DistributedAssignment> target = byId != null ? byId : new ConcurrentHashMap<>();
+            DistributedAssignment previous = target.put(assignment.getAssignmentId(), assignment);
+            if (previous == null) {
+                liveCount.incrementAndGet();
+            } else {
+                unindexSubject(previous);
+            }
+            indexSubject(assignment);
+            return target;
+        });
+        pendingDeletes.remove(assignment.getAssignmentId());
+        pendingSaves.put(assignment.getAssignmentId(), assignment);
+        scheduleExpiry(assignment);
+    }
+
+    /**
+     * Add a batch of assignments; they are persisted together on the next flush
+     */
+    public void saveAll(Collection<DistributedAssignment> batch) {
+        for (DistributedAssignment assignment : batch) {
+            save(assignment);
+        }
+    }
+
+    /**
+     * O(1) lookup of a single assignment
+     */
+    public DistributedAssignment get(String studentEmail, String assignmentId) {
+        if (studentEmail == null || assignmentId == null || assignmentId.isBlank()) {
+            return null;
+        }
+        Map<String, DistributedAssignment> byId = assignments.get(studentEmail);
+        return byId != null ? byId.get(assignmentId) : null;
+    }
+
+    /**
+     * Most recently distributed assignment for a student, or null
+     */
+    public DistributedAssignment getLatest(String studentEmail) {
+        Map<String, DistributedAssignment> byId = studentEmail != null ? assignments.get(studentEmail) : null;
+        if (byId == null || byId.isEmpty()) {
+            return null;
+        }
+        return byId.values().stream().max(BY_DISTRIBUTED_AT).orElse(null);
+    }
+
+    /**
+     * All pending assignments of a student, oldest first
+     */
+    public List<DistributedAssignment> getHistory(String studentEmail) {
+        Map<String, DistributedAssignment> byId = studentEmail != null ? assignments.get(studentEmail) : null;
+        if (byId == null || byId.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<DistributedAssignment> history = new ArrayList<>(byId.values());
+        history.sort(BY_DISTRIBUTED_AT);
+        return history;
+    }
+
+    /**
+     * Pending assignments of a student grouped by exam subject, each list oldest first.
+     * Served from the subject index, so the dashboard never scans the full history per subject.
+     */
+    public Map<String, List<DistributedAssignment>> getPendingBySubject(String studentEmail) {
+        Map<String, Set<String>> bySubject = studentEmail != null ? idsBySubject.get(studentEmail) : null;
+        Map<String, DistributedAssignment> byId = studentEmail != null ? assignments.get(studentEmail) : null;
+        if (bySubject == null || byId == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<DistributedAssignment>> pending = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : bySubject.entrySet()) {
+            List<DistributedAssignment> subjectAssignments = new ArrayList<>(entry.getValue().size());
+            for (String assignmentId : entry.getValue()) {
+                DistributedAssignment assignment = byId.get(assignmentId);
+                if (assignment != null) {
+                    subjectAssignments.add(assignment);
+                }
+            }
+            if (!subjectAssignments.isEmpty()) {
+                subjectAssignments.sort(BY_DISTRIBUTED_AT);
+                pending.put(entry.getKey(), subjectAssignments);
+            }
+        }
+        return pending;
+    }
+
+    public boolean hasAssignments(String studentEmail) {
+        Map<String, DistributedAssignment> byId = studentEmail != null ? assignments.get(studentEmail) : null;
+        return byId != null && !byId.isEmpty();
+    }
+
+    /**
+     * Record that the student opened the assignment, so the abandon TTL no longer applies
+     * when it has a deadline
+     */
+    public void markOpened(String studentEmail, String assignmentId) {
+        if (studentEmail == null || assignmentId == null) {
+            return;
+        }
+        // Under the student's entry, so it cannot re-queue a save after a concurrent remove()
+        assignments.computeIfPresent(studentEmail, (email, byId) -> {
+            DistributedAssignment assignment = byId.get(assignmentId);
+            if (assignment != null && assignment.getOpenedAt() == null) {
+                assignment.setOpenedAt(LocalDateTime.now());
+                pendingSaves.put(assignmentId, assignment);
+                scheduleExpiry(assignment);
+            }
+            return byId;
+        });
+    }
+
+    public void remove(String studentEmail, String assignmentId) {
+        if (assignmentId == null || assignmentId.isBlank()) {
+            removeAll(studentEmail);
+            return;
+        }
+        if (studentEmail == null) {
+            return;
+        }
+        // compute() keeps the remove-and-drop-empty step atomic against a concurrent save()
+        assignments.computeIfPresent(studentEmail, (email, byId) -> {
+            DistributedAssignment removed = byId.remove(assignmentId);
+            if (removed != null) {
+                liveCount.decrementAndGet();
+                unindexSubject(removed);
+                queueDelete(assignmentId);
+                scheduledExpiries.remove(assignmentId);
+            }
+            return byId.isEmpty() ? null : byId;
+        });
+    }
+
+    public void removeAll(String studentEmail) {
+        if (studentEmail == null) {
+            return;
+        }
+        assignments.computeIfPresent(studentEmail, (email, byId) -> {
+            liveCount.addAndGet(-byId.size());
+            byId.keySet().forEach(this::queueDelete);
+            byId.keySet().forEach(scheduledExpiries::remove);
+            idsBySubject.remove(email);
+            return null;
+        });
+    }
+
+    // Check if exam is unlocked for student
+    public boolean isUnlocked(String studentEmail, String examName) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        return studentUnlocks != null && studentUnlocks.contains(examName);
+    }
+
+    public boolean hasUnlocks(String studentEmail) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        return studentUnlocks != null && !studentUnlocks.isEmpty();
+    }
+
+    public void unlock(String studentEmail, String examName) {
+        unlockedExams.computeIfAbsent(studentEmail, k -> ConcurrentHashMap.newKeySet()).add(examName);
+    }
+
+    // Remove unlock after submission
+    public void removeUnlock(String studentEmail, String examName) {
+        Set<String> studentUnlocks = unlockedExams.get(studentEmail);
+        if (studentUnlocks != null) {
+            studentUnlocks.remove(examName);
+        }
+    }
+
+    /**
+     * Write queued changes to the database. Runs on a fixed delay and once at shutdown.
+     */
+    @Scheduled(fixedDelayString = "${app.assignments.flush-interval-ms:2000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (pendingSaves.isEmpty() && pendingDeletes.isEmpty()) {
+            return;
+        }
+
+        List<DistributedAssignment> toSave = new ArrayList<>();
+        for (String assignmentId : new ArrayList<>(pendingSaves.keySet())) {
+            DistributedAssignment assignment = pendingSaves.remove(assignmentId);
+            if (assignment != null) {
+                toSave.add(assignment);
+            }
+        }
+        List<String> toDelete = new ArrayList<>();
+        for (String assignmentId : new ArrayList<>(pendingDeletes)) {
+            if (pendingDeletes.remove(assignmentId)) {
+                toDelete.add(assignmentId);
+            }
+        }
+
+        try {
+            if (!toSave.isEmpty()) {
+                distributedAssignmentRepository.saveAll(toSave);
+            }
+            if (!toDelete.isEmpty()) {
+                distributedAssignmentRepository.deleteAllById(toDelete);
+            }
+        } catch (Exception e) {
+            // Re-queue so the next flush retries; newer in-memory changes win
+            for (DistributedAssignment assignment : toSave) {
+                pendingSaves.putIfAbsent(assignment.getAssignmentId(), assignment);
+            }
+            for (String assignmentId : toDelete) {
+                if (!pendingSaves.containsKey(assignmentId)) {
+                    pendingDeletes.add(assignmentId);
+                }
+            }
+            log.warn("⚠️ Could not persist distributed assignments: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Evict assignments whose scheduled expiry has passed. Assignments the teacher unlocked
+     * past their deadline get another grace period.
+     */
+    @Scheduled(fixedDelayString = "${app.assignments.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int evicted = 0;
+        Expiry head;
+        while ((head = expiryQueue.peek()) != null && !head.expiresAt.isAfter(now)) {
+            Expiry due = expiryQueue.poll();
+            if (due == null) {
+                break;
+            }
+            DistributedAssignment assignment = get(due.studentEmail, due.assignmentId);
+            if (assignment == null || !due.expiresAt.equals(scheduledExpiries.get(due.assignmentId))) {
+                continue; // already submitted/removed, or rescheduled since
+            }
+            if (isUnlocked(due.studentEmail, assignment.getExamName())) {
+                schedule(now.plusHours(deadlineGraceHours), due.studentEmail, due.assignmentId);
+                continue;
+            }
+            remove(due.studentEmail, due.assignmentId);
+            evicted++;
+        }
+        if (evicted > 0) {
+            evictedCount.addAndGet(evicted);
+            log.info("🧹 Evicted {} expired assignments, {} still live", evicted, liveCount.get());
+        }
+    }
+
+    private void indexSubject(DistributedAssignment assignment) {
+        idsBySubject.computeIfAbsent(assignment.getStudentEmail(), k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(subjectKey(assignment), k -> ConcurrentHashMap.newKeySet())
+            .add(assignment.getAssignmentId());
+    }
+
+    private void unindexSubject(DistributedAssignment assignment) {
+        Map<String, Set<String>> bySubject = idsBySubject.get(assignment.getStudentEmail());
+        if (bySubject == null) {
+            return;
+        }
+        String subject = subjectKey(assignment);
+        Set<String> ids = bySubject.get(subject);
+        if (ids != null && ids.remove(assignment.getAssignmentId()) && ids.isEmpty()) {
+            bySubject.remove(subject);
+            if (bySubject.isEmpty()) {
+                idsBySubject.remove(assignment.getStudentEmail());
+            }
+        }
+    }
+
+    private static String subjectKey(DistributedAssignment assignment) {
+        return assignment.getExamSubject() != null ? assignment.getExamSubject() : "";
+    }
+
+    private void scheduleExpiry(DistributedAssignment assignment) {
+        schedule(expiresAt(assignment), assignment.getStudentEmail(), assignment.getAssignmentId());
+    }
+
+    private void schedule(LocalDateTime expiresAt, String studentEmail, String assignmentId) {
+        scheduledExpiries.put(assignmentId, expiresAt);
+        expiryQueue.offer(new Expiry(expiresAt, studentEmail, assignmentId));
+    }
+
+    /**
+     * Deadline plus grace period. An assignment that was never opened also expires at the
+     * abandon TTL after distribution, and one without a usable deadline only at the TTL.
+     */
+    private LocalDateTime expiresAt(DistributedAssignment assignment) {
+        LocalDateTime distributedAt = assignment.getDistributedAt() != null ? assignment.getDistributedAt() : LocalDateTime.now();
+        LocalDateTime abandonedAt = distributedAt.plusDays(abandonTtlDays);
+        String deadline = assignment.getExamDeadline();
+        if (deadline != null && !deadline.isBlank()) {
+            try {
+                LocalDateTime deadlineExpiry = LocalDateTime.parse(deadline.trim()).plusHours(deadlineGraceHours);
+                return assignment.getOpenedAt() == null && abandonedAt.isBefore(deadlineExpiry) ? abandonedAt : deadlineExpiry;
+            } catch (DateTimeParseException e) {
+                // fall through to the abandon TTL
+            }
+        }
+        return abandonedAt;
+    }
+
+    private void queueDelete(String assignmentId) {
+        pendingSaves.remove(assignmentId);
+        pendingDeletes.add(assignmentId);
+    }
+}
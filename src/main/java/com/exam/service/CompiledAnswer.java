@@ -0,0 +1,68 @@
+package com.exam.service;
+
+/**
+ * One answer-key entry, pre-processed so grading a submission does no regex work.
+ *
+ * Matching rules:
+ * - LETTER: a single A-D choice letter, matched case-insensitively and nothing else
+ * - EXACT: the answer of a multiple-choice question (the choice text), matched case-insensitively
+ * - TEXT: a typed answer, matched by a ShortAnswerMatcher (alternatives, numeric answers
+ *   compared by value, typo tolerance and key words, with a bounded cost per answer)
+ */
+public class CompiledAnswer {
+
+    public enum Kind { LETTER, EXACT, TEXT }
+
+    private final Kind kind;
+    private final String text;                // trimmed correct answer
+    private final ShortAnswerMatcher matcher; // TEXT only
+
+    private CompiledAnswer(Kind kind, String text, ShortAnswerMatcher matcher) {
+        this.kind = kind;
+        this.text = text;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Compile a correct answer, or return null if there is none; textInput is false for
+     * multiple-choice questions, whose answers are only ever one of the choices and so need
+     * no fuzzy matching. Answers are compiled with their question, in DistributionTemplate.
+     */
+    public static CompiledAnswer compile(String correctAnswer, boolean textInput) {
+        if (correctAnswer == null) {
+            return null;
+        }
+        String correct = correctAnswer.trim();
+        if (correct.length() == 1 && isChoiceLetter(correct.charAt(0))) {
+            return new CompiledAnswer(Kind.LETTER, correct, null);
+        }
+        ShortAnswerMatcher matcher = textInput ? ShortAnswerMatcher.compile(correct) : null;
+        return matcher != null
+            ? new CompiledAnswer(Kind.TEXT, correct, matcher)
+            : new CompiledAnswer(Kind.EXACT, correct, null);
+    }
+
+    /**
+     * Whether the student's answer is accepted
+     */
+    public boolean matches(String studentAnswer) {
+        if (studentAnswer == null) {
+            return false;
+        }
+        String student = studentAnswer.trim();
+        if (student.isEmpty()) {
+            return false;
+        }
+        if (student.equalsIgnoreCase(text)) {
+            return true;
+        }
+        return kind == Kind.TEXT && matcher.matches(student);
+    }
+
+    public Kind getKind() { return kind; }
+    public String getText() { return text; }
+
+    private static boolean isChoiceLetter(char c) {
+        return (c >= 'A' && c <= 'D') || (c >= 'a' && c <= 'd');
+    }
+}
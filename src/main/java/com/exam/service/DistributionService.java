@@ -0,0 +1,243 @@
+package com.exam.service;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.service.ExamCatalog.UploadedExam;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates assignments for one student or, as a background job, for a whole class.
+ *
+ * Bulk jobs split the student list into batches that run on a bounded worker pool;
+ * each batch generates its assignments and commits them to the AssignmentStore in one go.
+ * The teacher's request returns a job id immediately and polls getJob for progress.
+ */
+@Service
+public class DistributionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistributionService.class);
+
+    // Finished jobs are kept this long so the teacher's page can still read the final status
+    private static final long JOB_RETENTION_MINUTES = 60;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    @Autowired
+    private AssignmentMaterializer assignmentMaterializer;
+
+    @Autowired
+    private AssignmentStore assignmentStore;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private FisherYatesService fisherYatesService;
+
+    @Value("${app.distribution.threads:0}")
+    private int threads;
+
+    @Value("${app.distribution.batch-size:100}")
+    private int batchSize;
+
+    private ExecutorService workers;
+
+    // Map: jobId -> job
+    private final Map<String, DistributionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Progress of a bulk distribution
+     */
+    public static class DistributionJob {
+        private final String jobId;
+        private final String examId;
+        private final int total;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger pendingBatches = new AtomicInteger();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+
+        DistributionJob(String jobId, String examId, int total) {
+            this.jobId = jobId;
+            this.examId = examId;
+            this.total = total;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getExamId() { return examId; }
+        public int getTotal() { return total; }
+        public int getCompleted() { return completed.get(); }
+        public int getFailed() { return failed.get(); }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public boolean isFinished() { return finishedAt != null; }
+
+        public String getStatus() {
+            if (finishedAt == null) return "RUNNING";
+            return failed.get() > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED";
+        }
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "exam-distribution");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        workers.shutdown();
+    }
+
+    /**
+     * Build (but do not store) a seeded assignment of the exam for one student
+     */
+    public DistributedAssignment buildAssignment(UploadedExam exam, String studentEmail, Integer timeLimit, String deadline,
+                                                 int easyPercent, int mediumPercent, int hardPercent, Integer questionCount) {
+        int availableQuestions = exam.getQuestions().size();
+        int totalQuestions = (questionCount != null && questionCount > 0 && questionCount <= availableQuestions)
+            ? questionCount
+            : availableQuestions;
+
+        DistributedAssignment assignment = new DistributedAssignment();
+        assignment.setAssignmentId("A_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        assignment.setStudentEmail(studentEmail);
+        assignment.setExamId(exam.getExamId());
+        assignment.setExamSubject(exam.getSubject());
+        assignment.setExamActivityType(exam.getActivityType());
+        assignment.setExamName(exam.getExamName());
+        assignment.setExamTimeLimit(timeLimit);
+        assignment.setExamDeadline(deadline);
+        assignment.setQuestionCount(totalQuestions);
+        assignment.setSeed(fisherYatesService.newSeed());
+        assignment.setExamVersion(exam.getVersion());
+        assignment.setEasyPercent(easyPercent);
+        assignment.setMediumPercent(mediumPercent);
+        assignment.setHardPercent(hardPercent);
+        return assignment;
+    }
+
+    /**
+     * Store a single assignment and its answer key; returns the original question indices in
+     * presented order, or null if the assignment's exam version is not available
+     */
+    public int[] publish(DistributedAssignment assignment) {
+        int[] questionOrder = storeAnswerKey(assignment);
+        assignmentStore.save(assignment);
+        return questionOrder;
+    }
+
+    /**
+     * Store the assignment's StudentKey from the compiled template and the seeded question order;
+     * the questions themselves are not rendered. Returns the question order, or null if the
+     * assignment's exam version is not available.
+     */
+    private int[] storeAnswerKey(DistributedAssignment assignment) {
+        DistributionTemplate template = assignmentMaterializer.getTemplate(assignment.getExamId(), assignment.getExamVersion());
+        if (template == null) {
+            return null;
+        }
+        int[] questionOrder = assignmentMaterializer.generateQuestionOrder(template, assignment.getSeed(),
+            assignment.getQuestionCount(), assignment.getEasyPercent(), assignment.getMediumPercent(),
+            assignment.getHardPercent());
+        for (int question : questionOrder) {
+            if (template.getAnswer(question) != null) {
+                answerKeyService.storeStudentAnswerKey(assignment.getStudentEmail(), template, questionOrder);
+                break;
+            }
+        }
+        return questionOrder;
+    }
+
+    /**
+     * Start distributing the exam to every listed student in the background.
+     * Returns the job id, or null if the exam does not exist.
+     */
+    public String startBulkDistribution(String examId, List<String> studentEmails, Integer timeLimit, String deadline,
+                                        int easyPercent, int mediumPercent, int hardPercent, Integer questionCount) {
+        UploadedExam exam = examCatalog.get(examId);
+        if (exam == null) {
+            return null;
+        }
+        pruneFinishedJobs();
+
+        String jobId = "D_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        DistributionJob job = new DistributionJob(jobId, examId, studentEmails.size());
+        jobs.put(jobId, job);
+
+        int size = Math.max(1, batchSize);
+        List<List<String>> batches = new ArrayList<>();
+        for (int start = 0; start < studentEmails.size(); start += size) {
+            batches.add(new ArrayList<>(studentEmails.subList(start, Math.min(start + size, studentEmails.size()))));
+        }
+        if (batches.isEmpty()) {
+            job.finishedAt = LocalDateTime.now();
+            return jobId;
+        }
+
+        job.pendingBatches.set(batches.size());
+        for (List<String> batch : batches) {
+            workers.submit(() -> runBatch(job, exam, batch, timeLimit, deadline,
+                                          easyPercent, mediumPercent, hardPercent, questionCount));
+        }
+        log.info("📤 Started distribution job {}: {} students in {} batches", jobId, studentEmails.size(), batches.size());
+        return jobId;
+    }
+
+    public DistributionJob getJob(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+
+    private void runBatch(DistributionJob job, UploadedExam exam, List<String> studentEmails, Integer timeLimit, String deadline,
+                          int easyPercent, int mediumPercent, int hardPercent, Integer questionCount) {
+        try {
+            List<DistributedAssignment> generated = new ArrayList<>(studentEmails.size());
+            for (String studentEmail : studentEmails) {
+                try {
+                    DistributedAssignment assignment = buildAssignment(exam, studentEmail, timeLimit, deadline,
+                        easyPercent, mediumPercent, hardPercent, questionCount);
+                    storeAnswerKey(assignment);
+                    generated.add(assignment);
+                } catch (Exception e) {
+                    job.failed.incrementAndGet();
+                    log.error("❌ Distribution to {} failed: {}", studentEmail, e.getMessage());
+                }
+            }
+            assignmentStore.saveAll(generated);
+            job.completed.addAndGet(generated.size());
+        } finally {
+            if (job.pendingBatches.decrementAndGet() == 0) {
+                job.finishedAt = LocalDateTime.now();
+                log.info("✅ Distribution job {} finished: {} distributed, {} failed", job.getJobId(), job.getCompleted(), job.getFailed());
+            }
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+}
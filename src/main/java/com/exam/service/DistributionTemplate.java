@@ -0,0 +1,129 @@
+package com.exam.service;
+
+import com.exam.service.ExamCatalog.UploadedExam;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-exam data needed to generate assignments, compiled once per UploadedExam version.
+ *
+ * Holds the difficulty-tier index arrays, each question's stem and choices already split
+ * out of the "text\nA) ...\nB) ..." block, and the topic of every question as detected at
+ * upload. Answers are compiled into matchers here too, so every assignment of the same exam
+ * version shares them. Generating an assignment from it is index shuffling and string
+ * concatenation only.
+ */
+public class DistributionTemplate {
+
+    private final String examId;
+    private final int version;
+    private final String subject;
+    private final String[] blocks;
+    private final String[] stems;
+    private final String[][] choices;
+    private final String[] difficulties;
+    private final String[] topics;
+    private final String[] answers;    // by original 0-based index
+    private final CompiledAnswer[] compiledAnswers;
+    private final int[] easyIndices;
+    private final int[] mediumIndices;
+    private final int[] hardIndices;
+
+    private DistributionTemplate(UploadedExam exam, int version, List<String> questions,
+                                 FisherYatesService fisherYatesService, TopicClassifier topicClassifier) {
+        int size = questions.size();
+        this.examId = exam.getExamId();
+        this.version = version;
+        this.subject = exam.getSubject();
+        this.blocks = questions.toArray(new String[0]);
+        this.stems = new String[size];
+        this.choices = new String[size][];
+        this.difficulties = new String[size];
+        this.answers = new String[size];
+        this.compiledAnswers = new CompiledAnswer[size];
+
+        List<String> examDifficulties = exam.getDifficulties();
+        Map<Integer, String> answerKey = exam.getAnswerKey();
+        int easyCount = 0, mediumCount = 0, hardCount = 0;
+        for (int i = 0; i < size; i++) {
+            String block = blocks[i];
+            int newline = block.indexOf('\n');
+            stems[i] = newline >= 0 ? block.substring(0, newline) : block;
+            List<String> parsedChoices = fisherYatesService.extractChoices(block);
+            choices[i] = parsedChoices.toArray(new String[0]);
+
+            answers[i] = answerKey != null ? answerKey.get(i + 1) : null;
+            compiledAnswers[i] = CompiledAnswer.compile(answers[i], choices[i].length == 0);
+
+            String difficulty = examDifficulties != null && i < examDifficulties.size() ? examDifficulties.get(i) : null;
+            difficulties[i] = difficulty != null ? difficulty : "Medium";
+            if (difficulties[i].equalsIgnoreCase("Easy")) {
+                easyCount++;
+            } else if (difficulties[i].equalsIgnoreCase("Hard")) {
+                hardCount++;
+            } else {
+                mediumCount++;
+            }
+        }
+
+        // Tier arrays keep ascending question order, matching the original bucketing loop
+        this.easyIndices = new int[easyCount];
+        this.mediumIndices = new int[mediumCount];
+        this.hardIndices = new int[hardCount];
+        int e = 0, m = 0, h = 0;
+        for (int i = 0; i < size; i++) {
+            if (difficulties[i].equalsIgnoreCase("Easy")) {
+                easyIndices[e++] = i;
+            } else if (difficulties[i].equalsIgnoreCase("Hard")) {
+                hardIndices[h++] = i;
+            } else {
+                mediumIndices[m++] = i;
+            }
+        }
+
+        // Topics are detected at upload time; only re-detect if they are missing or out of step
+        List<String> examTopics = exam.getTopics();
+        this.topics = (examTopics != null && examTopics.size() == size ? examTopics : topicClassifier.extractTopics(questions, subject))
+            .toArray(new String[0]);
+    }
+
+    /**
+     * Compile a template from the exam's current content
+     */
+    public static DistributionTemplate compile(UploadedExam exam, FisherYatesService fisherYatesService,
+                                               TopicClassifier topicClassifier) {
+        // Edits publish a new UploadedExam, so this content always belongs to exam.getVersion()
+        return new DistributionTemplate(exam, exam.getVersion(), exam.getQuestions(), fisherYatesService, topicClassifier);
+    }
+
+    /**
+     * The question block with its choices in the given order, relabelled A), B), ...
+     */
+    public String render(int question, byte[] permutation) {
+        String[] questionChoices = choices[question];
+        if (permutation.length == 0 || permutation.length != questionChoices.length) {
+            return blocks[question];
+        }
+        StringBuilder result = new StringBuilder(stems[question]);
+        char label = 'A';
+        for (byte index : permutation) {
+            result.append('\n').append(label).append(") ").append(questionChoices[index]);
+            label++;
+        }
+        return result.toString();
+    }
+
+    public String getExamId() { return examId; }
+    public int getVersion() { return version; }
+    public String getSubject() { return subject; }
+    public int size() { return blocks.length; }
+    public int getChoiceCount(int question) { return choices[question].length; }
+    public String getDifficulty(int question) { return difficulties[question]; }
+    public String getTopic(int question) { return topics[question]; }
+    public String getAnswer(int question) { return answers[question]; }
+    public CompiledAnswer getCompiledAnswer(int question) { return compiledAnswers[question]; }
+    public int[] getEasyIndices() { return easyIndices; }
+    public int[] getMediumIndices() { return mediumIndices; }
+    public int[] getHardIndices() { return hardIndices; }
+}
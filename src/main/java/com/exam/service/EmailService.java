@@ -1,5 +1,7 @@
 package com.exam.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
@@ -8,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class EmailService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
     
     @Autowired
     private JavaMailSender mailSender;
@@ -43,11 +47,10 @@ public class EmailService {
             
             mailSender.send(message);
             
-            System.out.println("Verification email sent to: " + toEmail);
+            log.info("Verification email sent to: {}", toEmail);
             
         } catch (Exception e) {
-            System.err.println("Error sending email to " + toEmail + ": " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending email to {}", toEmail, e);
         }
     }
     
@@ -76,11 +79,10 @@ public class EmailService {
             
             mailSender.send(message);
             
-            System.out.println("Password reset email sent to: " + toEmail);
+            log.info("Password reset email sent to: {}", toEmail);
             
         } catch (Exception e) {
-            System.err.println("Error sending password reset email: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error sending password reset email to {}", toEmail, e);
         }
     }
 }
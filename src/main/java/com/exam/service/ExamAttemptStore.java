@@ -0,0 +1,248 @@
+package com.exam.service;
+
+import com.exam.entity.DistributedAssignment;
+import com.exam.service.AssignmentMaterializer.MaterializedExam;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side state of exam attempts, keyed by attempt id.
+ *
+ * An attempt is opened when a student starts an exam and holds everything the submit and
+ * results pages need (assignment metadata, answer key, question difficulties and topics,
+ * and later the grading result). The HTTP session only carries the attempt id, which keeps
+ * sessions small.
+ *
+ * Attempts live in this process only: they are lost on restart, and with more than one instance
+ * a student's requests must keep going to the instance that started the attempt (sticky
+ * sessions). Replicating or externalizing the HTTP session alone would not be enough. A submit
+ * that finds no attempt is still graded: the exam page posts its assignment id, and grading
+ * regenerates that assignment.
+ *
+ * Attempts that are neither submitted nor viewed within the TTL are dropped by a scheduled sweep.
+ */
+@Service
+public class ExamAttemptStore {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.attempts.ttl-minutes:720}")
+    private long ttlMinutes;
+
+    // Map: attemptId -> attempt context
+    private final Map<String, ExamAttemptContext> attempts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("exam.attempts.open", attempts, Map::size)
+            .description("Exam attempts held in memory (in progress or awaiting the results page)")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Open a new attempt for a materialized assignment. The start time is taken now.
+     */
+    public ExamAttemptContext start(String studentEmail, DistributedAssignment assignment, MaterializedExam exam) {
+        ExamAttemptContext context = new ExamAttemptContext("A_" + UUID.randomUUID().toString().replace("-", ""),
+                                                            studentEmail, assignment, exam);
+        attempts.put(context.getAttemptId(), context);
+        return context;
+    }
+
+    /**
+     * Attempt by id, or null if it is unknown, expired or belongs to another student.
+     */
+    public ExamAttemptContext get(String attemptId, String studentEmail) {
+        if (attemptId == null) {
+            return null;
+        }
+        ExamAttemptContext context = attempts.get(attemptId);
+        if (context == null || !context.getStudentEmail().equals(studentEmail)) {
+            return null;
+        }
+        context.touch();
+        return context;
+    }
+
+    /**
+     * Replace the attempt with one that keeps its id, token, metadata and start time but grades
+     * only the questions at the given presented positions (the items an adaptive test gave,
+     * already selected into administered). Returns the new context.
+     */
+    public ExamAttemptContext narrow(ExamAttemptContext attempt, MaterializedExam administered, int[] positions) {
+        ExamAttemptContext narrowed = new ExamAttemptContext(attempt, administered, positions);
+        attempts.put(narrowed.getAttemptId(), narrowed);
+        return narrowed;
+    }
+
+    public void remove(String attemptId) {
+        if (attemptId != null) {
+            attempts.remove(attemptId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.attempts.sweep-interval-ms:300000}")
+    public void sweepExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000L;
+        attempts.values().removeIf(context -> context.getLastAccessMillis() < cutoff);
+    }
+
+    /**
+     * Everything one exam attempt needs between take-exam, submit and the results page.
+     * Assignment data is fixed at start; the result fields are filled in on submit.
+     */
+    public static class ExamAttemptContext {
+        private final String attemptId;
+        private final String submitToken;
+        private final String studentEmail;
+        private final String assignmentId;
+        private final String examId;
+        private final String examName;
+        private final String subject;
+        private final String activityType;
+        private final Integer timeLimit;
+        private final String deadline;
+        private final long startedAtMillis;
+        private final int examVersion; // exam version the questions were generated from
+        private final Map<Integer, String> answerKey;
+        private final Map<Integer, CompiledAnswer> compiledAnswers;
+        private final int[] sourceQuestions;
+        private final int[] presentedPositions; // positions of the assignment graded, null for all of it
+        private final List<String> difficulties;
+        private final List<String> topics;
+        private volatile long lastAccessMillis;
+
+        // Grading result, set once the attempt is submitted
+        private volatile Long submissionId;
+        private volatile int score;
+        private volatile int total;
+        private volatile double percentage;
+        private volatile List<Map<String, Object>> answerDetails;
+        private volatile RandomForestService.StudentAnalytics analytics;
+        private volatile Map<String, Object> randomForestReport;
+        private volatile double irtTheta;
+        private volatile int irtScaledScore;
+        private volatile double irtStandardError;
+
+        // Adaptive test in progress (adaptive activity types only)
+        private volatile AdaptiveTestService.Session adaptiveSession;
+
+        ExamAttemptContext(String attemptId, String studentEmail, DistributedAssignment assignment, MaterializedExam exam) {
+            this.attemptId = attemptId;
+            this.submitToken = UUID.randomUUID().toString().replace("-", "");
+            this.studentEmail = studentEmail;
+            this.assignmentId = assignment.getAssignmentId();
+            this.examId = assignment.getExamId();
+            this.examName = assignment.getExamName();
+            this.subject = assignment.getExamSubject();
+            this.activityType = assignment.getExamActivityType();
+            this.timeLimit = assignment.getExamTimeLimit();
+            this.deadline = assignment.getExamDeadline();
+            this.startedAtMillis = System.currentTimeMillis();
+            this.examVersion = exam.getTemplate().getVersion();
+            this.answerKey = exam.getAnswerKey() != null ? exam.getAnswerKey() : Collections.emptyMap();
+            this.compiledAnswers = exam.getCompiledAnswers() != null ? exam.getCompiledAnswers() : Collections.emptyMap();
+            this.sourceQuestions = exam.getSourceQuestions();
+            this.presentedPositions = null;
+            this.difficulties = exam.getDifficulties();
+            this.topics = exam.getTopics();
+            this.lastAccessMillis = startedAtMillis;
+        }
+
+        ExamAttemptContext(ExamAttemptContext attempt, MaterializedExam exam, int[] presentedPositions) {
+            this.attemptId = attempt.attemptId;
+            this.submitToken = attempt.submitToken;
+            this.studentEmail = attempt.studentEmail;
+            this.assignmentId = attempt.assignmentId;
+            this.examId = attempt.examId;
+            this.examName = attempt.examName;
+            this.subject = attempt.subject;
+            this.activityType = attempt.activityType;
+            this.timeLimit = attempt.timeLimit;
+            this.deadline = attempt.deadline;
+            this.startedAtMillis = attempt.startedAtMillis;
+            this.examVersion = attempt.examVersion;
+            this.answerKey = exam.getAnswerKey() != null ? exam.getAnswerKey() : Collections.emptyMap();
+            this.compiledAnswers = exam.getCompiledAnswers() != null ? exam.getCompiledAnswers() : Collections.emptyMap();
+            this.sourceQuestions = exam.getSourceQuestions();
+            this.presentedPositions = presentedPositions;
+            this.difficulties = exam.getDifficulties();
+            this.topics = exam.getTopics();
+            this.adaptiveSession = attempt.adaptiveSession;
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+
+        void touch() {
+            lastAccessMillis = System.currentTimeMillis();
+        }
+
+        public void recordResult(Long submissionId, int score, int total, double percentage,
+                                 List<Map<String, Object>> answerDetails,
+                                 RandomForestService.StudentAnalytics analytics) {
+            this.submissionId = submissionId;
+            this.score = score;
+            this.total = total;
+            this.percentage = percentage;
+            this.answerDetails = answerDetails;
+            this.analytics = analytics;
+        }
+
+        public void recordAbility(double theta, int scaledScore, double standardError) {
+            this.irtTheta = theta;
+            this.irtScaledScore = scaledScore;
+            this.irtStandardError = standardError;
+        }
+
+        public boolean isSubmitted() { return answerDetails != null; }
+
+        public String getAttemptId() { return attemptId; }
+        // Posted back with the answers so a repeated submit is recognised and not graded twice
+        public String getSubmitToken() { return submitToken; }
+        public String getStudentEmail() { return studentEmail; }
+        public String getAssignmentId() { return assignmentId; }
+        public String getExamId() { return examId; }
+        public String getExamName() { return examName; }
+        public String getSubject() { return subject; }
+        public String getActivityType() { return activityType; }
+        public Integer getTimeLimit() { return timeLimit; }
+        public String getDeadline() { return deadline; }
+        public long getStartedAtMillis() { return startedAtMillis; }
+        public int getExamVersion() { return examVersion; }
+        public Map<Integer, String> getAnswerKey() { return answerKey; }
+        public Map<Integer, CompiledAnswer> getCompiledAnswers() { return compiledAnswers; }
+        public int[] getSourceQuestions() { return sourceQuestions; }
+        public int[] getPresentedPositions() { return presentedPositions; }
+        public List<String> getDifficulties() { return difficulties; }
+        public List<String> getTopics() { return topics; }
+        public long getLastAccessMillis() { return lastAccessMillis; }
+
+        public Long getSubmissionId() { return submissionId; }
+        public int getScore() { return score; }
+        public int getTotal() { return total; }
+        public double getPercentage() { return percentage; }
+        public List<Map<String, Object>> getAnswerDetails() { return answerDetails; }
+        public RandomForestService.StudentAnalytics getAnalytics() { return analytics; }
+        public Map<String, Object> getRandomForestReport() { return randomForestReport; }
+        public void setRandomForestReport(Map<String, Object> randomForestReport) { this.randomForestReport = randomForestReport; }
+        public double getIrtTheta() { return irtTheta; }
+        public int getIrtScaledScore() { return irtScaledScore; }
+        public double getIrtStandardError() { return irtStandardError; }
+        public AdaptiveTestService.Session getAdaptiveSession() { return adaptiveSession; }
+        public void setAdaptiveSession(AdaptiveTestService.Session adaptiveSession) { this.adaptiveSession = adaptiveSession; }
+    }
+}
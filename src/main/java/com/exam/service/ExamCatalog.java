@@ -0,0 +1,329 @@
+package com.exam.service;
+
+import com.exam.entity.ProcessedExam;
+import com.exam.entity.ProcessedExamBody;
+import com.exam.entity.ProcessedExamVersion;
+import com.exam.repository.ProcessedExamBodyRepository;
+import com.exam.repository.ProcessedExamRepository;
+import com.exam.repository.ProcessedExamVersionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable catalog of processed exams shared by every assignment distributed from them.
+ *
+ * Metadata (ProcessedExam) for every exam is held in memory and is all that listing pages
+ * touch. Question bodies (ProcessedExamBody) are loaded on first use into an LRU cache
+ * bounded by total characters, so heap stays flat as exams accumulate across terms.
+ * When an exam is edited, the body of the version it replaces is archived in
+ * processed_exam_versions, so assignments distributed from it can still be regenerated.
+ */
+@Service
+public class ExamCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamCatalog.class);
+
+    // Helper class to store exam metadata. An exam is never changed in place: an edit publishes
+    // a new UploadedExam (see nextVersion), so content and version always belong together.
+    public static class UploadedExam {
+        private final String examId;
+        private final String examName;
+        private final String subject;
+        private final String activityType;
+        private final List<String> questions;
+        private final List<String> difficulties; // Store difficulty for each question
+        private final List<String> topics;       // Topic of each question, detected when the exam is processed
+        private final Map<Integer, String> answerKey;
+        private final LocalDateTime uploadedAt;
+        private final int version; // next version whenever questions are added, edited or deleted
+
+        public UploadedExam(String examId, String examName, String subject, String activityType,
+                          List<String> questions, List<String> difficulties, List<String> topics,
+                          Map<Integer, String> answerKey) {
+            this(examId, examName, subject, activityType, questions, difficulties, topics, answerKey,
+                 LocalDateTime.now(), 1);
+        }
+
+        UploadedExam(String examId, String examName, String subject, String activityType,
+                     List<String> questions, List<String> difficulties, List<String> topics,
+                     Map<Integer, String> answerKey, LocalDateTime uploadedAt, int version) {
+            this.examId = examId;
+            this.examName = examName;
+            this.subject = subject;
+            this.activityType = activityType;
+            this.questions = questions;
+            this.difficulties = difficulties;
+            this.topics = topics;
+            this.answerKey = answerKey;
+            this.uploadedAt = uploadedAt;
+            this.version = version;
+        }
+
+        public String getExamId() { return examId; }
+        public String getExamName() { return examName; }
+        public String getSubject() { return subject; }
+        public String getActivityType() { return activityType; }
+        public List<String> getQuestions() { return questions; }
+        public List<String> getDifficulties() { return difficulties; }
+        public List<String> getTopics() { return topics; }
+        public Map<Integer, String> getAnswerKey() { return answerKey; }
+        public LocalDateTime getUploadedAt() { return uploadedAt; }
+        public int getVersion() { return version; }
+
+        /**
+         * The next version of this exam with the given content; the lists are taken as they are
+         * and must not be changed afterwards
+         */
+        public UploadedExam nextVersion(List<String> questions, List<String> difficulties, List<String> topics,
+                                        Map<Integer, String> answerKey) {
+            return new UploadedExam(examId, examName, subject, activityType, questions, difficulties, topics,
+                                    answerKey, uploadedAt, version + 1);
+        }
+    }
+
+    @Autowired
+    private ProcessedExamRepository processedExamRepository;
+
+    @Autowired
+    private ProcessedExamBodyRepository processedExamBodyRepository;
+
+    @Autowired
+    private ProcessedExamVersionRepository processedExamVersionRepository;
+
+    @Value("${app.exams.cache-max-chars:8000000}")
+    private long cacheMaxChars;
+
+    // Map: examId -> metadata of every processed exam
+    private final Map<String, ProcessedExam> summaries = new ConcurrentHashMap<>();
+
+    // Access-ordered cache of full exams; guarded by "this"
+    private final LinkedHashMap<String, UploadedExam> bodyCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> bodyWeights = new HashMap<>();
+    private long cachedChars;
+
+    /**
+     * Load catalog metadata at startup; bodies stay in the database until needed
+     */
+    @PostConstruct
+    public void loadSummaries() {
+        try {
+            for (ProcessedExam summary : processedExamRepository.findAll()) {
+                summaries.put(summary.getExamId(), summary);
+            }
+            log.info("✅ Loaded {} processed exams into the catalog", summaries.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load processed exams: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Full exam including question bodies, loading it from the database if not cached
+     */
+    public synchronized UploadedExam get(String examId) {
+        if (examId == null) {
+            return null;
+        }
+        UploadedExam cached = bodyCache.get(examId);
+        if (cached != null) {
+            return cached;
+        }
+        ProcessedExam summary = summaries.get(examId);
+        if (summary == null) {
+            return null;
+        }
+        ProcessedExamBody body = processedExamBodyRepository.findById(examId).orElse(null);
+        if (body == null) {
+            return null;
+        }
+        UploadedExam exam = new UploadedExam(summary.getExamId(), summary.getExamName(), summary.getSubject(),
+            summary.getActivityType(), body.getQuestions(), body.getDifficulties(), body.getTopics(),
+            body.getAnswerKey(), summary.getUploadedAt(), summary.getVersion());
+        cache(exam);
+        return exam;
+    }
+
+    /**
+     * The exam as it was at the given version: the current exam, or an archived earlier
+     * version. Returns null if that version was never archived.
+     */
+    public UploadedExam get(String examId, int version) {
+        UploadedExam current = get(examId);
+        if (current == null || current.getVersion() == version) {
+            return current;
+        }
+        ProcessedExamVersion archived;
+        try {
+            archived = processedExamVersionRepository.findByExamIdAndVersion(examId, version).orElse(null);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load version {} of exam {}: {}", version, examId, e.getMessage());
+            return null;
+        }
+        if (archived == null) {
+            return null;
+        }
+        return new UploadedExam(current.getExamId(), current.getExamName(), current.getSubject(),
+            current.getActivityType(), archived.getQuestions(), archived.getDifficulties(), archived.getTopics(),
+            archived.getAnswerKey(), current.getUploadedAt(), version);
+    }
+
+    /**
+     * Metadata only; never touches question bodies
+     */
+    public ProcessedExam getSummary(String examId) {
+        return examId != null ? summaries.get(examId) : null;
+    }
+
+    public List<ProcessedExam> getSummaries() {
+        return new ArrayList<>(summaries.values());
+    }
+
+    /**
+     * Store a newly processed exam
+     */
+    public void put(UploadedExam exam) {
+        save(exam);
+    }
+
+    /**
+     * Persist metadata and body after the exam was created, or after an edit that kept every
+     * question at its index (adding or changing a question)
+     */
+    public void save(UploadedExam exam) {
+        save(exam, -1);
+    }
+
+    /**
+     * Persist metadata and body after the question at removedQuestion (0-based, -1 for none)
+     * was deleted, recording the delete with the archived version
+     */
+    public synchronized void save(UploadedExam exam, int removedQuestion) {
+        // Two edits built from the same version: the later one would silently drop the earlier
+        ProcessedExam current = summaries.get(exam.getExamId());
+        if (current != null && exam.getVersion() != current.getVersion() + 1) {
+            throw new IllegalStateException("Exam was changed meanwhile (now at version " + current.getVersion() + "), please reload it");
+        }
+
+        ProcessedExam summary = new ProcessedExam();
+        summary.setExamId(exam.getExamId());
+        summary.setExamName(exam.getExamName());
+        summary.setSubject(exam.getSubject());
+        summary.setActivityType(exam.getActivityType());
+        summary.setQuestionCount(exam.getQuestions().size());
+        summary.setVersion(exam.getVersion());
+        summary.setUploadedAt(exam.getUploadedAt());
+
+        ProcessedExamBody body = new ProcessedExamBody();
+        body.setExamId(exam.getExamId());
+        body.setQuestions(exam.getQuestions());
+        body.setDifficulties(exam.getDifficulties());
+        body.setTopics(exam.getTopics());
+        body.setAnswerKey(exam.getAnswerKey());
+
+        // The stored body is still the version being replaced; keep it before overwriting
+        ProcessedExam previous = summaries.get(exam.getExamId());
+        if (previous != null && previous.getVersion() != exam.getVersion()) {
+            archive(exam.getExamId(), previous.getVersion(), removedQuestion);
+        }
+
+        try {
+            processedExamRepository.save(summary);
+            processedExamBodyRepository.save(body);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not persist exam {}: {}", exam.getExamId(), e.getMessage());
+        }
+        summaries.put(exam.getExamId(), summary);
+        cache(exam);
+    }
+
+    /**
+     * Case-insensitive search over question and answer text, done in the database
+     */
+    public List<String> findExamIdsContaining(String term) {
+        try {
+            return processedExamBodyRepository.findExamIdsContaining(term.toLowerCase());
+        } catch (Exception e) {
+            log.warn("⚠️ Exam body search failed: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * How question indices moved between the versions of an exam
+     */
+    public QuestionRemap getRemap(String examId) {
+        Map<Integer, Integer> removedQuestions = new HashMap<>();
+        try {
+            for (Object[] row : processedExamVersionRepository.findRemovedQuestions(examId)) {
+                if (row[1] != null) {
+                    removedQuestions.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load the version history of exam {}: {}", examId, e.getMessage());
+        }
+        return new QuestionRemap(removedQuestions);
+    }
+
+    private void archive(String examId, int version, int removedQuestion) {
+        try {
+            if (processedExamVersionRepository.existsByExamIdAndVersion(examId, version)) {
+                return;
+            }
+            ProcessedExamBody stored = processedExamBodyRepository.findById(examId).orElse(null);
+            if (stored != null) {
+                processedExamVersionRepository.save(new ProcessedExamVersion(examId, version, stored, removedQuestion));
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not archive version {} of exam {}: {}", version, examId, e.getMessage());
+        }
+    }
+
+    private void cache(UploadedExam exam) {
+        Long previous = bodyWeights.remove(exam.getExamId());
+        if (previous != null) {
+            cachedChars -= previous;
+        }
+        long weight = weigh(exam);
+        bodyCache.put(exam.getExamId(), exam);
+        bodyWeights.put(exam.getExamId(), weight);
+        cachedChars += weight;
+
+        // Evict least recently used bodies, but always keep the one just added
+        Iterator<Map.Entry<String, UploadedExam>> eldest = bodyCache.entrySet().iterator();
+        while (cachedChars > cacheMaxChars && bodyCache.size() > 1 && eldest.hasNext()) {
+            String examId = eldest.next().getKey();
+            if (examId.equals(exam.getExamId())) {
+                continue;
+            }
+            eldest.remove();
+            Long evicted = bodyWeights.remove(examId);
+            cachedChars -= evicted != null ? evicted : 0;
+        }
+    }
+
+    private static long weigh(UploadedExam exam) {
+        long chars = 0;
+        for (String question : exam.getQuestions()) {
+            chars += question != null ? question.length() : 0;
+        }
+        for (String answer : exam.getAnswerKey() != null ? exam.getAnswerKey().values() : List.<String>of()) {
+            chars += answer != null ? answer.length() : 0;
+        }
+        return chars;
+    }
+}
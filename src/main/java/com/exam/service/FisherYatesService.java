@@ -3,6 +3,7 @@ package com.exam.service;
 import org.springframework.stereotype.Service;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Fisher-Yates Shuffle Algorithm Service
@@ -13,8 +14,65 @@ import java.util.*;
 @Service
 public class FisherYatesService {
 
+    // Choice lines look like "A) text"
+    private static final Pattern CHOICE_LINE = Pattern.compile("^[A-Za-z]\\)\\s+.+");
+    private static final Pattern CHOICE_LABEL = Pattern.compile("^[A-Za-z]\\)\\s+");
+
     private final SecureRandom random = new SecureRandom();
     
+    /**
+     * Counter-based deterministic generator (SplitMix64 over key + counter * gamma).
+     *
+     * Value i of a stream depends only on (key, i), so an assignment can be regenerated
+     * from its seed alone, and independent sub-streams are derived with split() instead
+     * of sharing one sequential generator. Only next(bits) is overridden, so the
+     * documented java.util.Random algorithms for nextInt(bound) etc. stay reproducible.
+     */
+    public static final class SeededRandom extends Random {
+        private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+        private final long key;
+        private long counter;
+
+        public SeededRandom(long key) {
+            super(0L);
+            this.key = key;
+        }
+
+        /**
+         * Independent stream derived from this one's key and a stream id
+         */
+        public SeededRandom split(long streamId) {
+            return new SeededRandom(mix64(key ^ mix64(streamId + GAMMA)));
+        }
+
+        @Override
+        protected int next(int bits) {
+            counter++;
+            return (int) (mix64(key + counter * GAMMA) >>> (64 - bits));
+        }
+
+        private static long mix64(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * Fresh unpredictable seed for a new assignment
+     */
+    public long newSeed() {
+        return random.nextLong();
+    }
+
+    /**
+     * Deterministic generator for one stream of a seeded assignment
+     */
+    public Random seededRandom(long seed, long streamId) {
+        return new SeededRandom(seed).split(streamId);
+    }
+
     /**
      * Represents a question with its choices
      */
@@ -77,6 +135,78 @@ public class FisherYatesService {
         }
     }
     
+    /**
+     * Shuffle an int array in place; same swap sequence as shuffle(List, Random)
+     */
+    public void shuffle(int[] array, Random rng) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+
+    /**
+     * Random permutation of 0..n-1 generated with Fisher-Yates.
+     * Stored as bytes since a question never has more than a handful of choices.
+     */
+    public byte[] randomPermutation(int n, Random rng) {
+        if (n <= 1 || n > Byte.MAX_VALUE) {
+            return new byte[0];
+        }
+        byte[] permutation = new byte[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = (byte) i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            byte temp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = temp;
+        }
+        return permutation;
+    }
+
+    /**
+     * Extract the choice texts (labels stripped) from a "text\nA) ...\nB) ..." question block
+     */
+    public List<String> extractChoices(String questionBlock) {
+        List<String> choices = new ArrayList<>();
+        String[] lines = questionBlock.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (CHOICE_LINE.matcher(line).matches()) {
+                choices.add(CHOICE_LABEL.matcher(line).replaceFirst(""));
+            }
+        }
+        return choices;
+    }
+
+    /**
+     * Rebuild a question block with its choices in the given order and relabelled A), B), ...
+     * Blocks without choices, or whose choice count no longer matches the permutation,
+     * are returned unchanged.
+     */
+    public String applyChoicePermutation(String questionBlock, byte[] permutation) {
+        if (permutation == null || permutation.length == 0) {
+            return questionBlock;
+        }
+        String[] lines = questionBlock.split("\n");
+        if (lines.length <= 1) return questionBlock;
+
+        List<String> choices = extractChoices(questionBlock);
+        if (choices.size() != permutation.length) return questionBlock;
+
+        StringBuilder result = new StringBuilder(lines[0]);
+        char label = 'A';
+        for (byte index : permutation) {
+            result.append("\n").append(label).append(") ").append(choices.get(index));
+            label++;
+        }
+        return result.toString();
+    }
+
     /**
      * Shuffle question choices while preserving the correct answer
      */
@@ -2,6 +2,8 @@ package com.exam.service;
 
 import org.springframework.stereotype.Service;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * IRT 3PL (Three-Parameter Logistic) Model Service
@@ -86,184 +88,198 @@ public class IRT3PLService {
         if (responses.isEmpty() || itemParams.isEmpty()) {
             return new AbilityEstimate(0.0, 999.0, 0, 0);
         }
-        
+        byte[] scored = new byte[responses.size()];
+        for (int i = 0; i < scored.length; i++) {
+            scored[i] = (byte) (responses.get(i) ? 1 : 0);
+        }
+        return estimateAbility(scored, ItemBank.of(itemParams));
+    }
+
+    /**
+     * Abilities of many students, as parallel arrays indexed by student (row of the response matrix)
+     */
+    public static class BatchEstimate {
+        private final double[] thetas;
+        private final double[] standardErrors;
+        private final int[] itemsAnswered;
+        private final int[] correctAnswers;
+
+        BatchEstimate(int students) {
+            this.thetas = new double[students];
+            this.standardErrors = new double[students];
+            this.itemsAnswered = new int[students];
+            this.correctAnswers = new int[students];
+        }
+
+        public int size() { return thetas.length; }
+
+        // The arrays are shared, not copied: callers must not modify them
+        public double[] getThetas() { return thetas; }
+        public double[] getStandardErrors() { return standardErrors; }
+        public int[] getItemsAnswered() { return itemsAnswered; }
+        public int[] getCorrectAnswers() { return correctAnswers; }
+
+        public AbilityEstimate get(int student) {
+            return new AbilityEstimate(thetas[student], standardErrors[student], itemsAnswered[student], correctAnswers[student]);
+        }
+    }
+
+    /**
+     * Estimate ability from responses to the first responses.length items of the bank:
+     * 1 = correct, 0 = wrong, -1 = item not presented (left out of the estimate)
+     */
+    public AbilityEstimate estimateAbility(byte[] responses, ItemBank bank) {
+        if (responses.length > bank.size()) {
+            throw new IllegalArgumentException("More responses than items: " + responses.length + " > " + bank.size());
+        }
+        BatchEstimate result = new BatchEstimate(1);
+        estimate(responses, bank, result, 0);
+        return result.get(0);
+    }
+
+    /**
+     * Estimate the abilities of a whole class at once. Each row of the matrix holds one student's
+     * responses by item of the bank (1 = correct, 0 = wrong, -1 = not presented); rows may be
+     * shorter than the bank. Students are estimated in parallel on the common fork/join pool.
+     */
+    public BatchEstimate estimateAbilities(byte[][] responses, ItemBank bank) {
+        for (byte[] row : responses) {
+            if (row.length > bank.size()) {
+                throw new IllegalArgumentException("More responses than items: " + row.length + " > " + bank.size());
+            }
+        }
+        BatchEstimate result = new BatchEstimate(responses.length);
+        ForkJoinPool.commonPool().invoke(new EstimateTask(responses, bank, result, 0, responses.length));
+        return result;
+    }
+
+    /**
+     * Splits a range of students in half until it is small enough to estimate in one task
+     */
+    private static class EstimateTask extends RecursiveAction {
+        private static final int STUDENTS_PER_TASK = 128;
+
+        private final byte[][] responses;
+        private final ItemBank bank;
+        private final BatchEstimate result;
+        private final int from;
+        private final int to;
+
+        EstimateTask(byte[][] responses, ItemBank bank, BatchEstimate result, int from, int to) {
+            this.responses = responses;
+            this.bank = bank;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= STUDENTS_PER_TASK) {
+                for (int student = from; student < to; student++) {
+                    estimate(responses[student], bank, result, student);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EstimateTask(responses, bank, result, from, middle),
+                      new EstimateTask(responses, bank, result, middle, to));
+        }
+    }
+
+    /**
+     * MLE of one student's ability with Newton-Raphson, written into row student of the result.
+     * Each iteration makes one pass over the primitive arrays, computing the score function and
+     * the information together, and allocates nothing.
+     */
+    private static void estimate(byte[] responses, ItemBank bank, BatchEstimate result, int student) {
+        int n = responses.length;
+        double[] negA = bank.negatedDiscriminations();
+        double[] a = bank.discriminations();
+        double[] b = bank.difficulties();
+        double[] c = bank.guessing();
+        double[] oneMinusC = bank.oneMinusGuessing();
+        double[] infoScale = bank.informationScales();
+
+        int answered = 0;
+        int correctAnswers = 0;
+        for (int i = 0; i < n; i++) {
+            if (responses[i] >= 0) {
+                answered++;
+                correctAnswers += responses[i];
+            }
+        }
+        result.itemsAnswered[student] = answered;
+        result.correctAnswers[student] = correctAnswers;
+        if (answered == 0) {
+            result.thetas[student] = 0.0;
+            result.standardErrors[student] = 999.0;
+            return;
+        }
+
         // Initial theta estimate (start at 0 - average ability)
         double theta = 0.0;
         double previousTheta;
         int iterations = 0;
         int maxIterations = 50;
         double convergenceCriterion = 0.001;
-        
-        // Count correct answers
-        int correctAnswers = 0;
-        for (Boolean response : responses) {
-            if (response) correctAnswers++;
-        }
-        
-        // Newton-Raphson iteration
+
         do {
             previousTheta = theta;
-            
-            // Calculate first derivative (score function)
+
+            // Score function (first derivative) and test information (expected minus second derivative).
+            // With P' = a (1 - c) P*(1 - P*) and 1 - P = (1 - c)(1 - P*), the score term
+            // P' (u - P) / (P (1 - P)) reduces to a P* (u - P) / P.
             double firstDerivative = 0.0;
-            // Calculate second derivative (information function)
-            double secondDerivative = 0.0;
-            
-            for (int i = 0; i < responses.size(); i++) {
-                ItemParameters params = itemParams.get(i);
-                double a = params.getDiscrimination();
-                double c = params.getGuessing();
-                
-                double prob = calculateProbability(theta, params);
-                double response = responses.get(i) ? 1.0 : 0.0;
-                
-                // P* = (P - c) / (1 - c)
-                double pStar = (prob - c) / (1 - c);
-                
-                // First derivative: sum of a * (P* - P*²) * (u - P) / (P * (1 - P))
-                double numerator = response - prob;
-                double denominator = prob * (1 - prob);
-                if (denominator > 0.0001) { // Avoid division by zero
-                    firstDerivative += a * pStar * (1 - pStar) * numerator / denominator;
+            double information = 0.0;
+            for (int i = 0; i < n; i++) {
+                int response = responses[i];
+                if (response < 0) {
+                    continue;
+                }
+                double pStar = 1 / (1 + Math.exp(negA[i] * (theta - b[i])));
+                double prob = c[i] + oneMinusC[i] * pStar;
+                if (prob > 1e-12) { // Avoid division by zero
+                    firstDerivative += a[i] * pStar * (response - prob) / prob;
                 }
-                
-                // Second derivative (Fisher Information)
-                double info = a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
-                secondDerivative -= info;
+                information += ItemBank.information(infoScale[i], c[i], oneMinusC[i], pStar);
             }
-            
-            // Newton-Raphson update: θ_new = θ_old - f'(θ) / f''(θ)
-            if (Math.abs(secondDerivative) > 0.0001) {
-                theta = previousTheta - (firstDerivative / secondDerivative);
+
+            // Fisher scoring update: θ_new = θ_old + f'(θ) / I(θ)
+            if (information > 0.0001) {
+                theta = previousTheta + firstDerivative / information;
             }
-            
+
             // Constrain theta to reasonable range [-4, 4]
             theta = Math.max(-4.0, Math.min(4.0, theta));
-            
+
             iterations++;
-            
+
         } while (Math.abs(theta - previousTheta) > convergenceCriterion && iterations < maxIterations);
-        
+
         // Calculate standard error (inverse square root of information)
-        double information = calculateInformation(theta, itemParams);
-        double standardError = information > 0 ? 1.0 / Math.sqrt(information) : 999.0;
-        
-        return new AbilityEstimate(theta, standardError, responses.size(), correctAnswers);
-    }
-    
-    /**
-     * Calculate Fisher Information at a given ability level
-     */
-    private double calculateInformation(double theta, List<ItemParameters> itemParams) {
         double information = 0.0;
-        
-        for (ItemParameters params : itemParams) {
-            double a = params.getDiscrimination();
-            double c = params.getGuessing();
-            double prob = calculateProbability(theta, params);
-            
-            double pStar = (prob - c) / (1 - c);
-            double itemInfo = a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
-            
-            information += itemInfo;
-        }
-        
-        return information;
-    }
-    
-    /**
-     * Generate default item parameters for questions
-     * In practice, these would be calibrated from pilot testing
-     */
-    public List<ItemParameters> generateDefaultItemParameters(int numQuestions) {
-        List<ItemParameters> params = new ArrayList<>();
-        Random random = new Random();
-        
-        for (int i = 0; i < numQuestions; i++) {
-            // Discrimination: typically 0.5 to 2.5 (higher = better discrimination)
-            double a = 0.8 + random.nextDouble() * 1.2; // Range: 0.8 to 2.0
-            
-            // Difficulty: typically -3 to 3 (0 = average difficulty)
-            double b = -1.5 + random.nextDouble() * 3.0; // Range: -1.5 to 1.5
-            
-            // Guessing: typically 0.15 to 0.25 for 4-option MC questions
-            double c = 0.15 + random.nextDouble() * 0.10; // Range: 0.15 to 0.25
-            
-            params.add(new ItemParameters(a, b, c));
-        }
-        
-        return params;
-    }
-    
-    /**
-     * Estimate item parameters based on student responses (simplified calibration)
-     * In production, use more sophisticated methods like MMLE or Bayesian estimation
-     */
-    public List<ItemParameters> calibrateItems(List<List<Boolean>> allResponses) {
-        if (allResponses.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        int numItems = allResponses.get(0).size();
-        List<ItemParameters> params = new ArrayList<>();
-        
-        for (int itemIdx = 0; itemIdx < numItems; itemIdx++) {
-            // Calculate p-value (proportion correct)
-            int correct = 0;
-            int total = 0;
-            
-            for (List<Boolean> responses : allResponses) {
-                if (itemIdx < responses.size()) {
-                    if (responses.get(itemIdx)) correct++;
-                    total++;
-                }
+        for (int i = 0; i < n; i++) {
+            if (responses[i] >= 0) {
+                double pStar = 1 / (1 + Math.exp(negA[i] * (theta - b[i])));
+                information += ItemBank.information(infoScale[i], c[i], oneMinusC[i], pStar);
             }
-            
-            double pValue = total > 0 ? (double) correct / total : 0.5;
-            
-            // Estimate difficulty from p-value
-            // Higher p-value = easier item = lower difficulty
-            double b = -Math.log(pValue / (1 - pValue + 0.001));
-            b = Math.max(-3.0, Math.min(3.0, b));
-            
-            // Use default discrimination and guessing
-            double a = 1.0; // Default discrimination
-            double c = 0.20; // Default guessing (20% for 5 choices, 25% for 4 choices)
-            
-            params.add(new ItemParameters(a, b, c));
         }
-        
-        return params;
+        result.thetas[student] = theta;
+        result.standardErrors[student] = information > 0 ? 1.0 / Math.sqrt(information) : 999.0;
     }
-    
+
     /**
-     * Select next best item for adaptive testing
-     * Returns the index of the item with maximum information at current ability
+     * Test information at a given ability level over the first count items of the bank
      */
-    public int selectNextItem(double currentTheta, List<ItemParameters> availableItems, Set<Integer> usedIndices) {
-        int bestIndex = -1;
-        double maxInformation = -1.0;
-        
-        for (int i = 0; i < availableItems.size(); i++) {
-            if (usedIndices.contains(i)) continue;
-            
-            ItemParameters params = availableItems.get(i);
-            double a = params.getDiscrimination();
-            double c = params.getGuessing();
-            double prob = calculateProbability(currentTheta, params);
-            
-            double pStar = (prob - c) / (1 - c);
-            double information = a * a * pStar * (1 - pStar) * ((1 - c) * (1 - c));
-            
-            if (information > maxInformation) {
-                maxInformation = information;
-                bestIndex = i;
-            }
+    public double calculateInformation(double theta, ItemBank bank, int count) {
+        double information = 0.0;
+        for (int i = 0; i < count; i++) {
+            information += bank.information(i, theta);
         }
-        
-        return bestIndex;
+        return information;
     }
-    
+
     /**
      * Convert theta to a scaled score (e.g., 200-800 scale like SAT)
      */
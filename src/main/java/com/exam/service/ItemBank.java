@@ -0,0 +1,119 @@
+package com.exam.service;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 3PL item parameters held as parallel primitive arrays (structure of arrays).
+ *
+ * Estimation loops over an ItemBank read three contiguous double arrays instead of chasing
+ * ItemParameters objects, and the per-item constants they need (-a, 1 - c and the information
+ * scale a² (1 - c)) are computed once here rather than on every Newton-Raphson iteration.
+ * The arrays are not copied on the way out: callers must not modify them.
+ */
+public final class ItemBank {
+
+    private final double[] a;           // discrimination
+    private final double[] b;           // difficulty
+    private final double[] c;           // pseudo-guessing
+    private final double[] negA;        // -a
+    private final double[] oneMinusC;   // 1 - c
+    private final double[] infoScale;   // a² (1 - c)
+
+    public ItemBank(double[] a, double[] b, double[] c) {
+        if (a.length != b.length || a.length != c.length) {
+            throw new IllegalArgumentException("Item parameter arrays differ in length");
+        }
+        int size = a.length;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.negA = new double[size];
+        this.oneMinusC = new double[size];
+        this.infoScale = new double[size];
+        for (int i = 0; i < size; i++) {
+            negA[i] = -a[i];
+            oneMinusC[i] = 1 - c[i];
+            infoScale[i] = a[i] * a[i] * oneMinusC[i];
+        }
+    }
+
+    public static ItemBank of(List<IRT3PLService.ItemParameters> items) {
+        int size = items.size();
+        double[] a = new double[size];
+        double[] b = new double[size];
+        double[] c = new double[size];
+        for (int i = 0; i < size; i++) {
+            IRT3PLService.ItemParameters item = items.get(i);
+            a[i] = item.getDiscrimination();
+            b[i] = item.getDifficulty();
+            c[i] = item.getGuessing();
+        }
+        return new ItemBank(a, b, c);
+    }
+
+    /**
+     * Uncalibrated parameters in the usual ranges: a 0.8-2.0, b -1.5-1.5, c 0.15-0.25
+     */
+    public static ItemBank defaults(int size, Random random) {
+        double[] a = new double[size];
+        double[] b = new double[size];
+        double[] c = new double[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = 0.8 + random.nextDouble() * 1.2;
+            b[i] = -1.5 + random.nextDouble() * 3.0;
+            c[i] = 0.15 + random.nextDouble() * 0.10;
+        }
+        return new ItemBank(a, b, c);
+    }
+
+    /**
+     * The first count of the given items, in that order, as a bank of their own
+     */
+    public ItemBank subset(int[] items, int count) {
+        double[] subsetA = new double[count];
+        double[] subsetB = new double[count];
+        double[] subsetC = new double[count];
+        for (int i = 0; i < count; i++) {
+            subsetA[i] = a[items[i]];
+            subsetB[i] = b[items[i]];
+            subsetC[i] = c[items[i]];
+        }
+        return new ItemBank(subsetA, subsetB, subsetC);
+    }
+
+    public int size() { return a.length; }
+
+    public double getDiscrimination(int item) { return a[item]; }
+    public double getDifficulty(int item) { return b[item]; }
+    public double getGuessing(int item) { return c[item]; }
+
+    double[] discriminations() { return a; }
+    double[] difficulties() { return b; }
+    double[] guessing() { return c; }
+    double[] negatedDiscriminations() { return negA; }
+    double[] oneMinusGuessing() { return oneMinusC; }
+    double[] informationScales() { return infoScale; }
+
+    /**
+     * P(θ) = c + (1 - c) / (1 + e^(-a(θ - b)))
+     */
+    public double probability(int item, double theta) {
+        return c[item] + oneMinusC[item] / (1 + Math.exp(negA[item] * (theta - b[item])));
+    }
+
+    /**
+     * Fisher information of one item at θ: I(θ) = a² (1 - c) P*² (1 - P*) / P, where
+     * P* = 1 / (1 + e^(-a(θ - b))) and P = c + (1 - c) P*
+     */
+    public double information(int item, double theta) {
+        double pStar = 1 / (1 + Math.exp(negA[item] * (theta - b[item])));
+        return information(infoScale[item], c[item], oneMinusC[item], pStar);
+    }
+
+    // Shared with the estimator loops, which already have P* at hand
+    static double information(double infoScale, double c, double oneMinusC, double pStar) {
+        double probability = c + oneMinusC * pStar;
+        return probability > 1e-12 ? infoScale * pStar * pStar * (1 - pStar) / probability : 0.0;
+    }
+}
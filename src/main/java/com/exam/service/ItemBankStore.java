@@ -0,0 +1,167 @@
+package com.exam.service;
+
+import com.exam.entity.ItemParameter;
+import com.exam.entity.ProcessedExam;
+import com.exam.repository.ItemParameterRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Item parameters of each exam, by original question index, with a read-through cache.
+ *
+ * Calibrations are stored in item_parameters as numbered versions; the latest one is used while
+ * the exam is still at the version it was calibrated against. Questions without calibrated
+ * parameters (never calibrated, or the exam changed since) get defaults from a generator seeded
+ * with the exam id, so the same answers always give the same theta. Banks are cached per exam
+ * and rebuilt when the exam's version changes or a new calibration is saved. Banks are loaded
+ * outside any lock, so one only replaces the cached bank if it is newer (exam version, then
+ * calibration version, then size); a slow load never undoes a calibration saved meanwhile.
+ */
+@Service
+public class ItemBankStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemBankStore.class);
+
+    @Autowired
+    private ItemParameterRepository itemParameterRepository;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    // Map: examId -> item bank in use for the exam's current version
+    private final Map<String, CachedBank> banks = new ConcurrentHashMap<>();
+
+    private static class CachedBank {
+        private final int examVersion;
+        private final int calibrationVersion; // 0 = defaults only
+        private final ItemBank bank;
+
+        CachedBank(int examVersion, int calibrationVersion, ItemBank bank) {
+            this.examVersion = examVersion;
+            this.calibrationVersion = calibrationVersion;
+            this.bank = bank;
+        }
+    }
+
+    /**
+     * Parameters of at least the first items questions of the exam
+     */
+    public ItemBank get(String examId, int items) {
+        if (examId == null) {
+            return defaults(null, items);
+        }
+        int examVersion = examVersion(examId);
+        CachedBank cached = banks.get(examId);
+        if (cached == null || cached.examVersion != examVersion) {
+            cached = install(examId, load(examId, examVersion));
+        }
+        // More questions than the cached bank covers: fill the rest with defaults
+        while (cached.bank.size() < items) {
+            cached = install(examId, new CachedBank(cached.examVersion, cached.calibrationVersion,
+                                                    extend(examId, cached.bank, items)));
+        }
+        return cached.bank;
+    }
+
+    /**
+     * Calibration version in use for the exam, or 0 if it runs on default parameters
+     */
+    public int getCalibrationVersion(String examId) {
+        if (examId == null) {
+            return 0;
+        }
+        get(examId, 0);
+        CachedBank cached = banks.get(examId);
+        return cached != null ? cached.calibrationVersion : 0;
+    }
+
+    /**
+     * Store a calibration of the questions of the given exam version as a new calibration
+     * version and start using it. Returns the calibration version.
+     */
+    public synchronized int save(String examId, int examVersion, ItemBank bank, int[] responseCounts) {
+        int calibrationVersion = itemParameterRepository.findLatestCalibrationVersion(examId) + 1;
+        List<ItemParameter> rows = new ArrayList<>(bank.size());
+        for (int i = 0; i < bank.size(); i++) {
+            rows.add(new ItemParameter(examId, i, calibrationVersion, examVersion, bank.getDiscrimination(i),
+                                       bank.getDifficulty(i), bank.getGuessing(i), responseCounts[i]));
+        }
+        itemParameterRepository.saveAll(rows);
+        install(examId, new CachedBank(examVersion, calibrationVersion, bank));
+        return calibrationVersion;
+    }
+
+    /**
+     * Cache the bank unless a newer one is already cached; returns the bank now cached
+     */
+    private CachedBank install(String examId, CachedBank candidate) {
+        return banks.merge(examId, candidate, (current, offered) -> isNewer(offered, current) ? offered : current);
+    }
+
+    private static boolean isNewer(CachedBank bank, CachedBank than) {
+        if (bank.examVersion != than.examVersion) {
+            return bank.examVersion > than.examVersion;
+        }
+        if (bank.calibrationVersion != than.calibrationVersion) {
+            return bank.calibrationVersion > than.calibrationVersion;
+        }
+        return bank.bank.size() > than.bank.size();
+    }
+
+    private CachedBank load(String examId, int examVersion) {
+        try {
+            int calibrationVersion = itemParameterRepository.findLatestCalibrationVersion(examId);
+            if (calibrationVersion > 0) {
+                List<ItemParameter> rows =
+                    itemParameterRepository.findByExamIdAndCalibrationVersionOrderByQuestionIndex(examId, calibrationVersion);
+                if (!rows.isEmpty() && rows.get(0).getExamVersion() == examVersion) {
+                    int items = rows.get(rows.size() - 1).getQuestionIndex() + 1;
+                    ItemBank defaults = defaults(examId, items);
+                    double[] a = defaults.discriminations().clone();
+                    double[] b = defaults.difficulties().clone();
+                    double[] c = defaults.guessing().clone();
+                    for (ItemParameter row : rows) {
+                        a[row.getQuestionIndex()] = row.getDiscrimination();
+                        b[row.getQuestionIndex()] = row.getDifficulty();
+                        c[row.getQuestionIndex()] = row.getGuessing();
+                    }
+                    return new CachedBank(examVersion, calibrationVersion, new ItemBank(a, b, c));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load item parameters of exam {}: {}", examId, e.getMessage());
+        }
+        return new CachedBank(examVersion, 0, defaults(examId, 0));
+    }
+
+    private int examVersion(String examId) {
+        ProcessedExam summary = examCatalog.getSummary(examId);
+        return summary != null ? summary.getVersion() : 0;
+    }
+
+    // The bank's items followed by defaults up to items questions
+    private static ItemBank extend(String examId, ItemBank bank, int items) {
+        ItemBank defaults = defaults(examId, items);
+        double[] a = defaults.discriminations().clone();
+        double[] b = defaults.difficulties().clone();
+        double[] c = defaults.guessing().clone();
+        System.arraycopy(bank.discriminations(), 0, a, 0, bank.size());
+        System.arraycopy(bank.difficulties(), 0, b, 0, bank.size());
+        System.arraycopy(bank.guessing(), 0, c, 0, bank.size());
+        return new ItemBank(a, b, c);
+    }
+
+    // Defaults depend only on the exam id, and a longer bank starts with the items of a shorter one
+    private static ItemBank defaults(String examId, int items) {
+        return ItemBank.defaults(items, new Random(examId != null ? examId.hashCode() : 0));
+    }
+}
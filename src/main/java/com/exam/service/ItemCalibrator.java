@@ -0,0 +1,451 @@
+package com.exam.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Marginal maximum likelihood calibration of 3PL item parameters (Bock-Aitkin EM).
+ *
+ * Ability is integrated out over a standard normal, approximated by Gauss-Hermite quadrature.
+ * Each cycle the E-step computes every student's posterior over the quadrature points and
+ * accumulates, per item and point, the expected number of students (n) and of correct answers
+ * (r); students are split across the common fork/join pool and each task keeps its own sums.
+ * The M-step then fits each item independently to its (n, r) table by Fisher scoring, with
+ * priors that keep sparse items sensible: log a ~ N(0, 0.5²), b ~ N(0, 2²), c ~ Beta(5, 17).
+ *
+ * Responses are a students x items matrix (1 = correct, 0 = wrong, -1 = not presented); rows
+ * may be shorter than the number of items. Items nobody answered keep their starting values.
+ */
+public final class ItemCalibrator {
+
+    private static final int STUDENTS_PER_TASK = 256;
+
+    // Priors on discrimination, difficulty and guessing
+    private static final double LOG_A_SD = 0.5;
+    private static final double B_SD = 2.0;
+    private static final double C_ALPHA = 5.0;
+    private static final double C_BETA = 17.0;
+
+    // Parameter bounds and the largest Fisher scoring step
+    private static final double MIN_A = 0.2;
+    private static final double MAX_A = 4.0;
+    private static final double MAX_B = 4.0;
+    private static final double MAX_C = 0.5;
+    private static final double MAX_STEP = 1.0;
+    private static final int SCORING_ITERATIONS = 10;
+
+    private final int quadraturePoints;
+    private final int maxCycles;
+    private final double tolerance;
+
+    // Standard normal quadrature: nodes and weights (summing to 1)
+    private final double[] nodes;
+    private final double[] weights;
+
+    public ItemCalibrator(int quadraturePoints, int maxCycles, double tolerance) {
+        this.quadraturePoints = quadraturePoints;
+        this.maxCycles = maxCycles;
+        this.tolerance = tolerance;
+        this.nodes = new double[quadraturePoints];
+        this.weights = new double[quadraturePoints];
+        gaussHermite(quadraturePoints, nodes, weights);
+    }
+
+    public ItemCalibrator() {
+        this(21, 200, 0.001);
+    }
+
+    /**
+     * Calibrated parameters and how the EM run went
+     */
+    public static class Calibration {
+        private final ItemBank bank;
+        private final int[] responseCounts;
+        private final double[] logLikelihoods;
+        private final boolean converged;
+        private final double maxParameterChange;
+        private final int students;
+        private final long elapsedMillis;
+
+        Calibration(ItemBank bank, int[] responseCounts, double[] logLikelihoods, boolean converged,
+                    double maxParameterChange, int students, long elapsedMillis) {
+            this.bank = bank;
+            this.responseCounts = responseCounts;
+            this.logLikelihoods = logLikelihoods;
+            this.converged = converged;
+            this.maxParameterChange = maxParameterChange;
+            this.students = students;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public ItemBank getBank() { return bank; }
+        // Number of students who answered each item
+        public int[] getResponseCounts() { return responseCounts; }
+        // Marginal log-likelihood at the start of each cycle
+        public double[] getLogLikelihoods() { return logLikelihoods; }
+        public int getCycles() { return logLikelihoods.length; }
+        public boolean isConverged() { return converged; }
+        public double getMaxParameterChange() { return maxParameterChange; }
+        public int getStudents() { return students; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getFinalLogLikelihood() {
+            return logLikelihoods.length > 0 ? logLikelihoods[logLikelihoods.length - 1] : 0.0;
+        }
+    }
+
+    /**
+     * Calibrate items items from the response matrix, starting from the classical estimates
+     * (b from the proportion correct, a = 1, c = 0.2)
+     */
+    public Calibration calibrate(byte[][] responses, int items) {
+        double[] a = new double[items];
+        double[] b = new double[items];
+        double[] c = new double[items];
+        int[] counts = new int[items];
+        int[] correct = new int[items];
+        for (byte[] row : responses) {
+            for (int i = 0; i < row.length && i < items; i++) {
+                if (row[i] >= 0) {
+                    counts[i]++;
+                    correct[i] += row[i];
+                }
+            }
+        }
+        for (int i = 0; i < items; i++) {
+            double pValue = counts[i] > 0 ? (correct[i] + 0.5) / (counts[i] + 1.0) : 0.5;
+            a[i] = 1.0;
+            b[i] = clamp(-Math.log(pValue / (1 - pValue)), -3.0, 3.0);
+            c[i] = 0.20;
+        }
+        return calibrate(responses, new ItemBank(a, b, c), counts);
+    }
+
+    private Calibration calibrate(byte[][] responses, ItemBank start, int[] counts) {
+        long started = System.currentTimeMillis();
+        int items = start.size();
+        double[] a = Arrays.copyOf(start.discriminations(), items);
+        double[] b = Arrays.copyOf(start.difficulties(), items);
+        double[] c = Arrays.copyOf(start.guessing(), items);
+
+        double[] logLikelihoods = new double[maxCycles];
+        boolean converged = false;
+        double maxChange = Double.NaN;
+        int cycle = 0;
+        while (cycle < maxCycles && !converged && responses.length > 0) {
+            // E-step: expected counts per item and quadrature point under the current parameters
+            double[] logP = new double[items * quadraturePoints];
+            double[] logQ = new double[items * quadraturePoints];
+            for (int i = 0; i < items; i++) {
+                for (int q = 0; q < quadraturePoints; q++) {
+                    double p = probability(a[i], b[i], c[i], nodes[q]);
+                    logP[i * quadraturePoints + q] = Math.log(p);
+                    logQ[i * quadraturePoints + q] = Math.log(1 - p);
+                }
+            }
+            Expectation expectation = ForkJoinPool.commonPool().invoke(
+                new ExpectationTask(responses, items, logP, logQ, 0, responses.length));
+            logLikelihoods[cycle++] = expectation.logLikelihood;
+
+            // M-step: refit each item to its expected counts
+            maxChange = 0.0;
+            double[] item = new double[3];
+            for (int i = 0; i < items; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                item[0] = a[i];
+                item[1] = b[i];
+                item[2] = c[i];
+                maximize(item, expectation.n, expectation.r, i * quadraturePoints);
+                maxChange = Math.max(maxChange, Math.max(Math.abs(item[0] - a[i]),
+                                     Math.max(Math.abs(item[1] - b[i]), Math.abs(item[2] - c[i]))));
+                a[i] = item[0];
+                b[i] = item[1];
+                c[i] = item[2];
+            }
+            converged = maxChange < tolerance;
+        }
+
+        return new Calibration(new ItemBank(a, b, c), counts, Arrays.copyOf(logLikelihoods, cycle),
+                               converged, maxChange, responses.length, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Expected number of students (n) and correct answers (r) per item and quadrature point,
+     * indexed item * quadraturePoints + point, and the marginal log-likelihood of the students
+     */
+    private static final class Expectation {
+        private final double[] n;
+        private final double[] r;
+        private double logLikelihood;
+
+        Expectation(int size) {
+            this.n = new double[size];
+            this.r = new double[size];
+        }
+
+        Expectation add(Expectation other) {
+            for (int k = 0; k < n.length; k++) {
+                n[k] += other.n[k];
+                r[k] += other.r[k];
+            }
+            logLikelihood += other.logLikelihood;
+            return this;
+        }
+    }
+
+    private final class ExpectationTask extends RecursiveTask<Expectation> {
+        private final byte[][] responses;
+        private final int items;
+        private final double[] logP;
+        private final double[] logQ;
+        private final int from;
+        private final int to;
+
+        ExpectationTask(byte[][] responses, int items, double[] logP, double[] logQ, int from, int to) {
+            this.responses = responses;
+            this.items = items;
+            this.logP = logP;
+            this.logQ = logQ;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Expectation compute() {
+            if (to - from > STUDENTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ExpectationTask right = new ExpectationTask(responses, items, logP, logQ, middle, to);
+                right.fork();
+                Expectation left = new ExpectationTask(responses, items, logP, logQ, from, middle).compute();
+                return left.add(right.join());
+            }
+
+            int points = quadraturePoints;
+            Expectation expectation = new Expectation(items * points);
+            double[] posterior = new double[points];
+            for (int student = from; student < to; student++) {
+                byte[] row = responses[student];
+                int length = Math.min(row.length, items);
+
+                // Log-likelihood of the student's answers at each quadrature point
+                Arrays.fill(posterior, 0.0);
+                for (int i = 0; i < length; i++) {
+                    int response = row[i];
+                    if (response < 0) {
+                        continue;
+                    }
+                    double[] table = response == 1 ? logP : logQ;
+                    int offset = i * points;
+                    for (int q = 0; q < points; q++) {
+                        posterior[q] += table[offset + q];
+                    }
+                }
+
+                // Normalize to the posterior over the points, scaling by the largest term
+                double max = Double.NEGATIVE_INFINITY;
+                for (int q = 0; q < points; q++) {
+                    max = Math.max(max, posterior[q]);
+                }
+                double sum = 0.0;
+                for (int q = 0; q < points; q++) {
+                    posterior[q] = weights[q] * Math.exp(posterior[q] - max);
+                    sum += posterior[q];
+                }
+                expectation.logLikelihood += max + Math.log(sum);
+                for (int q = 0; q < points; q++) {
+                    posterior[q] /= sum;
+                }
+
+                for (int i = 0; i < length; i++) {
+                    int response = row[i];
+                    if (response < 0) {
+                        continue;
+                    }
+                    int offset = i * points;
+                    for (int q = 0; q < points; q++) {
+                        expectation.n[offset + q] += posterior[q];
+                    }
+                    if (response == 1) {
+                        for (int q = 0; q < points; q++) {
+                            expectation.r[offset + q] += posterior[q];
+                        }
+                    }
+                }
+            }
+            return expectation;
+        }
+    }
+
+    /**
+     * Fit one item's (a, b, c) to its expected counts by Fisher scoring on the posterior
+     * (log-likelihood plus log priors), updating item in place
+     */
+    private void maximize(double[] item, double[] n, double[] r, int offset) {
+        double[] gradient = new double[3];
+        double[][] information = new double[3][3];
+        double[] step = new double[3];
+        for (int iteration = 0; iteration < SCORING_ITERATIONS; iteration++) {
+            double a = item[0];
+            double b = item[1];
+            double c = item[2];
+            Arrays.fill(gradient, 0.0);
+            for (double[] row : information) {
+                Arrays.fill(row, 0.0);
+            }
+
+            for (int q = 0; q < quadraturePoints; q++) {
+                double expected = n[offset + q];
+                if (expected <= 0) {
+                    continue;
+                }
+                double sigma = 1 / (1 + Math.exp(-a * (nodes[q] - b)));
+                double p = c + (1 - c) * sigma;
+                double pq = Math.max(p * (1 - p), 1e-10);
+                double slope = (1 - c) * sigma * (1 - sigma);
+                double dA = slope * (nodes[q] - b);
+                double dB = -slope * a;
+                double dC = 1 - sigma;
+                double residual = (r[offset + q] - expected * p) / pq;
+                gradient[0] += residual * dA;
+                gradient[1] += residual * dB;
+                gradient[2] += residual * dC;
+                double weight = expected / pq;
+                information[0][0] += weight * dA * dA;
+                information[0][1] += weight * dA * dB;
+                information[0][2] += weight * dA * dC;
+                information[1][1] += weight * dB * dB;
+                information[1][2] += weight * dB * dC;
+                information[2][2] += weight * dC * dC;
+            }
+            information[1][0] = information[0][1];
+            information[2][0] = information[0][2];
+            information[2][1] = information[1][2];
+
+            // Priors: log a ~ N(0, LOG_A_SD²), b ~ N(0, B_SD²), c ~ Beta(C_ALPHA, C_BETA)
+            double logA = Math.log(a);
+            gradient[0] += -(1 + logA / (LOG_A_SD * LOG_A_SD)) / a;
+            information[0][0] += 1 / (LOG_A_SD * LOG_A_SD * a * a);
+            gradient[1] += -b / (B_SD * B_SD);
+            information[1][1] += 1 / (B_SD * B_SD);
+            double cc = Math.max(c, 1e-6);
+            gradient[2] += (C_ALPHA - 1) / cc - (C_BETA - 1) / (1 - cc);
+            information[2][2] += (C_ALPHA - 1) / (cc * cc) + (C_BETA - 1) / ((1 - cc) * (1 - cc));
+
+            if (!solve(information, gradient, step)) {
+                return;
+            }
+            double largest = 0.0;
+            for (int k = 0; k < 3; k++) {
+                step[k] = clamp(step[k], -MAX_STEP, MAX_STEP);
+                largest = Math.max(largest, Math.abs(step[k]));
+            }
+            item[0] = clamp(a + step[0], MIN_A, MAX_A);
+            item[1] = clamp(b + step[1], -MAX_B, MAX_B);
+            item[2] = clamp(c + step[2], 0.0, MAX_C);
+            if (largest < tolerance / 10) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Solve the 3x3 system m x = v by Gaussian elimination with partial pivoting;
+     * false if m is singular
+     */
+    private static boolean solve(double[][] m, double[] v, double[] x) {
+        double[][] augmented = new double[3][4];
+        for (int row = 0; row < 3; row++) {
+            System.arraycopy(m[row], 0, augmented[row], 0, 3);
+            augmented[row][3] = v[row];
+        }
+        for (int column = 0; column < 3; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < 3; row++) {
+                if (Math.abs(augmented[row][column]) > Math.abs(augmented[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(augmented[pivot][column]) < 1e-12) {
+                return false;
+            }
+            double[] swap = augmented[column];
+            augmented[column] = augmented[pivot];
+            augmented[pivot] = swap;
+            for (int row = column + 1; row < 3; row++) {
+                double factor = augmented[row][column] / augmented[column][column];
+                for (int k = column; k < 4; k++) {
+                    augmented[row][k] -= factor * augmented[column][k];
+                }
+            }
+        }
+        for (int row = 2; row >= 0; row--) {
+            double sum = augmented[row][3];
+            for (int k = row + 1; k < 3; k++) {
+                sum -= augmented[row][k] * x[k];
+            }
+            x[row] = sum / augmented[row][row];
+        }
+        return true;
+    }
+
+    /**
+     * Gauss-Hermite nodes and weights rescaled to the standard normal: the nodes of the
+     * physicists' rule times √2, the weights divided by √π. Roots by Newton's method on the
+     * Hermite recurrence (Numerical Recipes, gauher).
+     */
+    static void gaussHermite(int points, double[] nodes, double[] weights) {
+        double piToMinusQuarter = 0.7511255444649425;
+        int half = (points + 1) / 2;
+        double z = 0.0;
+        for (int i = 0; i < half; i++) {
+            // Initial guesses for the largest roots, then from the previous roots
+            if (i == 0) {
+                z = Math.sqrt(2.0 * points + 1) - 1.85575 * Math.pow(2.0 * points + 1, -0.16667);
+            } else if (i == 1) {
+                z -= 1.14 * Math.pow(points, 0.426) / z;
+            } else if (i == 2) {
+                z = 1.86 * z - 0.86 * nodes[0];
+            } else if (i == 3) {
+                z = 1.91 * z - 0.91 * nodes[1];
+            } else {
+                z = 2.0 * z - nodes[i - 2];
+            }
+            double derivative = 0.0;
+            for (int iteration = 0; iteration < 100; iteration++) {
+                double p1 = piToMinusQuarter;
+                double p2 = 0.0;
+                for (int j = 0; j < points; j++) {
+                    double p3 = p2;
+                    p2 = p1;
+                    p1 = z * Math.sqrt(2.0 / (j + 1)) * p2 - Math.sqrt((double) j / (j + 1)) * p3;
+                }
+                derivative = Math.sqrt(2.0 * points) * p2;
+                double previous = z;
+                z = previous - p1 / derivative;
+                if (Math.abs(z - previous) <= 1e-14) {
+                    break;
+                }
+            }
+            nodes[i] = z;
+            nodes[points - 1 - i] = -z;
+            weights[i] = 2.0 / (derivative * derivative);
+            weights[points - 1 - i] = weights[i];
+        }
+        double sqrtPi = Math.sqrt(Math.PI);
+        for (int i = 0; i < points; i++) {
+            nodes[i] *= Math.sqrt(2.0);
+            weights[i] /= sqrtPi;
+        }
+    }
+
+    private static double probability(double a, double b, double c, double theta) {
+        return c + (1 - c) / (1 + Math.exp(-a * (theta - b)));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,366 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Canonical form of a numeric answer such as "x = 1 or x = 2/3", "$\frac{2}{3}, 1$" or "x = ±2".
+ *
+ * parse() accepts one or more values separated by ',', ';', "or" or "and", each optionally
+ * prefixed by "variable =" and written as an integer, a decimal, a fraction (a/b, \frac{a}{b}
+ * or a Unicode fraction), with a sign or ±. LaTeX delimiters are ignored. Anything else is not
+ * a math answer and parse() returns null, leaving it to text matching.
+ *
+ * Values are held as reduced fractions. A list of values is a set of roots and compares
+ * regardless of order; a list in parentheses, such as "(1, 2)", is a point and keeps its order.
+ * A decimal with at least two places also matches a fraction it rounds, e.g. 0.67 for 2/3.
+ *
+ * Answer keys are parsed once, when compiled; a student answer is parsed once per grading,
+ * without regular expressions. Cleaning checks the text for each LaTeX and Unicode replacement
+ * (about 30 short scans) and copies it only for those that occur.
+ */
+public class MathAnswer {
+
+    private static final int MAX_LENGTH = 200;
+    private static final int MAX_VALUES = 16;
+    private static final int MIN_APPROXIMATE_PLACES = 2;
+
+    private static final String[][] REPLACEMENTS = {
+        {"\\left", ""}, {"\\right", ""}, {"\\displaystyle", ""}, {"\\,", ""}, {"\\;", ""}, {"\\!", ""},
+        {"\\(", ""}, {"\\)", ""}, {"\\[", ""}, {"\\]", ""}, {"$", ""}, {"\\{", "{"}, {"\\}", "}"},
+        {"\\dfrac", "\\frac"}, {"\\tfrac", "\\frac"}, {"\\pm", "±"}, {"+/-", "±"}, {"+-", "±"},
+        {"−", "-"}, {"–", "-"},
+        {"½", "1/2"}, {"⅓", "1/3"}, {"⅔", "2/3"}, {"¼", "1/4"}, {"¾", "3/4"},
+        {"⅛", "1/8"}, {"⅜", "3/8"}, {"⅝", "5/8"}, {"⅞", "7/8"}
+    };
+
+    private static final Comparator<Value> BY_SIZE = Comparator.comparingDouble(value -> value.approx);
+
+    private final Value[] values;
+    private final boolean ordered;
+
+    private MathAnswer(Value[] values, boolean ordered) {
+        this.values = values;
+        this.ordered = ordered;
+    }
+
+    /**
+     * One number as a reduced fraction; places is the number of decimals it was written with,
+     * or -1 for integers and fractions
+     */
+    private static final class Value {
+        private final long numerator;
+        private final long denominator;
+        private final int places;
+        private final double approx;
+
+        Value(long numerator, long denominator, int places) {
+            long gcd = gcd(Math.abs(numerator), denominator);
+            this.numerator = numerator / gcd;
+            this.denominator = denominator / gcd;
+            this.places = places;
+            this.approx = (double) this.numerator / this.denominator;
+        }
+
+        Value negate() {
+            return new Value(-numerator, denominator, places);
+        }
+
+        boolean matches(Value other) {
+            if (numerator == other.numerator && denominator == other.denominator) {
+                return true;
+            }
+            // The less precise decimal decides the rounding tolerance
+            int places = Math.min(this.places < 0 ? Integer.MAX_VALUE : this.places,
+                                  other.places < 0 ? Integer.MAX_VALUE : other.places);
+            if (places == Integer.MAX_VALUE || places < MIN_APPROXIMATE_PLACES) {
+                return false;
+            }
+            return Math.abs(approx - other.approx) <= 0.5 * Math.pow(10, -places) + 1e-12;
+        }
+    }
+
+    /**
+     * Canonical form of the text, or null if it is not a numeric answer
+     */
+    public static MathAnswer parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        String cleaned = text.trim();
+        if (cleaned.isEmpty() || cleaned.length() > MAX_LENGTH) {
+            return null;
+        }
+        cleaned = clean(cleaned);
+
+        boolean ordered = false;
+        if (cleaned.length() > 1 && cleaned.charAt(0) == '{' && cleaned.charAt(cleaned.length() - 1) == '}') {
+            cleaned = cleaned.substring(1, cleaned.length() - 1);
+        } else if (cleaned.length() > 1 && cleaned.charAt(0) == '(' && cleaned.charAt(cleaned.length() - 1) == ')'
+                   && topLevelSeparator(cleaned.substring(1, cleaned.length() - 1))) {
+            cleaned = cleaned.substring(1, cleaned.length() - 1);
+            ordered = true;
+        }
+
+        List<Value> values = new ArrayList<>();
+        for (String item : split(cleaned)) {
+            if (!parseItem(item, values) || values.size() > MAX_VALUES) {
+                return null;
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        Value[] array = values.toArray(new Value[0]);
+        if (!ordered) {
+            Arrays.sort(array, BY_SIZE);
+        }
+        return new MathAnswer(array, ordered);
+    }
+
+    /**
+     * Whether the student's (parsed) answer has the same values
+     */
+    public boolean matches(MathAnswer other) {
+        if (other == null || other.values.length != values.length || other.ordered != ordered) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (!values[i].matches(other.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the student's answer, parsed now, has the same values
+     */
+    public boolean matches(String studentAnswer) {
+        return matches(parse(studentAnswer));
+    }
+
+    public int size() { return values.length; }
+
+    /**
+     * Lower case, single spaces, LaTeX noise removed and "or"/"and" turned into commas
+     */
+    private static String clean(String text) {
+        String result = text;
+        for (String[] replacement : REPLACEMENTS) {
+            if (result.contains(replacement[0])) {
+                result = result.replace(replacement[0], replacement[1]);
+            }
+        }
+        StringBuilder builder = new StringBuilder(result.length());
+        for (int i = 0; i < result.length(); i++) {
+            char c = Character.toLowerCase(result.charAt(i));
+            if (Character.isWhitespace(c)) {
+                if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+                    builder.append(' ');
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        String spaced = " " + builder.toString().trim() + " ";
+        return spaced.replace(" or ", ",").replace(" and ", ",").replace("&", ",").trim();
+    }
+
+    private static boolean topLevelSeparator(String text) {
+        int depth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '(') {
+                depth++;
+            } else if (c == '}' || c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == ',' || c == ';')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Split on ',' and ';' outside braces; "1,000" (three digits after a comma between digits) is
+     * read as a thousands separator
+     */
+    private static List<String> split(String text) {
+        List<String> items = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '(') {
+                depth++;
+            } else if (c == '}' || c == ')') {
+                depth--;
+            }
+            if (depth == 0 && c == ',' && isThousandsSeparator(text, i)) {
+                continue;
+            }
+            if (depth == 0 && (c == ',' || c == ';')) {
+                items.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        items.add(current.toString().trim());
+        return items;
+    }
+
+    private static boolean isThousandsSeparator(String text, int comma) {
+        if (comma == 0 || !Character.isDigit(text.charAt(comma - 1))) {
+            return false;
+        }
+        for (int i = comma + 1; i <= comma + 3; i++) {
+            if (i >= text.length() || !Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return comma + 4 >= text.length() || !Character.isDigit(text.charAt(comma + 4));
+    }
+
+    /**
+     * One item: optional "variable =", then a value with an optional sign or ±
+     */
+    private static boolean parseItem(String item, List<Value> values) {
+        String value = item;
+        int equals = value.indexOf('=');
+        if (equals >= 0) {
+            if (!isVariable(value.substring(0, equals).trim())) {
+                return false;
+            }
+            value = value.substring(equals + 1).trim();
+        }
+        if (value.isEmpty()) {
+            return false;
+        }
+        boolean plusMinus = false;
+        if (value.charAt(0) == '±') {
+            plusMinus = true;
+            value = value.substring(1).trim();
+        }
+        Value parsed = parseSigned(value);
+        if (parsed == null) {
+            return false;
+        }
+        values.add(parsed);
+        if (plusMinus && parsed.numerator != 0) {
+            values.add(parsed.negate());
+        }
+        return true;
+    }
+
+    // x, y1, x_1, x_{1}
+    private static boolean isVariable(String name) {
+        if (name.isEmpty() || name.length() > 6 || !Character.isLetter(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '{' && c != '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Value parseSigned(String text) {
+        String value = text.trim();
+        boolean negative = false;
+        while (!value.isEmpty() && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative ^= value.charAt(0) == '-';
+            value = value.substring(1).trim();
+        }
+        if (value.length() > 1 && value.charAt(0) == '(' && value.charAt(value.length() - 1) == ')') {
+            Value inner = parseSigned(value.substring(1, value.length() - 1));
+            return inner == null ? null : negative ? inner.negate() : inner;
+        }
+        Value parsed = value.startsWith("\\frac") ? parseLatexFraction(value.substring(5)) : parseFraction(value);
+        return parsed == null ? null : negative ? parsed.negate() : parsed;
+    }
+
+    // {a}{b}
+    private static Value parseLatexFraction(String text) {
+        String value = text.trim();
+        if (value.isEmpty() || value.charAt(0) != '{') {
+            return null;
+        }
+        int close = value.indexOf('}');
+        if (close < 0 || close + 1 >= value.length() || value.charAt(close + 1) != '{'
+            || value.charAt(value.length() - 1) != '}') {
+            return null;
+        }
+        return divide(parseSigned(value.substring(1, close)), parseSigned(value.substring(close + 2, value.length() - 1)));
+    }
+
+    // a or a/b, a and b integers or decimals
+    private static Value parseFraction(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return parseNumber(text.trim());
+        }
+        return divide(parseNumber(text.substring(0, slash).trim()), parseSigned(text.substring(slash + 1)));
+    }
+
+    private static Value divide(Value numerator, Value denominator) {
+        if (numerator == null || denominator == null || denominator.numerator == 0) {
+            return null;
+        }
+        try {
+            long top = Math.multiplyExact(numerator.numerator, denominator.denominator);
+            long bottom = Math.multiplyExact(numerator.denominator, denominator.numerator);
+            if (bottom < 0) {
+                top = -top;
+                bottom = -bottom;
+            }
+            return new Value(top, bottom, -1);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // Digits with at most one decimal point, e.g. 12, 0.75, .5
+    private static Value parseNumber(String text) {
+        if (text.isEmpty() || text.length() > 18) {
+            return null;
+        }
+        long numerator = 0;
+        long denominator = 1;
+        int places = -1;
+        boolean digits = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (places >= 0) {
+                    return null;
+                }
+                places = 0;
+            } else if (c >= '0' && c <= '9') {
+                numerator = numerator * 10 + (c - '0');
+                digits = true;
+                if (places >= 0) {
+                    places++;
+                    denominator *= 10;
+                }
+            } else {
+                return null;
+            }
+        }
+        return digits ? new Value(numerator, denominator, places) : null;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+}
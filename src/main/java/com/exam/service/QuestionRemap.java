@@ -0,0 +1,51 @@
+package com.exam.service;
+
+import java.util.Map;
+
+/**
+ * Maps a question index of one version of an exam to the same question in a later version.
+ *
+ * Adding a question appends it and editing one keeps its index, so only deletes move questions:
+ * the deleted question disappears and every later one moves down by one. Each archived version
+ * records which question the edit that replaced it deleted; an index cannot be mapped across a
+ * version without that record (archived before it was kept).
+ */
+public class QuestionRemap {
+
+    // The question was deleted on the way to the target version
+    public static final int REMOVED = -1;
+    // The index or a version on the way is unknown
+    public static final int UNKNOWN = -2;
+
+    // Map: version -> question deleted by the edit that replaced it (0-based), -1 if none
+    private final Map<Integer, Integer> removedQuestions;
+
+    public QuestionRemap(Map<Integer, Integer> removedQuestions) {
+        this.removedQuestions = removedQuestions;
+    }
+
+    /**
+     * Index in toVersion of the question at source in fromVersion, REMOVED or UNKNOWN
+     */
+    public int map(int source, int fromVersion, int toVersion) {
+        if (source < 0 || fromVersion > toVersion) {
+            return UNKNOWN;
+        }
+        int index = source;
+        for (int version = fromVersion; version < toVersion; version++) {
+            Integer removed = removedQuestions.get(version);
+            if (removed == null) {
+                return UNKNOWN;
+            }
+            if (removed >= 0) {
+                if (index == removed) {
+                    return REMOVED;
+                }
+                if (index > removed) {
+                    index--;
+                }
+            }
+        }
+        return index;
+    }
+}
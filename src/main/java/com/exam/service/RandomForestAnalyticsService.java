@@ -1,6 +1,9 @@
 package com.exam.service;
 
+import com.exam.entity.AnswerDetails;
 import com.exam.entity.ExamSubmission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,6 +18,8 @@ import java.util.stream.Collectors;
  */
 @Service
 public class RandomForestAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(RandomForestAnalyticsService.class);
     
     // Random Forest hyperparameters
     private static final int NUM_TREES = 100;  // Number of decision trees in forest
@@ -112,11 +117,10 @@ public class RandomForestAnalyticsService {
     public StudentFeatures extractFeatures(ExamSubmission submission, 
                                           List<String> questionTopics,
                                           List<String> questionDifficulties,
-                                          String answerDetailsJson) {
+                                          AnswerDetails answerDetails) {
         StudentFeatures features = new StudentFeatures();
-        
-        // Parse answer details: "questionNum|studentAnswer|correctAnswer|isCorrect"
-        String[] answerDetails = answerDetailsJson != null ? answerDetailsJson.split(";") : new String[0];
+        int[] questionNumbers = answerDetails.getQuestionNumbers();
+        boolean[] correct = answerDetails.getCorrect();
         
         // Count by topic and difficulty
         Map<String, Integer> topicTotals = new HashMap<>();
@@ -124,39 +128,29 @@ public class RandomForestAnalyticsService {
         int hardTotal = 0, hardCorrect = 0;
         int totalAttempts = 0, totalCorrect = 0;
         
-        for (int i = 0; i < answerDetails.length; i++) {
-            if (answerDetails[i].trim().isEmpty()) continue;
+        for (int i = 0; i < questionNumbers.length; i++) {
+            int questionNum = questionNumbers[i] - 1; // Convert to 0-based index
+            boolean isCorrect = correct[i];
             
-            String[] parts = answerDetails[i].split("\\|");
-            if (parts.length < 4) continue;
+            totalAttempts++;
+            if (isCorrect) totalCorrect++;
             
-            try {
-                int questionNum = Integer.parseInt(parts[0]) - 1; // Convert to 0-based index
-                boolean isCorrect = Boolean.parseBoolean(parts[3]);
-                
-                totalAttempts++;
-                if (isCorrect) totalCorrect++;
-                
-                // Get topic and difficulty for this question
-                String topic = (questionNum < questionTopics.size()) ? 
-                              questionTopics.get(questionNum) : "General";
-                String difficulty = (questionNum < questionDifficulties.size()) ? 
-                                   questionDifficulties.get(questionNum) : "Medium";
-                
-                // Count by topic
-                topicTotals.put(topic, topicTotals.getOrDefault(topic, 0) + 1);
-                if (isCorrect) {
-                    topicCorrects.put(topic, topicCorrects.getOrDefault(topic, 0) + 1);
-                }
-                
-                // Count hard questions
-                if (difficulty.equalsIgnoreCase("Hard")) {
-                    hardTotal++;
-                    if (isCorrect) hardCorrect++;
-                }
-            } catch (Exception e) {
-                // Skip malformed answer details
-                continue;
+            // Get topic and difficulty for this question
+            String topic = (questionNum >= 0 && questionNum < questionTopics.size()) ? 
+                          questionTopics.get(questionNum) : "General";
+            String difficulty = (questionNum >= 0 && questionNum < questionDifficulties.size()) ? 
+                               questionDifficulties.get(questionNum) : "Medium";
+            
+            // Count by topic
+            topicTotals.put(topic, topicTotals.getOrDefault(topic, 0) + 1);
+            if (isCorrect) {
+                topicCorrects.put(topic, topicCorrects.getOrDefault(topic, 0) + 1);
+            }
+            
+            // Count hard questions
+            if (difficulty.equalsIgnoreCase("Hard")) {
+                hardTotal++;
+                if (isCorrect) hardCorrect++;
             }
         }
         
@@ -404,10 +398,10 @@ public class RandomForestAnalyticsService {
      * This builds NUM_TREES decision trees using bootstrap sampling
      */
     public void trainRandomForest(List<StudentFeatures> historicalData) {
-        System.out.println("\n=== TRAINING RANDOM FOREST ===");
-        System.out.println("Training on " + historicalData.size() + " historical student records");
-        System.out.println("Number of trees: " + NUM_TREES);
-        System.out.println("Max depth: " + MAX_DEPTH);
+        log.info("=== TRAINING RANDOM FOREST ===");
+        log.info("Training on {} historical student records", historicalData.size());
+        log.info("Number of trees: {}", NUM_TREES);
+        log.info("Max depth: {}", MAX_DEPTH);
         
         forest.clear();
         Random random = new Random(42);  // Fixed seed for reproducibility
@@ -425,12 +419,12 @@ public class RandomForestAnalyticsService {
             forest.add(tree);
             
             if ((i + 1) % 20 == 0) {
-                System.out.println("Built " + (i + 1) + "/" + NUM_TREES + " trees...");
+                log.info("Built {}/{} trees...", (i + 1), NUM_TREES);
             }
         }
         
         isTrained = true;
-        System.out.println("✅ Random Forest training complete!\n");
+        log.info("✅ Random Forest training complete!");
     }
     
     /**
@@ -0,0 +1,450 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+import com.exam.entity.ExamSubmission;
+import com.exam.entity.ProcessedExam;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-scores stored submissions after a teacher edits or deletes a question.
+ *
+ * A job streams the exam's submissions (with their answer details) through a forward-only
+ * cursor and hands them to a worker pool in fixed-size chunks. Each chunk is re-evaluated
+ * against the DistributionTemplate of the exam version the edit produced (captured when the
+ * job is started, so a queued job is not graded against a later edit) and written back with
+ * two JDBC batch updates in one transaction. At most a few chunks are in flight, so memory use does not
+ * grow with the number of submissions.
+ *
+ * Every submission records the exam version it was graded against. Its answers are mapped
+ * from that version to the job's version with the exam's QuestionRemap, so only submissions
+ * older than a delete are shifted, and a submission already at the job's version (or a later
+ * one) is left as it is. Submissions stored before answers recorded their source question or
+ * their exam version, or older than the recorded version history, are counted as skipped.
+ */
+@Service
+public class RegradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegradeService.class);
+
+    // Finished jobs are kept this long so the teacher's page can still read the final status
+    private static final long JOB_RETENTION_MINUTES = 60;
+
+    private static final String SELECT_SUBMISSIONS =
+        "SELECT s.id, s.student_email, s.score, s.percentage, s.time_efficiency, s.confidence, s.exam_version, a.details " +
+        "FROM exam_submissions s JOIN submission_answers a ON a.submission_id = s.id " +
+        "WHERE s.exam_id = ? ORDER BY s.id";
+
+    private static final String UPDATE_SUBMISSION =
+        "UPDATE exam_submissions SET score = ?, total_questions = ?, percentage = ?, topic_mastery = ?, " +
+        "difficulty_resilience = ?, accuracy = ?, performance_category = ?, exam_version = ? WHERE id = ?";
+
+    private static final String UPDATE_ANSWERS = "UPDATE submission_answers SET details = ? WHERE submission_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExamCatalog examCatalog;
+
+    @Autowired
+    private AssignmentMaterializer assignmentMaterializer;
+
+    @Autowired
+    private RandomForestAnalyticsService randomForestAnalyticsService;
+
+    @Value("${app.regrade.threads:2}")
+    private int threads;
+
+    @Value("${app.regrade.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.regrade.max-diffs:200}")
+    private int maxDiffs;
+
+    private ExecutorService reader;
+    private ExecutorService workers;
+    private int maxChunksInFlight;
+
+    // Map: jobId -> job
+    private final Map<String, RegradeJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * A submission whose score changed
+     */
+    public static class ScoreDiff {
+        private final long submissionId;
+        private final String studentEmail;
+        private final int oldScore;
+        private final int newScore;
+        private final double oldPercentage;
+        private final double newPercentage;
+
+        ScoreDiff(long submissionId, String studentEmail, int oldScore, int newScore,
+                  double oldPercentage, double newPercentage) {
+            this.submissionId = submissionId;
+            this.studentEmail = studentEmail;
+            this.oldScore = oldScore;
+            this.newScore = newScore;
+            this.oldPercentage = oldPercentage;
+            this.newPercentage = newPercentage;
+        }
+
+        public long getSubmissionId() { return submissionId; }
+        public String getStudentEmail() { return studentEmail; }
+        public int getOldScore() { return oldScore; }
+        public int getNewScore() { return newScore; }
+        public double getOldPercentage() { return oldPercentage; }
+        public double getNewPercentage() { return newPercentage; }
+    }
+
+    /**
+     * Progress of a regrade. Only the first max-diffs score changes are kept.
+     */
+    public static class RegradeJob {
+        private final String jobId;
+        private final String examId;
+        private final int examVersion; // version the edit produced, or -1 if the exam is unknown
+        private volatile int total;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger changed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<ScoreDiff> diffs = Collections.synchronizedList(new ArrayList<>());
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+
+        RegradeJob(String jobId, String examId, int examVersion) {
+            this.jobId = jobId;
+            this.examId = examId;
+            this.examVersion = examVersion;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getExamId() { return examId; }
+        public int getExamVersion() { return examVersion; }
+        public int getTotal() { return total; }
+        public int getProcessed() { return processed.get(); }
+        public int getChanged() { return changed.get(); }
+        public int getSkipped() { return skipped.get(); }
+        public int getFailed() { return failed.get(); }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public boolean isFinished() { return finishedAt != null; }
+
+        public List<ScoreDiff> getDiffs() {
+            synchronized (diffs) {
+                return new ArrayList<>(diffs);
+            }
+        }
+
+        public String getStatus() {
+            if (finishedAt == null) return processed.get() == 0 ? "QUEUED" : "RUNNING";
+            return failed.get() > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED";
+        }
+    }
+
+    // One streamed row; answer details are decoded on the worker
+    private static class SubmissionRow {
+        long id;
+        String studentEmail;
+        int score;
+        double percentage;
+        double timeEfficiency;
+        double confidence;
+        Integer examVersion; // null for submissions stored before it was recorded
+        byte[] details;
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exam-regrade-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "exam-regrade");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maxChunksInFlight = poolSize * 2;
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        reader.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Queue a regrade of every submission of the exam against its current version, after a
+     * question was edited or deleted (the delete must already be saved with ExamCatalog)
+     */
+    public String startRegrade(String examId) {
+        pruneFinishedJobs();
+        String jobId = "R_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        ProcessedExam summary = examCatalog.getSummary(examId);
+        RegradeJob job = new RegradeJob(jobId, examId, summary != null ? summary.getVersion() : -1);
+        jobs.put(jobId, job);
+        reader.submit(() -> run(job));
+        return jobId;
+    }
+
+    public RegradeJob getJob(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+
+    private void run(RegradeJob job) {
+        try {
+            DistributionTemplate template = job.examVersion >= 0
+                ? assignmentMaterializer.getTemplate(job.examId, job.examVersion) : null;
+            if (template == null) {
+                log.warn("⚠️ Regrade {} skipped, exam {} v{} not found", job.jobId, job.examId, job.examVersion);
+                return;
+            }
+            Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM exam_submissions WHERE exam_id = ?", Integer.class, job.examId);
+            job.total = total != null ? total : 0;
+            if (job.total == 0) {
+                return;
+            }
+            log.info("🔁 Started regrade {} of exam {}: {} submissions", job.jobId, job.examId, job.total);
+            QuestionRemap remap = examCatalog.getRemap(job.examId);
+
+            int size = Math.max(1, chunkSize);
+            Semaphore inFlight = new Semaphore(maxChunksInFlight);
+            List<SubmissionRow> chunk = new ArrayList<>(size);
+
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_SUBMISSIONS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+                statement.setString(1, job.examId);
+                return statement;
+            }, (ResultSet rs) -> {
+                SubmissionRow row = new SubmissionRow();
+                row.id = rs.getLong(1);
+                row.studentEmail = rs.getString(2);
+                row.score = rs.getInt(3);
+                row.percentage = rs.getDouble(4);
+                row.timeEfficiency = rs.getDouble(5);
+                row.confidence = rs.getDouble(6);
+                int examVersion = rs.getInt(7);
+                row.examVersion = rs.wasNull() ? null : examVersion;
+                row.details = rs.getBytes(8);
+                chunk.add(row);
+                if (chunk.size() >= size) {
+                    dispatch(job, template, remap, new ArrayList<>(chunk), inFlight);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                dispatch(job, template, remap, new ArrayList<>(chunk), inFlight);
+            }
+
+            // Wait for the last chunks before the next job may touch the same rows
+            inFlight.acquire(maxChunksInFlight);
+            inFlight.release(maxChunksInFlight);
+            log.info("✅ Regrade {} finished: {} processed, {} changed, {} skipped, {} failed", job.jobId, job.processed.get(), job.changed.get(), job.skipped.get(), job.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("❌ Regrade {} failed: {}", job.jobId, e.getMessage());
+            job.failed.addAndGet(Math.max(0, job.total - job.processed.get()));
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Hand a chunk to the workers, blocking the cursor while too many chunks are in flight
+     */
+    private void dispatch(RegradeJob job, DistributionTemplate template, QuestionRemap remap,
+                          List<SubmissionRow> rows, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            workers.submit(() -> {
+                try {
+                    regradeChunk(job, template, remap, rows);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void regradeChunk(RegradeJob job, DistributionTemplate template, QuestionRemap remap, List<SubmissionRow> rows) {
+        List<Object[]> submissionUpdates = new ArrayList<>(rows.size());
+        List<Object[]> answerUpdates = new ArrayList<>(rows.size());
+        List<ScoreDiff> chunkDiffs = new ArrayList<>();
+        int skipped = 0;
+        int current = 0;
+
+        for (SubmissionRow row : rows) {
+            // Graded at the job's version, or regraded by a later job already
+            if (row.examVersion != null && row.examVersion >= job.examVersion) {
+                current++;
+                continue;
+            }
+            AnswerDetails details;
+            try {
+                details = AnswerDetails.decode(row.details);
+            } catch (RuntimeException e) {
+                skipped++;
+                continue;
+            }
+            AnswerDetails regraded = regrade(details, row.examVersion, template, remap);
+            if (regraded == null) {
+                skipped++;
+                continue;
+            }
+
+            int total = regraded.size();
+            int score = regraded.getCorrectCount();
+            double percentage = total > 0 ? score * 100.0 / total : 0.0;
+
+            ExamSubmission features = new ExamSubmission();
+            features.setScore(score);
+            features.setTotalQuestions(total);
+            features.setPercentage(percentage);
+            features.setAccuracy(percentage);
+            features.setTimeEfficiency(row.timeEfficiency);
+            features.setConfidence(row.confidence);
+            Map<String, Object> report = randomForestAnalyticsService.generateStudentReport(
+                randomForestAnalyticsService.extractFeatures(features, topicsOf(regraded, template),
+                                                             difficultiesOf(regraded, template), regraded));
+
+            submissionUpdates.add(new Object[] {
+                score, total, percentage,
+                validateDouble((Double) report.get("topicMasteryGeneral")),
+                validateDouble((Double) report.get("difficultyResilience")),
+                validateDouble((Double) report.get("accuracy")),
+                report.get("predictedCategory"),
+                template.getVersion(),
+                row.id
+            });
+            answerUpdates.add(new Object[] { regraded.encode(), row.id });
+            if (score != row.score) {
+                chunkDiffs.add(new ScoreDiff(row.id, row.studentEmail, row.score, score, row.percentage, percentage));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!submissionUpdates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SUBMISSION, submissionUpdates);
+                    jdbcTemplate.batchUpdate(UPDATE_ANSWERS, answerUpdates);
+                }
+            });
+            job.processed.addAndGet(submissionUpdates.size() + current);
+            job.skipped.addAndGet(skipped);
+            job.changed.addAndGet(chunkDiffs.size());
+            synchronized (job.diffs) {
+                for (ScoreDiff diff : chunkDiffs) {
+                    if (job.diffs.size() >= maxDiffs) break;
+                    job.diffs.add(diff);
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Regrade {}: could not write {} submissions: {}", job.jobId, rows.size(), e.getMessage());
+            job.failed.addAndGet(rows.size());
+        }
+    }
+
+    /**
+     * Re-evaluate one submission, graded against examVersion, against the template of a later
+     * version. Returns null if the version or any answer's source question is unknown, or the
+     * questions cannot be mapped to the template's version.
+     */
+    static AnswerDetails regrade(AnswerDetails details, Integer examVersion, DistributionTemplate template,
+                                 QuestionRemap remap) {
+        if (examVersion == null) {
+            return null;
+        }
+        int[] sourceQuestions = details.getSourceQuestions();
+        String[] studentAnswers = details.getStudentAnswers();
+        AnswerDetails.Builder builder = new AnswerDetails.Builder(details.size());
+        int questionNumber = 0;
+        for (int i = 0; i < sourceQuestions.length; i++) {
+            int source = remap.map(sourceQuestions[i], examVersion, template.getVersion());
+            if (source == QuestionRemap.UNKNOWN) {
+                return null;
+            }
+            if (source == QuestionRemap.REMOVED) {
+                continue;
+            }
+            boolean inExam = source < template.size();
+            String correctAnswer = inExam ? template.getAnswer(source) : null;
+            CompiledAnswer matcher = inExam ? template.getCompiledAnswer(source) : null;
+            String studentAnswer = studentAnswers[i];
+            boolean answered = !AnswerDetails.NO_ANSWER.equals(studentAnswer);
+            boolean isCorrect = answered && matcher != null && matcher.matches(studentAnswer);
+            builder.add(++questionNumber, source, studentAnswer,
+                        correctAnswer != null ? correctAnswer.trim() : AnswerDetails.NOT_SET, isCorrect);
+        }
+        return builder.build();
+    }
+
+    // Topic/difficulty lists indexed by presented position, as extractFeatures expects
+    private static List<String> topicsOf(AnswerDetails details, DistributionTemplate template) {
+        List<String> topics = new ArrayList<>(details.size());
+        for (int source : details.getSourceQuestions()) {
+            topics.add(source < template.size() ? template.getTopic(source) : "General");
+        }
+        return topics;
+    }
+
+    private static List<String> difficultiesOf(AnswerDetails details, DistributionTemplate template) {
+        List<String> difficulties = new ArrayList<>(details.size());
+        for (int source : details.getSourceQuestions()) {
+            difficulties.add(source < template.size() ? template.getDifficulty(source) : "Medium");
+        }
+        return difficulties;
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Validate double values to prevent NaN or Infinity from being saved to database
+     */
+    private static double validateDouble(Double value) {
+        if (value == null || Double.isNaN(value) || Double.isInfinite(value)) {
+            return 0.0;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,367 @@
+package com.exam.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matching of typed (TEXT_INPUT) answers against a correct answer and its accepted alternatives.
+ *
+ * An answer-key entry may list alternatives separated by "||" and may start with a tuning
+ * directive: "[EXACT]" accepts the alternatives as written (after normalization) and nothing
+ * else, "[FUZZY=n]" allows up to n edits (at most 3).
+ *
+ * Everything about the correct answer is worked out once, at compile time. A student answer is
+ * normalized (lower case, prose punctuation removed, single spaces; signs, symbols and decimal
+ * points are kept) and accepted by an alternative if it
+ * - is equal to it, or
+ * - both are numeric answers with the same values (see MathAnswer), so "2/3, 1" matches
+ *   "x = 1 or x = 2/3"; the key side is parsed at compile time, or
+ * - has the same numbers and is within the allowed number of edits (by default none up to 4
+ *   characters, 1 up to 8, 2 beyond); a trigram count rules out most answers before the banded
+ *   edit distance runs, and that stops as soon as the whole band is over the limit, or
+ * - for alternatives of three or more words: contains at least 70% of its words as whole words
+ *   (one typo allowed in words of five letters or more), words of one or two letters counting
+ *   towards the total only, and has at most twice as many words plus two, so listing every
+ *   term that might apply does not pass.
+ *
+ * Student answers are cut to MAX_INPUT_CHARS and MAX_STUDENT_WORDS before matching, and an entry
+ * has at most MAX_ALTERNATIVES, so one answer costs at most about
+ * MAX_ALTERNATIVES * MAX_INPUT_CHARS * (2 * MAX_EDITS + 1) edit-distance cells, whatever is typed.
+ */
+public class ShortAnswerMatcher {
+
+    public static final String ALTERNATIVE_SEPARATOR = "||";
+    public static final int MAX_EDITS = 3;
+    public static final int MAX_ALTERNATIVES = 16;
+    public static final int MAX_INPUT_CHARS = 1000;
+    public static final int MAX_STUDENT_WORDS = 200;
+
+    private static final double KEYWORD_THRESHOLD = 0.7;
+    private static final int FUZZY_WORD_MIN_LENGTH = 5;
+    private static final String EXACT_DIRECTIVE = "[EXACT]";
+    private static final String FUZZY_DIRECTIVE = "[FUZZY=";
+    private static final String PROSE_PUNCTUATION = ".,;:!?'\"`()[]{}\u2018\u2019\u201C\u201D";
+
+    private final Alternative[] alternatives;
+    private final boolean needsMath;
+    private final boolean needsTrigrams;
+    private final boolean needsWords;
+
+    /**
+     * One accepted answer, pre-processed
+     */
+    private static class Alternative {
+        private final String normalized;
+        private final int maxEdits;
+        private final MathAnswer math;      // null unless the alternative is a numeric answer
+        private final String numbers;       // digit runs of the answer; a typo never changes a number
+        private final long[] trigrams;      // sorted, empty when maxEdits is 0
+        private final String[] keywords;    // words longer than two characters; empty below three words
+        private final double minKeywordMatches;
+        private final int maxStudentWords;
+
+        Alternative(String text, String normalized, int maxEdits, boolean useKeywords) {
+            this.math = MathAnswer.parse(text);
+            this.normalized = normalized;
+            this.maxEdits = maxEdits;
+            this.numbers = numbers(normalized);
+            this.trigrams = maxEdits > 0 ? trigrams(normalized) : new long[0];
+
+            String[] words = normalized.isEmpty() ? new String[0] : normalized.split(" ");
+            List<String> keywords = new ArrayList<>(words.length);
+            if (useKeywords && words.length >= 3) {
+                for (String word : words) {
+                    if (word.length() > 2) {
+                        keywords.add(word);
+                    }
+                }
+            }
+            this.keywords = keywords.toArray(new String[0]);
+            this.minKeywordMatches = words.length * KEYWORD_THRESHOLD;
+            this.maxStudentWords = words.length * 2 + 2;
+        }
+    }
+
+    private ShortAnswerMatcher(Alternative[] alternatives) {
+        this.alternatives = alternatives;
+        boolean math = false;
+        boolean trigrams = false;
+        boolean words = false;
+        for (Alternative alternative : alternatives) {
+            math |= alternative.math != null;
+            trigrams |= alternative.maxEdits > 0;
+            words |= alternative.keywords.length > 0;
+        }
+        this.needsMath = math;
+        this.needsTrigrams = trigrams;
+        this.needsWords = words;
+    }
+
+    /**
+     * Compile an answer-key entry, or return null if it has no usable alternative
+     */
+    public static ShortAnswerMatcher compile(String correctAnswer) {
+        if (correctAnswer == null) {
+            return null;
+        }
+        String entry = correctAnswer.trim();
+        int editsOverride = -1;
+        boolean exact = false;
+        if (entry.regionMatches(true, 0, EXACT_DIRECTIVE, 0, EXACT_DIRECTIVE.length())) {
+            editsOverride = 0;
+            exact = true;
+            entry = entry.substring(EXACT_DIRECTIVE.length());
+        } else if (entry.regionMatches(true, 0, FUZZY_DIRECTIVE, 0, FUZZY_DIRECTIVE.length())) {
+            int close = entry.indexOf(']');
+            if (close > 0) {
+                try {
+                    editsOverride = Math.min(MAX_EDITS, Math.max(0,
+                        Integer.parseInt(entry.substring(FUZZY_DIRECTIVE.length(), close).trim())));
+                    entry = entry.substring(close + 1);
+                } catch (NumberFormatException e) {
+                    // Not a directive; match the entry as written
+                }
+            }
+        }
+
+        List<Alternative> alternatives = new ArrayList<>();
+        int from = 0;
+        while (from <= entry.length() && alternatives.size() < MAX_ALTERNATIVES) {
+            int separator = entry.indexOf(ALTERNATIVE_SEPARATOR, from);
+            int to = separator >= 0 ? separator : entry.length();
+            String text = entry.substring(from, to);
+            String normalized = normalize(text);
+            if (!normalized.isEmpty()) {
+                alternatives.add(new Alternative(text, normalized,
+                    editsOverride >= 0 ? editsOverride : defaultMaxEdits(normalized), !exact));
+            }
+            if (separator < 0) {
+                break;
+            }
+            from = separator + ALTERNATIVE_SEPARATOR.length();
+        }
+        return alternatives.isEmpty() ? null : new ShortAnswerMatcher(alternatives.toArray(new Alternative[0]));
+    }
+
+    /**
+     * Whether any alternative accepts the student's answer
+     */
+    public boolean matches(String studentAnswer) {
+        if (studentAnswer == null) {
+            return false;
+        }
+        String raw = studentAnswer.length() > MAX_INPUT_CHARS ? studentAnswer.substring(0, MAX_INPUT_CHARS) : studentAnswer;
+        String student = normalize(raw);
+        if (student.isEmpty()) {
+            return false;
+        }
+        for (Alternative alternative : alternatives) {
+            if (student.equals(alternative.normalized)) {
+                return true;
+            }
+        }
+
+        if (needsMath) {
+            MathAnswer studentMath = MathAnswer.parse(raw);
+            if (studentMath != null) {
+                for (Alternative alternative : alternatives) {
+                    if (alternative.math != null && alternative.math.matches(studentMath)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        String studentNumbers = numbers(student);
+        long[] studentTrigrams = needsTrigrams ? trigrams(student) : null;
+        for (Alternative alternative : alternatives) {
+            if (alternative.maxEdits > 0 && studentNumbers.equals(alternative.numbers)
+                && withinEdits(student, studentTrigrams, alternative)) {
+                return true;
+            }
+        }
+
+        if (!needsWords) {
+            return false;
+        }
+        String[] words = student.split(" ");
+        if (words.length > MAX_STUDENT_WORDS) {
+            words = Arrays.copyOf(words, MAX_STUDENT_WORDS);
+        }
+        Set<String> wordSet = new HashSet<>(Arrays.asList(words));
+        for (Alternative alternative : alternatives) {
+            if (alternative.keywords.length > 0 && words.length <= alternative.maxStudentWords
+                && keywordMatches(alternative, words, wordSet) >= alternative.minKeywordMatches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean withinEdits(String student, long[] studentTrigrams, Alternative alternative) {
+        int k = alternative.maxEdits;
+        String correct = alternative.normalized;
+        if (Math.abs(student.length() - correct.length()) > k) {
+            return false;
+        }
+        // Each edit destroys at most three trigrams (q-gram lemma)
+        int required = Math.max(student.length(), correct.length()) - 2 - 3 * k;
+        if (required > 0 && sharedCount(studentTrigrams, alternative.trigrams) < required) {
+            return false;
+        }
+        return boundedDistance(student, correct, k) <= k;
+    }
+
+    private static int keywordMatches(Alternative alternative, String[] words, Set<String> wordSet) {
+        int matched = 0;
+        for (String keyword : alternative.keywords) {
+            if (wordSet.contains(keyword)) {
+                matched++;
+            } else if (keyword.length() >= FUZZY_WORD_MIN_LENGTH && numbers(keyword).isEmpty()) {
+                for (String word : words) {
+                    if (Math.abs(word.length() - keyword.length()) <= 1 && boundedDistance(word, keyword, 1) <= 1) {
+                        matched++;
+                        break;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Levenshtein distance of a and b if it is at most k, otherwise k + 1. Only the diagonal band
+     * of width 2k + 1 is filled, and the scan stops once every cell in a row is over k.
+     */
+    static int boundedDistance(String a, String b, int k) {
+        int n = a.length();
+        int m = b.length();
+        int over = k + 1;
+        if (Math.abs(n - m) > k) {
+            return over;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= k ? j : over;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - k);
+            int to = Math.min(m, i + k);
+            current[0] = i <= k ? i : over;
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = from == 1 ? current[0] : over;
+            char c = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int value = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                value = Math.min(value, previous[j] + 1);
+                value = Math.min(value, current[j - 1] + 1);
+                current[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = over;
+            }
+            if (rowMin > k) {
+                return over;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
+    private static int defaultMaxEdits(String normalized) {
+        int length = normalized.length();
+        if (length <= 4) {
+            return 0;
+        }
+        return length <= 8 ? 1 : 2;
+    }
+
+    /**
+     * Lower case, words separated by single spaces. Prose punctuation is dropped; symbols such as
+     * signs, '+', '#' or '%' are kept, as is a '.' or ',' between two digits.
+     */
+    static String normalize(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean keep;
+            if (c == '.' || c == ',') {
+                keep = i > 0 && i + 1 < text.length() && Character.isDigit(text.charAt(i - 1))
+                    && Character.isDigit(text.charAt(i + 1));
+            } else {
+                keep = !Character.isWhitespace(c) && PROSE_PUNCTUATION.indexOf(c) < 0;
+            }
+            if (keep) {
+                if (pendingSpace && result.length() > 0) {
+                    result.append(' ');
+                }
+                pendingSpace = false;
+                result.append(Character.toLowerCase(c));
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            }
+        }
+        return result.toString();
+    }
+
+    private static String numbers(String normalized) {
+        StringBuilder result = null;
+        boolean inNumber = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (result == null) {
+                    result = new StringBuilder();
+                } else if (!inNumber) {
+                    result.append(' ');
+                }
+                result.append(c);
+                inNumber = true;
+            } else {
+                inNumber = false;
+            }
+        }
+        return result != null ? result.toString() : "";
+    }
+
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        return grams;
+    }
+
+    // Size of the multiset intersection of two sorted arrays
+    private static int sharedCount(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+}
@@ -0,0 +1,81 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+import com.exam.entity.SubmissionAnswers;
+import com.exam.repository.SubmissionAnswersRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the per-question answers of exam submissions (table submission_answers).
+ *
+ * ExamSubmission rows no longer carry the answers, so listing queries stay narrow; detail
+ * views call load() for the one submission they show.
+ */
+@Service
+public class SubmissionAnswerStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionAnswerStore.class);
+
+    private static final int MIGRATION_BATCH_SIZE = 500;
+
+    @Autowired
+    private SubmissionAnswersRepository submissionAnswersRepository;
+
+    public void save(Long submissionId, AnswerDetails details) {
+        submissionAnswersRepository.save(new SubmissionAnswers(submissionId, details));
+    }
+
+    /**
+     * Answers of one submission, or an empty AnswerDetails if none were stored
+     */
+    public AnswerDetails load(Long submissionId) {
+        if (submissionId == null) {
+            return AnswerDetails.empty();
+        }
+        return submissionAnswersRepository.findById(submissionId)
+            .map(SubmissionAnswers::getDetails)
+            .orElse(AnswerDetails.empty());
+    }
+
+    /**
+     * Move answers still stored as text in exam_submissions.answer_details_json into
+     * submission_answers, in batches, clearing the old column as each batch is copied
+     */
+    @PostConstruct
+    public void migrateLegacyAnswerDetails() {
+        int migrated = 0;
+        try {
+            List<Object[]> rows;
+            while (!(rows = submissionAnswersRepository.findLegacyAnswerDetails(MIGRATION_BATCH_SIZE)).isEmpty()) {
+                List<SubmissionAnswers> batch = new ArrayList<>(rows.size());
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    Long id = ((Number) row[0]).longValue();
+                    batch.add(new SubmissionAnswers(id, AnswerDetails.parseLegacy((String) row[1])));
+                    ids.add(id);
+                }
+                submissionAnswersRepository.saveAll(batch);
+                submissionAnswersRepository.clearLegacyAnswerDetails(ids);
+                migrated += ids.size();
+            }
+        } catch (Exception e) {
+            // A fresh schema has no answer_details_json column: nothing to migrate
+            if (migrated == 0) {
+                return;
+            }
+            log.warn("⚠️ Answer details migration stopped after {} submissions: {}", migrated, e.getMessage());
+        }
+        if (migrated > 0) {
+            log.info("✅ Migrated answer details of {} submissions to submission_answers", migrated);
+        }
+    }
+}
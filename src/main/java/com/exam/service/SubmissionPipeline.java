@@ -0,0 +1,747 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+import com.exam.entity.DistributedAssignment;
+import com.exam.entity.ExamSubmission;
+import com.exam.entity.PendingSubmission;
+import com.exam.repository.ExamSubmissionRepository;
+import com.exam.repository.PendingSubmissionRepository;
+import com.exam.service.AssignmentMaterializer.MaterializedExam;
+import com.exam.service.ExamAttemptStore.ExamAttemptContext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grades exam submissions in the background.
+ *
+ * submit() only stores the raw answers as a PendingSubmission and queues it, so the student's
+ * request returns immediately even when a whole class submits at the deadline. A bounded
+ * worker pool then runs three stages: GRADE (score and answer details), ANALYZE (Random
+ * Forest analytics and IRT ability) and SAVE (the ExamSubmission row, re-locking and removing
+ * the assignment). SAVE writes the ExamSubmission, its answer details and the COMPLETED
+ * status in one transaction, so a submission resumed after a crash is never inserted twice.
+ * A failed stage is retried after a delay, up to the configured number of
+ * attempts. Submissions that were queued or running when the server stopped, or that did not
+ * fit in the queue, are picked up again by a scheduled resume.
+ *
+ * Each exam page carries a submit token. A repeated submit with the same token (double click,
+ * browser retry) is answered with the existing submission from a bounded, expiring cache of
+ * recent tokens; the unique (student, token) constraint on pending_submissions catches the
+ * repeats the cache does not know about, e.g. after a restart.
+ */
+@Service
+public class SubmissionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionPipeline.class);
+
+    // Per-question verdicts, logged at DEBUG for a sample of submissions only
+    private static final Logger questionLog = LoggerFactory.getLogger("com.exam.grading.questions");
+
+    private static final List<String> UNFINISHED = List.of(PendingSubmission.RECEIVED, PendingSubmission.GRADING,
+                                                           PendingSubmission.ANALYZING, PendingSubmission.SAVING);
+
+    // Finished jobs are kept this long so the results page can still read them
+    private static final long JOB_RETENTION_MINUTES = 60;
+
+    @Autowired
+    private PendingSubmissionRepository pendingSubmissionRepository;
+
+    @Autowired
+    private ExamSubmissionRepository examSubmissionRepository;
+
+    @Autowired
+    private SubmissionAnswerStore submissionAnswerStore;
+
+    @Autowired
+    private AssignmentStore assignmentStore;
+
+    @Autowired
+    private AssignmentMaterializer assignmentMaterializer;
+
+    @Autowired
+    private AnswerKeyService answerKeyService;
+
+    @Autowired
+    private ExamAttemptStore examAttemptStore;
+
+    @Autowired
+    private RandomForestService randomForestService;
+
+    @Autowired
+    private RandomForestAnalyticsService randomForestAnalyticsService;
+
+    @Autowired
+    private AbilityEstimationService abilityEstimationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.submissions.threads:0}")
+    private int threads;
+
+    @Value("${app.submissions.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.submissions.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.submissions.retry-delay-ms:2000}")
+    private long retryDelayMs;
+
+    // Log per-question detail for one in every N graded submissions (1 = all)
+    @Value("${app.logging.question-detail-sample-every:50}")
+    private int questionDetailSampleEvery;
+
+    private final AtomicLong gradedCount = new AtomicLong();
+
+    @Value("${app.submissions.token-cache-size:20000}")
+    private int tokenCacheSize;
+
+    @Value("${app.submissions.token-ttl-minutes:120}")
+    private long tokenTtlMinutes;
+
+    // Map: student + submit token -> recent submission, oldest first; guarded by "this"
+    private final LinkedHashMap<String, SubmittedToken> submitTokens = new LinkedHashMap<>();
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService retryScheduler;
+
+    // Map: pendingId -> job (queued, running or recently finished)
+    private final Map<String, SubmissionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * One submission moving through the stages. Intermediate results stay in memory,
+     * so a retry continues from the stage that failed.
+     */
+    private static class SubmissionJob {
+        private final PendingSubmission pending;
+        private final ExamAttemptContext attempt;
+
+        // GRADE
+        private String examId;
+        private Integer examVersion;
+        private Map<Integer, String> key;
+        private List<String> answerList;
+        private AnswerDetails answerDetails;
+        private int score;
+        private double percentage;
+
+        // ANALYZE
+        private RandomForestService.StudentAnalytics analytics;
+        private Map<String, Object> rfReport;
+        private IRT3PLService.AbilityEstimate ability;
+        private int scaledScore;
+
+        SubmissionJob(PendingSubmission pending, ExamAttemptContext attempt) {
+            this.pending = pending;
+            this.attempt = attempt;
+        }
+    }
+
+    private static class SubmittedToken {
+        private final String pendingId;
+        private final long expiresAtMillis;
+
+        SubmittedToken(String pendingId, long expiresAtMillis) {
+            this.pendingId = pendingId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "exam-submission");
+                thread.setDaemon(true);
+                return thread;
+            });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exam-submission-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * Durably store the student's answers and queue them for grading.
+     * Answers are keyed by question number. Returns the pending submission id; if the submit
+     * token was already used, nothing is stored and the id of the earlier submission is returned.
+     */
+    public String submit(String studentEmail, ExamAttemptContext attempt, String assignmentId, Map<Integer, String> answers,
+                         String submitToken) {
+        String pendingId = "S_" + UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+        if (submitToken != null) {
+            String existing = claimSubmitToken(studentEmail, submitToken, pendingId);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        PendingSubmission pending = new PendingSubmission();
+        pending.setPendingId(pendingId);
+        pending.setStudentEmail(studentEmail);
+        pending.setAssignmentId(assignmentId);
+        pending.setAttemptId(attempt != null ? attempt.getAttemptId() : null);
+        pending.setSubmitToken(submitToken);
+        pending.setAnswers(answers);
+        pending.setPresentedPositions(attempt != null ? attempt.getPresentedPositions() : null);
+        try {
+            pendingSubmissionRepository.save(pending);
+        } catch (DataIntegrityViolationException e) {
+            // Token used before this cache saw it (another server, or before a restart)
+            PendingSubmission earlier = submitToken != null
+                ? pendingSubmissionRepository.findByStudentEmailAndSubmitToken(studentEmail, submitToken).orElse(null)
+                : null;
+            if (earlier == null) {
+                releaseSubmitToken(studentEmail, submitToken, pendingId);
+                throw e;
+            }
+            rememberSubmitToken(studentEmail, submitToken, earlier.getPendingId());
+            return earlier.getPendingId();
+        } catch (RuntimeException e) {
+            releaseSubmitToken(studentEmail, submitToken, pendingId);
+            throw e;
+        }
+
+        SubmissionJob job = new SubmissionJob(pending, attempt);
+        jobs.put(pending.getPendingId(), job);
+        enqueue(job);
+        return pending.getPendingId();
+    }
+
+    /**
+     * Submission recently made with this token, or null. Only consults the in-memory cache,
+     * so repeated submits are turned away without touching the database.
+     */
+    public synchronized String findRecentSubmission(String studentEmail, String submitToken) {
+        if (submitToken == null) {
+            return null;
+        }
+        SubmittedToken entry = submitTokens.get(studentEmail + '\n' + submitToken);
+        return entry != null && entry.expiresAtMillis > System.currentTimeMillis() ? entry.pendingId : null;
+    }
+
+    /**
+     * Record pendingId as the submission for this token, unless the token already has a live
+     * one, which is returned instead
+     */
+    private synchronized String claimSubmitToken(String studentEmail, String submitToken, String pendingId) {
+        String existing = findRecentSubmission(studentEmail, submitToken);
+        if (existing != null) {
+            return existing;
+        }
+        rememberSubmitToken(studentEmail, submitToken, pendingId);
+        return null;
+    }
+
+    private synchronized void rememberSubmitToken(String studentEmail, String submitToken, String pendingId) {
+        long now = System.currentTimeMillis();
+        String key = studentEmail + '\n' + submitToken;
+        submitTokens.remove(key);
+        submitTokens.put(key, new SubmittedToken(pendingId, now + tokenTtlMinutes * 60_000L));
+        // Entries are in insertion order with the same TTL: drop expired ones and any over the bound
+        Iterator<SubmittedToken> oldest = submitTokens.values().iterator();
+        while (oldest.hasNext()) {
+            SubmittedToken entry = oldest.next();
+            if (entry.expiresAtMillis > now && submitTokens.size() <= Math.max(1, tokenCacheSize)) {
+                break;
+            }
+            oldest.remove();
+        }
+    }
+
+    private synchronized void releaseSubmitToken(String studentEmail, String submitToken, String pendingId) {
+        if (submitToken == null) {
+            return;
+        }
+        String key = studentEmail + '\n' + submitToken;
+        SubmittedToken entry = submitTokens.get(key);
+        if (entry != null && entry.pendingId.equals(pendingId)) {
+            submitTokens.remove(key);
+        }
+    }
+
+    /**
+     * Current state of a student's pending submission, or null if unknown or someone else's
+     */
+    public PendingSubmission getStatus(String pendingId, String studentEmail) {
+        if (pendingId == null) {
+            return null;
+        }
+        SubmissionJob job = jobs.get(pendingId);
+        PendingSubmission pending = job != null
+            ? job.pending
+            : pendingSubmissionRepository.findById(pendingId).orElse(null);
+        return pending != null && pending.getStudentEmail().equals(studentEmail) ? pending : null;
+    }
+
+    /**
+     * Queue unfinished submissions that are not in memory: left over from before a restart,
+     * or turned away because the queue was full
+     */
+    @Scheduled(fixedDelayString = "${app.submissions.resume-interval-ms:30000}")
+    public void resumeUnfinished() {
+        pruneFinishedJobs();
+        List<PendingSubmission> unfinished;
+        try {
+            unfinished = pendingSubmissionRepository.findByStatusIn(UNFINISHED);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load unfinished submissions: {}", e.getMessage());
+            return;
+        }
+        int resumed = 0;
+        for (PendingSubmission pending : unfinished) {
+            if (jobs.containsKey(pending.getPendingId())) {
+                continue;
+            }
+            // Intermediate results were lost with the old job; grading is deterministic so start over
+            pending.setStatus(PendingSubmission.RECEIVED);
+            SubmissionJob job = new SubmissionJob(pending,
+                examAttemptStore.get(pending.getAttemptId(), pending.getStudentEmail()));
+            if (jobs.putIfAbsent(pending.getPendingId(), job) == null) {
+                enqueue(job);
+                resumed++;
+            }
+        }
+        if (resumed > 0) {
+            log.info("🔁 Resumed {} unfinished submissions", resumed);
+        }
+    }
+
+    private void enqueue(SubmissionJob job) {
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // Queue is full: the row stays unfinished in the database and resumeUnfinished retries it
+            jobs.remove(job.pending.getPendingId());
+            log.warn("⚠️ Submission queue full, deferring {}", job.pending.getPendingId());
+        }
+    }
+
+    private void run(SubmissionJob job) {
+        PendingSubmission pending = job.pending;
+        try {
+            if (PendingSubmission.RECEIVED.equals(pending.getStatus()) || PendingSubmission.GRADING.equals(pending.getStatus())) {
+                updateStatus(pending, PendingSubmission.GRADING);
+                grade(job);
+                updateStatus(pending, PendingSubmission.ANALYZING);
+            }
+            if (PendingSubmission.ANALYZING.equals(pending.getStatus())) {
+                analyze(job);
+                updateStatus(pending, PendingSubmission.SAVING);
+            }
+            if (PendingSubmission.SAVING.equals(pending.getStatus())) {
+                save(job);
+            }
+        } catch (Exception e) {
+            pending.setAttempts(pending.getAttempts() + 1);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            pending.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            boolean retryable = !(e instanceof IllegalStateException) && pending.getAttempts() < maxAttempts;
+            log.error("❌ Submission {} failed in {} (attempt {}): {}",
+                pending.getPendingId(), pending.getStatus(), pending.getAttempts(), message);
+            if (retryable) {
+                saveQuietly(pending);
+                retryScheduler.schedule(() -> enqueue(job), retryDelayMs * pending.getAttempts(), TimeUnit.MILLISECONDS);
+            } else {
+                pending.setCompletedAt(LocalDateTime.now());
+                pending.setStatus(PendingSubmission.FAILED);
+                saveQuietly(pending);
+            }
+        }
+    }
+
+    /**
+     * GRADE: score the answers against the assignment's answer key
+     */
+    private void grade(SubmissionJob job) {
+        PendingSubmission pending = job.pending;
+        String studentId = pending.getStudentEmail();
+        ExamAttemptContext attempt = job.attempt;
+        DistributedAssignment currentAssignmentMeta = assignmentStore.get(studentId, pending.getAssignmentId());
+        Map<Integer, String> answers = pending.getAnswers() != null ? pending.getAnswers() : new HashMap<>();
+
+        // Get answer key for this assignment, with its matchers compiled when the exam template was built
+        Map<Integer, String> key = attempt != null ? attempt.getAnswerKey() : null;
+        Map<Integer, CompiledAnswer> compiledKey = attempt != null ? attempt.getCompiledAnswers() : null;
+        int[] sourceQuestions = attempt != null ? attempt.getSourceQuestions() : null;
+        Integer examVersion = attempt != null ? attempt.getExamVersion() : null;
+        if ((key == null || key.isEmpty()) && currentAssignmentMeta != null) {
+            MaterializedExam materialized = materialize(currentAssignmentMeta, pending);
+            if (materialized != null) {
+                key = materialized.getAnswerKey();
+                compiledKey = materialized.getCompiledAnswers();
+                sourceQuestions = materialized.getSourceQuestions();
+                examVersion = materialized.getTemplate().getVersion();
+            }
+        }
+        // The in-memory key covers the whole assignment, never just the items an adaptive test gave
+        if ((key == null || key.isEmpty()) && pending.getPresentedPositions() == null) {
+            AnswerKeyService.StudentKey studentKey = answerKeyService.getStudentKey(studentId);
+            // Held per student, not per assignment: only trusted if it is of the assignment's exam version
+            if (studentKey != null && currentAssignmentMeta != null
+                && (!studentKey.getExamKey().getExamId().equals(currentAssignmentMeta.getExamId())
+                    || studentKey.getExamKey().getVersion() != currentAssignmentMeta.getExamVersion())) {
+                studentKey = null;
+            }
+            key = studentKey != null ? studentKey.toMap() : null;
+            compiledKey = studentKey != null ? studentKey.toCompiledMap() : null;
+            sourceQuestions = studentKey != null ? studentKey.getSourceQuestions() : null;
+            examVersion = studentKey != null && studentKey.getExamKey().getVersion() >= 0
+                ? studentKey.getExamKey().getVersion() : null;
+        }
+        // Matchers come only from the exam template, which knows each question's type
+        if (key == null || compiledKey == null) {
+            log.error("No answer key found for student {}", studentId);
+            throw new IllegalStateException("No answer key available for grading.");
+        }
+
+        boolean logQuestions = questionLog.isDebugEnabled()
+            && gradedCount.getAndIncrement() % Math.max(1, questionDetailSampleEvery) == 0;
+        log.debug("Grading submission {} for {}: {} questions in key, {} answered",
+            pending.getPendingId(), studentId, key.size(), answers.size());
+
+        // Convert answers to list and calculate score
+        List<String> answerList = new ArrayList<>();
+        AnswerDetails.Builder answerDetails = new AnswerDetails.Builder(key.size());
+        int score = 0;
+        for (int i = 1; i <= key.size(); i++) {
+            String studentAns = answers.get(i);
+            String correctAns = key.get(i);
+            answerList.add(studentAns != null ? studentAns : "");
+
+            // Flexible answer matching (letter, exact text or key terms)
+            CompiledAnswer matcher = compiledKey.get(i);
+            boolean isCorrect = matcher != null && matcher.matches(studentAns);
+            if (logQuestions) {
+                questionLog.debug("{} Q{}: '{}' vs '{}' -> {}", pending.getPendingId(), i, studentAns, correctAns,
+                                  isCorrect ? "correct" : "wrong");
+            }
+            if (isCorrect) {
+                score++;
+            }
+
+            // Store details for displaying on results page (when released)
+            int sourceQuestion = sourceQuestions != null && i <= sourceQuestions.length ? sourceQuestions[i - 1] : -1;
+            answerDetails.add(i, sourceQuestion, studentAns != null ? studentAns.trim() : AnswerDetails.NO_ANSWER,
+                              correctAns != null ? correctAns.trim() : AnswerDetails.NOT_SET, isCorrect);
+        }
+
+        // Prevent division by zero
+        double percentage;
+        if (key.size() > 0) {
+            percentage = (score * 100.0 / key.size());
+        } else {
+            percentage = 0.0;
+            log.warn("⚠️ Answer key is empty (0 questions)!");
+        }
+
+        log.info("Graded submission {} for {}: {} / {}", pending.getPendingId(), studentId, score, key.size());
+
+        job.examId = attempt != null ? attempt.getExamId()
+            : currentAssignmentMeta != null ? currentAssignmentMeta.getExamId() : null;
+        job.examVersion = examVersion;
+        job.key = key;
+        job.answerList = answerList;
+        job.answerDetails = answerDetails.build();
+        job.score = score;
+        job.percentage = percentage;
+    }
+
+    /**
+     * The questions the submission answered, regenerated from the assignment: all of them, or
+     * only the presented positions it recorded (an adaptive test). Null if the assignment
+     * cannot be regenerated or no longer has those positions.
+     */
+    private MaterializedExam materialize(DistributedAssignment assignment, PendingSubmission pending) {
+        MaterializedExam exam = assignmentMaterializer.materialize(assignment);
+        int[] positions = pending.getPresentedPositions();
+        if (exam == null || positions == null) {
+            return exam;
+        }
+        for (int position : positions) {
+            if (position < 0 || position >= exam.getSourceQuestions().length) {
+                return null;
+            }
+        }
+        return exam.select(positions, positions.length);
+    }
+
+    /**
+     * ANALYZE: legacy analytics, Random Forest features/report and IRT ability
+     */
+    private void analyze(SubmissionJob job) {
+        String studentId = job.pending.getStudentEmail();
+        ExamAttemptContext attempt = job.attempt;
+        Map<Integer, String> key = job.key;
+
+        // Calculate Random Forest Analytics
+        RandomForestService.StudentAnalytics analytics =
+            randomForestService.calculateStudentAnalytics(studentId, job.answerList, key, null);
+
+        // ===============================================
+        // TRUE RANDOM FOREST ALGORITHM INTEGRATION
+        // ===============================================
+
+        // Get question topics and difficulties from the attempt
+        List<String> questionTopics = attempt != null ? attempt.getTopics() : null;
+        List<String> questionDifficulties = attempt != null ? attempt.getDifficulties() : null;
+        if (questionTopics == null || questionDifficulties == null) {
+            DistributedAssignment topicSource = assignmentStore.get(studentId, job.pending.getAssignmentId());
+            if (topicSource == null) {
+                topicSource = assignmentStore.getLatest(studentId);
+            }
+            MaterializedExam topicExam = materialize(topicSource, job.pending);
+            if (questionTopics == null && topicExam != null) {
+                questionTopics = topicExam.getTopics();
+            }
+            if (questionDifficulties == null && topicExam != null) {
+                questionDifficulties = topicExam.getDifficulties();
+            }
+        }
+
+        // Default values if not found
+        if (questionTopics == null) {
+            questionTopics = new ArrayList<>();
+            for (int i = 0; i < key.size(); i++) {
+                questionTopics.add("General");  // Default topic
+            }
+        }
+
+        if (questionDifficulties == null) {
+            questionDifficulties = new ArrayList<>();
+            for (int i = 0; i < key.size(); i++) {
+                // Infer difficulty from question position (first 30% easy, next 50% medium, last 20% hard)
+                int totalQuestions = key.size();
+                if (i < totalQuestions * 0.3) {
+                    questionDifficulties.add("Easy");
+                } else if (i < totalQuestions * 0.8) {
+                    questionDifficulties.add("Medium");
+                } else {
+                    questionDifficulties.add("Hard");
+                }
+            }
+        }
+
+        // Create a temporary submission object for feature extraction
+        ExamSubmission tempSubmission = new ExamSubmission();
+        tempSubmission.setScore(job.score);
+        tempSubmission.setTotalQuestions(key.size());
+        tempSubmission.setPercentage(job.percentage);
+
+        // Set basic analytics from old RandomForestService (for backwards compatibility)
+        if (analytics != null) {
+            tempSubmission.setAccuracy(validateDouble(analytics.getAccuracy()));
+            tempSubmission.setTimeEfficiency(validateDouble(analytics.getTimeEfficiency()));
+            tempSubmission.setConfidence(validateDouble(analytics.getConfidence()));
+        } else {
+            // Calculate basic metrics if analytics is null
+            tempSubmission.setAccuracy(job.percentage);
+            tempSubmission.setTimeEfficiency(50.0);  // Default
+            tempSubmission.setConfidence(100.0);     // All questions attempted
+        }
+
+        // Extract features using TRUE Random Forest formulas
+        RandomForestAnalyticsService.StudentFeatures features =
+            randomForestAnalyticsService.extractFeatures(
+                tempSubmission,
+                questionTopics,
+                questionDifficulties,
+                job.answerDetails
+            );
+
+        // Generate comprehensive Random Forest report
+        Map<String, Object> rfReport = null;
+        try {
+            rfReport = randomForestAnalyticsService.generateStudentReport(features);
+            log.debug("📊 Topic Mastery (General): {}%, Difficulty Resilience: {}%, Accuracy: {}%, Overall: {}%, Category: {}",
+                rfReport.get("topicMasteryGeneral"), rfReport.get("difficultyResilience"), rfReport.get("accuracy"),
+                rfReport.get("overallScore"), rfReport.get("predictedCategory"));
+        } catch (Exception e) {
+            log.warn("⚠️ Random Forest report generation failed, falling back to legacy analytics: {}", e.getMessage());
+        }
+
+        // Calculate IRT 3PL Ability Estimate from the graded responses
+        IRT3PLService.AbilityEstimate abilityEstimate = abilityEstimationService.estimate(job.examId, job.answerDetails);
+        int scaledScore = abilityEstimationService.scaledScore(abilityEstimate.getTheta());
+        log.debug("IRT 3PL: θ={}, SE={}, scaled={}", abilityEstimate.getTheta(), abilityEstimate.getStandardError(), scaledScore);
+
+        // Keep Random Forest report and IRT metrics with the attempt for display
+        if (attempt != null) {
+            attempt.setRandomForestReport(rfReport);
+            attempt.recordAbility(abilityEstimate.getTheta(), scaledScore, abilityEstimate.getStandardError());
+        }
+
+        job.analytics = analytics;
+        job.rfReport = rfReport;
+        job.ability = abilityEstimate;
+        job.scaledScore = scaledScore;
+    }
+
+    /**
+     * SAVE: store the ExamSubmission, its answers and the COMPLETED status in one transaction,
+     * then re-lock the exam and retire the assignment
+     */
+    private void save(SubmissionJob job) {
+        PendingSubmission pending = job.pending;
+        String studentId = pending.getStudentEmail();
+        ExamAttemptContext attempt = job.attempt;
+        Map<String, Object> rfReport = job.rfReport;
+        RandomForestService.StudentAnalytics analytics = job.analytics;
+
+        // Save submission to database (auto-released)
+        ExamSubmission submission = new ExamSubmission();
+        submission.setStudentEmail(studentId);
+
+        // Retrieve exam metadata from the attempt
+        String examName = attempt != null ? attempt.getExamName() : null;
+        String subject = attempt != null ? attempt.getSubject() : null;
+        String activityType = attempt != null ? attempt.getActivityType() : null;
+        DistributedAssignment submitMeta = assignmentStore.get(studentId, pending.getAssignmentId());
+        if (submitMeta == null) {
+            submitMeta = assignmentStore.getLatest(studentId);
+        }
+        if (submitMeta != null) {
+            if (examName == null || examName.isEmpty()) {
+                examName = submitMeta.getExamName();
+            }
+            if (subject == null || subject.isEmpty()) {
+                subject = submitMeta.getExamSubject();
+            }
+            if (activityType == null || activityType.isEmpty()) {
+                activityType = submitMeta.getExamActivityType();
+            }
+        }
+
+        submission.setExamName(examName != null ? examName : "General Exam");
+        submission.setExamId(job.examId);
+        submission.setExamVersion(job.examVersion);
+        submission.setSubject(subject != null ? subject : "General");
+        submission.setActivityType(activityType != null ? activityType : "Exam");
+        submission.setScore(job.score);
+        submission.setTotalQuestions(job.key.size());
+        submission.setPercentage(job.percentage);
+        submission.setResultsReleased(true); // AUTO-RELEASE: Both teacher and student can see
+        submission.setSubmittedAt(pending.getReceivedAt());
+        submission.setReleasedAt(LocalDateTime.now()); // Released immediately
+        if (job.ability != null) {
+            submission.setIrtTheta(validateDouble(job.ability.getTheta()));
+            submission.setIrtStandardError(validateDouble(job.ability.getStandardError()));
+            submission.setIrtScaledScore(job.scaledScore);
+        }
+
+        // Store TRUE RANDOM FOREST analytics (validate to prevent NaN values)
+        if (rfReport != null) {
+            submission.setTopicMastery(validateDouble((Double) rfReport.get("topicMasteryGeneral")));
+            submission.setDifficultyResilience(validateDouble((Double) rfReport.get("difficultyResilience")));
+            submission.setAccuracy(validateDouble((Double) rfReport.get("accuracy")));
+            submission.setTimeEfficiency(validateDouble((Double) rfReport.get("timeEfficiency")));
+            submission.setConfidence(validateDouble((Double) rfReport.get("confidence")));
+            submission.setPerformanceCategory((String) rfReport.get("predictedCategory"));
+        } else if (analytics != null) {
+            // Fallback to old analytics if Random Forest report failed
+            submission.setTopicMastery(validateDouble(analytics.getTopicMastery()));
+            submission.setDifficultyResilience(validateDouble(analytics.getDifficultyResilience()));
+            submission.setAccuracy(validateDouble(analytics.getAccuracy()));
+            submission.setTimeEfficiency(validateDouble(analytics.getTimeEfficiency()));
+            submission.setConfidence(validateDouble(analytics.getConfidence()));
+            submission.setPerformanceCategory(analytics.getPerformanceCategory());
+        }
+
+        // All or nothing: until this commits the submission stays SAVING and is saved again from scratch
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                ExamSubmission savedSubmission = examSubmissionRepository.save(submission);
+                submissionAnswerStore.save(savedSubmission.getId(), job.answerDetails);
+                pending.setSubmissionId(savedSubmission.getId());
+                pending.setCompletedAt(LocalDateTime.now());
+                pending.setStatus(PendingSubmission.COMPLETED);
+                pendingSubmissionRepository.save(pending);
+            });
+        } catch (RuntimeException e) {
+            pending.setSubmissionId(null);
+            pending.setCompletedAt(null);
+            pending.setStatus(PendingSubmission.SAVING);
+            throw e;
+        }
+
+        // Remove unlock status after successful submission (lock exam again)
+        assignmentStore.removeUnlock(studentId, submission.getExamName());
+        log.debug("🔒 EXAM RE-LOCKED after submission: {} for {}", submission.getExamName(), studentId);
+
+        // Remove only the submitted assignment from distributed exams
+        assignmentStore.remove(studentId, pending.getAssignmentId());
+        log.debug("🗑️ ASSIGNMENT REMOVED from distributed list for student: {} | assignmentId={}",
+            studentId, pending.getAssignmentId());
+
+        // Keep results with the attempt for display on the results page
+        if (attempt != null) {
+            attempt.recordResult(pending.getSubmissionId(), job.score, job.key.size(), job.percentage,
+                                 job.answerDetails.toList(), analytics);
+        }
+    }
+
+    private void updateStatus(PendingSubmission pending, String status) {
+        pending.setStatus(status);
+        pendingSubmissionRepository.save(pending);
+    }
+
+    private void saveQuietly(PendingSubmission pending) {
+        try {
+            pendingSubmissionRepository.save(pending);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not update submission {}: {}", pending.getPendingId(), e.getMessage());
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(JOB_RETENTION_MINUTES);
+        jobs.values().removeIf(job -> job.pending.isFinished()
+            && job.pending.getCompletedAt() != null && job.pending.getCompletedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Validate double values to prevent NaN or Infinity from being saved to database
+     */
+    private static double validateDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return 0.0;
+        }
+        return value;
+    }
+}
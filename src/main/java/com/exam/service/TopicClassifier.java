@@ -0,0 +1,211 @@
+package com.exam.service;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyword-based topic detection for Random Forest analysis.
+ *
+ * The keyword dictionary is compiled once into an Aho-Corasick automaton, so a question
+ * is classified in a single pass over its text regardless of how many keywords exist.
+ * Keywords only count when they stand as whole words ("ip" does not match "zip").
+ * Topics are computed when an exam is processed and stored on the UploadedExam.
+ */
+@Service
+public class TopicClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicClassifier.class);
+
+    @Value("${app.topics.dictionary:classpath:topic-keywords.txt}")
+    private Resource dictionary;
+
+    private volatile Automaton automaton = new Automaton(new LinkedHashMap<>());
+
+    /**
+     * Compiled dictionary: a trie over lowercase keyword characters with failure links
+     */
+    private static final class Automaton {
+        private final String[] topicNames;
+        private final int[] keywordLength;
+        private final int[][] keywordTopics;          // keyword id -> topic ids
+        private final List<Map<Character, Integer>> next = new ArrayList<>();
+        private final List<Integer> fail = new ArrayList<>();
+        private final List<int[]> output = new ArrayList<>(); // node -> keyword ids ending here (incl. via fail links)
+
+        Automaton(Map<String, List<String>> topicKeywords) {
+            topicNames = topicKeywords.keySet().toArray(new String[0]);
+
+            // Same keyword under several topics (e.g. "memory") is stored once and credited to each
+            Map<String, List<Integer>> keywordToTopics = new LinkedHashMap<>();
+            for (int topic = 0; topic < topicNames.length; topic++) {
+                for (String keyword : topicKeywords.get(topicNames[topic])) {
+                    keywordToTopics.computeIfAbsent(keyword, k -> new ArrayList<>()).add(topic);
+                }
+            }
+
+            keywordLength = new int[keywordToTopics.size()];
+            keywordTopics = new int[keywordToTopics.size()][];
+            List<List<Integer>> nodeOutputs = new ArrayList<>();
+            addNode(nodeOutputs);
+
+            int keywordId = 0;
+            for (Map.Entry<String, List<Integer>> entry : keywordToTopics.entrySet()) {
+                String keyword = entry.getKey();
+                keywordLength[keywordId] = keyword.length();
+                keywordTopics[keywordId] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                int node = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = keyword.charAt(i);
+                    Integer child = next.get(node).get(c);
+                    if (child == null) {
+                        child = addNode(nodeOutputs);
+                        next.get(node).put(c, child);
+                    }
+                    node = child;
+                }
+                nodeOutputs.get(node).add(keywordId++);
+            }
+
+            // Breadth-first failure links; outputs inherit those of their failure node
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : next.get(0).values()) {
+                fail.set(child, 0);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (Map.Entry<Character, Integer> edge : next.get(node).entrySet()) {
+                    int child = edge.getValue();
+                    int f = fail.get(node);
+                    while (f != 0 && !next.get(f).containsKey(edge.getKey())) {
+                        f = fail.get(f);
+                    }
+                    Integer target = next.get(f).get(edge.getKey());
+                    fail.set(child, target != null && target != child ? target : 0);
+                    nodeOutputs.get(child).addAll(nodeOutputs.get(fail.get(child)));
+                    queue.add(child);
+                }
+            }
+            for (List<Integer> ids : nodeOutputs) {
+                output.add(ids.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        private int addNode(List<List<Integer>> nodeOutputs) {
+            next.add(new HashMap<>());
+            fail.add(0);
+            nodeOutputs.add(new ArrayList<>());
+            return next.size() - 1;
+        }
+
+        String classify(String question, String defaultTopic) {
+            if (topicNames.length == 0 || question == null) {
+                return defaultTopic;
+            }
+            BitSet matchedKeywords = new BitSet(keywordLength.length);
+            int length = question.length();
+            int node = 0;
+            for (int i = 0; i < length; i++) {
+                char c = Character.toLowerCase(question.charAt(i));
+                while (node != 0 && !next.get(node).containsKey(c)) {
+                    node = fail.get(node);
+                }
+                Integer child = next.get(node).get(c);
+                node = child != null ? child : 0;
+
+                for (int keyword : output.get(node)) {
+                    int start = i - keywordLength[keyword] + 1;
+                    boolean boundaryBefore = start == 0 || !Character.isLetterOrDigit(question.charAt(start - 1));
+                    boolean boundaryAfter = i + 1 == length || !Character.isLetterOrDigit(question.charAt(i + 1));
+                    if (boundaryBefore && boundaryAfter) {
+                        matchedKeywords.set(keyword);
+                    }
+                }
+            }
+
+            // Topic with most distinct keyword matches; ties go to the topic listed first
+            int[] matches = new int[topicNames.length];
+            for (int keyword = matchedKeywords.nextSetBit(0); keyword >= 0; keyword = matchedKeywords.nextSetBit(keyword + 1)) {
+                for (int topic : keywordTopics[keyword]) {
+                    matches[topic]++;
+                }
+            }
+            String detectedTopic = defaultTopic;
+            int maxMatches = 0;
+            for (int topic = 0; topic < topicNames.length; topic++) {
+                if (matches[topic] > maxMatches) {
+                    maxMatches = matches[topic];
+                    detectedTopic = topicNames[topic];
+                }
+            }
+            return detectedTopic;
+        }
+    }
+
+    /**
+     * Load the keyword dictionary and build the automaton
+     */
+    @PostConstruct
+    public void loadDictionary() {
+        Map<String, List<String>> topicKeywords = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                int separator = line.indexOf('=');
+                if (line.isEmpty() || line.startsWith("#") || separator <= 0) {
+                    continue;
+                }
+                String topic = line.substring(0, separator).trim();
+                List<String> keywords = topicKeywords.computeIfAbsent(topic, k -> new ArrayList<>());
+                Arrays.stream(line.substring(separator + 1).split(","))
+                    .map(keyword -> keyword.trim().toLowerCase())
+                    .filter(keyword -> !keyword.isEmpty())
+                    .forEach(keywords::add);
+            }
+            automaton = new Automaton(topicKeywords);
+            log.info("✅ Loaded {} topics for question classification", topicKeywords.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not load topic dictionary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Topic of a single question, or the default subject if no keyword matches
+     */
+    public String classify(String question, String defaultSubject) {
+        return automaton.classify(question, defaultSubject != null ? defaultSubject : "General");
+    }
+
+    /**
+     * Extract topics from questions for Random Forest analysis
+     * This analyzes question text to determine subject areas
+     */
+    public List<String> extractTopics(List<String> questions, String defaultSubject) {
+        Automaton compiled = automaton;
+        String defaultTopic = defaultSubject != null ? defaultSubject : "General";
+        List<String> topics = new ArrayList<>(questions.size());
+        for (String question : questions) {
+            topics.add(compiled.classify(question, defaultTopic));
+        }
+        return topics;
+    }
+}
@@ -1,6 +1,9 @@
 /**
  * Student Exam Page JavaScript
  * Handles exam navigation, timer, auto-save, and anti-cheating features
+ *
+ * Adaptive tests (examInfo.adaptive) get one question per page: Next posts the answer and the
+ * server picks the next question, so there is no going back and nothing to auto-save.
  */
 
 // Global variables (will be initialized from Thymeleaf)
@@ -20,16 +23,26 @@ let tabSwitchCount = 0;
 let isExamActive = true;
 let isSubmitting = false;
 
+// Server autosave: answers changed since the last successful save, sent after a short pause
+const SERVER_SAVE_DELAY_MS = 3000;
+let unsavedChanges = {};
+let serverSaveTimer = null;
+let serverSaveInFlight = false;
+
+function isAdaptive() {
+    return examInfo.adaptive === 'true';
+}
+
 /**
  * Initialize the exam from Thymeleaf data
  */
-function initializeExam(examData, difficultiesData, examInfoData) {
+function initializeExam(examData, difficultiesData, examInfoData, savedAnswersData) {
     exam = examData;
     difficulties = difficultiesData;
     examInfo = examInfoData;
     totalQuestions = exam.length;
     
-    loadSavedAnswers();
+    loadSavedAnswers(savedAnswersData);
     displayQuestion();
     initializeTimer();
     displayDeadline();
@@ -48,38 +61,97 @@ function setupEventListeners() {
 /**
  * Main initialization function called from HTML
  */
-window.startExam = function(examData, difficultiesData, examInfoData) {
+window.startExam = function(examData, difficultiesData, examInfoData, savedAnswersData) {
     // Wait for DOM to be ready
     if (document.readyState === 'loading') {
         document.addEventListener('DOMContentLoaded', () => {
-            initializeExam(examData, difficultiesData, examInfoData);
+            initializeExam(examData, difficultiesData, examInfoData, savedAnswersData);
             setupEventListeners();
         });
     } else {
         // DOM already loaded
-        initializeExam(examData, difficultiesData, examInfoData);
+        initializeExam(examData, difficultiesData, examInfoData, savedAnswersData);
         setupEventListeners();
     }
 };
 
 /**
- * Load saved answers from localStorage
+ * Load saved answers: those autosaved on the server, then any newer ones from localStorage
  */
-function loadSavedAnswers() {
+function loadSavedAnswers(serverAnswers) {
+    answers = Object.assign({}, serverAnswers || {});
+    if (isAdaptive()) return;
     const saved = localStorage.getItem('examAnswers');
     if (saved) {
-        answers = JSON.parse(saved);
+        const local = JSON.parse(saved);
+        for (const [key, value] of Object.entries(local)) {
+            if (answers[key] !== value) {
+                answers[key] = value;
+                unsavedChanges[key] = value;
+            }
+        }
+        scheduleServerSave();
     }
 }
 
 /**
- * Auto-save answers to localStorage
+ * Auto-save answers to localStorage, and queue the changed answer for the server
  */
-function autoSave() {
+function autoSave(changedKey) {
+    if (isAdaptive()) return;
     localStorage.setItem('examAnswers', JSON.stringify(answers));
+    if (changedKey) {
+        unsavedChanges[changedKey] = answers[changedKey] || '';
+        scheduleServerSave();
+    }
     showSaveIndicator();
 }
 
+function scheduleServerSave() {
+    if (serverSaveTimer || Object.keys(unsavedChanges).length === 0) return;
+    serverSaveTimer = setTimeout(() => {
+        serverSaveTimer = null;
+        saveToServer();
+    }, SERVER_SAVE_DELAY_MS);
+}
+
+/**
+ * Send the answers changed since the last save; on failure they are kept and sent again later
+ */
+function saveToServer(keepalive) {
+    if (serverSaveInFlight || isSubmitting || Object.keys(unsavedChanges).length === 0) return;
+    const changes = unsavedChanges;
+    unsavedChanges = {};
+    serverSaveInFlight = true;
+
+    fetch('/student/attempts/autosave', {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify(changes),
+        keepalive: !!keepalive
+    })
+        .then(response => response.ok ? response.json() : { saved: false })
+        .then(result => {
+            if (!result.saved) {
+                requeueChanges(changes);
+            }
+        })
+        .catch(() => requeueChanges(changes))
+        .finally(() => {
+            serverSaveInFlight = false;
+            scheduleServerSave();
+        });
+}
+
+// Put back changes that did not reach the server, unless the answer changed again meanwhile
+function requeueChanges(changes) {
+    for (const [key, value] of Object.entries(changes)) {
+        if (!(key in unsavedChanges)) {
+            unsavedChanges[key] = value;
+        }
+    }
+}
+
 /**
  * Show auto-save indicator
  */
@@ -129,6 +201,7 @@ function renderMathIfNeeded(text) {
 function displayQuestion() {
     let question = exam[currentPage];
     const questionNumber = currentPage + 1;
+    const displayNumber = isAdaptive() ? parseInt(examInfo.itemNumber) || questionNumber : questionNumber;
     
     // Remove [TEXT_INPUT] prefix if present
     const isTextInput = question.includes('[TEXT_INPUT]');
@@ -177,7 +250,7 @@ function displayQuestion() {
         imagesHtml += '</div>';
     }
     
-    let html = `<h5 class="mb-4">Question ${questionNumber}</h5>`;
+    let html = `<h5 class="mb-4">Question ${displayNumber}</h5>`;
     
     if (isTextInput) {
         // Text-input question (prefix hidden from student)
@@ -237,8 +310,9 @@ function displayQuestion() {
     updateDifficultyBadge();
     
     // Update navigation buttons
-    document.getElementById('backBtn').disabled = (currentPage === 0);
-    document.getElementById('nextBtn').textContent = (currentPage === totalQuestions - 1) ? 'Submit' : 'Next →';
+    document.getElementById('backBtn').disabled = isAdaptive() || (currentPage === 0);
+    document.getElementById('nextBtn').textContent =
+        (!isAdaptive() && currentPage === totalQuestions - 1) ? 'Submit' : 'Next →';
 }
 
 /**
@@ -250,7 +324,7 @@ function saveTextAnswer(questionNumber, value) {
     } else {
         delete answers['q' + questionNumber];
     }
-    autoSave();
+    autoSave('q' + questionNumber);
 }
 
 /**
@@ -265,13 +339,21 @@ function selectAnswer(questionNum, answer, button) {
     
     // Save answer
     answers['q' + questionNum] = answer;
-    autoSave();
+    autoSave('q' + questionNum);
 }
 
 /**
  * Update progress bar and indicators
  */
 function updateProgress() {
+    if (isAdaptive()) {
+        const itemNumber = parseInt(examInfo.itemNumber) || 1;
+        const maxItems = parseInt(examInfo.maxItems) || itemNumber;
+        document.getElementById('progressText').textContent = `Question ${itemNumber} of up to ${maxItems}`;
+        document.getElementById('progressBar').style.width = (itemNumber / maxItems) * 100 + '%';
+        document.getElementById('questionNumber').textContent = `${itemNumber} / ${maxItems}`;
+        return;
+    }
     const questionNum = currentPage + 1;
     const percentage = (questionNum / totalQuestions) * 100;
     
@@ -319,6 +401,10 @@ function navigateBack() {
  * Navigate to next question or submit
  */
 function navigateNext() {
+    if (isAdaptive()) {
+        submitAdaptiveAnswer();
+        return;
+    }
     if (currentPage < totalQuestions - 1) {
         currentPage++;
         displayQuestion();
@@ -327,6 +413,61 @@ function navigateNext() {
     }
 }
 
+/**
+ * Put the answers, the submit token and the assignment id into the exam form as hidden fields
+ */
+function fillExamForm(form) {
+    form.innerHTML = '';
+
+    for (const [key, value] of Object.entries(answers)) {
+        const input = document.createElement('input');
+        input.type = 'hidden';
+        input.name = key;
+        input.value = value;
+        form.appendChild(input);
+    }
+
+    // Lets the server recognise a repeated submit of this page
+    if (examInfo.submitToken) {
+        const token = document.createElement('input');
+        token.type = 'hidden';
+        token.name = 'submitToken';
+        token.value = examInfo.submitToken;
+        form.appendChild(token);
+    }
+
+    // Lets the server grade the right assignment if it no longer holds this attempt
+    if (examInfo.assignmentId) {
+        const assignment = document.createElement('input');
+        assignment.type = 'hidden';
+        assignment.name = 'assignmentId';
+        assignment.value = examInfo.assignmentId;
+        form.appendChild(assignment);
+    }
+
+    // Adaptive tests: which question this answer is for, so a repeated post is ignored
+    if (isAdaptive()) {
+        const sequence = document.createElement('input');
+        sequence.type = 'hidden';
+        sequence.name = 'sequence';
+        sequence.value = examInfo.sequence;
+        form.appendChild(sequence);
+    }
+}
+
+/**
+ * Send the answer to the current adaptive question; the server replies with the next one
+ */
+function submitAdaptiveAnswer() {
+    if (isSubmitting) return;
+    isSubmitting = true;
+    document.getElementById('nextBtn').disabled = true;
+
+    const form = document.getElementById('examForm');
+    fillExamForm(form);
+    form.submit();
+}
+
 /**
  * Submit the exam
  */
@@ -345,15 +486,7 @@ function submitExam() {
 
         // Create form and submit
         const form = document.getElementById('examForm');
-        form.innerHTML = '';
-        
-        for (const [key, value] of Object.entries(answers)) {
-            const input = document.createElement('input');
-            input.type = 'hidden';
-            input.name = key;
-            input.value = value;
-            form.appendChild(input);
-        }
+        fillExamForm(form);
         
         // Clear localStorage
         localStorage.removeItem('examAnswers');
@@ -490,14 +623,15 @@ function autoSubmitExam() {
 
         // Create form and submit without confirmation
         const form = document.getElementById('examForm');
-        form.innerHTML = '';
-        
-        for (const [key, value] of Object.entries(answers)) {
-            const input = document.createElement('input');
-            input.type = 'hidden';
-            input.name = key;
-            input.value = value;
-            form.appendChild(input);
+        fillExamForm(form);
+
+        // Adaptive tests: end the test with the questions answered so far
+        if (isAdaptive()) {
+            const finish = document.createElement('input');
+            finish.type = 'hidden';
+            finish.name = 'finish';
+            finish.value = 'true';
+            form.appendChild(finish);
         }
         
         form.submit();
@@ -558,6 +692,8 @@ function showTimesUpModal() {
 window.addEventListener('beforeunload', (e) => {
     // Skip the guard when the student is intentionally submitting
     if (isSubmitting) return;
+    // Last chance to get unsaved answers to the server; keepalive lets the request outlive the page
+    saveToServer(true);
     if (Object.keys(answers).length > 0 && timeRemainingSeconds > 0) {
         e.preventDefault();
         e.returnValue = '';
@@ -0,0 +1,107 @@
+package com.exam.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerDetailsTest {
+
+    @Test
+    void encodesTheDocumentedLayout() {
+        AnswerDetails details = new AnswerDetails.Builder(2)
+            .add(1, 0, "A", "B", true)
+            .add(300, -1, "é", "", false)
+            .build();
+
+        byte[] expected = {
+            2, 2,                                   // version, count
+            1, 1, 1, 1, 'A', 1, 'B',                // q1, source 0, correct, "A", "B"
+            (byte) 0xAC, 0x02, 0, 0,                // q300 as a two-byte varint, source unknown, wrong
+            2, (byte) 0xC3, (byte) 0xA9, 0          // "é" in UTF-8, ""
+        };
+        assertArrayEquals(expected, details.encode());
+    }
+
+    @Test
+    void roundTripKeepsSeparatorsAndNonAsciiAnswers() {
+        String[] answers = {
+            "a|b;c", "||;;", "x = 1; y = 2 | z", "naïve café", "日本語の答え", "emoji 🧪 ok", "", "line\nbreak\ttab", "\u0000"
+        };
+        AnswerDetails.Builder builder = new AnswerDetails.Builder(answers.length);
+        for (int i = 0; i < answers.length; i++) {
+            builder.add(i + 1, answers.length - 1 - i, answers[i], answers[answers.length - 1 - i], i % 2 == 0);
+        }
+        AnswerDetails details = builder.build();
+
+        byte[] encoded = details.encode();
+        AnswerDetails decoded = AnswerDetails.decode(encoded);
+
+        assertArrayEquals(details.getQuestionNumbers(), decoded.getQuestionNumbers());
+        assertArrayEquals(details.getSourceQuestions(), decoded.getSourceQuestions());
+        assertArrayEquals(details.getStudentAnswers(), decoded.getStudentAnswers());
+        assertArrayEquals(details.getCorrectAnswers(), decoded.getCorrectAnswers());
+        for (int i = 0; i < answers.length; i++) {
+            assertEquals(i % 2 == 0, decoded.getCorrect()[i]);
+        }
+        assertArrayEquals(encoded, decoded.encode());
+    }
+
+    @Test
+    void decodesVersionOneBlobsWithoutSourceQuestion() {
+        byte[] versionOne = {1, 1, 3, 0, 1, 'x', 2, (byte) 0xC3, (byte) 0xA9};
+
+        AnswerDetails decoded = AnswerDetails.decode(versionOne);
+
+        assertEquals(1, decoded.size());
+        assertEquals(3, decoded.getQuestionNumbers()[0]);
+        assertEquals(-1, decoded.getSourceQuestions()[0]);
+        assertFalse(decoded.getCorrect()[0]);
+        assertEquals("x", decoded.getStudentAnswers()[0]);
+        assertEquals("é", decoded.getCorrectAnswers()[0]);
+    }
+
+    @Test
+    void legacyTextMigratesToTheBinaryFormat() {
+        String legacy = "1|Paris|Paris|true;2|No Answer|Berlin|false;;garbage;x|a|b|true;3|Größe|größe|false;";
+
+        AnswerDetails migrated = AnswerDetails.decode(AnswerDetails.parseLegacy(legacy).encode());
+
+        assertArrayEquals(new int[] {1, 2, 3}, migrated.getQuestionNumbers());
+        assertArrayEquals(new int[] {-1, -1, -1}, migrated.getSourceQuestions());
+        assertArrayEquals(new String[] {"Paris", AnswerDetails.NO_ANSWER, "Größe"}, migrated.getStudentAnswers());
+        assertArrayEquals(new String[] {"Paris", "Berlin", "größe"}, migrated.getCorrectAnswers());
+        assertEquals(1, migrated.getCorrectCount());
+    }
+
+    @Test
+    void emptyAndMissingValues() {
+        assertTrue(AnswerDetails.decode(null).isEmpty());
+        assertTrue(AnswerDetails.decode(new byte[0]).isEmpty());
+        assertTrue(AnswerDetails.parseLegacy("").isEmpty());
+        assertArrayEquals(new byte[] {2, 0}, AnswerDetails.empty().encode());
+
+        AnswerDetails nulls = AnswerDetails.decode(new AnswerDetails.Builder(1).add(1, -1, null, null, false).build().encode());
+        assertEquals("", nulls.getStudentAnswers()[0]);
+        assertEquals("", nulls.getCorrectAnswers()[0]);
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> AnswerDetails.decode(new byte[] {9, 0}));
+    }
+
+    @Test
+    void largeAnswersUseMultiByteLengths() {
+        String answer = "ü".repeat(5000);
+        byte[] encoded = new AnswerDetails.Builder(1).add(1, 0, answer, answer, true).build().encode();
+
+        assertEquals(answer.getBytes(StandardCharsets.UTF_8).length * 2 + 9, encoded.length);
+        assertEquals(answer, AnswerDetails.decode(encoded).getStudentAnswers()[0]);
+    }
+}
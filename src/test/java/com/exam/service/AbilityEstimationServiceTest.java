@@ -0,0 +1,41 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AbilityEstimationServiceTest {
+
+    // v2 deleted question 1 of v1; v3 edited a question in place
+    private static final QuestionRemap REMAP = new QuestionRemap(Map.of(1, 1, 2, -1));
+
+    @Test
+    void responsesOfAnOlderVersionLineUpWithTheCurrentQuestions() {
+        AnswerDetails gradedAtVersion1 = new AnswerDetails.Builder(3)
+            .add(1, 2, "16", "16", true)
+            .add(2, 1, "9", "9", true)
+            .add(3, 0, "5", "4", false)
+            .build();
+        AnswerDetails gradedAtVersion3 = new AnswerDetails.Builder(2)
+            .add(1, 1, "16", "16", true)
+            .add(2, 0, "5", "4", false)
+            .build();
+
+        assertArrayEquals(new byte[] {0, 1}, AbilityEstimationService.responsesBySource(gradedAtVersion1, 1, 3, REMAP));
+        assertArrayEquals(new byte[] {0, 1}, AbilityEstimationService.responsesBySource(gradedAtVersion3, 3, 3, REMAP));
+    }
+
+    @Test
+    void unknownVersionsAreNotPooled() {
+        AnswerDetails details = new AnswerDetails.Builder(1).add(1, 0, "4", "4", true).build();
+
+        assertNull(AbilityEstimationService.responsesBySource(details, null, 3, REMAP));
+        assertNull(AbilityEstimationService.responsesBySource(details, 0, 3, REMAP));
+        assertNull(AbilityEstimationService.responsesBySource(details, 4, 3, REMAP));
+    }
+}
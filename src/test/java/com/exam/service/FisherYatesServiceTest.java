@@ -0,0 +1,92 @@
+package com.exam.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FisherYatesServiceTest {
+
+    // Order of 10 choices for seed 42, stream 0; regenerating an assignment relies on it never changing
+    private static final byte[] PERMUTATION_42_0 = {8, 5, 9, 0, 3, 1, 6, 2, 4, 7};
+
+    private final FisherYatesService service = new FisherYatesService();
+
+    @Test
+    void seededRandomIsSplitMix64() {
+        // First SplitMix64 outputs for seed 0: 0xE220A8397B1DCDAF, 0x6E789E6AA1B965F4
+        FisherYatesService.SeededRandom random = new FisherYatesService.SeededRandom(0L);
+        assertEquals(0xE220A839, random.nextInt());
+        assertEquals(0x6E789E6A, random.nextInt());
+    }
+
+    @Test
+    void fixedSeedGivesFixedPermutation() {
+        byte[] permutation = service.randomPermutation(10, service.seededRandom(42L, 0L));
+
+        assertArrayEquals(PERMUTATION_42_0, permutation);
+        assertArrayEquals(permutation, service.randomPermutation(10, service.seededRandom(42L, 0L)));
+
+        int[] order = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        service.shuffle(order, service.seededRandom(42L, 0L));
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(PERMUTATION_42_0[i], order[i]);
+        }
+
+        List<Integer> list = new ArrayList<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        service.shuffle(list, service.seededRandom(42L, 0L));
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals((int) PERMUTATION_42_0[i], (int) list.get(i));
+        }
+    }
+
+    @Test
+    void streamsAreIndependentAndRepeatable() {
+        Random first = service.seededRandom(7L, 1L);
+        Random second = service.seededRandom(7L, 2L);
+        Random again = service.seededRandom(7L, 1L);
+        long[] firstValues = new long[8];
+        long[] secondValues = new long[8];
+        long[] againValues = new long[8];
+        for (int i = 0; i < 8; i++) {
+            firstValues[i] = first.nextLong();
+            secondValues[i] = second.nextLong();
+            againValues[i] = again.nextLong();
+        }
+        assertEquals(Arrays.toString(firstValues), Arrays.toString(againValues));
+        assertFalse(Arrays.equals(firstValues, secondValues));
+        assertFalse(Arrays.equals(service.randomPermutation(20, service.seededRandom(7L, 0L)),
+                                  service.randomPermutation(20, service.seededRandom(8L, 0L))));
+    }
+
+    @Test
+    void permutationIsUniformOverSmallSets() {
+        // 3! orders, each drawn about 1/6 of the time across seeds
+        int[] counts = new int[6];
+        int draws = 60000;
+        for (int seed = 0; seed < draws; seed++) {
+            byte[] p = service.randomPermutation(3, service.seededRandom(seed, 0L));
+            counts[p[0] * 2 + (p[1] > p[2] ? 1 : 0)]++;
+        }
+        for (int count : counts) {
+            assertEquals(draws / 6.0, count, draws * 0.01);
+        }
+    }
+
+    @Test
+    void choicePermutationRelabelsChoices() {
+        String block = "Capital of France?\nA) Berlin\nB) Paris\nC) Rome";
+
+        String shuffled = service.applyChoicePermutation(block, new byte[] {2, 0, 1});
+
+        assertEquals("Capital of France?\nA) Rome\nB) Berlin\nC) Paris", shuffled);
+        assertEquals(block, service.applyChoicePermutation(block, new byte[] {1, 0}));
+        assertEquals(0, service.randomPermutation(1, new Random(1)).length);
+    }
+}
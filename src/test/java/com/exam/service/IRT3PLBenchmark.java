@@ -0,0 +1,142 @@
+package com.exam.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of IRT ability estimation at 50, 500 and 5,000 items.
+ *
+ * objectPath is the estimator as it was before ItemBank: boxed responses, ItemParameters
+ * getters and a separate information pass over the list on every Newton-Raphson iteration.
+ * listOverload is today's List-based entry point (converts, then runs the kernel), kernel the
+ * byte[]/ItemBank kernel alone, and batch a class of 1,000 students on the fork/join pool.
+ *
+ * Run with: mvn test-compile, then the main method below (from the IDE, or with java and the
+ * test classpath).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IRT3PLBenchmark {
+
+    private static final int CLASS_SIZE = 1000;
+
+    @Param({"50", "500", "5000"})
+    public int items;
+
+    private final IRT3PLService service = new IRT3PLService();
+    private ItemBank bank;
+    private List<IRT3PLService.ItemParameters> itemParams;
+    private List<Boolean> boxedResponses;
+    private byte[] responses;
+    private byte[][] classResponses;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        bank = ItemBank.defaults(items, random);
+        itemParams = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            itemParams.add(new IRT3PLService.ItemParameters(bank.getDiscrimination(i), bank.getDifficulty(i), bank.getGuessing(i)));
+        }
+        responses = simulate(random.nextGaussian(), random);
+        boxedResponses = new ArrayList<>(items);
+        for (byte response : responses) {
+            boxedResponses.add(response == 1);
+        }
+        classResponses = new byte[CLASS_SIZE][];
+        for (int student = 0; student < CLASS_SIZE; student++) {
+            classResponses[student] = simulate(random.nextGaussian(), random);
+        }
+    }
+
+    @Benchmark
+    public double objectPath() {
+        return estimateWithObjects(boxedResponses, itemParams);
+    }
+
+    @Benchmark
+    public IRT3PLService.AbilityEstimate listOverload() {
+        return service.estimateAbility(boxedResponses, itemParams);
+    }
+
+    @Benchmark
+    public IRT3PLService.AbilityEstimate kernel() {
+        return service.estimateAbility(responses, bank);
+    }
+
+    @Benchmark
+    public IRT3PLService.BatchEstimate batch() {
+        return service.estimateAbilities(classResponses, bank);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IRT3PLBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private byte[] simulate(double theta, Random random) {
+        byte[] row = new byte[items];
+        for (int i = 0; i < items; i++) {
+            row[i] = (byte) (random.nextDouble() < bank.probability(i, theta) ? 1 : 0);
+        }
+        return row;
+    }
+
+    // The object-based estimator ItemBank replaced, kept here as the baseline
+    private double estimateWithObjects(List<Boolean> responses, List<IRT3PLService.ItemParameters> params) {
+        double theta = 0.0;
+        double previousTheta;
+        int iterations = 0;
+        do {
+            previousTheta = theta;
+            double firstDerivative = 0.0;
+            for (int i = 0; i < responses.size(); i++) {
+                IRT3PLService.ItemParameters item = params.get(i);
+                double a = item.getDiscrimination();
+                double c = item.getGuessing();
+                double prob = service.calculateProbability(theta, item);
+                double pStar = (prob - c) / (1 - c);
+                firstDerivative += a * pStar * ((responses.get(i) ? 1.0 : 0.0) - prob) / prob;
+            }
+            double information = informationWithObjects(theta, params);
+            if (information > 0.0001) {
+                theta = previousTheta + firstDerivative / information;
+            }
+            theta = Math.max(-4.0, Math.min(4.0, theta));
+            iterations++;
+        } while (Math.abs(theta - previousTheta) > 0.001 && iterations < 50);
+        return theta;
+    }
+
+    private double informationWithObjects(double theta, List<IRT3PLService.ItemParameters> params) {
+        double information = 0.0;
+        for (IRT3PLService.ItemParameters item : params) {
+            double a = item.getDiscrimination();
+            double c = item.getGuessing();
+            double prob = service.calculateProbability(theta, item);
+            double pStar = (prob - c) / (1 - c);
+            information += a * a * (1 - c) * pStar * pStar * (1 - pStar) / prob;
+        }
+        return information;
+    }
+}
@@ -0,0 +1,130 @@
+package com.exam.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemCalibratorTest {
+
+    @Test
+    void gaussHermiteIntegratesNormalMoments() {
+        for (int points : new int[] {5, 11, 21, 41}) {
+            double[] nodes = new double[points];
+            double[] weights = new double[points];
+            ItemCalibrator.gaussHermite(points, nodes, weights);
+
+            double[] moments = new double[7];
+            for (int q = 0; q < points; q++) {
+                assertEquals(-nodes[q], nodes[points - 1 - q], 1e-12, "nodes symmetric");
+                assertEquals(weights[q], weights[points - 1 - q], 1e-12, "weights symmetric");
+                for (int k = 0; k < moments.length; k++) {
+                    moments[k] += weights[q] * Math.pow(nodes[q], k);
+                }
+            }
+            // E[x^k] of the standard normal: 1, 0, 1, 0, 3, 0, 15
+            assertEquals(1.0, moments[0], 1e-10);
+            assertEquals(0.0, moments[1], 1e-10);
+            assertEquals(1.0, moments[2], 1e-10);
+            assertEquals(0.0, moments[3], 1e-10);
+            assertEquals(3.0, moments[4], 1e-9);
+            assertEquals(15.0, moments[6], 1e-8);
+        }
+    }
+
+    @Test
+    void gaussHermiteTwoPointsAreMinusOneAndOne() {
+        double[] nodes = new double[2];
+        double[] weights = new double[2];
+        ItemCalibrator.gaussHermite(2, nodes, weights);
+        assertEquals(1.0, nodes[0], 1e-12);
+        assertEquals(-1.0, nodes[1], 1e-12);
+        assertEquals(0.5, weights[0], 1e-12);
+        assertEquals(0.5, weights[1], 1e-12);
+    }
+
+    @Test
+    void recoversParametersFromSimulated3PLData() {
+        Random random = new Random(2024);
+        int students = 5000;
+        int items = 20;
+        double[] a = new double[items];
+        double[] b = new double[items];
+        double[] c = new double[items];
+        for (int i = 0; i < items; i++) {
+            a[i] = 0.8 + 1.2 * random.nextDouble();
+            b[i] = -2.0 + 4.0 * i / (items - 1);
+            c[i] = 0.1 + 0.15 * random.nextDouble();
+        }
+        byte[][] responses = simulate(random, students, a, b, c);
+
+        ItemCalibrator.Calibration calibration = new ItemCalibrator().calibrate(responses, items);
+        ItemBank bank = calibration.getBank();
+
+        assertTrue(calibration.isConverged(), "EM converged");
+        assertEquals(students, calibration.getStudents());
+        double aError = 0.0;
+        double bError = 0.0;
+        double cError = 0.0;
+        for (int i = 0; i < items; i++) {
+            assertEquals(students, calibration.getResponseCounts()[i]);
+            aError += Math.abs(bank.getDiscrimination(i) - a[i]);
+            bError += Math.abs(bank.getDifficulty(i) - b[i]);
+            cError += Math.abs(bank.getGuessing(i) - c[i]);
+        }
+        assertTrue(aError / items < 0.25, "mean |a error| " + aError / items);
+        assertTrue(bError / items < 0.2, "mean |b error| " + bError / items);
+        assertTrue(cError / items < 0.06, "mean |c error| " + cError / items);
+    }
+
+    @Test
+    void logLikelihoodRisesOverTheFirstCycles() {
+        Random random = new Random(5);
+        double[] a = {1.0, 1.5, 0.8, 2.0, 1.2, 1.0, 1.7, 0.9};
+        double[] b = {-1.5, -1.0, -0.5, 0.0, 0.3, 0.8, 1.2, 1.8};
+        double[] c = {0.2, 0.15, 0.25, 0.1, 0.2, 0.2, 0.15, 0.2};
+        byte[][] responses = simulate(random, 2000, a, b, c);
+
+        double[] logLikelihoods = new ItemCalibrator().calibrate(responses, a.length).getLogLikelihoods();
+        assertTrue(logLikelihoods.length > 1);
+        assertTrue(logLikelihoods[logLikelihoods.length - 1] > logLikelihoods[0], "log-likelihood improved");
+        for (int cycle = 1; cycle < logLikelihoods.length; cycle++) {
+            assertTrue(logLikelihoods[cycle] >= logLikelihoods[cycle - 1] - 1.0,
+                       "cycle " + cycle + ": " + logLikelihoods[cycle - 1] + " -> " + logLikelihoods[cycle]);
+        }
+    }
+
+    @Test
+    void priorsKeepSparseAndPerfectItemsInRange() {
+        // Item 0: everyone right, item 1: three answers, item 2: nobody answered
+        byte[][] responses = new byte[50][];
+        for (int s = 0; s < responses.length; s++) {
+            responses[s] = new byte[] {1, (byte) (s < 3 ? s % 2 : -1), -1};
+        }
+
+        ItemBank bank = new ItemCalibrator().calibrate(responses, 3).getBank();
+        for (int i = 0; i < 2; i++) {
+            assertTrue(bank.getDiscrimination(i) >= 0.2 && bank.getDiscrimination(i) <= 4.0, "a in range");
+            assertTrue(Math.abs(bank.getDifficulty(i)) <= 4.0, "b in range");
+            assertTrue(bank.getGuessing(i) >= 0.0 && bank.getGuessing(i) <= 0.5, "c in range");
+        }
+        assertTrue(bank.getDifficulty(0) < 0, "an item everyone got right is easy");
+        assertEquals(1.0, bank.getDiscrimination(2), 0.0);
+        assertEquals(0.0, bank.getDifficulty(2), 0.0);
+        assertEquals(0.2, bank.getGuessing(2), 0.0);
+    }
+
+    private static byte[][] simulate(Random random, int students, double[] a, double[] b, double[] c) {
+        byte[][] responses = new byte[students][a.length];
+        for (int s = 0; s < students; s++) {
+            double theta = random.nextGaussian();
+            for (int i = 0; i < a.length; i++) {
+                double p = c[i] + (1 - c[i]) / (1 + Math.exp(-a[i] * (theta - b[i])));
+                responses[s][i] = (byte) (random.nextDouble() < p ? 1 : 0);
+            }
+        }
+        return responses;
+    }
+}
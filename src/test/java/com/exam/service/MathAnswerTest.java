@@ -0,0 +1,78 @@
+package com.exam.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MathAnswerTest {
+
+    @Test
+    void equivalentFractionsReduceToTheSameValue() {
+        MathAnswer twoThirds = MathAnswer.parse("2/3");
+        assertTrue(twoThirds.matches("4/6"));
+        assertTrue(twoThirds.matches("\\frac{2}{3}"));
+        assertTrue(twoThirds.matches("$\\dfrac{10}{15}$"));
+        assertTrue(twoThirds.matches("⅔"));
+        assertTrue(MathAnswer.parse("-1/2").matches("1/-2"));
+        assertTrue(MathAnswer.parse("-1/2").matches("−½"));
+        assertFalse(twoThirds.matches("3/2"));
+    }
+
+    @Test
+    void exactDecimalsEqualTheirFraction() {
+        assertTrue(MathAnswer.parse("3/4").matches("0.75"));
+        assertTrue(MathAnswer.parse("0.5").matches("1/2"));
+        assertTrue(MathAnswer.parse("0.50").matches(".5"));
+        assertTrue(MathAnswer.parse("2").matches("2.0"));
+        assertTrue(MathAnswer.parse("1,000").matches("1000"));
+    }
+
+    @Test
+    void roundedDecimalsNeedTwoPlaces() {
+        MathAnswer twoThirds = MathAnswer.parse("2/3");
+        assertTrue(twoThirds.matches("0.67"));
+        assertTrue(twoThirds.matches("0.667"));
+        assertFalse(twoThirds.matches("0.7"));
+        assertFalse(twoThirds.matches("0.66"));
+        assertFalse(twoThirds.matches("0.668"));
+    }
+
+    @Test
+    void rootsCompareAsASet() {
+        MathAnswer roots = MathAnswer.parse("x = 1 or x = 2/3");
+        assertEquals(2, roots.size());
+        assertTrue(roots.matches("2/3, 1"));
+        assertTrue(roots.matches("x=1 and x=4/6"));
+        assertFalse(roots.matches("1"));
+
+        MathAnswer plusMinus = MathAnswer.parse("x = ±2");
+        assertEquals(2, plusMinus.size());
+        assertTrue(plusMinus.matches("x = 2 or x = -2"));
+        assertTrue(plusMinus.matches("$\\pm 2$"));
+        assertEquals(1, MathAnswer.parse("±0").size());
+    }
+
+    @Test
+    void pointsKeepTheirOrder() {
+        MathAnswer point = MathAnswer.parse("(1, 2)");
+        assertTrue(point.matches("(1, 2)"));
+        assertFalse(point.matches("(2, 1)"));
+        assertFalse(point.matches("1, 2"));
+    }
+
+    @Test
+    void nonNumericTextIsNotAMathAnswer() {
+        assertNull(MathAnswer.parse(null));
+        assertNull(MathAnswer.parse(""));
+        assertNull(MathAnswer.parse("photosynthesis"));
+        assertNull(MathAnswer.parse("2x + 1"));
+        assertNull(MathAnswer.parse("1/0"));
+        assertNull(MathAnswer.parse("1 + 1 = 2"));
+        assertNull(MathAnswer.parse("1".repeat(201)));
+        assertNotNull(MathAnswer.parse("y_1 = -3"));
+    }
+}
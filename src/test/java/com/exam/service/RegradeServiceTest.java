@@ -0,0 +1,81 @@
+package com.exam.service;
+
+import com.exam.entity.AnswerDetails;
+import com.exam.service.ExamCatalog.UploadedExam;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RegradeServiceTest {
+
+    // v1 asks 2+2, 3*3 and 4*4; v2 deleted the second question
+    private static final QuestionRemap REMAP = new QuestionRemap(Map.of(1, 1));
+
+    private final DistributionTemplate version2 = DistributionTemplate.compile(
+        new UploadedExam("E1", "Squares", "Mathematics", "Exam",
+                         List.of("What is 2+2?", "What is 4*4?"), List.of("Easy", "Medium"),
+                         List.of("Arithmetic", "Arithmetic"), Map.of(1, "4", 2, "16"), LocalDateTime.now(), 2),
+        new FisherYatesService(), null);
+
+    @Test
+    void submissionStartedBeforeTheDeleteIsShifted() {
+        AnswerDetails gradedAtVersion1 = new AnswerDetails.Builder(3)
+            .add(1, 2, "16", "16", true)
+            .add(2, 1, "9", "9", true)
+            .add(3, 0, "5", "4", false)
+            .build();
+
+        AnswerDetails regraded = RegradeService.regrade(gradedAtVersion1, 1, version2, REMAP);
+
+        assertArrayEquals(new int[] {1, 2}, regraded.getQuestionNumbers());
+        assertArrayEquals(new int[] {1, 0}, regraded.getSourceQuestions());
+        assertArrayEquals(new String[] {"16", "5"}, regraded.getStudentAnswers());
+        assertArrayEquals(new String[] {"16", "4"}, regraded.getCorrectAnswers());
+        assertEquals(1, regraded.getCorrectCount());
+    }
+
+    @Test
+    void submissionGradedAfterTheDeleteIsNotShiftedAgain() {
+        AnswerDetails gradedAtVersion2 = new AnswerDetails.Builder(2)
+            .add(1, 1, "16", "16", true)
+            .add(2, 0, "4", "4", true)
+            .build();
+
+        AnswerDetails regraded = RegradeService.regrade(gradedAtVersion2, 2, version2, REMAP);
+
+        assertArrayEquals(new int[] {1, 0}, regraded.getSourceQuestions());
+        assertEquals(2, regraded.getCorrectCount());
+    }
+
+    @Test
+    void unknownVersionOrHistoryIsSkipped() {
+        AnswerDetails details = new AnswerDetails.Builder(1).add(1, 0, "4", "4", true).build();
+
+        assertNull(RegradeService.regrade(details, null, version2, REMAP));
+        assertNull(RegradeService.regrade(details, 0, version2, REMAP));
+        assertNull(RegradeService.regrade(new AnswerDetails.Builder(1).add(1, -1, "4", "4", true).build(),
+                                          1, version2, REMAP));
+    }
+
+    @Test
+    void remapComposesDeletesAcrossVersions() {
+        // v1 -> v2 deleted question 3, v2 -> v3 edited in place, v3 -> v4 deleted question 0
+        QuestionRemap remap = new QuestionRemap(Map.of(1, 3, 2, -1, 3, 0));
+
+        assertEquals(QuestionRemap.REMOVED, remap.map(0, 1, 4));
+        assertEquals(0, remap.map(1, 1, 4));
+        assertEquals(QuestionRemap.REMOVED, remap.map(3, 1, 4));
+        assertEquals(2, remap.map(4, 1, 4));
+        assertEquals(3, remap.map(4, 2, 4));
+        assertEquals(4, remap.map(4, 4, 4));
+        assertEquals(QuestionRemap.UNKNOWN, remap.map(1, 0, 4));
+        assertEquals(QuestionRemap.UNKNOWN, remap.map(1, 4, 2));
+    }
+}
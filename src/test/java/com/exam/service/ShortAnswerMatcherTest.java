@@ -0,0 +1,162 @@
+package com.exam.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortAnswerMatcherTest {
+
+    @Test
+    void boundedDistanceKnownCases() {
+        assertEquals(0, ShortAnswerMatcher.boundedDistance("mitochondria", "mitochondria", 2));
+        assertEquals(3, ShortAnswerMatcher.boundedDistance("kitten", "sitting", 3));
+        assertEquals(1, ShortAnswerMatcher.boundedDistance("photosynthesis", "photosynthesys", 2));
+        assertEquals(2, ShortAnswerMatcher.boundedDistance("flaw", "lawn", 2));
+        assertEquals(3, ShortAnswerMatcher.boundedDistance("", "abc", 3));
+        assertEquals(3, ShortAnswerMatcher.boundedDistance("abc", "", 3));
+    }
+
+    @Test
+    void boundedDistanceStopsAtLimit() {
+        // Over the limit the result is k + 1, whatever the true distance
+        assertEquals(3, ShortAnswerMatcher.boundedDistance("kitten", "sitting", 2));
+        assertEquals(2, ShortAnswerMatcher.boundedDistance("abcdef", "uvwxyz", 1));
+        assertEquals(2, ShortAnswerMatcher.boundedDistance("abc", "abcdefgh", 1));
+    }
+
+    @Test
+    void boundedDistanceAgreesWithFullLevenshtein() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 5000; trial++) {
+            String a = randomWord(random, random.nextInt(12));
+            String b = mutate(random, a, random.nextInt(5));
+            int k = random.nextInt(4);
+            int expected = Math.min(levenshtein(a, b), k + 1);
+            assertEquals(expected, ShortAnswerMatcher.boundedDistance(a, b, k), a + " / " + b + " k=" + k);
+        }
+    }
+
+    @Test
+    void trigramBoundNeverRejectsAnAnswerWithinTheLimit() {
+        // matches() checks the q-gram count before the edit distance; it may only skip answers
+        // that are over the limit anyway
+        Random random = new Random(11);
+        for (int trial = 0; trial < 5000; trial++) {
+            int k = 1 + random.nextInt(ShortAnswerMatcher.MAX_EDITS);
+            String correct = randomWord(random, 5 + random.nextInt(15));
+            String student = mutate(random, correct, random.nextInt(k + 3));
+            ShortAnswerMatcher matcher = ShortAnswerMatcher.compile("[FUZZY=" + k + "]" + correct);
+            boolean expected = !student.isEmpty() && levenshtein(student, correct) <= k;
+            assertEquals(expected, matcher.matches(student), correct + " / " + student + " k=" + k);
+        }
+    }
+
+    @Test
+    void defaultEditThresholds() {
+        // None up to 4 characters, 1 up to 8, 2 beyond
+        ShortAnswerMatcher shortWord = ShortAnswerMatcher.compile("cell");
+        assertTrue(shortWord.matches("Cell."));
+        assertFalse(shortWord.matches("call"));
+
+        ShortAnswerMatcher medium = ShortAnswerMatcher.compile("nucleus");
+        assertTrue(medium.matches("nucleos"));
+        assertFalse(medium.matches("nucleoss"));
+
+        ShortAnswerMatcher longWord = ShortAnswerMatcher.compile("mitochondria");
+        assertTrue(longWord.matches("mitocondrea"));
+        assertFalse(longWord.matches("mitocndrea"));
+    }
+
+    @Test
+    void directivesAndAlternatives() {
+        ShortAnswerMatcher exact = ShortAnswerMatcher.compile("[EXACT] mitochondria");
+        assertTrue(exact.matches("Mitochondria"));
+        assertFalse(exact.matches("mitocondria"));
+
+        ShortAnswerMatcher fuzzy = ShortAnswerMatcher.compile("[FUZZY=3] photosynthesis");
+        assertTrue(fuzzy.matches("fotosinthesis"));
+        assertFalse(fuzzy.matches("fotosintesis"));
+
+        ShortAnswerMatcher alternatives = ShortAnswerMatcher.compile("H2O || water");
+        assertTrue(alternatives.matches("water"));
+        assertTrue(alternatives.matches("h2o"));
+        assertFalse(alternatives.matches("h3o"));
+
+        assertNull(ShortAnswerMatcher.compile(" || "));
+    }
+
+    @Test
+    void numbersMustMatchExactly() {
+        ShortAnswerMatcher matcher = ShortAnswerMatcher.compile("World War 2 ended in 1945");
+        assertTrue(matcher.matches("world war 2 ended in 1945"));
+        assertFalse(matcher.matches("world war 2 ended in 1946"));
+        assertTrue(ShortAnswerMatcher.compile("x = 1 or x = 2/3").matches("2/3, 1"));
+    }
+
+    @Test
+    void keywordMatchingNeedsSeventyPercentAndLimitsLength() {
+        ShortAnswerMatcher matcher = ShortAnswerMatcher.compile("the heart pumps blood through the body");
+        assertTrue(matcher.matches("heart pumps the blood around the body"));
+        assertFalse(matcher.matches("the heart beats"));
+        assertFalse(matcher.matches("the heart pumps blood through the body lungs kidneys liver brain "
+            + "stomach bones muscles skin nerves veins arteries cells"));
+    }
+
+    @Test
+    void normalizeKeepsSymbolsAndDecimalPoints() {
+        assertEquals("c++ and c#", ShortAnswerMatcher.normalize("  C++, and C#! "));
+        assertEquals("3.14 is pi", ShortAnswerMatcher.normalize("3.14 is pi."));
+        assertEquals("-5%", ShortAnswerMatcher.normalize("(-5%)"));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+
+    private static String mutate(Random random, String text, int edits) {
+        StringBuilder result = new StringBuilder(text);
+        for (int e = 0; e < edits; e++) {
+            int position = result.length() == 0 ? 0 : random.nextInt(result.length());
+            switch (random.nextInt(3)) {
+                case 0 -> result.insert(position, (char) ('a' + random.nextInt(4)));
+                case 1 -> {
+                    if (result.length() > 0) {
+                        result.deleteCharAt(position);
+                    }
+                }
+                default -> {
+                    if (result.length() > 0) {
+                        result.setCharAt(position, (char) ('a' + random.nextInt(4)));
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                d[i][j] = Math.min(substitution, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
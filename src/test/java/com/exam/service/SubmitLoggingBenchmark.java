@@ -0,0 +1,202 @@
+package com.exam.service;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH benchmark of grading one 100-question submission with 4 concurrent submitters.
+ *
+ * println is the old submitExam loop: five synchronous, autoflushed println calls per question
+ * on a shared PrintStream (a temp file here, so the terminal doesn't skew the result). gated is
+ * the SubmissionPipeline loop at the default levels: per-question detail on the
+ * com.exam.grading.questions category is off and sampled, leaving only the level check.
+ * gatedAsync turns that category on at DEBUG, so every SAMPLE_EVERY-th submission logs its
+ * questions through an AsyncAppender set up as in logback-spring.xml (writing to a temp file).
+ * All grade with CompiledAnswer so the difference is the logging alone.
+ *
+ * Run with: mvn test-compile, then the main method below (from the IDE, or with java and the
+ * test classpath).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubmitLoggingBenchmark {
+
+    private static final int QUESTIONS = 100;
+    private static final int SAMPLE_EVERY = 50;
+    private static final Logger questionLog = LoggerFactory.getLogger("com.exam.grading.questions");
+
+    private final AtomicLong gradedCount = new AtomicLong();
+    private Map<Integer, String> key;
+    private Map<Integer, CompiledAnswer> compiledKey;
+    private Map<Integer, String> answers;
+    private File consoleFile;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() throws IOException {
+        key = new HashMap<>();
+        compiledKey = new HashMap<>();
+        answers = new HashMap<>();
+        String[] letters = {"A", "B", "C", "D"};
+        for (int i = 1; i <= QUESTIONS; i++) {
+            key.put(i, letters[i % 4]);
+            compiledKey.put(i, CompiledAnswer.compile(letters[i % 4], false));
+            answers.put(i, letters[(i * 7) % 4]);
+        }
+
+        consoleFile = File.createTempFile("submit-console", ".log");
+        console = new PrintStream(new FileOutputStream(consoleFile), true, StandardCharsets.UTF_8);
+
+        // Levels as in application.properties: question detail at INFO (off), root quiet
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        ((ch.qos.logback.classic.Logger) questionLog).setLevel(Level.INFO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        console.close();
+        consoleFile.delete();
+    }
+
+    @Benchmark
+    public int println() {
+        int score = 0;
+        for (int i = 1; i <= QUESTIONS; i++) {
+            String studentAns = answers.get(i);
+            String correctAns = key.get(i);
+            boolean isCorrect = compiledKey.get(i).matches(studentAns);
+            if (isCorrect) {
+                score++;
+            }
+
+            console.println("Question " + i + ":");
+            console.println("  Student Answer: '" + (studentAns != null ? studentAns.trim() : "NO ANSWER") + "'");
+            console.println("  Correct Answer: '" + (correctAns != null ? correctAns.trim() : "NOT SET") + "'");
+            console.println("  Result: " + (isCorrect ? "✓ CORRECT" : "✗ WRONG"));
+            console.println();
+        }
+        return score;
+    }
+
+    /**
+     * Question detail at DEBUG through an AsyncAppender configured like ASYNC_CONSOLE in
+     * logback-spring.xml. Each benchmark runs in its own fork, so the level change stays here.
+     */
+    @State(Scope.Benchmark)
+    public static class AsyncLogging {
+        private File logFile;
+        private AsyncAppender async;
+
+        @Setup
+        public void setUp() throws IOException {
+            LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+            logFile = File.createTempFile("submit-async", ".log");
+
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setContext(context);
+            encoder.setPattern("%d %-5level [%thread] %logger - %msg%n");
+            encoder.start();
+
+            FileAppender<ILoggingEvent> file = new FileAppender<>();
+            file.setContext(context);
+            file.setFile(logFile.getAbsolutePath());
+            file.setEncoder(encoder);
+            file.start();
+
+            async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(true);
+            async.addAppender(file);
+            async.start();
+
+            ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) questionLog;
+            logger.addAppender(async);
+            logger.setAdditive(false);
+            logger.setLevel(Level.DEBUG);
+        }
+
+        @TearDown
+        public void tearDown() {
+            ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) questionLog;
+            logger.detachAppender(async);
+            logger.setAdditive(true);
+            logger.setLevel(Level.INFO);
+            async.stop();
+            logFile.delete();
+        }
+    }
+
+    @Benchmark
+    public int gated() {
+        return grade();
+    }
+
+    @Benchmark
+    public int gatedAsync(AsyncLogging logging) {
+        return grade();
+    }
+
+    // The SubmissionPipeline loop: detail for a sampled submission only, if the category is on
+    private int grade() {
+        boolean logQuestions = questionLog.isDebugEnabled()
+            && gradedCount.getAndIncrement() % SAMPLE_EVERY == 0;
+        int score = 0;
+        for (int i = 1; i <= QUESTIONS; i++) {
+            String studentAns = answers.get(i);
+            String correctAns = key.get(i);
+            boolean isCorrect = compiledKey.get(i).matches(studentAns);
+            if (logQuestions) {
+                questionLog.debug("Q{}: '{}' vs '{}' -> {}", i, studentAns, correctAns,
+                                  isCorrect ? "correct" : "wrong");
+            }
+            if (isCorrect) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(SubmitLoggingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}